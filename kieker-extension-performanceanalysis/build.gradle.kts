@@ -37,6 +37,7 @@ dependencies {
 
     // util
     implementation("commons-io:commons-io:2.15.1")
+    implementation("org.tukaani:xz:1.9")
 }
 
 application {
@@ -50,7 +51,23 @@ java {
 }
 
 tasks.named<Test>("test") {
-    useJUnitPlatform()
+    useJUnitPlatform {
+        excludeTags("benchmark")
+    }
+}
+
+// the benchmarks of the test source set, tagged with "benchmark", they print their results
+tasks.register<Test>("benchmark") {
+    group = "verification"
+    description = "Runs the benchmarks."
+    testClassesDirs = sourceSets["test"].output.classesDirs
+    classpath = sourceSets["test"].runtimeClasspath
+    useJUnitPlatform {
+        includeTags("benchmark")
+    }
+    maxHeapSize = "2g"
+    testLogging.showStandardStreams = true
+    outputs.upToDateWhen { false }
 }
 
 tasks.register("deleteOutputFolder") {
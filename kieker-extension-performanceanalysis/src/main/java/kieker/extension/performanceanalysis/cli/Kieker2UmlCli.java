@@ -2,9 +2,14 @@ package kieker.extension.performanceanalysis.cli;
 
 import com.beust.jcommander.Parameter;
 import com.beust.jcommander.Parameters;
+import com.beust.jcommander.validators.PositiveInteger;
 import kieker.extension.performanceanalysis.cli.converters.PathConverter;
 import kieker.extension.performanceanalysis.cli.validators.FileIsPresentValidator;
 import kieker.extension.performanceanalysis.cli.validators.InputModelValidator;
+import kieker.extension.performanceanalysis.cli.validators.NonNegativeIntegerValidator;
+import kieker.extension.performanceanalysis.cli.validators.NonNegativeLongValidator;
+import kieker.extension.performanceanalysis.cli.validators.PositiveIntegerValidator;
+import kieker.extension.performanceanalysis.cli.validators.ProbabilityValidator;
 
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -41,12 +46,133 @@ public class Kieker2UmlCli {
             variableArity = true,
             description = "A directory or list of directories in which all files will be converted. " +
                     "The directories must contain kieker traces files. " +
+                    "Zip archives of kieker trace directories and .dat files compressed with gzip (.dat.gz) or xz (.dat.xz) " +
+                    "are read without extracting them, by the PARALLEL reader. " +
                     "The name of the output is the same as the input but with the extension '.uml'",
             converter = PathConverter.class,
             validateWith = FileIsPresentValidator.class
     )
     private List<Path> inputDirectories = new ArrayList<>();
 
+    @Parameter(names = {"--exec-time-samples"},
+            description = "The number of raw execution times that are kept for each GaStep in 'execTimeEntries'. " +
+                    "If more execution times are recorded a random selection is kept. " +
+                    "With 0 only the statistics (count, mean, variance, min, max) are kept.",
+            validateWith = NonNegativeIntegerValidator.class
+    )
+    private int execTimeSampleLimit = 0;
+
+    @Parameter(names = {"-w", "--workers"},
+            description = "The number of threads that digest and aggregate the reconstructed traces. " +
+                    "With more than one worker the traces are partitioned by their trace id and the partial results are merged " +
+                    "before the model is built, the resulting model is the same. With 0 one worker per available processor is used.",
+            validateWith = PositiveInteger.class
+    )
+    private int workers = 1;
+
+    @Parameter(names = {"--approximate-trace-ids"},
+            description = "The false positive probability with which already applied traces are recognized. " +
+                    "With a value between 0 and 1 the applied trace ids are kept in a Bloom filter, a new trace is then " +
+                    "skipped as already applied with this probability. With 0 the trace ids are kept exactly in a compressed bitmap.",
+            validateWith = ProbabilityValidator.class
+    )
+    private double traceIdFalsePositiveProbability = 0;
+
+    @Parameter(names = {"--arrival-rate-window"},
+            description = "The length of the time windows (in the unit of the Kieker timestamps, usually nanoseconds) in which the " +
+                    "arrival rate of each interaction is additionally calculated and written to the 'ArrivalRates' of its entry lifeline. " +
+                    "With 0 only the arrival rate over the whole recording is calculated.",
+            validateWith = NonNegativeLongValidator.class
+    )
+    private long arrivalRateWindow = 0;
+
+    @Parameter(names = {"--max-trace-duration"},
+            description = "The time (in the unit of the Kieker timestamps, usually nanoseconds) after the first execution of a trace " +
+                    "was logged after which the trace is closed. A trace that is incomplete when it is closed is dropped and reported. " +
+                    "With 0 the duration of the traces is unlimited.",
+            validateWith = NonNegativeLongValidator.class
+    )
+    private long maxTraceDuration = 0;
+
+    @Parameter(names = {"--trace-idle-timeout"},
+            description = "The time (in the unit of the Kieker timestamps, usually nanoseconds) without a new execution of a trace " +
+                    "after which the trace is closed and sent to the model. With 0 the traces are kept until the end of the input.",
+            validateWith = NonNegativeLongValidator.class
+    )
+    private long traceIdleTimeout = 0;
+
+    @Parameter(names = {"--max-open-traces"},
+            description = "The number of traces that are reconstructed at the same time. If more traces are open, " +
+                    "the trace that was idle the longest is closed. With 0 the number is unlimited.",
+            validateWith = NonNegativeIntegerValidator.class
+    )
+    private int maxOpenTraces = 0;
+
+    @Parameter(names = {"--threading"},
+            description = "The threading layout of the pipeline. SHARED runs the reading and dispatching in one thread and " +
+                    "the record transformation, trace reconstruction and UML building in another. PIPELINED runs the reader, " +
+                    "the dispatcher and record transformation, the trace reconstruction and the UML builder each in its own thread."
+    )
+    private Threading threading = Threading.SHARED;
+
+    @Parameter(names = {"--queue-capacity"},
+            description = "The capacity of the bounded queues between the threads of the pipeline, in records. " +
+                    "A full queue blocks its producer until the consumer catches up. The PARALLEL reader buffers the records " +
+                    "of each log directory in batches of 256, its queues hold capacity / 256 batches, at least one.",
+            validateWith = PositiveIntegerValidator.class
+    )
+    private int queueCapacity = 512;
+
+    @Parameter(names = {"--reader"},
+            description = "The reader of the log directories. KIEKER reads the directories one after the other with the Kieker reader. " +
+                    "PARALLEL parses each log directory in its own thread and merges the OperationExecutionRecords by their " +
+                    "logging timestamp, other record types are skipped. PARALLEL is used if an input is a zip archive."
+    )
+    private Reader reader = Reader.KIEKER;
+
+    @Parameter(names = {"--incremental"},
+            description = "Only reads the log files and the records appended to them since the model was extended the last time. " +
+                    "The files read are recorded next to the model in '<model>.ingest', a file is read again if it was replaced. " +
+                    "The PARALLEL reader is used."
+    )
+    private boolean incremental = false;
+
+    @Parameter(names = {"--watch"},
+            description = "Keeps running after the logs were read, watches the directories for new log files and appended records " +
+                    "and adds them to the model. The model is saved as a snapshot by --snapshot-interval and --snapshot-records, " +
+                    "stopping the process (e.g. with Ctrl+C) saves it a last time. Implies --incremental. " +
+                    "Use --trace-idle-timeout, otherwise the traces are only closed when the process is stopped."
+    )
+    private boolean watch = false;
+
+    @Parameter(names = {"--snapshot-interval"},
+            description = "With --watch, the time in milliseconds after which the model is saved if new records were read. With 0 the time is not considered.",
+            validateWith = NonNegativeLongValidator.class
+    )
+    private long snapshotInterval = 60_000;
+
+    @Parameter(names = {"--snapshot-records"},
+            description = "With --watch, the number of records after which the model is saved. With 0 the number is not considered.",
+            validateWith = NonNegativeLongValidator.class
+    )
+    private long snapshotRecords = 0;
+
+    /**
+     * The reader of the log directories, see {@link kieker.extension.performanceanalysis.kieker2uml.teetime.TeeTimeConfiguration}.
+     */
+    public enum Reader {
+        KIEKER,
+        PARALLEL
+    }
+
+    /**
+     * The threading layout of the TeeTime pipeline, see {@link kieker.extension.performanceanalysis.kieker2uml.teetime.TeeTimeConfiguration}.
+     */
+    public enum Threading {
+        SHARED,
+        PIPELINED
+    }
+
 
     public List<Path> getInputDirectories() {
         return inputDirectories;
@@ -59,4 +185,60 @@ public class Kieker2UmlCli {
     public String getUseCaseName() {
         return useCaseName;
     }
+
+    public int getExecTimeSampleLimit() {
+        return execTimeSampleLimit;
+    }
+
+    public int getWorkers() {
+        return workers;
+    }
+
+    public double getTraceIdFalsePositiveProbability() {
+        return traceIdFalsePositiveProbability;
+    }
+
+    public long getArrivalRateWindow() {
+        return arrivalRateWindow;
+    }
+
+    public long getMaxTraceDuration() {
+        return maxTraceDuration;
+    }
+
+    public long getTraceIdleTimeout() {
+        return traceIdleTimeout;
+    }
+
+    public int getMaxOpenTraces() {
+        return maxOpenTraces;
+    }
+
+    public Reader getReader() {
+        return reader;
+    }
+
+    public boolean isIncremental() {
+        return incremental;
+    }
+
+    public boolean isWatch() {
+        return watch;
+    }
+
+    public long getSnapshotInterval() {
+        return snapshotInterval;
+    }
+
+    public long getSnapshotRecords() {
+        return snapshotRecords;
+    }
+
+    public Threading getThreading() {
+        return threading;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
 }
@@ -0,0 +1,20 @@
+package kieker.extension.performanceanalysis.cli.validators;
+
+import com.beust.jcommander.IParameterValidator;
+import com.beust.jcommander.ParameterException;
+
+public class NonNegativeLongValidator implements IParameterValidator {
+
+    @Override
+    public void validate(final String name, final String value) throws ParameterException {
+        final long number;
+        try {
+            number = Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new ParameterException("Parameter " + name + " is not a number: " + value);
+        }
+        if (number < 0) {
+            throw new ParameterException("Parameter " + name + " cannot be negative: " + value);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package kieker.extension.performanceanalysis.cli.validators;
+
+import com.beust.jcommander.IParameterValidator;
+import com.beust.jcommander.ParameterException;
+
+public class PositiveIntegerValidator implements IParameterValidator {
+
+    @Override
+    public void validate(final String name, final String value) throws ParameterException {
+        final int number;
+        try {
+            number = Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new ParameterException("Parameter " + name + " is not an int number: " + value);
+        }
+        if (number <= 0) {
+            throw new ParameterException("Parameter " + name + " must be greater than 0: " + value);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package kieker.extension.performanceanalysis.cli.validators;
+
+import com.beust.jcommander.IParameterValidator;
+import com.beust.jcommander.ParameterException;
+
+public class ProbabilityValidator implements IParameterValidator {
+
+    @Override
+    public void validate(final String name, final String value) throws ParameterException {
+        final double probability;
+        try {
+            probability = Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            throw new ParameterException("Parameter " + name + " is not a number: " + value);
+        }
+        if (!(probability >= 0 && probability < 1)) {
+            throw new ParameterException("Parameter " + name + " must be at least 0 and less than 1: " + value);
+        }
+    }
+}
@@ -29,7 +29,13 @@ public class Kieker2Uml implements Runnable {
     @Override
     public void run() {
         final Kieker2UmlTeeTimeService service = Kieker2UmlTeeTimeService.getInstance(this.cli);
-        final int kieker2Uml = service.run("Kieker2Uml", "kieker-2-uml", args, service.getParameters());
+        final int kieker2Uml;
+        try {
+            kieker2Uml = service.run("Kieker2Uml", "kieker-2-uml", args, service.getParameters());
+        } finally {
+            // with --watch the shutdown hook waits until the model was saved a last time
+            service.analysisFinished();
+        }
         Util.validateUmlModel(service.getParameters().getModelPath());
         if (systemExitAfterExecution) {
             System.exit(kieker2Uml);
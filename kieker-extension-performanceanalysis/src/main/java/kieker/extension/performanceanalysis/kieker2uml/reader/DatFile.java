@@ -0,0 +1,196 @@
+package kieker.extension.performanceanalysis.kieker2uml.reader;
+
+import org.tukaani.xz.XZInputStream;
+
+import java.io.BufferedInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * <p>
+ * A {@code .dat} file of a {@link KiekerLogDirectory}: a file on disk, a file compressed with gzip ({@code .dat.gz})
+ * or xz ({@code .dat.xz}), or an entry of a zip archive (which may itself be compressed).
+ * </p>
+ * <p>
+ * An uncompressed file on disk is memory mapped by the {@link DatFileParser}, the others are decompressed while they
+ * are read, they are never written to disk.
+ * </p>
+ * <p>
+ * The size and the modification time are taken when the file is found. Since a watched file may grow meanwhile,
+ * {@link DatFile#refresh()} takes them again right before the file is read, they identify the state of the file that
+ * is read, see {@link IngestManifest}.
+ * </p>
+ */
+public final class DatFile {
+
+    public static final String GZIP_SUFFIX = ".gz";
+    public static final String XZ_SUFFIX = ".xz";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Path path;
+    private final String entry;
+    private final long size;
+    private final long lastModified;
+
+    private DatFile(final Path path, final String entry, final long size, final long lastModified) {
+        this.path = path;
+        this.entry = entry;
+        this.size = size;
+        this.lastModified = lastModified;
+    }
+
+    /**
+     * @param path a {@code .dat}, {@code .dat.gz} or {@code .dat.xz} file
+     * @throws UncheckedIOException if the size or modification time cannot be read
+     */
+    public static DatFile of(final Path path) {
+        requireNonNull(path, "path");
+        try {
+            return new DatFile(path, null, Files.size(path), Files.getLastModifiedTime(path).toMillis());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @param archive the zip archive
+     * @param entry   a {@code .dat}, {@code .dat.gz} or {@code .dat.xz} entry of the archive
+     */
+    public static DatFile ofZipEntry(final Path archive, final ZipEntry entry) {
+        requireNonNull(entry, "entry");
+        return new DatFile(requireNonNull(archive, "archive"), entry.getName(), entry.getSize(), entry.getTime());
+    }
+
+    /**
+     * @return the file with the size and modification time it has now
+     * @throws UncheckedIOException if the file, the archive or the entry cannot be read
+     */
+    public DatFile refresh() {
+        if (isNull(entry)) {
+            return of(path);
+        }
+        try (ZipFile zipFile = new ZipFile(path.toFile())) {
+            final ZipEntry zipEntry = zipFile.getEntry(entry);
+            if (isNull(zipEntry)) {
+                throw new IOException("The entry " + entry + " does not exist in " + path);
+            }
+            return ofZipEntry(path, zipEntry);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @param name a file or entry name
+     * @return true for {@code .dat}, {@code .dat.gz} and {@code .dat.xz}
+     */
+    public static boolean isDatFile(final String name) {
+        return name.endsWith(KiekerLogDirectory.DAT_SUFFIX)
+                || name.endsWith(KiekerLogDirectory.DAT_SUFFIX + GZIP_SUFFIX)
+                || name.endsWith(KiekerLogDirectory.DAT_SUFFIX + XZ_SUFFIX);
+    }
+
+    /**
+     * @return true if the file is an uncompressed file on disk that can be memory mapped
+     */
+    public boolean isMappable() {
+        return isNull(entry) && path.getFileName().toString().endsWith(KiekerLogDirectory.DAT_SUFFIX);
+    }
+
+    /**
+     * @return the file on disk, for an entry the zip archive
+     */
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * @return the name of the entry in the zip archive, empty for a file on disk
+     */
+    public Optional<String> getEntryName() {
+        return Optional.ofNullable(entry);
+    }
+
+    /**
+     * @return the size in bytes of the file or the entry when it was found or refreshed, -1 if the archive does not know it
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * @return the modification time in milliseconds when the file was found or refreshed
+     */
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * @return the decompressed content of the file, closing the stream closes the archive
+     * @throws IOException if the file or the archive cannot be opened
+     */
+    public InputStream open() throws IOException {
+        if (isNull(entry)) {
+            return decompress(path.getFileName().toString(), Files.newInputStream(path));
+        }
+        final ZipFile zipFile = new ZipFile(path.toFile());
+        try {
+            final ZipEntry zipEntry = zipFile.getEntry(entry);
+            if (isNull(zipEntry)) {
+                throw new IOException("The entry " + entry + " does not exist in " + path);
+            }
+            return decompress(entry, new ArchiveEntryInputStream(zipFile, zipFile.getInputStream(zipEntry)));
+        } catch (IOException | RuntimeException e) {
+            zipFile.close();
+            throw e;
+        }
+    }
+
+    private static InputStream decompress(final String name, final InputStream stream) throws IOException {
+        final InputStream buffered = new BufferedInputStream(stream, BUFFER_SIZE);
+        if (name.endsWith(GZIP_SUFFIX)) {
+            return new GZIPInputStream(buffered, BUFFER_SIZE);
+        }
+        if (name.endsWith(XZ_SUFFIX)) {
+            return new XZInputStream(buffered);
+        }
+        return buffered;
+    }
+
+    @Override
+    public String toString() {
+        return isNull(entry) ? path.toString() : path + "!/" + entry;
+    }
+
+    /**
+     * The stream of a zip entry that closes its archive.
+     */
+    private static final class ArchiveEntryInputStream extends FilterInputStream {
+        private final ZipFile zipFile;
+
+        private ArchiveEntryInputStream(final ZipFile zipFile, final InputStream stream) {
+            super(stream);
+            this.zipFile = zipFile;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                zipFile.close();
+            }
+        }
+    }
+}
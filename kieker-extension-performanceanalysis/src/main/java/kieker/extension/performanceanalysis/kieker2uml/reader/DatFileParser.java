@@ -0,0 +1,345 @@
+package kieker.extension.performanceanalysis.kieker2uml.reader;
+
+import kieker.common.record.controlflow.OperationExecutionRecord;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * <p>
+ * Parses the {@link OperationExecutionRecord}s of the {@code .dat} files of a {@link KiekerLogDirectory}.
+ * Each line is a record: {@code $<type id>;<logging timestamp>;<fields separated by ';'>}, a ';' or '\' within a
+ * field is escaped by a '\'. The records of other types are skipped, the Kieker2Uml pipeline only processes
+ * {@link OperationExecutionRecord}s.
+ * </p>
+ * <p>
+ * The uncompressed files are memory mapped and parsed from the mapped bytes, the compressed files are decompressed
+ * by a {@link ReadAheadInputStream} in parallel to the parsing and parsed from its chunks: the type id is resolved once from the
+ * {@code kieker.map}, the numbers are parsed directly from the bytes and the strings (signature, session id, host name),
+ * which repeat in almost every record, are looked up in a cache by their bytes. A string is only decoded the first
+ * time it is seen, so no {@link String} is allocated per line or field.
+ * </p>
+ * <p>
+ * The parser is not thread safe, each thread uses its own parser.
+ * </p>
+ */
+public final class DatFileParser {
+
+    /** files are mapped in regions of this size, a region ends with the last complete line */
+    private static final long MAX_REGION = 256L * 1024 * 1024;
+    private static final int OPERATION_EXECUTION_FIELDS = 9;
+    private static final int CHUNK_SIZE = 1024 * 1024;
+    private static final int READ_AHEAD_CHUNKS = 4;
+
+    private final int operationExecutionType;
+    private final int[] fieldStarts = new int[OPERATION_EXECUTION_FIELDS];
+    private final int[] fieldEnds = new int[OPERATION_EXECUTION_FIELDS];
+    private final boolean[] fieldEscaped = new boolean[OPERATION_EXECUTION_FIELDS];
+    private final StringCache strings = new StringCache();
+    private long skippedRecords = 0;
+    private DatFile datFile;
+    private long lineNumber;
+    private long startOffset;
+
+    /**
+     * @param directory the directory of the files, its {@code kieker.map} resolves the record types
+     */
+    public DatFileParser(final KiekerLogDirectory directory) {
+        requireNonNull(directory, "directory");
+        this.operationExecutionType = directory.getRecordTypes().entrySet().stream()
+                .filter(type -> type.getValue().equals(OperationExecutionRecord.class.getName()))
+                .mapToInt(Map.Entry::getKey)
+                .findFirst()
+                .orElse(-1);
+    }
+
+    /**
+     * Parses the file from the given offset, e.g. the offset returned by a previous call to read the records that
+     * were appended since then. The offset counts the decompressed bytes, a compressed file is decompressed from its start.
+     * A last line without line break is not parsed, Kieker ends every record with a line break, so the line is
+     * still being written and is parsed from the returned offset when it is complete.
+     * @param datFile     a {@code .dat} file of the directory
+     * @param startOffset the offset of the first line that is parsed, 0 to parse the whole file
+     * @param consumer    receives the records in the order of the file
+     * @return the offset after the last line that was parsed
+     * @throws UncheckedIOException if the file cannot be read
+     * @throws IllegalArgumentException if a record is malformed
+     */
+    public long parse(final DatFile datFile, final long startOffset, final Consumer<OperationExecutionRecord> consumer) {
+        requireNonNull(consumer, "consumer");
+        this.datFile = requireNonNull(datFile, "datFile");
+        if (startOffset < 0) {
+            throw new IllegalArgumentException("The start offset must not be negative. Value: " + startOffset);
+        }
+        this.lineNumber = 0;
+        this.startOffset = startOffset;
+        try {
+            if (datFile.isMappable()) {
+                return parseMapped(datFile.getPath(), startOffset, consumer);
+            }
+            try (InputStream stream = new ReadAheadInputStream(datFile.open(), "decompress-" + datFile.getPath().getFileName(),
+                    CHUNK_SIZE, READ_AHEAD_CHUNKS)) {
+                return parseStream(stream, startOffset, consumer);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private long parseMapped(final Path path, final long startOffset, final Consumer<OperationExecutionRecord> consumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final long size = channel.size();
+            long position = startOffset;
+            while (position < size) {
+                final long length = Math.min(MAX_REGION, size - position);
+                final ByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                final boolean last = position + length == size;
+                final int parsed = parseRegion(region, consumer);
+                position += parsed;
+                if (last) {
+                    break;
+                }
+                if (parsed == 0) {
+                    throw tooLong();
+                }
+            }
+            return position;
+        }
+    }
+
+    private long parseStream(final InputStream stream, final long startOffset, final Consumer<OperationExecutionRecord> consumer) throws IOException {
+        long position = 0;
+        while (position < startOffset) {
+            long skipped = stream.skip(startOffset - position);
+            if (skipped <= 0) {
+                if (stream.read() < 0) {
+                    return position;
+                }
+                skipped = 1;
+            }
+            position += skipped;
+        }
+        byte[] buffer = new byte[CHUNK_SIZE];
+        int filled = 0;
+        boolean end = false;
+        while (!end) {
+            final int read = stream.read(buffer, filled, buffer.length - filled);
+            if (read < 0) {
+                end = true;
+            } else {
+                filled += read;
+                if (filled < buffer.length) {
+                    continue;
+                }
+            }
+            final int parsed = parseRegion(ByteBuffer.wrap(buffer, 0, filled), consumer);
+            position += parsed;
+            if (parsed == 0 && !end) {
+                // a line longer than the buffer
+                if (buffer.length >= MAX_REGION) {
+                    throw tooLong();
+                }
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                continue;
+            }
+            System.arraycopy(buffer, parsed, buffer, 0, filled - parsed);
+            filled -= parsed;
+        }
+        return position;
+    }
+
+    private IllegalArgumentException tooLong() {
+        return new IllegalArgumentException("A record in " + datFile + " after " + getLine() + " is longer than " + MAX_REGION + " bytes");
+    }
+
+    private String getLine() {
+        return startOffset == 0 ? "line " + lineNumber : "line " + lineNumber + " after offset " + startOffset;
+    }
+
+    /**
+     * @return the number of records of other types than {@link OperationExecutionRecord} that were skipped
+     */
+    public long getSkippedRecords() {
+        return skippedRecords;
+    }
+
+    /**
+     * An incomplete last line is left for the next region or, at the end of the file, for the next parse.
+     * @return the number of bytes parsed, i.e. the start of the first line that was not parsed
+     */
+    private int parseRegion(final ByteBuffer region, final Consumer<OperationExecutionRecord> consumer) {
+        final int limit = region.limit();
+        int lineStart = 0;
+        while (lineStart < limit) {
+            int lineEnd = lineStart;
+            while (lineEnd < limit && region.get(lineEnd) != '\n') {
+                lineEnd++;
+            }
+            if (lineEnd == limit) {
+                return lineStart;
+            }
+            final int next = lineEnd + 1;
+            if (lineEnd > lineStart && region.get(lineEnd - 1) == '\r') {
+                lineEnd--;
+            }
+            lineNumber++;
+            if (lineEnd > lineStart) {
+                parseLine(region, lineStart, lineEnd, consumer);
+            }
+            lineStart = next;
+        }
+        return lineStart;
+    }
+
+    private void parseLine(final ByteBuffer region, final int start, final int end, final Consumer<OperationExecutionRecord> consumer) {
+        if (region.get(start) != '$') {
+            throw malformed(region, start, end);
+        }
+        int typeEnd = start + 1;
+        while (typeEnd < end && region.get(typeEnd) != ';') {
+            typeEnd++;
+        }
+        if (typeEnd == end) {
+            throw malformed(region, start, end);
+        }
+        if (parseLong(region, start + 1, typeEnd, start, end) != operationExecutionType) {
+            skippedRecords++;
+            return;
+        }
+
+        int count = 0;
+        int fieldStart = typeEnd + 1;
+        boolean escaped = false;
+        for (int i = fieldStart; i <= end && count < OPERATION_EXECUTION_FIELDS; i++) {
+            final byte b = i < end ? region.get(i) : (byte) ';';
+            if (b == '\\' && i + 1 < end) {
+                escaped = true;
+                i++;
+            } else if (b == ';') {
+                fieldStarts[count] = fieldStart;
+                fieldEnds[count] = i;
+                fieldEscaped[count] = escaped;
+                count++;
+                fieldStart = i + 1;
+                escaped = false;
+            }
+        }
+        if (count != OPERATION_EXECUTION_FIELDS) {
+            throw malformed(region, start, end);
+        }
+
+        final OperationExecutionRecord record = new OperationExecutionRecord(
+                getString(region, 1),
+                getString(region, 2),
+                parseLong(region, fieldStarts[3], fieldEnds[3], start, end),
+                parseLong(region, fieldStarts[4], fieldEnds[4], start, end),
+                parseLong(region, fieldStarts[5], fieldEnds[5], start, end),
+                getString(region, 6),
+                (int) parseLong(region, fieldStarts[7], fieldEnds[7], start, end),
+                (int) parseLong(region, fieldStarts[8], fieldEnds[8], start, end));
+        record.setLoggingTimestamp(parseLong(region, fieldStarts[0], fieldEnds[0], start, end));
+        consumer.accept(record);
+    }
+
+    private String getString(final ByteBuffer region, final int field) {
+        final int start = fieldStarts[field];
+        final int end = fieldEnds[field];
+        if (!fieldEscaped[field]) {
+            return strings.get(region, start, end);
+        }
+        final byte[] bytes = new byte[end - start];
+        int length = 0;
+        for (int i = start; i < end; i++) {
+            final byte b = region.get(i);
+            bytes[length++] = b == '\\' && i + 1 < end ? region.get(++i) : b;
+        }
+        return new String(bytes, 0, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @param lineStart the start of the line, for the error message
+     * @param lineEnd   the end of the line, for the error message
+     */
+    private long parseLong(final ByteBuffer region, final int start, final int end, final int lineStart, final int lineEnd) {
+        int i = start;
+        final boolean negative = i < end && region.get(i) == '-';
+        if (negative) {
+            i++;
+        }
+        if (i == end) {
+            throw malformed(region, lineStart, lineEnd);
+        }
+        long value = 0;
+        for (; i < end; i++) {
+            final int digit = region.get(i) - '0';
+            if (digit < 0 || digit > 9) {
+                throw malformed(region, lineStart, lineEnd);
+            }
+            value = value * 10 + digit;
+        }
+        return negative ? -value : value;
+    }
+
+    private IllegalArgumentException malformed(final ByteBuffer region, final int start, final int end) {
+        return new IllegalArgumentException("Malformed record in " + datFile + " at " + getLine() + ": "
+                + new String(copy(region, start, end), StandardCharsets.UTF_8));
+    }
+
+    private static byte[] copy(final ByteBuffer region, final int start, final int end) {
+        final byte[] bytes = new byte[end - start];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = region.get(start + i);
+        }
+        return bytes;
+    }
+
+    /**
+     * Maps the bytes of a field to their decoded string. The table has a fixed size, a slot is overwritten by a
+     * string with the same hash slot, so the cache is bounded for logs with many distinct strings.
+     */
+    private static final class StringCache {
+        private static final int SIZE = 4096;
+        private final byte[][] keys = new byte[SIZE][];
+        private final String[] values = new String[SIZE];
+
+        private String get(final ByteBuffer region, final int start, final int end) {
+            int hash = 1;
+            for (int i = start; i < end; i++) {
+                hash = 31 * hash + region.get(i);
+            }
+            final int slot = (hash ^ (hash >>> 16)) & (SIZE - 1);
+            final byte[] key = keys[slot];
+            if (key != null && equals(key, region, start, end)) {
+                return values[slot];
+            }
+            final byte[] bytes = copy(region, start, end);
+            final String value = new String(bytes, StandardCharsets.UTF_8);
+            keys[slot] = bytes;
+            values[slot] = value;
+            return value;
+        }
+
+        private static boolean equals(final byte[] key, final ByteBuffer region, final int start, final int end) {
+            if (key.length != end - start) {
+                return false;
+            }
+            for (int i = 0; i < key.length; i++) {
+                if (key[i] != region.get(start + i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
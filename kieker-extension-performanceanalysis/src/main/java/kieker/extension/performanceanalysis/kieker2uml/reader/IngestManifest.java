@@ -0,0 +1,204 @@
+package kieker.extension.performanceanalysis.kieker2uml.reader;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * <p>
+ * Records which part of each {@link DatFile} was read into a model, so the next run that extends the model only reads
+ * the files that were added and the records that were appended since then. It is saved next to the model
+ * ({@code <model>.ingest}) after the model was saved, a run that fails before does not change it.
+ * </p>
+ * <p>
+ * A file is identified by its real path and, for an entry of a zip archive, the name of the entry, so the same file is
+ * recognized when the logs are given by another path. Per file the size and the modification time, the offset after
+ * the last record that was read and a SHA-256 hash of the first bytes of the file (up to 64 KiB, at most up to the
+ * offset) are recorded. The size and the modification time must be taken before the file is read, see
+ * {@link DatFile#refresh()}: records appended while the file is read are then read by the next run from the offset,
+ * they are never skipped. A file whose size and modification time did not change is skipped. A changed file is continued at the offset if the hash of its first bytes
+ * is still the same, i.e. records were appended. Otherwise the file was replaced, e.g. by a new log with the same name,
+ * and it is read again from the start.
+ * </p>
+ * <p>
+ * The manifest is used by the readers of the directories concurrently, it is thread safe.
+ * </p>
+ */
+public final class IngestManifest {
+
+    public static final String FILE_SUFFIX = ".ingest";
+    /** the offset returned for files that did not change since they were read */
+    public static final long UNCHANGED = -1;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(IngestManifest.class);
+    private static final int HASHED_BYTES = 64 * 1024;
+    private static final String SEPARATOR = ";";
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private IngestManifest() {
+    }
+
+    /**
+     * @param modelPath the path of the UML model
+     * @return the path of the manifest of the model
+     */
+    public static Path getManifestPath(final Path modelPath) {
+        requireNonNull(modelPath, "modelPath");
+        return modelPath.resolveSibling(modelPath.getFileName() + FILE_SUFFIX);
+    }
+
+    /**
+     * @param path the file written by {@link IngestManifest#save(Path)}
+     * @return the loaded manifest, an empty manifest if the file does not exist
+     * @throws UncheckedIOException if the file cannot be read
+     * @throws IllegalArgumentException if the file is not a saved manifest
+     */
+    public static IngestManifest load(final Path path) {
+        requireNonNull(path, "path");
+        final IngestManifest manifest = new IngestManifest();
+        if (!Files.exists(path)) {
+            return manifest;
+        }
+        final Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        for (final String file : properties.stringPropertyNames()) {
+            final String value = properties.getProperty(file);
+            final String[] fields = value.split(SEPARATOR, -1);
+            if (fields.length != 4) {
+                throw new IllegalArgumentException("Unexpected entry in " + path + ": " + file + "=" + value);
+            }
+            try {
+                manifest.entries.put(file, new Entry(Long.parseLong(fields[0]), Long.parseLong(fields[1]),
+                        Long.parseLong(fields[2]), fields[3]));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Unexpected entry in " + path + ": " + file + "=" + value, e);
+            }
+        }
+        LOGGER.info(String.format("Ingest manifest loaded: %s files already read", manifest.entries.size()));
+        return manifest;
+    }
+
+    /**
+     * @param path the file to which the manifest is written
+     * @throws UncheckedIOException if the file cannot be written
+     */
+    public void save(final Path path) {
+        requireNonNull(path, "path");
+        final Properties properties = new Properties();
+        entries.forEach((file, entry) -> properties.setProperty(file,
+                entry.size + SEPARATOR + entry.lastModified + SEPARATOR + entry.offset + SEPARATOR + entry.hash));
+        try (Writer writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            properties.store(writer, "Kieker2Uml ingest manifest: <file>=<size>;<modification time>;<offset read>;<hash of the first bytes>");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @param datFile a file that is about to be read
+     * @return the offset from which the file is read, 0 for a new or replaced file, {@link #UNCHANGED} if the file
+     * did not change since it was read
+     * @throws UncheckedIOException if the real path or the first bytes of a changed file cannot be read
+     */
+    public long getStartOffset(final DatFile datFile) {
+        requireNonNull(datFile, "datFile");
+        final Entry entry = entries.get(key(datFile));
+        if (isNull(entry)) {
+            return 0;
+        }
+        if (entry.size == datFile.getSize() && entry.lastModified == datFile.getLastModified()) {
+            return UNCHANGED;
+        }
+        if (datFile.getSize() < entry.size || !entry.hash.equals(hash(datFile, entry.offset))) {
+            LOGGER.info(String.format("%s was replaced since it was read, it is read again", datFile));
+            return 0;
+        }
+        return entry.offset;
+    }
+
+    /**
+     * @param datFile the file that was read, with the size and modification time taken before it was read
+     * @param offset  the offset after the last record that was read, see {@link DatFileParser#parse(DatFile, long, java.util.function.Consumer)}
+     * @throws UncheckedIOException if the first bytes of the file cannot be read
+     */
+    public void update(final DatFile datFile, final long offset) {
+        requireNonNull(datFile, "datFile");
+        entries.put(key(datFile), new Entry(datFile.getSize(), datFile.getLastModified(), offset, hash(datFile, offset)));
+    }
+
+    /**
+     * @return the real path of the file, for an entry followed by "!/" and the name of the entry
+     */
+    private static String key(final DatFile datFile) {
+        final Path realPath;
+        try {
+            realPath = datFile.getPath().toRealPath();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return datFile.getEntryName().map(entry -> realPath + "!/" + entry).orElseGet(realPath::toString);
+    }
+
+    /**
+     * @return the hash of the first bytes of the decompressed content, up to {@link #HASHED_BYTES} but not beyond the offset
+     */
+    private static String hash(final DatFile datFile, final long offset) {
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported by this Java runtime", e);
+        }
+        final byte[] buffer = new byte[(int) Math.min(HASHED_BYTES, offset)];
+        try (InputStream stream = datFile.open()) {
+            int filled = 0;
+            int read;
+            while (filled < buffer.length && (read = stream.read(buffer, filled, buffer.length - filled)) >= 0) {
+                filled += read;
+            }
+            digest.update(buffer, 0, filled);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return String.format("%064x", new BigInteger(1, digest.digest()));
+    }
+
+    /**
+     * The state of a file when it was read.
+     */
+    private static final class Entry {
+        private final long size;
+        private final long lastModified;
+        private final long offset;
+        private final String hash;
+
+        private Entry(final long size, final long lastModified, final long offset, final String hash) {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.offset = offset;
+            this.hash = hash;
+        }
+    }
+}
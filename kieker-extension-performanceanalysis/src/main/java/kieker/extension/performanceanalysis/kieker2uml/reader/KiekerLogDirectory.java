@@ -0,0 +1,193 @@
+package kieker.extension.performanceanalysis.kieker2uml.reader;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * <p>
+ * A directory written by the Kieker ASCII file writer: the {@code kieker.map} with the record types and the
+ * {@code .dat} files with the records. The files are ordered by their name, which is the order Kieker wrote them in.
+ * The {@code .dat} files may be compressed ({@code .dat.gz}, {@code .dat.xz}), see {@link DatFile}.
+ * </p>
+ * <p>
+ * Like the Kieker reader, {@link KiekerLogDirectory#find(List)} searches the given paths recursively for directories
+ * with a {@code kieker.map}, e.g. a directory with one subdirectory per monitored service. Zip archives
+ * ({@code .zip}) are searched the same way, their directories are read from the archive without extracting it.
+ * </p>
+ */
+public final class KiekerLogDirectory {
+
+    public static final String MAP_FILE = "kieker.map";
+    public static final String DAT_SUFFIX = ".dat";
+    public static final String ZIP_SUFFIX = ".zip";
+
+    private final String name;
+    private final Map<Integer, String> recordTypes;
+    private final List<DatFile> datFiles;
+
+    private KiekerLogDirectory(final String name, final Map<Integer, String> recordTypes, final List<DatFile> datFiles) {
+        this.name = name;
+        this.recordTypes = Collections.unmodifiableMap(recordTypes);
+        this.datFiles = Collections.unmodifiableList(datFiles);
+    }
+
+    /**
+     * @param paths the input paths, each is a log directory, a zip archive or contains log directories and zip archives
+     * @return the log directories in the order of the paths, within a path ordered by their name
+     * @throws UncheckedIOException if a path cannot be searched or a directory cannot be read
+     */
+    public static List<KiekerLogDirectory> find(final List<Path> paths) {
+        requireNonNull(paths, "paths");
+        final List<KiekerLogDirectory> directories = new ArrayList<>();
+        for (final Path path : paths) {
+            try (Stream<Path> files = Files.walk(path)) {
+                final List<Path> found = files.filter(file -> isMapFile(file.getFileName().toString()) || isArchive(file))
+                        .sorted()
+                        .collect(Collectors.toList());
+                for (final Path file : found) {
+                    if (isArchive(file)) {
+                        directories.addAll(ofArchive(file));
+                    } else {
+                        directories.add(of(file.getParent()));
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return directories;
+    }
+
+    /**
+     * @param path an input path
+     * @return true if the path is a zip archive
+     */
+    public static boolean isArchive(final Path path) {
+        return path.getFileName().toString().endsWith(ZIP_SUFFIX) && Files.isRegularFile(path);
+    }
+
+    /**
+     * @param directory a directory with a {@code kieker.map}
+     * @return the log directory with its record types and {@code .dat} files
+     * @throws UncheckedIOException if the directory cannot be read
+     * @throws IllegalArgumentException if the {@code kieker.map} is malformed
+     */
+    public static KiekerLogDirectory of(final Path directory) {
+        requireNonNull(directory, "directory");
+        final Path mapFile = directory.resolve(MAP_FILE);
+        try (BufferedReader reader = Files.newBufferedReader(mapFile, StandardCharsets.UTF_8);
+             Stream<Path> files = Files.list(directory)) {
+            final Map<Integer, String> recordTypes = readRecordTypes(reader, mapFile.toString());
+            final List<DatFile> datFiles = files.filter(file -> DatFile.isDatFile(file.getFileName().toString()))
+                    .sorted(Comparator.comparing(file -> file.getFileName().toString()))
+                    .map(DatFile::of)
+                    .collect(Collectors.toList());
+            return new KiekerLogDirectory(directory.toString(), recordTypes, datFiles);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @param archive a zip archive
+     * @return the log directories in the archive, ordered by their name
+     * @throws UncheckedIOException if the archive cannot be read
+     * @throws IllegalArgumentException if a {@code kieker.map} is malformed
+     */
+    public static List<KiekerLogDirectory> ofArchive(final Path archive) {
+        requireNonNull(archive, "archive");
+        try (ZipFile zipFile = new ZipFile(archive.toFile())) {
+            final List<String> entries = zipFile.stream().filter(entry -> !entry.isDirectory())
+                    .map(ZipEntry::getName)
+                    .sorted()
+                    .collect(Collectors.toList());
+            final List<KiekerLogDirectory> directories = new ArrayList<>();
+            for (final String mapEntry : entries) {
+                if (!isMapFile(mapEntry)) {
+                    continue;
+                }
+                final String prefix = mapEntry.substring(0, mapEntry.length() - MAP_FILE.length());
+                final Map<Integer, String> recordTypes;
+                try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                        zipFile.getInputStream(zipFile.getEntry(mapEntry)), StandardCharsets.UTF_8))) {
+                    recordTypes = readRecordTypes(reader, archive + "!/" + mapEntry);
+                }
+                final List<DatFile> datFiles = entries.stream()
+                        .filter(entry -> entry.startsWith(prefix) && entry.indexOf('/', prefix.length()) < 0 && DatFile.isDatFile(entry))
+                        .map(entry -> DatFile.ofZipEntry(archive, zipFile.getEntry(entry)))
+                        .collect(Collectors.toList());
+                directories.add(new KiekerLogDirectory(archive + "!/" + prefix, recordTypes, datFiles));
+            }
+            return directories;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static boolean isMapFile(final String name) {
+        return name.equals(MAP_FILE) || name.endsWith("/" + MAP_FILE);
+    }
+
+    private static Map<Integer, String> readRecordTypes(final BufferedReader reader, final String mapFile) throws IOException {
+        final Map<Integer, String> recordTypes = new HashMap<>();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isEmpty()) {
+                continue;
+            }
+            final int separator = line.indexOf('=');
+            if (line.charAt(0) != '$' || separator < 0) {
+                throw new IllegalArgumentException("Malformed line in " + mapFile + ": " + line);
+            }
+            try {
+                recordTypes.put(Integer.parseInt(line.substring(1, separator)), line.substring(separator + 1));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Malformed record type id in " + mapFile + ": " + line, e);
+            }
+        }
+        return recordTypes;
+    }
+
+    /**
+     * @return the path of the directory, for a directory in an archive {@code <archive>!/<directory>}
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return the id of each record type -> the class name of the record type
+     */
+    public Map<Integer, String> getRecordTypes() {
+        return recordTypes;
+    }
+
+    /**
+     * @return the {@code .dat} files ordered by their name
+     */
+    public List<DatFile> getDatFiles() {
+        return datFiles;
+    }
+
+    @Override
+    public String toString() {
+        return "KiekerLogDirectory{" + name + ", datFiles=" + datFiles.size() + '}';
+    }
+}
@@ -0,0 +1,123 @@
+package kieker.extension.performanceanalysis.kieker2uml.reader;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * <p>
+ * Watches the input paths for new and changed files with a {@link WatchService}, e.g. the {@code .dat} files Kieker
+ * writes and appends to while the monitored application runs.
+ * </p>
+ * <p>
+ * The directories of the paths are watched recursively, directories created later are watched as soon as they are
+ * noticed. For a zip archive only the directory that contains it is watched. The watcher only tells that something changed,
+ * which files changed is determined by the {@link IngestManifest} when the directories are read again.
+ * </p>
+ */
+public final class LogDirectoryWatcher implements Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LogDirectoryWatcher.class);
+    private final WatchService watchService;
+
+    /**
+     * @param paths the input paths, log directories, directories that contain log directories or zip archives
+     * @throws UncheckedIOException if a directory cannot be watched
+     */
+    public LogDirectoryWatcher(final List<Path> paths) {
+        requireNonNull(paths, "paths");
+        try {
+            this.watchService = FileSystems.getDefault().newWatchService();
+            for (final Path path : paths) {
+                if (Files.isDirectory(path)) {
+                    register(path);
+                } else {
+                    path.toAbsolutePath().getParent().register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void register(final Path directory) throws IOException {
+        final List<Path> directories;
+        try (Stream<Path> files = Files.walk(directory)) {
+            directories = files.filter(Files::isDirectory).collect(Collectors.toList());
+        }
+        for (final Path watched : directories) {
+            watched.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        }
+    }
+
+    /**
+     * Waits until a file was created or changed, all changes that happened meanwhile are consumed.
+     * @param timeoutMillis the time to wait at most in milliseconds
+     * @return true if something changed, false if the time passed or the watcher was closed
+     * @throws InterruptedException if the thread was interrupted while waiting
+     */
+    public boolean awaitChange(final long timeoutMillis) throws InterruptedException {
+        try {
+            WatchKey key = watchService.poll(timeoutMillis, TimeUnit.MILLISECONDS);
+            if (isNull(key)) {
+                return false;
+            }
+            while (!isNull(key)) {
+                final Path directory = (Path) key.watchable();
+                for (final WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE) {
+                        final Path created = directory.resolve((Path) event.context());
+                        if (Files.isDirectory(created)) {
+                            registerCreated(created);
+                        }
+                    }
+                }
+                key.reset();
+                key = watchService.poll();
+            }
+            return true;
+        } catch (ClosedWatchServiceException e) {
+            return false;
+        }
+    }
+
+    private void registerCreated(final Path directory) {
+        try {
+            register(directory);
+            LOGGER.info("Watching the new directory " + directory);
+        } catch (IOException e) {
+            // the directory may have been removed again, it is read in the next pass if it still exists
+            LOGGER.warn(String.format("The new directory %s cannot be watched: %s", directory, e));
+        }
+    }
+
+    /**
+     * Stops watching, a thread waiting in {@link #awaitChange(long)} returns.
+     */
+    @Override
+    public void close() {
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
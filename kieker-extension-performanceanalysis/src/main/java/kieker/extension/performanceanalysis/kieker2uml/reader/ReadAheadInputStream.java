@@ -0,0 +1,129 @@
+package kieker.extension.performanceanalysis.kieker2uml.reader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * <p>
+ * Reads a stream ahead in its own thread, so the decompression of a compressed {@link DatFile} runs in parallel to
+ * its parsing. The chunks read ahead are passed through a bounded queue, a full queue stops the reading thread until
+ * the parser caught up.
+ * </p>
+ * <p>
+ * The stream is read by a single thread. Closing it stops the reading thread and closes the source.
+ * </p>
+ */
+final class ReadAheadInputStream extends InputStream {
+
+    private static final byte[] END = new byte[0];
+
+    private final InputStream source;
+    private final BlockingQueue<byte[]> chunks;
+    private final Thread reader;
+    private volatile IOException failure;
+    private byte[] chunk = END;
+    private int position = 0;
+    private boolean finished = false;
+
+    /**
+     * @param source    the stream to read ahead, e.g. a decompressing stream
+     * @param name      the name of the reading thread
+     * @param chunkSize the size of the chunks
+     * @param capacity  the number of chunks that are read ahead
+     */
+    ReadAheadInputStream(final InputStream source, final String name, final int chunkSize, final int capacity) {
+        this.source = requireNonNull(source, "source");
+        this.chunks = new ArrayBlockingQueue<>(capacity);
+        this.reader = new Thread(() -> readAhead(chunkSize), name);
+        this.reader.setDaemon(true);
+        this.reader.start();
+    }
+
+    private void readAhead(final int chunkSize) {
+        try {
+            while (true) {
+                final byte[] buffer = new byte[chunkSize];
+                int filled = 0;
+                int read = 0;
+                while (filled < chunkSize && (read = source.read(buffer, filled, chunkSize - filled)) >= 0) {
+                    filled += read;
+                }
+                if (filled > 0) {
+                    chunks.put(filled == chunkSize ? buffer : Arrays.copyOf(buffer, filled));
+                }
+                if (read < 0) {
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            failure = e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        try {
+            chunks.put(END);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        final byte[] single = new byte[1];
+        return read(single, 0, 1) < 0 ? -1 : single[0] & 0xFF;
+    }
+
+    @Override
+    public int read(final byte[] buffer, final int offset, final int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        if (position == chunk.length && !nextChunk()) {
+            return -1;
+        }
+        final int count = Math.min(length, chunk.length - position);
+        System.arraycopy(chunk, position, buffer, offset, count);
+        position += count;
+        return count;
+    }
+
+    private boolean nextChunk() throws IOException {
+        if (finished) {
+            return false;
+        }
+        try {
+            chunk = chunks.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Reading ahead was interrupted");
+        }
+        position = 0;
+        if (chunk == END) {
+            finished = true;
+            if (!isNull(failure)) {
+                throw failure;
+            }
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.interrupt();
+        try {
+            reader.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        source.close();
+    }
+}
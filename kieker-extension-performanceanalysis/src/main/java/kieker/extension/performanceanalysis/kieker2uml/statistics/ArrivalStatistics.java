@@ -0,0 +1,118 @@
+package kieker.extension.performanceanalysis.kieker2uml.statistics;
+
+import java.util.Collections;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * <p>
+ * Counts the arrivals of traces with primitive counters: the number of traces, the earliest start and the latest end
+ * timestamp. The open arrival rate is the number of traces divided by the time between the earliest start and the
+ * latest end.
+ * </p>
+ * <p>
+ * Optionally the arrivals are also counted per time window (by the start timestamp of the trace), so the arrival rate
+ * of each window shows bursts that the overall arrival rate averages away. A window of 0 counts no windows.
+ * </p>
+ */
+public final class ArrivalStatistics {
+
+    private final long window;
+    private final NavigableMap<Long, Long> windows = new TreeMap<>();
+    private long count = 0;
+    private long firstStartTimestamp = Long.MAX_VALUE;
+    private long lastEndTimestamp = Long.MIN_VALUE;
+
+    /**
+     * @param window the length of the time windows in the unit of the timestamps, 0 to count no windows
+     */
+    public ArrivalStatistics(final long window) {
+        if (window < 0) {
+            throw new IllegalArgumentException("The window cannot be negative. Value: " + window);
+        }
+        this.window = window;
+    }
+
+    public void add(final long startTimestamp, final long endTimestamp) {
+        count++;
+        firstStartTimestamp = Math.min(firstStartTimestamp, startTimestamp);
+        lastEndTimestamp = Math.max(lastEndTimestamp, endTimestamp);
+        if (window > 0) {
+            windows.merge(getWindowStart(startTimestamp), 1L, Long::sum);
+        }
+    }
+
+    /**
+     * Adds the arrivals counted in a window, e.g. restored from the model.
+     *
+     * @param windowStart the start of the window, see {@link ArrivalStatistics#getWindowStart(long)}
+     * @param arrivals    the number of arrivals in the window
+     */
+    public void addWindow(final long windowStart, final long arrivals) {
+        if (window == 0) {
+            throw new IllegalStateException("No windows are counted.");
+        }
+        if (Math.floorMod(windowStart, window) != 0) {
+            throw new IllegalArgumentException("The start " + windowStart + " is not the start of a window of length " + window);
+        }
+        windows.merge(windowStart, arrivals, Long::sum);
+    }
+
+    /**
+     * @param other the statistics to merge, it is not changed.
+     * @throws IllegalArgumentException if the windows have a different length
+     */
+    public void merge(final ArrivalStatistics other) {
+        requireNonNull(other, "other");
+        if (other.window != window) {
+            throw new IllegalArgumentException("The windows differ: " + window + " and " + other.window);
+        }
+        count += other.count;
+        firstStartTimestamp = Math.min(firstStartTimestamp, other.firstStartTimestamp);
+        lastEndTimestamp = Math.max(lastEndTimestamp, other.lastEndTimestamp);
+        other.windows.forEach((start, arrivals) -> windows.merge(start, arrivals, Long::sum));
+    }
+
+    /**
+     * @return the start of the window that contains the timestamp
+     */
+    public long getWindowStart(final long timestamp) {
+        return Math.floorDiv(timestamp, window) * window;
+    }
+
+    public long getWindow() {
+        return window;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @return the earliest start timestamp or {@link Long#MAX_VALUE} if no trace was added
+     */
+    public long getFirstStartTimestamp() {
+        return firstStartTimestamp;
+    }
+
+    /**
+     * @return the latest end timestamp or {@link Long#MIN_VALUE} if no trace was added
+     */
+    public long getLastEndTimestamp() {
+        return lastEndTimestamp;
+    }
+
+    /**
+     * @return the start of each window with arrivals -> the number of arrivals in the window
+     */
+    public NavigableMap<Long, Long> getWindows() {
+        return Collections.unmodifiableNavigableMap(windows);
+    }
+
+    @Override
+    public String toString() {
+        return "ArrivalStatistics{count=" + count + ", firstStartTimestamp=" + firstStartTimestamp + ", lastEndTimestamp=" + lastEndTimestamp + ", windows=" + windows.size() + '}';
+    }
+}
@@ -0,0 +1,221 @@
+package kieker.extension.performanceanalysis.kieker2uml.statistics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * <p>
+ * Streaming accumulator of execution times. Each sample is added in constant time and memory:
+ * </p>
+ * <ul>
+ *     <li>count and sum of the samples</li>
+ *     <li>mean and variance, updated with the algorithm of Welford</li>
+ *     <li>minimum and maximum</li>
+ * </ul>
+ * <p>
+ * The quantiles are estimated by a {@link LatencySketch} that is filled together with the statistics.
+ * </p>
+ * <p>
+ * Optionally a bounded number of raw samples is kept. If more samples are added than the bound allows, a uniform
+ * random selection of all samples is kept (reservoir sampling). A bound of 0 keeps no samples.
+ * </p>
+ * <p>
+ * Two accumulators can be merged, the result is the same as if all samples were added to a single accumulator
+ * (apart from the selection of the raw samples).
+ * </p>
+ */
+public final class ExecTimeStatistics {
+
+    private final int sampleLimit;
+    private final List<Double> samples;
+    private final SplittableRandom random;
+    private final LatencySketch sketch;
+    private long count = 0;
+    private double sum = 0;
+    private double mean = 0;
+    private double m2 = 0;
+    private double min = Double.NaN;
+    private double max = Double.NaN;
+
+    /**
+     * @param sampleLimit the maximum number of raw samples that are kept, 0 to keep none
+     */
+    public ExecTimeStatistics(final int sampleLimit) {
+        if (sampleLimit < 0) {
+            throw new IllegalArgumentException("The sample limit cannot be negative. Value: " + sampleLimit);
+        }
+        this.sampleLimit = sampleLimit;
+        this.samples = new ArrayList<>(Math.min(sampleLimit, 64));
+        this.random = new SplittableRandom(sampleLimit);
+        this.sketch = new LatencySketch();
+    }
+
+    private ExecTimeStatistics(final int sampleLimit, final LatencySketch sketch) {
+        this(sampleLimit);
+        this.sketch.merge(sketch);
+    }
+
+    /**
+     * Restores an accumulator from its persisted summary.
+     *
+     * @param sampleLimit the maximum number of raw samples that are kept, 0 to keep none
+     * @param count       the number of samples
+     * @param mean        the mean of the samples
+     * @param variance    the sample variance, see {@link ExecTimeStatistics#getVariance()}
+     * @param min         the minimum of the samples
+     * @param max         the maximum of the samples
+     * @param samples     raw samples, only the first sampleLimit are kept
+     * @param sketch      the sketch of the samples, it is copied
+     * @return the restored accumulator
+     */
+    public static ExecTimeStatistics restore(final int sampleLimit, final long count, final double mean, final double variance,
+                                             final double min, final double max, final List<Double> samples,
+                                             final LatencySketch sketch) {
+        requireNonNull(samples, "samples");
+        requireNonNull(sketch, "sketch");
+        if (count < 0) {
+            throw new IllegalArgumentException("The count cannot be negative. Value: " + count);
+        }
+        final ExecTimeStatistics statistics = new ExecTimeStatistics(sampleLimit, sketch);
+        if (count == 0) {
+            return statistics;
+        }
+        statistics.count = count;
+        statistics.mean = mean;
+        statistics.sum = mean * count;
+        statistics.m2 = count > 1 ? variance * (count - 1) : 0;
+        statistics.min = min;
+        statistics.max = max;
+        statistics.samples.addAll(samples.subList(0, Math.min(sampleLimit, samples.size())));
+        return statistics;
+    }
+
+    public void add(final double value) {
+        count++;
+        sum += value;
+        final double delta = value - mean;
+        mean += delta / count;
+        m2 += delta * (value - mean);
+        min = count == 1 ? value : Math.min(min, value);
+        max = count == 1 ? value : Math.max(max, value);
+        sketch.add(value);
+        offerSample(value, count);
+    }
+
+    /**
+     * Adds all samples of the other accumulator to this one (parallel algorithm of Chan et al.).
+     *
+     * @param other the accumulator to merge, it is not changed.
+     */
+    public void merge(final ExecTimeStatistics other) {
+        requireNonNull(other, "other");
+        if (other.count == 0) {
+            return;
+        }
+        if (count == 0) {
+            min = other.min;
+            max = other.max;
+        } else {
+            min = Math.min(min, other.min);
+            max = Math.max(max, other.max);
+        }
+        final long total = count + other.count;
+        final double delta = other.mean - mean;
+        m2 += other.m2 + delta * delta * ((double) count * other.count / total);
+        mean += delta * other.count / total;
+        sum += other.sum;
+        sketch.merge(other.sketch);
+        final long previousCount = count;
+        count = total;
+
+        // the raw samples of the other accumulator represent other.count samples each with the same weight
+        for (int i = 0; i < other.samples.size(); i++) {
+            offerSample(other.samples.get(i), previousCount + (i + 1) * other.count / other.samples.size());
+        }
+    }
+
+    private void offerSample(final double value, final long seen) {
+        if (sampleLimit == 0) {
+            return;
+        }
+        if (samples.size() < sampleLimit) {
+            samples.add(value);
+            return;
+        }
+        final long slot = random.nextLong(Math.max(seen, 1));
+        if (slot < sampleLimit) {
+            samples.set((int) slot, value);
+        }
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getSum() {
+        return sum;
+    }
+
+    /**
+     * @return the mean of all samples, 0 if there are none
+     */
+    public double getMean() {
+        return mean;
+    }
+
+    /**
+     * @return the sample variance (divided by count - 1), 0 for less than two samples
+     */
+    public double getVariance() {
+        return count > 1 ? m2 / (count - 1) : 0;
+    }
+
+    /**
+     * @return the smallest sample or NaN if there are none
+     */
+    public double getMin() {
+        return min;
+    }
+
+    /**
+     * @return the largest sample or NaN if there are none
+     */
+    public double getMax() {
+        return max;
+    }
+
+    /**
+     * @param quantile the quantile between 0 and 1, e.g. 0.99 for the 99th percentile
+     * @return the estimated value at the quantile, see {@link LatencySketch#getQuantile(double)}
+     */
+    public double getQuantile(final double quantile) {
+        return sketch.getQuantile(quantile);
+    }
+
+    /**
+     * @return the sketch of the samples, it is part of this accumulator and must not be changed.
+     */
+    public LatencySketch getSketch() {
+        return sketch;
+    }
+
+    public int getSampleLimit() {
+        return sampleLimit;
+    }
+
+    /**
+     * @return the raw samples that are kept, at most {@link ExecTimeStatistics#getSampleLimit()}
+     */
+    public List<Double> getSamples() {
+        return Collections.unmodifiableList(samples);
+    }
+
+    @Override
+    public String toString() {
+        return "ExecTimeStatistics{count=" + count + ", mean=" + mean + ", variance=" + getVariance() + ", min=" + min + ", max=" + max + '}';
+    }
+}
@@ -0,0 +1,202 @@
+package kieker.extension.performanceanalysis.kieker2uml.statistics;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Base64;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * <p>
+ * Mergeable quantile sketch for latencies with a relative accuracy of {@link LatencySketch#RELATIVE_ACCURACY}.
+ * </p>
+ * <p>
+ * The values are counted in logarithmic buckets: the bucket i holds the values in (gamma^(i-1), gamma^i] with
+ * gamma = (1 + a) / (1 - a). Every quantile is returned with a relative error of at most a, independent of the
+ * number of values and their distribution (the approach of DDSketch). Values below 1 are counted separately as zero.
+ * Since only the counts of the buckets are kept, two sketches are merged by adding their counts, the result is the
+ * same as if all values were added to a single sketch.
+ * </p>
+ * <p>
+ * {@link LatencySketch#encode()} serializes the sketch into a compact string to persist it in the model,
+ * runs of empty buckets are compressed.
+ * </p>
+ */
+public final class LatencySketch {
+
+    public static final double RELATIVE_ACCURACY = 0.01;
+    private static final double GAMMA = (1 + RELATIVE_ACCURACY) / (1 - RELATIVE_ACCURACY);
+    private static final double LOG_GAMMA = Math.log(GAMMA);
+    private static final String ENCODING_PREFIX = "dd1:";
+
+    /** counts[i] is the count of the bucket with the index offset + i */
+    private long[] counts = new long[0];
+    private int offset = 0;
+    private long zeroCount = 0;
+    private long count = 0;
+    private double min = Double.NaN;
+    private double max = Double.NaN;
+
+    public void add(final double value) {
+        if (value < 0 || Double.isNaN(value)) {
+            throw new IllegalArgumentException("A latency cannot be negative. Value: " + value);
+        }
+        if (value < 1) {
+            zeroCount++;
+        } else {
+            final int index = (int) Math.ceil(Math.log(value) / LOG_GAMMA);
+            ensureCapacity(index, index);
+            counts[index - offset]++;
+        }
+        min = count == 0 ? value : Math.min(min, value);
+        max = count == 0 ? value : Math.max(max, value);
+        count++;
+    }
+
+    /**
+     * @param other the sketch to add to this one, it is not changed.
+     */
+    public void merge(final LatencySketch other) {
+        requireNonNull(other, "other");
+        if (other.count == 0) {
+            return;
+        }
+        if (other.counts.length > 0) {
+            ensureCapacity(other.offset, other.offset + other.counts.length - 1);
+            for (int i = 0; i < other.counts.length; i++) {
+                counts[other.offset + i - offset] += other.counts[i];
+            }
+        }
+        zeroCount += other.zeroCount;
+        min = count == 0 ? other.min : Math.min(min, other.min);
+        max = count == 0 ? other.max : Math.max(max, other.max);
+        count += other.count;
+    }
+
+    private void ensureCapacity(final int minIndex, final int maxIndex) {
+        if (counts.length == 0) {
+            counts = new long[maxIndex - minIndex + 1];
+            offset = minIndex;
+            return;
+        }
+        final int newOffset = Math.min(offset, minIndex);
+        final int newEnd = Math.max(offset + counts.length - 1, maxIndex);
+        if (newOffset == offset && newEnd == offset + counts.length - 1) {
+            return;
+        }
+        final long[] newCounts = new long[newEnd - newOffset + 1];
+        System.arraycopy(counts, 0, newCounts, offset - newOffset, counts.length);
+        counts = newCounts;
+        offset = newOffset;
+    }
+
+    /**
+     * @param quantile the quantile between 0 and 1, e.g. 0.99 for the 99th percentile
+     * @return the value at the quantile, NaN if the sketch is empty
+     */
+    public double getQuantile(final double quantile) {
+        if (quantile < 0 || quantile > 1) {
+            throw new IllegalArgumentException("The quantile must be between 0 and 1. Value: " + quantile);
+        }
+        if (count == 0) {
+            return Double.NaN;
+        }
+        final long rank = (long) Math.floor(quantile * (count - 1));
+        long seen = zeroCount;
+        if (rank < seen) {
+            return min;
+        }
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (rank < seen) {
+                // the center of the bucket has a relative error of at most RELATIVE_ACCURACY to all values of the bucket
+                final double value = 2 * Math.pow(GAMMA, offset + i) / (GAMMA + 1);
+                return Math.max(min, Math.min(max, value));
+            }
+        }
+        return max;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @return the smallest value or NaN if the sketch is empty
+     */
+    public double getMin() {
+        return min;
+    }
+
+    /**
+     * @return the largest value or NaN if the sketch is empty
+     */
+    public double getMax() {
+        return max;
+    }
+
+    /**
+     * The layout is: zero count, count, min, max, offset, number of buckets and the counts of the buckets.
+     * All integers are variable length encoded, a count of 0 is followed by the length of the run of empty buckets.
+     *
+     * @return the sketch as Base64 string with the prefix "dd1:"
+     */
+    public String encode() {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(16 + counts.length);
+        VarLongs.write(out, zeroCount);
+        VarLongs.write(out, count);
+        VarLongs.writeDouble(out, min);
+        VarLongs.writeDouble(out, max);
+        VarLongs.write(out, VarLongs.zigZag(offset));
+        VarLongs.write(out, counts.length);
+        for (int i = 0; i < counts.length; i++) {
+            VarLongs.write(out, counts[i]);
+            if (counts[i] == 0) {
+                int run = 1;
+                while (i + run < counts.length && counts[i + run] == 0) {
+                    run++;
+                }
+                VarLongs.write(out, run);
+                i += run - 1;
+            }
+        }
+        return ENCODING_PREFIX + Base64.getEncoder().withoutPadding().encodeToString(out.toByteArray());
+    }
+
+    /**
+     * @param encoded a sketch encoded by {@link LatencySketch#encode()}
+     * @return the decoded sketch
+     * @throws IllegalArgumentException if the string is not an encoded sketch
+     */
+    public static LatencySketch decode(final String encoded) {
+        requireNonNull(encoded, "encoded");
+        if (!encoded.startsWith(ENCODING_PREFIX)) {
+            throw new IllegalArgumentException("Not a LatencySketch: " + encoded);
+        }
+        try {
+            final ByteBuffer in = ByteBuffer.wrap(Base64.getDecoder().decode(encoded.substring(ENCODING_PREFIX.length())));
+            final LatencySketch sketch = new LatencySketch();
+            sketch.zeroCount = VarLongs.read(in);
+            sketch.count = VarLongs.read(in);
+            sketch.min = in.getDouble();
+            sketch.max = in.getDouble();
+            sketch.offset = (int) VarLongs.unZigZag(VarLongs.read(in));
+            sketch.counts = new long[Math.toIntExact(VarLongs.read(in))];
+            for (int i = 0; i < sketch.counts.length; i++) {
+                sketch.counts[i] = VarLongs.read(in);
+                if (sketch.counts[i] == 0) {
+                    i += Math.toIntExact(VarLongs.read(in)) - 1;
+                }
+            }
+            return sketch;
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("The LatencySketch cannot be decoded: " + encoded, e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "LatencySketch{count=" + count + ", zeroCount=" + zeroCount + ", offset=" + offset + ", counts=" + Arrays.toString(counts) + '}';
+    }
+}
@@ -0,0 +1,74 @@
+package kieker.extension.performanceanalysis.kieker2uml.statistics;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * <p>
+ * Variable length encoding of longs for the compact strings persisted in the model, see {@link LatencySketch#encode()}
+ * and the encoded trace id sets of the trace package.
+ * </p>
+ * <p>
+ * A long is written in groups of 7 bits, the lowest first, the highest bit of a byte tells if another byte follows.
+ * Small positive values take few bytes, negative values are mapped to positive ones by {@link VarLongs#zigZag(long)} first.
+ * </p>
+ */
+public final class VarLongs {
+
+    private VarLongs() {
+    }
+
+    /**
+     * @return the value with the sign in the lowest bit, small negative values become small positive values
+     */
+    public static long zigZag(final long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    /**
+     * @return the value that was mapped by {@link VarLongs#zigZag(long)}
+     */
+    public static long unZigZag(final long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * @return the number of bytes {@link VarLongs#write(ByteArrayOutputStream, long)} writes for the value
+     */
+    public static int size(long value) {
+        int size = 1;
+        while ((value & ~0x7FL) != 0) {
+            size++;
+            value >>>= 7;
+        }
+        return size;
+    }
+
+    public static void write(final ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    /**
+     * @throws java.nio.BufferUnderflowException if the buffer ends within the value
+     * @throws IllegalArgumentException if the value is longer than 10 bytes
+     */
+    public static long read(final ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            final byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed variable length integer");
+    }
+
+    public static void writeDouble(final ByteArrayOutputStream out, final double value) {
+        out.write(ByteBuffer.allocate(Double.BYTES).putDouble(value).array(), 0, Double.BYTES);
+    }
+}
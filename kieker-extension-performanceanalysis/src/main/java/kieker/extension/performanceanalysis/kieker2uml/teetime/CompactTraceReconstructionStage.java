@@ -0,0 +1,190 @@
+package kieker.extension.performanceanalysis.kieker2uml.teetime;
+
+import kieker.extension.performanceanalysis.kieker2uml.trace.CompactTrace;
+import kieker.model.repository.SystemModelRepository;
+import kieker.model.system.model.Execution;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import teetime.framework.AbstractConsumerStage;
+import teetime.framework.OutputPort;
+
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * <p>
+ * Reconstructs the traces from the {@link Execution}s and sends them as {@link CompactTrace}s, without building the
+ * Kieker ExecutionTrace and MessageTrace in between. The executions of a trace are collected until the trace is closed:
+ * </p>
+ * <ul>
+ *     <li>idle - no execution of the trace was received within the idle timeout</li>
+ *     <li>age - the first execution of the trace was received more than the maximum trace duration ago</li>
+ *     <li>capacity - more traces are open than allowed, the trace that was idle the longest is closed</li>
+ *     <li>end - the input terminated</li>
+ * </ul>
+ * <p>
+ * A closed trace whose executions form a valid trace (eoi 0 to n-1 and consistent ess) is sent, the others are counted
+ * as incomplete per reason and reported when the stage terminates. Executions that arrive after their trace was closed
+ * open a new trace, which is incomplete as it lacks the first executions.
+ * </p>
+ * <p>
+ * The time is the logging time: the latest Tout of all executions received so far. It only moves forward, while
+ * older executions are read (e.g. the next directory) the time stands still, so these traces are not closed as idle.
+ * With neither timeout nor capacity the traces are kept until the end of the input, like the Kieker reconstruction
+ * with an unlimited trace duration.
+ * </p>
+ */
+public class CompactTraceReconstructionStage extends AbstractConsumerStage<Execution> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CompactTraceReconstructionStage.class);
+
+    private enum CloseReason { IDLE, AGE, CAPACITY, END }
+
+    private final OutputPort<CompactTrace> outputPort = this.createOutputPort();
+    private final long maxTraceDuration;
+    private final long idleTimeout;
+    private final int maxOpenTraces;
+    /** the open traces by their trace id, ordered from the longest idle to the last updated trace */
+    private final LinkedHashMap<Long, OpenTrace> openTraces = new LinkedHashMap<>(16, 0.75f, true);
+    /** the open traces by their trace id ordered by their creation if the duration is limited, a closed trace is removed at once */
+    private final LinkedHashMap<Long, OpenTrace> tracesByAge = new LinkedHashMap<>();
+    private final Map<CloseReason, Long> incompleteTraces = new EnumMap<>(CloseReason.class);
+    private long time = Long.MIN_VALUE;
+    private long sentTraces = 0;
+    private long sentExecutions = 0;
+    private long incompleteExecutions = 0;
+    private int maxOpenTracesReached = 0;
+
+    /**
+     * @param maxTraceDuration the time after the first execution of a trace after which the trace is closed, 0 for unlimited
+     * @param idleTimeout      the time without an execution after which a trace is closed, 0 for unlimited
+     * @param maxOpenTraces    the number of traces that are open at the same time, 0 for unlimited
+     */
+    public CompactTraceReconstructionStage(final long maxTraceDuration, final long idleTimeout, final int maxOpenTraces) {
+        if (maxTraceDuration < 0 || idleTimeout < 0 || maxOpenTraces < 0) {
+            throw new IllegalArgumentException(String.format("The limits cannot be negative. maxTraceDuration: %s, idleTimeout: %s, maxOpenTraces: %s",
+                    maxTraceDuration, idleTimeout, maxOpenTraces));
+        }
+        this.maxTraceDuration = maxTraceDuration;
+        this.idleTimeout = idleTimeout;
+        this.maxOpenTraces = maxOpenTraces;
+    }
+
+    @Override
+    protected void execute(final Execution execution) throws Exception {
+        time = Math.max(time, execution.getTout());
+        OpenTrace trace = openTraces.get(execution.getTraceId());
+        if (trace == null) {
+            trace = new OpenTrace(CompactTrace.builder(execution.getTraceId(), SystemModelRepository.ROOT_EXECUTION), time);
+            openTraces.put(execution.getTraceId(), trace);
+            if (maxTraceDuration > 0) {
+                tracesByAge.put(execution.getTraceId(), trace);
+            }
+            maxOpenTracesReached = Math.max(maxOpenTracesReached, openTraces.size());
+        }
+        trace.builder.add(execution);
+        trace.lastUpdate = time;
+
+        closeExpiredTraces();
+        if (maxOpenTraces > 0 && openTraces.size() > maxOpenTraces) {
+            close(openTraces.values().iterator().next(), CloseReason.CAPACITY);
+        }
+    }
+
+    private void closeExpiredTraces() {
+        if (idleTimeout > 0) {
+            // the map is in access order, the longest idle trace is first
+            final Iterator<OpenTrace> iterator = openTraces.values().iterator();
+            while (iterator.hasNext()) {
+                final OpenTrace trace = iterator.next();
+                if (time - trace.lastUpdate <= idleTimeout) {
+                    break;
+                }
+                iterator.remove();
+                tracesByAge.remove(trace.builder.getTraceId());
+                send(trace, CloseReason.IDLE);
+            }
+        }
+        if (maxTraceDuration > 0) {
+            // the map is in creation order, the oldest trace is first
+            final Iterator<OpenTrace> iterator = tracesByAge.values().iterator();
+            while (iterator.hasNext()) {
+                final OpenTrace trace = iterator.next();
+                if (time - trace.created <= maxTraceDuration) {
+                    break;
+                }
+                iterator.remove();
+                openTraces.remove(trace.builder.getTraceId());
+                send(trace, CloseReason.AGE);
+            }
+        }
+    }
+
+    private void close(final OpenTrace trace, final CloseReason reason) {
+        openTraces.remove(trace.builder.getTraceId());
+        tracesByAge.remove(trace.builder.getTraceId());
+        send(trace, reason);
+    }
+
+    private void send(final OpenTrace trace, final CloseReason reason) {
+        final CompactTrace compactTrace;
+        try {
+            compactTrace = trace.builder.build();
+        } catch (IllegalStateException e) {
+            incompleteTraces.merge(reason, 1L, Long::sum);
+            incompleteExecutions += trace.builder.size();
+            LOGGER.debug(String.format("Incomplete trace closed (%s) with %s executions: %s", reason, trace.builder.size(), e.getMessage()));
+            return;
+        }
+        sentTraces++;
+        sentExecutions += compactTrace.size();
+        outputPort.send(compactTrace);
+    }
+
+    @Override
+    protected void onTerminating() {
+        openTraces.values().forEach(trace -> send(trace, CloseReason.END));
+        openTraces.clear();
+        tracesByAge.clear();
+        LOGGER.info(String.format("Reconstructed %s traces with %s executions, at most %s traces were open at the same time",
+                sentTraces, sentExecutions, maxOpenTracesReached));
+        if (!incompleteTraces.isEmpty()) {
+            final long incomplete = incompleteTraces.values().stream().mapToLong(Long::longValue).sum();
+            LOGGER.warn(String.format("Dropped %s incomplete traces with %s executions, closed by reason: %s",
+                    incomplete, incompleteExecutions, incompleteTraces));
+        }
+        super.onTerminating();
+    }
+
+    public OutputPort<CompactTrace> getOutputPort() {
+        return outputPort;
+    }
+
+    /**
+     * @return the number of traces that are open
+     */
+    int getOpenTraceCount() {
+        return openTraces.size();
+    }
+
+    /**
+     * @return the number of traces held for the maximum trace duration, at most the open traces
+     */
+    int getTracesByAgeCount() {
+        return tracesByAge.size();
+    }
+
+    private static final class OpenTrace {
+        private final CompactTrace.Builder builder;
+        private final long created;
+        private long lastUpdate;
+
+        private OpenTrace(final CompactTrace.Builder builder, final long created) {
+            this.builder = builder;
+            this.created = created;
+            this.lastUpdate = created;
+        }
+    }
+}
@@ -12,6 +12,7 @@ import java.nio.file.Path;
 public class Kieker2UmlTeeTimeService extends AbstractService<TeeTimeConfiguration, Kieker2UmlCli> {
 
     private final Kieker2UmlCli kieker2UmlCli;
+    private TeeTimeConfiguration configuration;
     private Kieker2UmlTeeTimeService(Kieker2UmlCli cli) {
         this.kieker2UmlCli = cli;
     }
@@ -25,7 +26,8 @@ public class Kieker2UmlTeeTimeService extends AbstractService<TeeTimeConfigurati
 
     @Override
     protected TeeTimeConfiguration createTeetimeConfiguration() throws ConfigurationException {
-        return new TeeTimeConfiguration(this.kieker2UmlCli);
+        this.configuration = new TeeTimeConfiguration(this.kieker2UmlCli);
+        return this.configuration;
     }
 
     /**
@@ -52,7 +54,28 @@ public class Kieker2UmlTeeTimeService extends AbstractService<TeeTimeConfigurati
 
     @Override
     protected void shutdownService() {
-        // nothing special to shutdown
+        if (configuration != null) {
+            configuration.getQueueOccupancyMonitor().stop();
+        }
+    }
+
+    /**
+     * Stops watching the input paths, see {@link TeeTimeConfiguration#stopWatching()}.
+     */
+    public void stopWatching() {
+        if (configuration != null) {
+            configuration.stopWatching();
+        }
+    }
+
+    /**
+     * Must be called when {@link #run(String, String, String[], Object)} returned or failed,
+     * see {@link TeeTimeConfiguration#analysisFinished()}.
+     */
+    public void analysisFinished() {
+        if (configuration != null) {
+            configuration.analysisFinished();
+        }
     }
 
     public Kieker2UmlCli getParameters() {
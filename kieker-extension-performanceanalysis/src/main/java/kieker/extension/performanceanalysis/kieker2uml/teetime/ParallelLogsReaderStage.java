@@ -0,0 +1,314 @@
+package kieker.extension.performanceanalysis.kieker2uml.teetime;
+
+import kieker.common.record.IMonitoringRecord;
+import kieker.common.record.controlflow.OperationExecutionRecord;
+import kieker.extension.performanceanalysis.kieker2uml.reader.DatFile;
+import kieker.extension.performanceanalysis.kieker2uml.reader.DatFileParser;
+import kieker.extension.performanceanalysis.kieker2uml.reader.IngestManifest;
+import kieker.extension.performanceanalysis.kieker2uml.reader.KiekerLogDirectory;
+import kieker.extension.performanceanalysis.kieker2uml.reader.LogDirectoryWatcher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import teetime.framework.AbstractProducerStage;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.Consumer;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * <p>
+ * Reads the {@link OperationExecutionRecord}s of several Kieker log directories in parallel and sends them ordered by
+ * their logging timestamp, e.g. the directories of the services of a distributed application.
+ * </p>
+ * <p>
+ * Each directory is parsed by its own thread, its {@code .dat} files one after the other as they follow each other
+ * in time. The records are passed in batches through a bounded queue per directory and merged by a k-way merge over the
+ * heads of the queues. A directory whose queue is full waits until the merge reaches it, so the memory is bounded by
+ * the number of directories and the queue capacity and not by the volume of the logs.
+ * The records of one directory keep their order in the files, which Kieker writes mostly but not strictly ordered.
+ * </p>
+ * <p>
+ * With an {@link IngestManifest} only the files that are new and the records that were appended to a file since the
+ * model was extended the last time are read, the manifest is updated with the parts of the files that were read.
+ * </p>
+ * <p>
+ * With a {@link LogDirectoryWatcher} the stage does not complete after the logs were read: it waits for new and
+ * changed files and reads the directories again, the manifest restricts each pass to what was added. The
+ * {@link SnapshotTrigger} is told about the records read and the time passed, so the model is saved regularly.
+ * {@link #stopWatching()} completes the stage after the current pass.
+ * </p>
+ */
+public class ParallelLogsReaderStage extends AbstractProducerStage<IMonitoringRecord> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ParallelLogsReaderStage.class);
+    private static final int BATCH_SIZE = 256;
+    private static final List<OperationExecutionRecord> END = Collections.emptyList();
+
+    private final List<Path> inputPaths;
+    private final int queueCapacity;
+    private final IngestManifest ingestManifest;
+    private final LogDirectoryWatcher watcher;
+    private final SnapshotTrigger snapshotTrigger;
+    private volatile boolean stopped = false;
+    private long passes = 0;
+    private long records = 0;
+    private long skippedRecords = 0;
+    private long unchangedFiles = 0;
+    private long continuedFiles = 0;
+
+    /**
+     * @param inputPaths     the log directories or directories that contain log directories
+     * @param queueCapacity  the number of records that are buffered per directory, in batches of 256 records, at least one batch
+     * @param ingestManifest the parts of the files that were already read, null to read all files completely
+     */
+    public ParallelLogsReaderStage(final List<Path> inputPaths, final int queueCapacity, final IngestManifest ingestManifest) {
+        this(inputPaths, queueCapacity, ingestManifest, null, null);
+    }
+
+    /**
+     * @param inputPaths      the log directories or directories that contain log directories
+     * @param queueCapacity   the number of records that are buffered per directory, in batches of 256 records, at least one batch
+     * @param ingestManifest  the parts of the files that were already read, required if the paths are watched
+     * @param watcher         watches the paths for changes, null to complete after the logs were read once
+     * @param snapshotTrigger requests the snapshots of the model while the paths are watched
+     */
+    public ParallelLogsReaderStage(final List<Path> inputPaths, final int queueCapacity, final IngestManifest ingestManifest,
+                                   final LogDirectoryWatcher watcher, final SnapshotTrigger snapshotTrigger) {
+        if (queueCapacity < 1) {
+            throw new IllegalArgumentException("The queue capacity must be positive. Value: " + queueCapacity);
+        }
+        if (!isNull(watcher) && (isNull(ingestManifest) || isNull(snapshotTrigger))) {
+            throw new IllegalArgumentException("Watching the paths requires an ingest manifest and a snapshot trigger");
+        }
+        this.inputPaths = List.copyOf(requireNonNull(inputPaths, "inputPaths"));
+        this.queueCapacity = queueCapacity;
+        this.ingestManifest = ingestManifest;
+        this.watcher = watcher;
+        this.snapshotTrigger = snapshotTrigger;
+    }
+
+    @Override
+    protected void execute() throws Exception {
+        read();
+        if (!isNull(watcher)) {
+            LOGGER.info("Watching for new records: " + inputPaths);
+            try {
+                while (!stopped) {
+                    final boolean changed = watcher.awaitChange(snapshotTrigger.getMillisUntilDue());
+                    if (changed && !stopped) {
+                        read();
+                    }
+                    snapshotTrigger.requestIfDue();
+                }
+            } finally {
+                watcher.close();
+            }
+        }
+        LOGGER.info(String.format("Read %s OperationExecutionRecords, skipped %s records of other types",
+                records, skippedRecords));
+        if (!isNull(ingestManifest)) {
+            LOGGER.info(String.format("Skipped %s unchanged files, continued %s files with appended records (%s passes)",
+                    unchangedFiles, continuedFiles, passes));
+        }
+        this.workCompleted();
+    }
+
+    /**
+     * Stops watching the paths, the stage completes after the current pass. Can be called from any thread.
+     */
+    public void stopWatching() {
+        stopped = true;
+        if (!isNull(watcher)) {
+            watcher.close();
+        }
+    }
+
+    /**
+     * Reads the directories found in the paths once.
+     */
+    private void read() throws InterruptedException {
+        final List<KiekerLogDirectory> directories = KiekerLogDirectory.find(inputPaths);
+        if (passes++ == 0) {
+            LOGGER.info(String.format("Reading %s log directories in parallel: %s", directories.size(), directories));
+        }
+
+        final List<DirectoryReader> readers = new ArrayList<>(directories.size());
+        for (final KiekerLogDirectory directory : directories) {
+            final DirectoryReader reader = new DirectoryReader(directory, Math.max(1, queueCapacity / BATCH_SIZE), ingestManifest);
+            readers.add(reader);
+            reader.start();
+        }
+        try {
+            merge(readers);
+        } finally {
+            readers.forEach(Thread::interrupt);
+        }
+        final long read = readers.stream().mapToLong(reader -> reader.records).sum();
+        records += read;
+        skippedRecords += readers.stream().mapToLong(reader -> reader.skippedRecords).sum();
+        unchangedFiles += readers.stream().mapToLong(reader -> reader.unchangedFiles).sum();
+        continuedFiles += readers.stream().mapToLong(reader -> reader.continuedFiles).sum();
+        if (passes > 1 && read > 0) {
+            LOGGER.info(String.format("Read %s new OperationExecutionRecords", read));
+        }
+    }
+
+    /**
+     * Sends the records of all readers ordered by their logging timestamp, records with the same timestamp in the
+     * order of the directories.
+     */
+    private void merge(final List<DirectoryReader> readers) throws InterruptedException {
+        final PriorityQueue<Head> heads = new PriorityQueue<>(Math.max(1, readers.size()),
+                Comparator.comparingLong(Head::getLoggingTimestamp).thenComparingInt(head -> head.index));
+        for (int i = 0; i < readers.size(); i++) {
+            final Head head = new Head(readers.get(i), i);
+            if (head.next()) {
+                heads.add(head);
+            }
+        }
+        int sent = 0;
+        while (!heads.isEmpty()) {
+            final Head head = heads.poll();
+            outputPort.send(head.record);
+            if (head.next()) {
+                heads.add(head);
+            }
+            if (!isNull(snapshotTrigger) && ++sent == BATCH_SIZE) {
+                snapshotTrigger.recordsRead(sent);
+                sent = 0;
+            }
+        }
+        if (!isNull(snapshotTrigger)) {
+            snapshotTrigger.recordsRead(sent);
+        }
+    }
+
+    /**
+     * The next record of a reader within the merge.
+     */
+    private static final class Head {
+        private final DirectoryReader reader;
+        private final int index;
+        private List<OperationExecutionRecord> batch = Collections.emptyList();
+        private int position = 0;
+        private OperationExecutionRecord record;
+
+        private Head(final DirectoryReader reader, final int index) {
+            this.reader = reader;
+            this.index = index;
+        }
+
+        /**
+         * @return false if the reader has no more records
+         */
+        private boolean next() throws InterruptedException {
+            if (position == batch.size()) {
+                batch = reader.queue.take();
+                position = 0;
+                if (batch == END) {
+                    reader.rethrowFailure();
+                    return false;
+                }
+            }
+            record = batch.get(position++);
+            return true;
+        }
+
+        private long getLoggingTimestamp() {
+            return record.getLoggingTimestamp();
+        }
+    }
+
+    /**
+     * Parses the files of a directory into batches of records.
+     */
+    private static final class DirectoryReader extends Thread implements Consumer<OperationExecutionRecord> {
+        private final KiekerLogDirectory directory;
+        private final BlockingQueue<List<OperationExecutionRecord>> queue;
+        private final IngestManifest ingestManifest;
+        private List<OperationExecutionRecord> batch = new ArrayList<>(BATCH_SIZE);
+        private volatile RuntimeException failure;
+        private volatile long records = 0;
+        private volatile long skippedRecords = 0;
+        private volatile long unchangedFiles = 0;
+        private volatile long continuedFiles = 0;
+
+        private DirectoryReader(final KiekerLogDirectory directory, final int batches, final IngestManifest ingestManifest) {
+            super("reader-" + directory.getName());
+            this.directory = directory;
+            this.queue = new ArrayBlockingQueue<>(batches);
+            this.ingestManifest = ingestManifest;
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            final DatFileParser parser = new DatFileParser(directory);
+            try {
+                for (final DatFile found : directory.getDatFiles()) {
+                    if (isNull(ingestManifest)) {
+                        parser.parse(found, 0, this);
+                        continue;
+                    }
+                    // the state before the file is read matches the offset the parser returns
+                    final DatFile datFile = found.refresh();
+                    final long startOffset = ingestManifest.getStartOffset(datFile);
+                    if (startOffset == IngestManifest.UNCHANGED) {
+                        unchangedFiles++;
+                        continue;
+                    }
+                    if (startOffset > 0) {
+                        continuedFiles++;
+                    }
+                    ingestManifest.update(datFile, parser.parse(datFile, startOffset, this));
+                }
+                if (!batch.isEmpty()) {
+                    put(batch);
+                }
+            } catch (RuntimeException e) {
+                failure = e;
+            } finally {
+                skippedRecords = parser.getSkippedRecords();
+                try {
+                    queue.put(END);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        @Override
+        public void accept(final OperationExecutionRecord record) {
+            batch.add(record);
+            if (batch.size() == BATCH_SIZE) {
+                put(batch);
+                batch = new ArrayList<>(BATCH_SIZE);
+            }
+        }
+
+        private void put(final List<OperationExecutionRecord> records) {
+            try {
+                queue.put(records);
+                this.records += records.size();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Reading " + directory.getName() + " was interrupted", e);
+            }
+        }
+
+        private void rethrowFailure() {
+            if (!isNull(failure)) {
+                throw new IllegalStateException("Reading " + directory.getName() + " failed", failure);
+            }
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package kieker.extension.performanceanalysis.kieker2uml.teetime;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import teetime.framework.InputPort;
+import teetime.framework.pipe.IPipe;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * <p>
+ * Samples the occupancy of the queues between the threads of the {@link TeeTimeConfiguration}.
+ * A queue that is mostly full shows that its consumer is the bottleneck, a queue that is mostly empty that its producer is.
+ * </p>
+ * <p>
+ * The queues are sampled by a daemon thread from {@link QueueOccupancyMonitor#start()} until {@link QueueOccupancyMonitor#stop()},
+ * which logs the mean and maximum occupancy of each queue. A queue is sampled once TeeTime has created its pipe.
+ * </p>
+ */
+public final class QueueOccupancyMonitor {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(QueueOccupancyMonitor.class);
+    private final long intervalMillis;
+    private final List<Queue> queues = new CopyOnWriteArrayList<>();
+    private ScheduledExecutorService sampler;
+
+    /**
+     * @param intervalMillis the time between two samples in milliseconds
+     */
+    public QueueOccupancyMonitor(final long intervalMillis) {
+        if (intervalMillis <= 0) {
+            throw new IllegalArgumentException("The interval must be positive. Value: " + intervalMillis);
+        }
+        this.intervalMillis = intervalMillis;
+    }
+
+    /**
+     * @param name      the name of the queue in the report, e.g. "reader -> dispatcher"
+     * @param inputPort the port of the consuming stage, its pipe is the queue
+     * @param capacity  the capacity the queue was connected with
+     */
+    public void register(final String name, final InputPort<?> inputPort, final int capacity) {
+        queues.add(new Queue(requireNonNull(name, "name"), requireNonNull(inputPort, "inputPort"), capacity));
+    }
+
+    public synchronized void start() {
+        if (!isNull(sampler) || queues.isEmpty()) {
+            return;
+        }
+        sampler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "queue-occupancy-monitor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sampler.scheduleAtFixedRate(() -> queues.forEach(Queue::sample), intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the sampling and logs the occupancy of each queue.
+     */
+    public synchronized void stop() {
+        if (isNull(sampler)) {
+            return;
+        }
+        sampler.shutdownNow();
+        try {
+            // waiting for the last sample makes the counters of the sampler thread visible
+            sampler.awaitTermination(intervalMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        sampler = null;
+        queues.forEach(queue -> LOGGER.info(queue.toString()));
+    }
+
+    private static final class Queue {
+        private final String name;
+        private final InputPort<?> inputPort;
+        private final int capacity;
+        private long samples = 0;
+        private long occupancySum = 0;
+        private long fullSamples = 0;
+        private int maxOccupancy = 0;
+
+        private Queue(final String name, final InputPort<?> inputPort, final int capacity) {
+            this.name = name;
+            this.inputPort = inputPort;
+            this.capacity = capacity;
+        }
+
+        private void sample() {
+            final IPipe<?> pipe = inputPort.getPipe();
+            if (isNull(pipe)) {
+                return;
+            }
+            final int size = pipe.size();
+            samples++;
+            occupancySum += size;
+            maxOccupancy = Math.max(maxOccupancy, size);
+            if (size >= capacity) {
+                fullSamples++;
+            }
+        }
+
+        @Override
+        public String toString() {
+            final double mean = samples == 0 ? 0 : (double) occupancySum / samples;
+            final double full = samples == 0 ? 0 : 100.0 * fullSamples / samples;
+            return String.format("Queue '%s': capacity %s, mean occupancy %.1f, max occupancy %s, full in %.1f%% of %s samples",
+                    name, capacity, mean, maxOccupancy, full, samples);
+        }
+    }
+}
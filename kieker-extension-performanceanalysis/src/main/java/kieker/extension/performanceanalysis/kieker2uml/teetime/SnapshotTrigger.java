@@ -0,0 +1,87 @@
+package kieker.extension.performanceanalysis.kieker2uml.teetime;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * <p>
+ * Requests snapshots of the UML model while the logs are watched, see {@link ParallelLogsReaderStage}.
+ * A snapshot is due when the interval passed or the number of records were read since the last request.
+ * </p>
+ * <p>
+ * A request starts a new epoch and calls the listener in the thread of the reader. The listener takes the shapes of all
+ * {@link TraceShapeAggregationStage}s and the {@link UmlModelFilter} writes the snapshot, see {@link TeeTimeConfiguration}.
+ * The shapes are therefore taken when the snapshot is due, also from stages that receive no traces, e.g. because no
+ * records are appended to the logs or no trace of their partition was closed.
+ * </p>
+ */
+public final class SnapshotTrigger {
+
+    private final long intervalMillis;
+    private final long records;
+    private final AtomicLong epoch = new AtomicLong();
+    private long lastRequestMillis = System.currentTimeMillis();
+    private long recordsSinceRequest = 0;
+    private volatile LongConsumer listener = epoch -> { };
+
+    /**
+     * @param intervalMillis the time between two snapshots in milliseconds, 0 for none
+     * @param records        the number of records read between two snapshots, 0 for none
+     */
+    public SnapshotTrigger(final long intervalMillis, final long records) {
+        if (intervalMillis < 0 || records < 0) {
+            throw new IllegalArgumentException(String.format("The snapshot interval and records must not be negative. Values: %s, %s",
+                    intervalMillis, records));
+        }
+        this.intervalMillis = intervalMillis;
+        this.records = records;
+    }
+
+    /**
+     * @param listener is called with the epoch of each requested snapshot, in the thread that requests it
+     */
+    public void onRequest(final LongConsumer listener) {
+        this.listener = requireNonNull(listener, "listener");
+    }
+
+    /**
+     * Counts the records read, a snapshot is requested if it is due.
+     * @param count the number of records that were read
+     */
+    public void recordsRead(final long count) {
+        recordsSinceRequest += count;
+        requestIfDue();
+    }
+
+    /**
+     * Requests a snapshot if the interval passed or enough records were read since the last request.
+     */
+    public void requestIfDue() {
+        final long now = System.currentTimeMillis();
+        final boolean intervalPassed = intervalMillis > 0 && now - lastRequestMillis >= intervalMillis && recordsSinceRequest > 0;
+        if (intervalPassed || records > 0 && recordsSinceRequest >= records) {
+            lastRequestMillis = now;
+            recordsSinceRequest = 0;
+            listener.accept(epoch.incrementAndGet());
+        }
+    }
+
+    /**
+     * @return the time until the next snapshot is due in milliseconds, {@link Long#MAX_VALUE} if there is no interval
+     */
+    public long getMillisUntilDue() {
+        if (intervalMillis == 0) {
+            return Long.MAX_VALUE;
+        }
+        return Math.max(0, lastRequestMillis + intervalMillis - System.currentTimeMillis());
+    }
+
+    /**
+     * @return the number of the snapshots requested so far
+     */
+    public long getEpoch() {
+        return epoch.get();
+    }
+}
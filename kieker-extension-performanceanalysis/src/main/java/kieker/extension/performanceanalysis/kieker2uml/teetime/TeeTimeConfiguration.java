@@ -1,61 +1,242 @@
 package kieker.extension.performanceanalysis.kieker2uml.teetime;
 
 import kieker.analysis.architecture.trace.execution.ExecutionRecordTransformationStage;
-import kieker.analysis.architecture.trace.reconstruction.TraceReconstructionStage;
 import kieker.analysis.generic.DynamicEventDispatcher;
 import kieker.analysis.generic.IEventMatcher;
 import kieker.analysis.generic.ImplementsEventMatcher;
+import kieker.common.record.IMonitoringRecord;
 import kieker.common.record.controlflow.OperationExecutionRecord;
 import kieker.extension.performanceanalysis.cli.Kieker2UmlCli;
+import kieker.extension.performanceanalysis.kieker2uml.reader.IngestManifest;
+import kieker.extension.performanceanalysis.kieker2uml.reader.KiekerLogDirectory;
+import kieker.extension.performanceanalysis.kieker2uml.reader.LogDirectoryWatcher;
+import kieker.extension.performanceanalysis.kieker2uml.trace.TraceIdSet;
 import kieker.model.repository.SystemModelRepository;
 import kieker.tools.source.LogsReaderCompositeStage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import teetime.framework.Configuration;
+import teetime.framework.InputPort;
+import teetime.framework.OutputPort;
+import teetime.stage.basic.merger.Merger;
 
 import java.nio.file.Path;
-import java.util.concurrent.TimeUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
+import static java.util.Objects.isNull;
+
 
 public class TeeTimeConfiguration extends Configuration {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(TeeTimeConfiguration.class);
+    private static final long QUEUE_SAMPLE_INTERVAL_MILLIS = 50;
+    private final QueueOccupancyMonitor queueOccupancyMonitor = new QueueOccupancyMonitor(QUEUE_SAMPLE_INTERVAL_MILLIS);
+    private int queueCapacity;
+    private boolean pipelined;
     private SystemModelRepository systemModelRepository;
-    private LogsReaderCompositeStage reader;
+    private OutputPort<? extends IMonitoringRecord> readerOutputPort;
+    private ParallelLogsReaderStage parallelLogsReaderStage;
+    private WatchShutdownHook watchShutdownHook;
     private DynamicEventDispatcher dispatcher;
     private IEventMatcher<? extends OperationExecutionRecord> operationExecutionDispatcherOutput;
-    private TraceReconstructionStage traceReconstructionStage;
     private ExecutionRecordTransformationStage executionRecordTransformationStage;
+    private CompactTraceReconstructionStage compactTraceReconstructionStage;
+    private final List<TraceDigestStage> traceDigestStages = new ArrayList<>();
+    private final List<TraceShapeAggregationStage> traceShapeAggregationStages = new ArrayList<>();
 
     private UmlModelFilter sequenceDiagramFilter;
 
 
+    /**
+     * <p>
+     * The executions are reconstructed directly to {@link kieker.extension.performanceanalysis.kieker2uml.trace.CompactTrace}s,
+     * the traces are sent as soon as they are closed (see {@link CompactTraceReconstructionStage}).
+     * With a single worker the traces are digested and aggregated in the thread of the trace reconstruction.
+     * With more workers the traces are partitioned by their trace id, each worker digests and aggregates its
+     * partition in its own thread and the partial {@link kieker.extension.performanceanalysis.kieker2uml.trace.TraceShape}s
+     * are merged by the {@link UmlModelFilter}.
+     * </p>
+     * <p>
+     * The threading layout is chosen by {@link Kieker2UmlCli#getThreading()}:
+     * </p>
+     * <ul>
+     *     <li>SHARED - the reader and dispatcher share a thread, the record transformation, trace reconstruction and
+     *     UML building share another</li>
+     *     <li>PIPELINED - the reader, the dispatcher with the record transformation, the trace reconstruction and the
+     *     UML builder each run in their own thread</li>
+     * </ul>
+     * <p>
+     * With {@link Kieker2UmlCli.Reader#PARALLEL} the log directories are read in parallel and merged by the
+     * {@link ParallelLogsReaderStage}, the reader itself runs in the thread of the merge. Zip archives and compressed
+     * {@code .dat} files are only read by this reader, it is therefore also used if an input path is an archive.
+     * With {@link Kieker2UmlCli#isIncremental()} the parallel reader only reads the files and appended records that
+     * are not yet recorded in the {@link IngestManifest} of the model.
+     * With {@link Kieker2UmlCli#isWatch()} the parallel reader additionally watches the input paths and reads the new
+     * records until {@link #stopWatching()}, the model is saved as a snapshot when the {@link SnapshotTrigger} requests it.
+     * The snapshot is written in the thread of the reader with the shapes taken from all workers.
+     * Stopping the process stops the watching, the {@link WatchShutdownHook} waits until the model and the manifest were saved a last time.
+     * </p>
+     * <p>
+     * The threads are connected by bounded queues of {@link Kieker2UmlCli#getQueueCapacity()}, their occupancy is
+     * sampled by the {@link QueueOccupancyMonitor} and reported when the analysis has finished.
+     * </p>
+     * @param parameters the parameters of the CLI
+     */
     public TeeTimeConfiguration(final Kieker2UmlCli parameters) {
         setup(parameters);
 
-        this.connectPorts(reader.getOutputPort(), dispatcher.getInputPort());
-        this.connectPorts(operationExecutionDispatcherOutput.getOutputPort(), this.executionRecordTransformationStage.getInputPort());
-        this.connectPorts(this.executionRecordTransformationStage.getOutputPort(), this.traceReconstructionStage.getInputPort());
-        this.connectPorts(this.traceReconstructionStage.getMessageTraceOutputPort(), sequenceDiagramFilter.getInputPort());
+        connect("reader -> dispatcher", readerOutputPort, dispatcher.getInputPort(), pipelined);
+        connect("dispatcher -> record transformation", operationExecutionDispatcherOutput.getOutputPort(),
+                this.executionRecordTransformationStage.getInputPort(), !pipelined);
+        connect("record transformation -> trace reconstruction", this.executionRecordTransformationStage.getOutputPort(),
+                this.compactTraceReconstructionStage.getInputPort(), pipelined);
+
+        if (traceDigestStages.size() == 1) {
+            this.connectPorts(this.compactTraceReconstructionStage.getOutputPort(), this.traceDigestStages.get(0).getInputPort());
+            this.connectPorts(this.traceDigestStages.get(0).getOutputPort(), this.traceShapeAggregationStages.get(0).getInputPort());
+            connect("aggregation -> uml builder", this.traceShapeAggregationStages.get(0).getOutputPort(), sequenceDiagramFilter.getInputPort(), pipelined);
+            queueOccupancyMonitor.start();
+            return;
+        }
+
+        final TracePartitionStage partitionStage = new TracePartitionStage(traceDigestStages.size());
+        final Merger<TraceShapeBatch> merger = new Merger<>();
+        merger.declareActive();
+        this.connectPorts(this.compactTraceReconstructionStage.getOutputPort(), partitionStage.getInputPort());
+        for (int i = 0; i < traceDigestStages.size(); i++) {
+            connect("partition -> worker " + i, partitionStage.getOutputPorts().get(i), this.traceDigestStages.get(i).getInputPort(), true);
+            this.connectPorts(this.traceDigestStages.get(i).getOutputPort(), this.traceShapeAggregationStages.get(i).getInputPort());
+            connect("worker " + i + " -> merger", this.traceShapeAggregationStages.get(i).getOutputPort(), merger.getNewInputPort(), true);
+        }
+        // the merger only merges the partial shapes, the UML builder runs in its thread
+        this.connectPorts(merger.getOutputPort(), sequenceDiagramFilter.getInputPort());
+        queueOccupancyMonitor.start();
+    }
+
+    /**
+     * Connects the ports, if the target is active in its own thread with a bounded queue whose occupancy is monitored.
+     */
+    private <T> void connect(final String name, final OutputPort<? extends T> outputPort, final InputPort<T> inputPort, final boolean crossesThreads) {
+        if (!crossesThreads) {
+            this.connectPorts(outputPort, inputPort);
+            return;
+        }
+        this.connectPorts(outputPort, inputPort, queueCapacity);
+        queueOccupancyMonitor.register(name, inputPort, queueCapacity);
+    }
+
+    /**
+     * Stops watching the input paths, the analysis then finishes with the records read so far.
+     * Does nothing if the paths are not watched.
+     */
+    public void stopWatching() {
+        if (!isNull(parallelLogsReaderStage)) {
+            parallelLogsReaderStage.stopWatching();
+        }
+    }
+
+    /**
+     * Releases the {@link WatchShutdownHook} when the analysis has finished, also if it failed.
+     * Does nothing if the paths are not watched.
+     */
+    public void analysisFinished() {
+        if (!isNull(watchShutdownHook)) {
+            watchShutdownHook.finished();
+        }
+    }
+
+    /**
+     * @return the monitor of the queues between the threads, it is stopped by the service when the analysis has finished
+     */
+    public QueueOccupancyMonitor getQueueOccupancyMonitor() {
+        return queueOccupancyMonitor;
     }
 
     private void setup(final Kieker2UmlCli parameters) {
+        this.queueCapacity = parameters.getQueueCapacity();
+        this.pipelined = parameters.getThreading() == Kieker2UmlCli.Threading.PIPELINED;
         this.systemModelRepository = new SystemModelRepository();
 
-        this.reader = new LogsReaderCompositeStage(
-                parameters.getInputDirectories().stream().map(Path::toFile).collect(Collectors.toList()),
-                false,
-                null
-        );
+        final boolean archives = parameters.getInputDirectories().stream().anyMatch(KiekerLogDirectory::isArchive);
+        if (archives && parameters.getReader() != Kieker2UmlCli.Reader.PARALLEL) {
+            LOGGER.info("The input contains zip archives, they are read by the parallel reader");
+        }
+        final boolean watch = parameters.isWatch();
+        final boolean incremental = parameters.isIncremental() || watch;
+        if (incremental && parameters.getReader() != Kieker2UmlCli.Reader.PARALLEL) {
+            LOGGER.info("The input is read incrementally, it is read by the parallel reader");
+        }
+        if (watch && parameters.getTraceIdleTimeout() == 0 && parameters.getMaxTraceDuration() == 0) {
+            LOGGER.warn("The input is watched without --trace-idle-timeout or --max-trace-duration, the traces are only added to the model when the watching is stopped");
+        }
+        final IngestManifest ingestManifest = incremental
+                ? IngestManifest.load(IngestManifest.getManifestPath(parameters.getModelPath()))
+                : null;
+        final SnapshotTrigger snapshotTrigger = watch
+                ? new SnapshotTrigger(parameters.getSnapshotInterval(), parameters.getSnapshotRecords())
+                : null;
+        if (archives || incremental || parameters.getReader() == Kieker2UmlCli.Reader.PARALLEL) {
+            this.parallelLogsReaderStage = new ParallelLogsReaderStage(parameters.getInputDirectories(), queueCapacity, ingestManifest,
+                    watch ? new LogDirectoryWatcher(parameters.getInputDirectories()) : null, snapshotTrigger);
+            this.readerOutputPort = parallelLogsReaderStage.getOutputPort();
+            if (watch) {
+                this.watchShutdownHook = new WatchShutdownHook(parallelLogsReaderStage::stopWatching);
+                watchShutdownHook.register();
+            }
+        } else {
+            this.readerOutputPort = new LogsReaderCompositeStage(
+                    parameters.getInputDirectories().stream().map(Path::toFile).collect(Collectors.toList()),
+                    false,
+                    null
+            ).getOutputPort();
+        }
 
         this.dispatcher = new DynamicEventDispatcher(null, false, true, false);
+        if (pipelined) {
+            dispatcher.declareActive();
+        }
         this.operationExecutionDispatcherOutput = new ImplementsEventMatcher<>(OperationExecutionRecord.class, null);
         dispatcher.registerOutput(operationExecutionDispatcherOutput);
 
-        this.traceReconstructionStage = new TraceReconstructionStage(this.systemModelRepository, TimeUnit.MILLISECONDS, true, Long.MAX_VALUE);
+        this.compactTraceReconstructionStage = new CompactTraceReconstructionStage(parameters.getMaxTraceDuration(),
+                parameters.getTraceIdleTimeout(), parameters.getMaxOpenTraces());
 
         this.executionRecordTransformationStage = new ExecutionRecordTransformationStage(this.systemModelRepository);
-        executionRecordTransformationStage.declareActive();
-
-        this.sequenceDiagramFilter = new UmlModelFilter(this.systemModelRepository, parameters.getModelPath(), parameters.getUseCaseName() );
+        if (pipelined) {
+            compactTraceReconstructionStage.declareActive();
+        } else {
+            executionRecordTransformationStage.declareActive();
+        }
+
+        final double traceIdFalsePositiveProbability = parameters.getTraceIdFalsePositiveProbability();
+        final Supplier<TraceIdSet> traceIdSetFactory = traceIdFalsePositiveProbability == 0
+                ? TraceIdSet::exact
+                : () -> TraceIdSet.approximate(traceIdFalsePositiveProbability);
+        final int workers = parameters.getWorkers() == 0 ? Runtime.getRuntime().availableProcessors() : parameters.getWorkers();
+        this.sequenceDiagramFilter = new UmlModelFilter(parameters.getModelPath(), parameters.getUseCaseName(), parameters.getExecTimeSampleLimit(), traceIdSetFactory,
+                ingestManifest);
+
+        if (pipelined && workers == 1) {
+            sequenceDiagramFilter.declareActive();
+        }
+        for (int i = 0; i < workers; i++) {
+            final TraceDigestStage traceDigestStage = new TraceDigestStage();
+            if (workers > 1) {
+                traceDigestStage.declareActive();
+            }
+            this.traceDigestStages.add(traceDigestStage);
+            this.traceShapeAggregationStages.add(new TraceShapeAggregationStage(sequenceDiagramFilter::getAppliedTraces,
+                    parameters.getExecTimeSampleLimit(), parameters.getArrivalRateWindow(), i));
+        }
+        if (!isNull(snapshotTrigger)) {
+            // the shapes are taken from all workers when the snapshot is due, also from workers that receive no traces
+            snapshotTrigger.onRequest(epoch -> sequenceDiagramFilter.saveSnapshot(traceShapeAggregationStages.stream()
+                    .map(TraceShapeAggregationStage::takeShapes)
+                    .collect(Collectors.toList())));
+        }
     }
 
 }
@@ -0,0 +1,39 @@
+package kieker.extension.performanceanalysis.kieker2uml.teetime;
+
+import kieker.extension.performanceanalysis.kieker2uml.trace.CompactTrace;
+import kieker.extension.performanceanalysis.kieker2uml.trace.TraceDigest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import teetime.framework.AbstractConsumerStage;
+import teetime.framework.OutputPort;
+
+/**
+ * Reduces each {@link CompactTrace} to a {@link TraceDigest}.
+ * The time spent digesting is measured separately from the creation of the UML model.
+ */
+public class TraceDigestStage extends AbstractConsumerStage<CompactTrace> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TraceDigestStage.class);
+    private final OutputPort<TraceDigest> outputPort = this.createOutputPort();
+    private long digestedTraces = 0;
+    private long digestNanos = 0;
+
+    @Override
+    protected void execute(final CompactTrace trace) throws Exception {
+        final long start = System.nanoTime();
+        final TraceDigest digest = TraceDigest.of(trace);
+        digestNanos += System.nanoTime() - start;
+        digestedTraces++;
+        outputPort.send(digest);
+    }
+
+    @Override
+    protected void onTerminating() {
+        LOGGER.info(String.format("Digested %s traces in %s ms", digestedTraces, digestNanos / 1_000_000.0));
+        super.onTerminating();
+    }
+
+    public OutputPort<TraceDigest> getOutputPort() {
+        return outputPort;
+    }
+}
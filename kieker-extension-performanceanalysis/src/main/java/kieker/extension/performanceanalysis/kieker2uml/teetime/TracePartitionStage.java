@@ -0,0 +1,42 @@
+package kieker.extension.performanceanalysis.kieker2uml.teetime;
+
+import kieker.extension.performanceanalysis.kieker2uml.trace.CompactTrace;
+import teetime.framework.AbstractConsumerStage;
+import teetime.framework.OutputPort;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Distributes the {@link CompactTrace}s onto a fixed number of output ports by the hash of their trace id.
+ * The same trace id is always sent to the same port, so each worker connected to a port holds distinct traces.
+ */
+public class TracePartitionStage extends AbstractConsumerStage<CompactTrace> {
+
+    private final List<OutputPort<CompactTrace>> outputPorts;
+
+    /**
+     * @param partitions the number of output ports
+     */
+    public TracePartitionStage(final int partitions) {
+        if (partitions < 1) {
+            throw new IllegalArgumentException("At least one partition is required. Value: " + partitions);
+        }
+        final List<OutputPort<CompactTrace>> ports = new ArrayList<>(partitions);
+        for (int i = 0; i < partitions; i++) {
+            ports.add(this.createOutputPort());
+        }
+        this.outputPorts = Collections.unmodifiableList(ports);
+    }
+
+    @Override
+    protected void execute(final CompactTrace trace) throws Exception {
+        outputPorts.get(Math.floorMod(Long.hashCode(trace.getTraceId() * 0x9e3779b97f4a7c15L), outputPorts.size()))
+                .send(trace);
+    }
+
+    public List<OutputPort<CompactTrace>> getOutputPorts() {
+        return outputPorts;
+    }
+}
@@ -0,0 +1,111 @@
+package kieker.extension.performanceanalysis.kieker2uml.teetime;
+
+import kieker.extension.performanceanalysis.kieker2uml.trace.TraceDigest;
+import kieker.extension.performanceanalysis.kieker2uml.trace.MessageSequence;
+import kieker.extension.performanceanalysis.kieker2uml.trace.TraceShape;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import teetime.framework.AbstractConsumerStage;
+import teetime.framework.OutputPort;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.LongPredicate;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * <p>
+ * Groups the {@link TraceDigest}s by their {@link MessageSequence} into {@link TraceShape}s.
+ * The shapes are sent as a {@link TraceShapeBatch} when the stage terminates, in the order their first trace was received.
+ * This way the UML model is changed once per shape and not once per trace.
+ * While the logs are watched the shapes are additionally taken by {@link #takeShapes()} when the {@link SnapshotTrigger}
+ * requests a snapshot, the stage then continues with new shapes. The shapes are taken in the thread of the request,
+ * independent of whether the stage receives traces, the shapes are therefore guarded by the monitor of the stage.
+ * </p>
+ * <p>
+ * Traces that were applied to the model in a previous run are skipped, the check is provided per message sequence
+ * by {@link UmlModelFilter#getAppliedTraces(MessageSequence)}. The skipped traces are only counted, each one is
+ * logged at debug level.
+ * </p>
+ */
+public class TraceShapeAggregationStage extends AbstractConsumerStage<TraceDigest> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TraceShapeAggregationStage.class);
+    private final OutputPort<TraceShapeBatch> outputPort = this.createOutputPort();
+    private final Function<MessageSequence, LongPredicate> appliedTraces;
+    private final int sampleLimit;
+    private final long arrivalWindow;
+    private final int worker;
+    private final Map<MessageSequence, TraceShape> shapes = new LinkedHashMap<>();
+    private final Map<MessageSequence, LongPredicate> appliedTracesBySequence = new HashMap<>();
+    private long aggregatedTraces = 0;
+    private long appliedBeforeTraces = 0;
+    private long duplicateTraces = 0;
+
+    /**
+     * @param appliedTraces provides for a message sequence the check whether a trace id is already part of the model
+     * @param sampleLimit   the number of raw samples kept by the statistics of the shapes
+     * @param arrivalWindow the length of the windows in which the arrivals of the shapes are counted, 0 for none
+     * @param worker        the index of the stage among the workers
+     */
+    public TraceShapeAggregationStage(final Function<MessageSequence, LongPredicate> appliedTraces, final int sampleLimit, final long arrivalWindow,
+                                      final int worker) {
+        this.appliedTraces = requireNonNull(appliedTraces, "appliedTraces");
+        this.sampleLimit = sampleLimit;
+        this.arrivalWindow = arrivalWindow;
+        this.worker = worker;
+    }
+
+    @Override
+    protected synchronized void execute(final TraceDigest digest) throws Exception {
+        final MessageSequence messageSequence = digest.getMessageSequence();
+        if (appliedTracesBySequence.computeIfAbsent(messageSequence, appliedTraces).test(digest.getTraceId())) {
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug(String.format("Trace with id '%s' was applied before and is therefore skipped.", digest.getTraceId()));
+            }
+            appliedBeforeTraces++;
+            return;
+        }
+        if (shapes.computeIfAbsent(messageSequence, m -> new TraceShape(digest, sampleLimit, arrivalWindow)).add(digest)) {
+            aggregatedTraces++;
+        } else {
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug(String.format("Trace with id '%s' was received twice and is therefore skipped.", digest.getTraceId()));
+            }
+            duplicateTraces++;
+        }
+    }
+
+    /**
+     * Takes the shapes aggregated so far for a snapshot, the stage continues with new shapes.
+     * Can be called from any thread.
+     * @return the shapes in the order their first trace was received
+     */
+    synchronized TraceShapeBatch takeShapes() {
+        final TraceShapeBatch batch = new TraceShapeBatch(worker, new ArrayList<>(shapes.values()));
+        shapes.clear();
+        // the taken traces are added to the model, the checks are requested again
+        appliedTracesBySequence.clear();
+        return batch;
+    }
+
+    @Override
+    protected void onTerminating() {
+        final TraceShapeBatch batch;
+        synchronized (this) {
+            LOGGER.info(String.format("Aggregated %s MessageTraces into %s shapes, skipped %s MessageTraces applied before and %s received twice",
+                    aggregatedTraces, shapes.size(), appliedBeforeTraces, duplicateTraces));
+            batch = new TraceShapeBatch(worker, new ArrayList<>(shapes.values()));
+        }
+        outputPort.send(batch);
+        super.onTerminating();
+    }
+
+    public OutputPort<TraceShapeBatch> getOutputPort() {
+        return outputPort;
+    }
+}
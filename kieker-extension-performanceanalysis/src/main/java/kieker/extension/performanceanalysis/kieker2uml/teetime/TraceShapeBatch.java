@@ -0,0 +1,32 @@
+package kieker.extension.performanceanalysis.kieker2uml.teetime;
+
+import kieker.extension.performanceanalysis.kieker2uml.trace.TraceShape;
+
+import java.util.List;
+
+/**
+ * The {@link TraceShape}s of a {@link TraceShapeAggregationStage} at once: sent when it terminates or, while the logs are
+ * watched, taken when a snapshot is requested by the {@link SnapshotTrigger}.
+ */
+public final class TraceShapeBatch {
+
+    private final int worker;
+    private final List<TraceShape> shapes;
+
+    /**
+     * @param worker the index of the aggregation stage
+     * @param shapes the shapes in the order their first trace was received
+     */
+    TraceShapeBatch(final int worker, final List<TraceShape> shapes) {
+        this.worker = worker;
+        this.shapes = List.copyOf(shapes);
+    }
+
+    public int getWorker() {
+        return worker;
+    }
+
+    public List<TraceShape> getShapes() {
+        return shapes;
+    }
+}
@@ -1,69 +1,174 @@
 package kieker.extension.performanceanalysis.kieker2uml.teetime;
 
-import kieker.analysis.plugin.trace.AbstractMessageTraceProcessingFilter;
-import kieker.model.repository.SystemModelRepository;
-import kieker.model.system.model.MessageTrace;
+import kieker.extension.performanceanalysis.kieker2uml.reader.IngestManifest;
+import kieker.extension.performanceanalysis.kieker2uml.trace.MessageSequence;
+import kieker.extension.performanceanalysis.kieker2uml.trace.TraceIdSet;
+import kieker.extension.performanceanalysis.kieker2uml.trace.TraceShape;
+import kieker.extension.performanceanalysis.kieker2uml.uml.Kieker2UmlModel;
+import kieker.extension.performanceanalysis.kieker2uml.uml.PerformanceAccumulator;
 import org.eclipse.uml2.uml.Model;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import teetime.framework.AbstractConsumerStage;
 
 import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongPredicate;
+import java.util.function.Supplier;
 
 import static java.lang.String.format;
+import static java.util.Objects.isNull;
 import static kieker.extension.performanceanalysis.kieker2uml.uml.Kieker2UmlModel.addBehaviourToDynamicPackage;
 import static kieker.extension.performanceanalysis.kieker2uml.uml.Kieker2UmlModel.addStaticAndDeploymentPackage;
+import static kieker.extension.performanceanalysis.kieker2uml.uml.Kieker2UmlModel.finish;
 import static kieker.extension.performanceanalysis.kieker2uml.uml.Kieker2UmlUtil.loadModel;
 import static kieker.extension.performanceanalysis.kieker2uml.uml.Kieker2UmlUtil.saveModel;
 
-public class UmlModelFilter extends AbstractMessageTraceProcessingFilter {
+/**
+ * <p>
+ * Collects the {@link TraceShape}s and adds them to the UML model when the stage terminates, thereafter the model is saved.
+ * </p>
+ * <p>
+ * Partial shapes with the same message sequence, e.g. from parallel workers, are merged. The shapes are added ordered by
+ * their first start timestamp, their fingerprint and their first trace, so the resulting model does not depend on the number of workers
+ * or the order in which the shapes are received.
+ * </p>
+ * <p>
+ * An {@link IngestManifest} is saved after the model, so the parts of the logs it records as read are in the saved model.
+ * </p>
+ * <p>
+ * While the logs are watched, the model is additionally saved as a snapshot by {@link #saveSnapshot(List)} with the shapes
+ * taken from all {@link TraceShapeAggregationStage}s when the {@link SnapshotTrigger} requests it. The model stays in memory and
+ * the shapes are added to the model as in a run that extends it. The ingest manifest is only saved when the stage
+ * terminates: a snapshot may miss traces of records that were already read, e.g. traces that are still open.
+ * </p>
+ */
+public class UmlModelFilter extends AbstractConsumerStage<TraceShapeBatch> {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(UmlModelFilter.class);
-    private static Integer counter = 0;
+    private static final Comparator<TraceShape> SHAPE_ORDER = Comparator.comparingLong(TraceShape::getFirstStartTimestamp)
+            .thenComparing(shape -> shape.getFingerprint().toString())
+            .thenComparingLong(shape -> shape.getDigest().getTraceId());
     private final Path modelPath;
     private final String useCaseName;
     private final Model model;
+    private final PerformanceAccumulator performance;
+    private final IngestManifest ingestManifest;
+    private final Map<MessageSequence, TraceShape> shapes = new HashMap<>();
+    private long snapshots = 0;
+    private long counter = 0;
+    private long receivedShapes = 0;
+    private long umlNanos = 0;
 
 
     /**
-     * @param repository model repository
      * @param modelPath  the path to the file to which the sequence diagramm is written.
      * @param useCaseName the name of the UML use case to which the interaction shall be added.
+     * @param execTimeSampleLimit the number of raw execution times kept per GaStep, see {@link PerformanceAccumulator#PerformanceAccumulator(int)}
+     * @param traceIdSetFactory creates the sets of the applied trace ids, see {@link PerformanceAccumulator#PerformanceAccumulator(int, Supplier)}
+     * @param ingestManifest the parts of the logs that were read into the model, null if the logs are not read incrementally
      */
-    public UmlModelFilter(final SystemModelRepository repository, final Path modelPath, final String useCaseName) {
-        super(repository);
+    public UmlModelFilter(final Path modelPath, final String useCaseName, final int execTimeSampleLimit, final Supplier<TraceIdSet> traceIdSetFactory,
+                          final IngestManifest ingestManifest) {
         this.model = loadModel(modelPath);
+        Kieker2UmlModel.migrate(model);
         this.modelPath = modelPath;
         this.useCaseName = useCaseName;
+        this.performance = new PerformanceAccumulator(execTimeSampleLimit, traceIdSetFactory);
+        this.ingestManifest = ingestManifest;
         LOGGER.info("Model loaded: " + modelPath);
     }
 
     @Override
-    protected void execute(final MessageTrace mt) throws Exception {
-        counter++;
-        createUmlModel(mt);
-        this.reportSuccess(mt.getTraceId());
+    protected synchronized void execute(final TraceShapeBatch batch) throws Exception {
+        batch.getShapes().forEach(this::merge);
     }
 
-    private void createUmlModel(final MessageTrace mt) {
-        LOGGER.debug("Successfully received MessageTrace: " + mt.getTraceId());
+    private void merge(final TraceShape shape) {
+        receivedShapes++;
+        shapes.merge(shape.getMessageSequence(), shape, (known, other) -> {
+            // the shape with the earliest trace is kept, its digest represents the interaction independent of the workers
+            final boolean otherFirst = other.getFirstStartTimestamp() < known.getFirstStartTimestamp()
+                    || other.getFirstStartTimestamp() == known.getFirstStartTimestamp() && other.getDigest().getTraceId() < known.getDigest().getTraceId();
+            final TraceShape base = otherFirst ? other : known;
+            base.merge(otherFirst ? known : other);
+            return base;
+        });
+    }
+
+    private void createUmlModel(final TraceShape shape) {
+        LOGGER.debug("Successfully received TraceShape: " + shape.getFingerprint());
 
         // UML
-        addStaticAndDeploymentPackage(model, mt);
-        addBehaviourToDynamicPackage(model, mt, useCaseName);
+        addStaticAndDeploymentPackage(model, shape.getDigest());
+        addBehaviourToDynamicPackage(model, shape, useCaseName, performance);
 
         // logging
-        LOGGER.debug("TraceId: " + mt.getTraceId());
-        LOGGER.debug(format("Total number of messages: %s", mt.getSequenceAsVector().size()));
-        LOGGER.debug(format("start time: %s", mt.getStartTimestamp()));
-        LOGGER.debug(format("end time: %s", mt.getEndTimestamp()));
-        LOGGER.debug(format("Total elapsed time for Trace Id %s: %s ms", mt.getTraceId(), (mt.getEndTimestamp() - mt.getStartTimestamp()) / 1_000_000.0));
+        LOGGER.debug("Fingerprint: " + shape.getFingerprint());
+        LOGGER.debug(format("Total number of traces: %s", shape.getTraceCount()));
+        LOGGER.debug(format("Total number of messages: %s", shape.getDigest().size()));
+        LOGGER.debug(format("start time: %s", shape.getFirstStartTimestamp()));
+        LOGGER.debug(format("end time: %s", shape.getLastEndTimestamp()));
+        LOGGER.debug(format("Mean elapsed time for Fingerprint %s: %s ms", shape.getFingerprint(), shape.getResponseTimeStatistics().getMean() / 1_000_000.0));
     }
 
-    @Override
-    protected void onTerminating() {
+    /**
+     * The model is only read, this is used by the {@link TraceShapeAggregationStage}s before the shapes are sent.
+     * The workers may call this concurrently and the lookup fills the registries of the model,
+     * the calls are therefore synchronized like the changes of the model.
+     * @param messageSequence the message sequence of the traces
+     * @return true for the ids of the traces that are already part of the model
+     */
+    public synchronized LongPredicate getAppliedTraces(final MessageSequence messageSequence) {
+        return Kieker2UmlModel.getAppliedTraces(model, useCaseName, messageSequence);
+    }
+
+    /**
+     * Adds the shapes of a snapshot to the model and saves it, the workers check the applied traces concurrently.
+     * It is called in the thread that requests the snapshot, see {@link SnapshotTrigger#onRequest(java.util.function.LongConsumer)}.
+     * @param batches the shapes taken from all {@link TraceShapeAggregationStage}s
+     */
+    public synchronized void saveSnapshot(final List<TraceShapeBatch> batches) {
+        batches.forEach(batch -> batch.getShapes().forEach(this::merge));
+        final long traces = counter;
+        final int shapeCount = applyShapes();
+        snapshots++;
+        LOGGER.info(format("Snapshot %s: added %s MessageTraces in %s TraceShapes", snapshots, counter - traces, shapeCount));
+    }
+
+    /**
+     * Adds the shapes to the model, thereafter saves the model.
+     * @return the number of shapes that were added
+     */
+    private int applyShapes() {
+        final int shapeCount = shapes.size();
+        final long start = System.nanoTime();
+        shapes.values().stream().sorted(SHAPE_ORDER).forEach(shape -> {
+            counter += shape.getTraceCount();
+            createUmlModel(shape);
+        });
+        shapes.clear();
+        finish(model, performance);
+        umlNanos += System.nanoTime() - start;
         saveModel(model, modelPath);
         LOGGER.info("Model saved to: " + modelPath);
-        LOGGER.info("Total processed MessageTraces: " + counter);
+        return shapeCount;
+    }
+
+    @Override
+    protected void onTerminating() {
+        synchronized (this) {
+            final int shapeCount = applyShapes();
+            if (!isNull(ingestManifest)) {
+                ingestManifest.save(IngestManifest.getManifestPath(modelPath));
+            }
+            LOGGER.info("Total processed MessageTraces: " + counter);
+            LOGGER.info(format("Total processed TraceShapes: %s (received partial shapes: %s, snapshots: %s)", shapeCount, receivedShapes, snapshots));
+            LOGGER.info(format("Time spent creating the UML model: %s ms", umlNanos / 1_000_000.0));
+        }
         super.onTerminating();
     }
 }
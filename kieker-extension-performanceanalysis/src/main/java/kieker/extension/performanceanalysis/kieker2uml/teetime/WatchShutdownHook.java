@@ -0,0 +1,58 @@
+package kieker.extension.performanceanalysis.kieker2uml.teetime;
+
+import kieker.extension.performanceanalysis.kieker2uml.reader.IngestManifest;
+
+import java.util.concurrent.CountDownLatch;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * <p>
+ * Stops watching the input paths when the process is stopped, e.g. by Ctrl+C or SIGTERM, and waits until the analysis
+ * has finished with the records read so far. The {@link UmlModelFilter} then saves the model and the {@link IngestManifest}
+ * a last time, as if the logs had ended, so the next incremental run continues where this one stopped.
+ * </p>
+ * <p>
+ * The hook is registered by the {@link TeeTimeConfiguration} when the paths are watched, i.e. after the arguments were parsed.
+ * It is released and removed by {@link #finished()} when the analysis has finished.
+ * </p>
+ */
+final class WatchShutdownHook extends Thread {
+
+    private final Runnable stopWatching;
+    private final CountDownLatch finished = new CountDownLatch(1);
+
+    /**
+     * @param stopWatching stops watching the paths, the analysis then finishes, see {@link ParallelLogsReaderStage#stopWatching()}
+     */
+    WatchShutdownHook(final Runnable stopWatching) {
+        super("kieker2uml-stop-watching");
+        this.stopWatching = requireNonNull(stopWatching, "stopWatching");
+    }
+
+    void register() {
+        Runtime.getRuntime().addShutdownHook(this);
+    }
+
+    @Override
+    public void run() {
+        stopWatching.run();
+        try {
+            finished.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Releases the hook when the analysis has finished, also if it failed. The hook is removed unless the process is already stopping.
+     */
+    void finished() {
+        finished.countDown();
+        try {
+            Runtime.getRuntime().removeShutdownHook(this);
+        } catch (IllegalStateException e) {
+            // the process is stopping, the hook is running or has already returned
+        }
+    }
+}
@@ -0,0 +1,257 @@
+package kieker.extension.performanceanalysis.kieker2uml.trace;
+
+import kieker.model.system.model.AbstractMessage;
+import kieker.model.system.model.Execution;
+import kieker.model.system.model.MessageTrace;
+import kieker.model.system.model.SynchronousCallMessage;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * <p>
+ * The executions of a trace in primitive arrays, ordered by their execution order index (eoi).
+ * The {@link kieker.model.system.model.Operation} and the {@link kieker.model.system.model.AllocationComponent} of each
+ * execution are held as ids of the {@link SymbolTable}, the timestamps, eoi and ess as parallel arrays.
+ * A trace takes about 32 bytes per execution instead of the object graph of a {@link MessageTrace}.
+ * </p>
+ * <p>
+ * The messages are not stored, they are derived from the eoi and ess of the executions when the
+ * {@link TraceDigest} is created, the same way Kieker derives a {@link MessageTrace} from an execution trace.
+ * The root execution ("'Entry'") is the sender of the first call.
+ * </p>
+ */
+public final class CompactTrace {
+
+    private final long traceId;
+    private final int rootOperation;
+    private final int rootAllocation;
+    private final int[] operations;
+    private final int[] allocations;
+    private final long[] tins;
+    private final long[] touts;
+    private final int[] eois;
+    private final int[] esss;
+
+    private CompactTrace(final Builder builder) {
+        this.traceId = builder.traceId;
+        this.rootOperation = builder.rootOperation;
+        this.rootAllocation = builder.rootAllocation;
+        this.operations = Arrays.copyOf(builder.operations, builder.size);
+        this.allocations = Arrays.copyOf(builder.allocations, builder.size);
+        this.tins = Arrays.copyOf(builder.tins, builder.size);
+        this.touts = Arrays.copyOf(builder.touts, builder.size);
+        this.eois = Arrays.copyOf(builder.eois, builder.size);
+        this.esss = Arrays.copyOf(builder.esss, builder.size);
+    }
+
+    /**
+     * Converts the executions of the {@link MessageTrace}, the receiving execution of each call.
+     * @param messageTrace a trace with at least one message
+     * @return the compact trace, it holds no reference to the message trace.
+     */
+    public static CompactTrace of(final MessageTrace messageTrace) {
+        requireNonNull(messageTrace, "messageTrace");
+        final List<AbstractMessage> messages = messageTrace.getSequenceAsVector();
+        if (messages.isEmpty()) {
+            throw new IllegalArgumentException("A MessageTrace without messages cannot be converted. TraceId: " + messageTrace.getTraceId());
+        }
+        final Builder builder = builder(messageTrace.getTraceId(), messages.get(0).getSendingExecution());
+        for (final AbstractMessage message : messages) {
+            if (message instanceof SynchronousCallMessage) {
+                builder.add(message.getReceivingExecution());
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * @param traceId       the id of the trace
+     * @param rootExecution the execution that is the sender of the first call, i.e. the "'Entry'" execution
+     * @return a builder to which the executions of the trace are added in any order
+     */
+    public static Builder builder(final long traceId, final Execution rootExecution) {
+        requireNonNull(rootExecution, "rootExecution");
+        return new Builder(traceId, rootExecution);
+    }
+
+    public long getTraceId() {
+        return traceId;
+    }
+
+    /**
+     * @return the number of executions
+     */
+    public int size() {
+        return operations.length;
+    }
+
+    public int getRootOperation() {
+        return rootOperation;
+    }
+
+    public int getRootAllocation() {
+        return rootAllocation;
+    }
+
+    /**
+     * @param index the index of the execution, which is also its eoi
+     * @return the id of the operation in the {@link SymbolTable}
+     */
+    public int getOperation(final int index) {
+        return operations[index];
+    }
+
+    /**
+     * @param index the index of the execution, which is also its eoi
+     * @return the id of the allocation component in the {@link SymbolTable}
+     */
+    public int getAllocation(final int index) {
+        return allocations[index];
+    }
+
+    public long getTin(final int index) {
+        return tins[index];
+    }
+
+    public long getTout(final int index) {
+        return touts[index];
+    }
+
+    public int getEoi(final int index) {
+        return eois[index];
+    }
+
+    public int getEss(final int index) {
+        return esss[index];
+    }
+
+    /**
+     * @return the timestamp of the first call, the Tin of the first execution
+     */
+    public long getStartTimestamp() {
+        return tins[0];
+    }
+
+    /**
+     * @return the timestamp of the last reply, the Tout of the first execution
+     */
+    public long getEndTimestamp() {
+        return touts[0];
+    }
+
+    /**
+     * Collects the executions of a trace, {@link Builder#build()} orders them by their eoi and validates them.
+     */
+    public static final class Builder {
+        private final long traceId;
+        private final int rootOperation;
+        private final int rootAllocation;
+        private int size = 0;
+        private int[] operations = new int[8];
+        private int[] allocations = new int[8];
+        private long[] tins = new long[8];
+        private long[] touts = new long[8];
+        private int[] eois = new int[8];
+        private int[] esss = new int[8];
+
+        private Builder(final long traceId, final Execution rootExecution) {
+            this.traceId = traceId;
+            this.rootOperation = SymbolTable.internOperation(rootExecution.getOperation());
+            this.rootAllocation = SymbolTable.internAllocation(rootExecution.getAllocationComponent());
+        }
+
+        /**
+         * @param execution an execution of the trace, it is not referenced by the builder.
+         * @return this builder
+         */
+        public Builder add(final Execution execution) {
+            requireNonNull(execution, "execution");
+            if (size == operations.length) {
+                final int capacity = size * 2;
+                operations = Arrays.copyOf(operations, capacity);
+                allocations = Arrays.copyOf(allocations, capacity);
+                tins = Arrays.copyOf(tins, capacity);
+                touts = Arrays.copyOf(touts, capacity);
+                eois = Arrays.copyOf(eois, capacity);
+                esss = Arrays.copyOf(esss, capacity);
+            }
+            operations[size] = SymbolTable.internOperation(execution.getOperation());
+            allocations[size] = SymbolTable.internAllocation(execution.getAllocationComponent());
+            tins[size] = execution.getTin();
+            touts[size] = execution.getTout();
+            eois[size] = execution.getEoi();
+            esss[size] = execution.getEss();
+            size++;
+            return this;
+        }
+
+        public long getTraceId() {
+            return traceId;
+        }
+
+        /**
+         * @return the number of executions added
+         */
+        public int size() {
+            return size;
+        }
+
+        /**
+         * @return the trace with the executions ordered by their eoi
+         * @throws IllegalStateException if the executions do not form a trace: the eois are not 0 to n-1,
+         *                               the first ess is not 0 or an ess is more than one deeper than the ess before.
+         */
+        public CompactTrace build() {
+            if (size == 0) {
+                throw new IllegalStateException("A trace without executions cannot be built. TraceId: " + traceId);
+            }
+            sortByEoi();
+            for (int i = 0; i < size; i++) {
+                if (eois[i] != i) {
+                    throw new IllegalStateException("Expected eoi " + i + " but found " + eois[i] + ". TraceId: " + traceId);
+                }
+                final int maxEss = i == 0 ? 0 : esss[i - 1] + 1;
+                if (esss[i] < 0 || esss[i] > maxEss) {
+                    throw new IllegalStateException("Invalid ess " + esss[i] + " at eoi " + i + ". TraceId: " + traceId);
+                }
+            }
+            return new CompactTrace(this);
+        }
+
+        /**
+         * The executions usually arrive ordered by their eoi or close to it, therefore an insertion sort is used.
+         */
+        private void sortByEoi() {
+            for (int i = 1; i < size; i++) {
+                final int eoi = eois[i];
+                if (eois[i - 1] <= eoi) {
+                    continue;
+                }
+                final int operation = operations[i];
+                final int allocation = allocations[i];
+                final long tin = tins[i];
+                final long tout = touts[i];
+                final int ess = esss[i];
+                int j = i - 1;
+                while (j >= 0 && eois[j] > eoi) {
+                    operations[j + 1] = operations[j];
+                    allocations[j + 1] = allocations[j];
+                    tins[j + 1] = tins[j];
+                    touts[j + 1] = touts[j];
+                    eois[j + 1] = eois[j];
+                    esss[j + 1] = esss[j];
+                    j--;
+                }
+                operations[j + 1] = operation;
+                allocations[j + 1] = allocation;
+                tins[j + 1] = tin;
+                touts[j + 1] = tout;
+                eois[j + 1] = eoi;
+                esss[j + 1] = ess;
+            }
+        }
+    }
+}
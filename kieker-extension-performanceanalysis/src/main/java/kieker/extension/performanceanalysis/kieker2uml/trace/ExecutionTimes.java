@@ -0,0 +1,95 @@
+package kieker.extension.performanceanalysis.kieker2uml.trace;
+
+import java.util.Arrays;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * <p>
+ * Calculates the total and the net (exclusive) execution time of every call of a trace in a single traversal.
+ * </p>
+ * <p>
+ * The messages of a trace are sequential: a call opens an execution, the matching reply closes it.
+ * A stack of the open calls is kept while iterating; the call on top of the stack is the caller of the next call.
+ * The total time of each call is added to its caller, the net time is the total time minus the time of all direct callees.
+ * Recursive calls are separate entries on the stack and are therefore handled like any other call.
+ * </p>
+ */
+public final class ExecutionTimes {
+
+    private final long[] totalTimes;
+    private final long[] netTimes;
+
+    private ExecutionTimes(final long[] totalTimes, final long[] netTimes) {
+        this.totalTimes = totalTimes;
+        this.netTimes = netTimes;
+    }
+
+    /**
+     * @param calls true for each call message, false for each reply message
+     * @param tins  Tin (time in nanos when the execution was entered) of the execution called by each call, ignored for replies
+     * @param touts Tout (time in nanos when the execution was left) of the execution called by each call, ignored for replies
+     * @return the execution times indexed like the messages, replies have a time of 0
+     * @throws IllegalArgumentException if a net time is less than zero, i.e. the callees took longer than the caller
+     */
+    public static ExecutionTimes compute(final boolean[] calls, final long[] tins, final long[] touts) {
+        requireNonNull(calls, "calls");
+        requireNonNull(tins, "tins");
+        requireNonNull(touts, "touts");
+        if (tins.length != calls.length || touts.length != calls.length) {
+            throw new IllegalArgumentException("Arrays of different lengths. calls: " + calls.length + ", tins: " + tins.length + ", touts: " + touts.length);
+        }
+
+        final long[] totalTimes = new long[calls.length];
+        final long[] calleeTimes = new long[calls.length];
+        final int[] openCalls = new int[calls.length];
+        int depth = 0;
+
+        for (int i = 0; i < calls.length; i++) {
+            if (calls[i]) {
+                totalTimes[i] = touts[i] - tins[i];
+                if (depth > 0) {
+                    calleeTimes[openCalls[depth - 1]] += totalTimes[i];
+                }
+                openCalls[depth++] = i;
+            } else if (depth > 0) {
+                depth--;
+            }
+        }
+
+        final long[] netTimes = new long[calls.length];
+        for (int i = 0; i < calls.length; i++) {
+            if (!calls[i]) {
+                continue;
+            }
+            // the execTime should be the time the execution is actually working and not waiting for the execution of others
+            final long execTime = totalTimes[i] - calleeTimes[i];
+            if (execTime < 0) {
+                throw new IllegalArgumentException("ExecTime cannot be less than zero. ExecTime value: " + execTime);
+            }
+            netTimes[i] = execTime;
+        }
+        return new ExecutionTimes(totalTimes, netTimes);
+    }
+
+    /**
+     * @param index the index of a call
+     * @return Tout - Tin of the called execution
+     */
+    public long getTotalTime(final int index) {
+        return totalTimes[index];
+    }
+
+    /**
+     * @param index the index of a call
+     * @return the total time of the called execution without the total times of the executions it called
+     */
+    public long getNetTime(final int index) {
+        return netTimes[index];
+    }
+
+    @Override
+    public String toString() {
+        return "ExecutionTimes{totalTimes=" + Arrays.toString(totalTimes) + ", netTimes=" + Arrays.toString(netTimes) + '}';
+    }
+}
@@ -0,0 +1,107 @@
+package kieker.extension.performanceanalysis.kieker2uml.trace;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * <p>
+ * The sequence of messages of a trace as interned message ids, see {@link TraceFingerprints#internMessage(String)}.
+ * Traces are grouped into {@link TraceShape}s by their sequence.
+ * </p>
+ * <p>
+ * Two sequences are equal if their messages are equal, the {@link TraceFingerprint} only speeds up the comparison.
+ * Sequences whose fingerprints collide are therefore kept apart, the model keeps them apart by the salted fingerprints
+ * of {@link MessageSequence#getFingerprint(int)}.
+ * </p>
+ */
+public final class MessageSequence {
+
+    private final int[] messageIds;
+    private final TraceFingerprint fingerprint;
+
+    /**
+     * @param messageIds the interned message ids, the array is not copied and must not be changed afterwards
+     */
+    MessageSequence(final int[] messageIds) {
+        this.messageIds = requireNonNull(messageIds, "messageIds");
+        this.fingerprint = TraceFingerprints.of(messageIds);
+    }
+
+    /**
+     * @param messageRepresentations the representations of the messages in order
+     * @return the sequence of the messages
+     */
+    public static MessageSequence ofRepresentations(final List<String> messageRepresentations) {
+        requireNonNull(messageRepresentations, "messageRepresentations");
+        final int[] messageIds = new int[messageRepresentations.size()];
+        for (int i = 0; i < messageIds.length; i++) {
+            messageIds[i] = TraceFingerprints.internMessage(messageRepresentations.get(i));
+        }
+        return new MessageSequence(messageIds);
+    }
+
+    public TraceFingerprint getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * @param salt 0 for the fingerprint of {@link MessageSequence#getFingerprint()}, the next salt if a fingerprint
+     *             is already used by a different sequence
+     * @return the fingerprint of the sequence with the salt, always the same for the same messages and salt
+     */
+    public TraceFingerprint getFingerprint(final int salt) {
+        return salt == 0 ? fingerprint : TraceFingerprints.of(messageIds, salt);
+    }
+
+    /**
+     * @return the number of messages
+     */
+    public int size() {
+        return messageIds.length;
+    }
+
+    public int getMessageId(final int index) {
+        return messageIds[index];
+    }
+
+    /**
+     * @param messageRepresentations the representations of the messages in order, e.g. read from an interaction of a model
+     * @return true if the sequence consists of exactly these messages
+     */
+    public boolean hasMessages(final List<String> messageRepresentations) {
+        requireNonNull(messageRepresentations, "messageRepresentations");
+        if (messageRepresentations.size() != messageIds.length) {
+            return false;
+        }
+        for (int i = 0; i < messageIds.length; i++) {
+            if (!TraceFingerprints.getMessageRepresentation(messageIds[i]).equals(messageRepresentations.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof MessageSequence)) {
+            return false;
+        }
+        final MessageSequence that = (MessageSequence) o;
+        return fingerprint.equals(that.fingerprint) && Arrays.equals(messageIds, that.messageIds);
+    }
+
+    @Override
+    public int hashCode() {
+        return fingerprint.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return fingerprint.toString();
+    }
+}
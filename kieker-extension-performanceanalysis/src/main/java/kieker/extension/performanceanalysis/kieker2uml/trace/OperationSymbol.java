@@ -0,0 +1,90 @@
+package kieker.extension.performanceanalysis.kieker2uml.trace;
+
+import kieker.model.system.model.Operation;
+
+/**
+ * An {@link Operation} of the {@link SymbolTable} with the names derived from it. The names are computed once
+ * when the operation is interned, the builders use them instead of concatenating them for every message.
+ */
+public final class OperationSymbol {
+
+    private final int id;
+    private final Operation operation;
+    private final String representation;
+    private final String packageName;
+    private final String typeName;
+    private final String fullQualifiedName;
+    private final String signature;
+    private final String fullQualifiedNameSignature;
+    private final String interfaceName;
+
+    OperationSymbol(final int id, final Operation operation) {
+        this.id = id;
+        this.operation = operation;
+        this.packageName = operation.getComponentType().getPackageName();
+        this.typeName = operation.getComponentType().getTypeName();
+        this.fullQualifiedName = operation.getComponentType().getFullQualifiedName();
+        this.signature = operation.getSignature().toString();
+        this.representation = fullQualifiedName + signature;
+        this.fullQualifiedNameSignature = operation.toString();
+        // "<init>" is the representation of calling a constructor, the constructor is named by the type instead
+        this.interfaceName = signature.contains("<init>") ? signature.replace("<init>", typeName) : signature;
+    }
+
+    /**
+     * @return the key of the operation in the {@link SymbolTable}: the full qualified name of the component type and the signature
+     */
+    static String getRepresentation(final Operation operation) {
+        return operation.getComponentType().getFullQualifiedName() + operation.getSignature().toString();
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public Operation getOperation() {
+        return operation;
+    }
+
+    /**
+     * @return the full qualified name of the component type followed by the signature
+     */
+    public String getRepresentation() {
+        return representation;
+    }
+
+    public String getPackageName() {
+        return packageName;
+    }
+
+    public String getTypeName() {
+        return typeName;
+    }
+
+    public String getFullQualifiedName() {
+        return fullQualifiedName;
+    }
+
+    public String getSignature() {
+        return signature;
+    }
+
+    /**
+     * @return the Kieker representation of the operation, {@link Operation#toString()}
+     */
+    public String getFullQualifiedNameSignature() {
+        return fullQualifiedNameSignature;
+    }
+
+    /**
+     * @return the signature, for a constructor "&lt;init&gt;" is replaced by the type name
+     */
+    public String getInterfaceName() {
+        return interfaceName;
+    }
+
+    @Override
+    public String toString() {
+        return "OperationSymbol{" + id + ": " + representation + '}';
+    }
+}
@@ -0,0 +1,236 @@
+package kieker.extension.performanceanalysis.kieker2uml.trace;
+
+import kieker.extension.performanceanalysis.kieker2uml.uml.Kieker2UmlUtil;
+import kieker.model.system.model.AllocationComponent;
+import kieker.model.system.model.AssemblyComponent;
+import kieker.model.system.model.ExecutionContainer;
+import kieker.model.system.model.Operation;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * <p>
+ * Global table of the Kieker {@link Operation}s, {@link AssemblyComponent}s, {@link AllocationComponent}s and
+ * {@link ExecutionContainer}s of the traces. Each distinct one receives a dense int id, so a {@link CompactTrace} holds
+ * the ids in primitive arrays instead of references to Kieker objects. The names the builders derive from them are
+ * computed once, see {@link OperationSymbol} and the identifiers of the components and containers.
+ * </p>
+ * <p>
+ * A symbol is identified by its name (the full qualified name and signature of an operation, the identifier otherwise),
+ * not by the Kieker object. The ids only live as long as the run, the model refers to the elements by their names,
+ * so nothing is persisted.
+ * </p>
+ * <p>
+ * The table is used by concurrent workers. Known symbols are looked up without locking,
+ * only the interning of a new symbol is synchronized.
+ * </p>
+ */
+public final class SymbolTable {
+
+    private static final Symbols<Operation, OperationSymbol> OPERATIONS =
+            new Symbols<>("operation", OperationSymbol::getRepresentation, OperationSymbol::new);
+    private static final Symbols<AssemblyComponent, String> ASSEMBLIES =
+            new Symbols<>("assembly", AssemblyComponent::getIdentifier, (id, assembly) -> assembly.getIdentifier());
+    private static final Symbols<ExecutionContainer, String> CONTAINERS =
+            new Symbols<>("container", ExecutionContainer::getIdentifier, (id, container) -> container.getIdentifier());
+    private static final Symbols<AllocationComponent, AllocationSymbol> ALLOCATIONS =
+            new Symbols<>("allocation", AllocationComponent::getIdentifier, AllocationSymbol::new);
+
+    /** sending operation id (upper 32 bits), receiving operation id (lower 32 bits) -> interned message id */
+    private static final Map<Long, Integer> MESSAGE_IDS = new ConcurrentHashMap<>();
+
+    private SymbolTable() {
+        // utility class
+    }
+
+    /**
+     * @return the dense id of the operation, the same operation always receives the same id.
+     */
+    public static int internOperation(final Operation operation) {
+        return OPERATIONS.intern(requireNonNull(operation, "operation"));
+    }
+
+    /**
+     * @param id an id returned by {@link SymbolTable#internOperation(Operation)}
+     */
+    public static OperationSymbol getOperation(final int id) {
+        return OPERATIONS.getSymbol(id);
+    }
+
+    /**
+     * @return the dense id of the allocation component, its assembly component and execution container are interned as well.
+     */
+    public static int internAllocation(final AllocationComponent allocation) {
+        return ALLOCATIONS.intern(requireNonNull(allocation, "allocation"));
+    }
+
+    /**
+     * @param id an id returned by {@link SymbolTable#internAllocation(AllocationComponent)}
+     */
+    public static AllocationComponent getAllocation(final int id) {
+        return ALLOCATIONS.getSymbol(id).allocation;
+    }
+
+    public static String getAllocationIdentifier(final int id) {
+        return ALLOCATIONS.getSymbol(id).identifier;
+    }
+
+    /**
+     * @param allocationId an id returned by {@link SymbolTable#internAllocation(AllocationComponent)}
+     * @return the id of the assembly component of the allocation component
+     */
+    public static int getAssemblyOf(final int allocationId) {
+        return ALLOCATIONS.getSymbol(allocationId).assembly;
+    }
+
+    /**
+     * @param allocationId an id returned by {@link SymbolTable#internAllocation(AllocationComponent)}
+     * @return the id of the execution container of the allocation component
+     */
+    public static int getContainerOf(final int allocationId) {
+        return ALLOCATIONS.getSymbol(allocationId).container;
+    }
+
+    public static int internAssembly(final AssemblyComponent assembly) {
+        return ASSEMBLIES.intern(requireNonNull(assembly, "assembly"));
+    }
+
+    public static AssemblyComponent getAssembly(final int id) {
+        return ASSEMBLIES.getValue(id);
+    }
+
+    public static String getAssemblyIdentifier(final int id) {
+        return ASSEMBLIES.getSymbol(id);
+    }
+
+    public static int internContainer(final ExecutionContainer container) {
+        return CONTAINERS.intern(requireNonNull(container, "container"));
+    }
+
+    public static ExecutionContainer getContainer(final int id) {
+        return CONTAINERS.getValue(id);
+    }
+
+    public static String getContainerIdentifier(final int id) {
+        return CONTAINERS.getSymbol(id);
+    }
+
+    /**
+     * The representation of the message is only built the first time the pair of operations is seen.
+     * @param sendingOperation   the id of the operation of the sending execution
+     * @param receivingOperation the id of the operation of the receiving execution
+     * @return the id of the message representation, see {@link TraceFingerprints#internMessage(String)}
+     */
+    public static int internMessage(final int sendingOperation, final int receivingOperation) {
+        final Long key = ((long) sendingOperation << 32) | (receivingOperation & 0xFFFFFFFFL);
+        final Integer known = MESSAGE_IDS.get(key);
+        if (known != null) {
+            return known;
+        }
+        return MESSAGE_IDS.computeIfAbsent(key, k -> TraceFingerprints.internMessage(Kieker2UmlUtil.getMessageRepresentation(
+                getOperation(sendingOperation).getOperation(), getOperation(receivingOperation).getOperation())));
+    }
+
+    /**
+     * An {@link AllocationComponent} with its identifier and the ids of its assembly component and execution container.
+     */
+    private static final class AllocationSymbol {
+        private final AllocationComponent allocation;
+        private final String identifier;
+        private final int assembly;
+        private final int container;
+
+        AllocationSymbol(final int id, final AllocationComponent allocation) {
+            this.allocation = allocation;
+            this.identifier = allocation.getIdentifier();
+            this.assembly = internAssembly(allocation.getAssemblyComponent());
+            this.container = internContainer(allocation.getExecutionContainer());
+        }
+    }
+
+    /**
+     * The symbols of one kind. The ids are the positions in the arrays.
+     *
+     * @param <T> the type of the Kieker objects
+     * @param <S> the type of the symbol derived from a Kieker object
+     */
+    private static final class Symbols<T, S> {
+        private final String kind;
+        private final Function<T, String> naming;
+        private final BiFunction<Integer, T, S> deriving;
+        /** the Kieker objects seen in this run, Kieker creates one object per entity */
+        private final Map<T, Integer> ids = new ConcurrentHashMap<>();
+        private final Map<String, Integer> namedIds = new ConcurrentHashMap<>();
+        // a value and its symbol are written before its id is published in ids
+        private volatile Object[] values = new Object[256];
+        private volatile Object[] symbols = new Object[256];
+        private int nextId = 0;
+
+        Symbols(final String kind, final Function<T, String> naming, final BiFunction<Integer, T, S> deriving) {
+            this.kind = kind;
+            this.naming = naming;
+            this.deriving = deriving;
+        }
+
+        int intern(final T value) {
+            final Integer known = ids.get(value);
+            if (known != null) {
+                return known;
+            }
+            return internNew(value);
+        }
+
+        private synchronized int internNew(final T value) {
+            final Integer known = ids.get(value);
+            if (known != null) {
+                return known;
+            }
+            final String name = naming.apply(value);
+            final Integer named = namedIds.get(name);
+            if (named != null) {
+                // another Kieker object of the same entity
+                ids.put(value, named);
+                return named;
+            }
+            final int id = nextId++;
+            ensureCapacity(id);
+            // the symbol may intern further symbols, e.g. the assembly of an allocation, those are of other kinds
+            symbols[id] = deriving.apply(id, value);
+            final Object[] current = values;
+            current[id] = value;
+            values = current;
+            namedIds.put(name, id);
+            ids.put(value, id);
+            return id;
+        }
+
+        private void ensureCapacity(final int id) {
+            if (id >= values.length) {
+                final int capacity = Math.max(values.length * 2, id + 1);
+                symbols = Arrays.copyOf(symbols, capacity);
+                values = Arrays.copyOf(values, capacity);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        T getValue(final int id) {
+            final Object[] current = values;
+            final Object value = id < 0 || id >= current.length ? null : current[id];
+            if (value == null) {
+                throw new IllegalArgumentException("Unknown " + kind + " id: " + id);
+            }
+            return (T) value;
+        }
+
+        @SuppressWarnings("unchecked")
+        S getSymbol(final int id) {
+            getValue(id);
+            return (S) symbols[id];
+        }
+    }
+}
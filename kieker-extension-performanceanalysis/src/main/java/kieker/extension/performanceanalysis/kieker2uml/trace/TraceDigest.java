@@ -0,0 +1,234 @@
+package kieker.extension.performanceanalysis.kieker2uml.trace;
+
+import kieker.model.system.model.MessageTrace;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * <p>
+ * A trace reduced in a single pass to the information the Kieker2Uml builders require.
+ * All builders consume the digest instead of walking the {@link MessageTrace} again.
+ * </p>
+ * <p>
+ * The messages are addressed by their index in the trace, the index is also the "count" that is set on the
+ * elements of an {@link org.eclipse.uml2.uml.Interaction}. The digest holds:
+ * </p>
+ * <ul>
+ *     <li>the interned id of each message, see {@link TraceFingerprints#internMessage(String)}</li>
+ *     <li>the pairing of calls and replies</li>
+ *     <li>the total and net execution time of the execution called by each call</li>
+ *     <li>the operations and allocation components of the sending and receiving executions as ids of the {@link SymbolTable}</li>
+ *     <li>the {@link MessageSequence} and the {@link TraceFingerprint} of the trace</li>
+ * </ul>
+ * <p>
+ * The messages are derived from a {@link CompactTrace} like Kieker derives a {@link MessageTrace} from the executions:
+ * an execution is called by the last open execution with an ess one less, the open executions with an ess greater or equal
+ * reply before.
+ * </p>
+ */
+public final class TraceDigest {
+
+    /** Marks a message without partner, e.g. a call whose reply is missing. */
+    public static final int NO_PARTNER = -1;
+
+    private final long traceId;
+    private final long startTimestamp;
+    private final long endTimestamp;
+    private final int[] sendingOperations;
+    private final int[] receivingOperations;
+    private final int[] sendingAllocations;
+    private final int[] receivingAllocations;
+    private final boolean[] calls;
+    private final int[] messageIds;
+    private final int[] partners;
+    private final ExecutionTimes executionTimes;
+    private final MessageSequence messageSequence;
+
+    private TraceDigest(final CompactTrace trace) {
+        final int executions = trace.size();
+        final int size = 2 * executions;
+        this.traceId = trace.getTraceId();
+        this.startTimestamp = trace.getStartTimestamp();
+        this.endTimestamp = trace.getEndTimestamp();
+        this.sendingOperations = new int[size];
+        this.receivingOperations = new int[size];
+        this.sendingAllocations = new int[size];
+        this.receivingAllocations = new int[size];
+        this.calls = new boolean[size];
+        this.messageIds = new int[size];
+        this.partners = new int[size];
+        final long[] tins = new long[size];
+        final long[] touts = new long[size];
+
+        // the open executions and the index of the call to each of them, the depth is the ess of the next call
+        final int[] openExecutions = new int[executions];
+        final int[] openCalls = new int[executions];
+        int depth = 0;
+        int message = 0;
+        for (int execution = 0; execution < executions; execution++) {
+            while (depth > trace.getEss(execution)) {
+                depth--;
+                addReply(trace, message++, openExecutions, openCalls, depth);
+            }
+            final int caller = depth == 0 ? -1 : openExecutions[depth - 1];
+            setMessage(trace, message, caller, execution);
+            calls[message] = true;
+            tins[message] = trace.getTin(execution);
+            touts[message] = trace.getTout(execution);
+            openExecutions[depth] = execution;
+            openCalls[depth] = message;
+            depth++;
+            message++;
+        }
+        while (depth > 0) {
+            depth--;
+            addReply(trace, message++, openExecutions, openCalls, depth);
+        }
+        this.executionTimes = ExecutionTimes.compute(calls, tins, touts);
+        this.messageSequence = new MessageSequence(messageIds);
+    }
+
+    private void addReply(final CompactTrace trace, final int message, final int[] openExecutions, final int[] openCalls, final int depth) {
+        final int caller = depth == 0 ? -1 : openExecutions[depth - 1];
+        setMessage(trace, message, openExecutions[depth], caller);
+        partners[message] = openCalls[depth];
+        partners[openCalls[depth]] = message;
+    }
+
+    /**
+     * @param sender   the index of the sending execution, -1 for the root execution
+     * @param receiver the index of the receiving execution, -1 for the root execution
+     */
+    private void setMessage(final CompactTrace trace, final int message, final int sender, final int receiver) {
+        sendingOperations[message] = sender < 0 ? trace.getRootOperation() : trace.getOperation(sender);
+        sendingAllocations[message] = sender < 0 ? trace.getRootAllocation() : trace.getAllocation(sender);
+        receivingOperations[message] = receiver < 0 ? trace.getRootOperation() : trace.getOperation(receiver);
+        receivingAllocations[message] = receiver < 0 ? trace.getRootAllocation() : trace.getAllocation(receiver);
+        messageIds[message] = SymbolTable.internMessage(sendingOperations[message], receivingOperations[message]);
+        partners[message] = NO_PARTNER;
+    }
+
+    public static TraceDigest of(final CompactTrace trace) {
+        requireNonNull(trace, "trace");
+        return new TraceDigest(trace);
+    }
+
+    public static TraceDigest of(final MessageTrace messageTrace) {
+        requireNonNull(messageTrace, "messageTrace");
+        return new TraceDigest(CompactTrace.of(messageTrace));
+    }
+
+    public long getTraceId() {
+        return traceId;
+    }
+
+    public long getStartTimestamp() {
+        return startTimestamp;
+    }
+
+    public long getEndTimestamp() {
+        return endTimestamp;
+    }
+
+    public TraceFingerprint getFingerprint() {
+        return messageSequence.getFingerprint();
+    }
+
+    /**
+     * @return the messages of the trace, traces with equal sequences belong to the same {@link TraceShape}
+     */
+    public MessageSequence getMessageSequence() {
+        return messageSequence;
+    }
+
+    /**
+     * @return the number of messages in the trace
+     */
+    public int size() {
+        return calls.length;
+    }
+
+    /**
+     * @param index the index of the message
+     * @return true for a call, false for a reply
+     */
+    public boolean isCall(final int index) {
+        return calls[index];
+    }
+
+    public String getMessageRepresentation(final int index) {
+        return TraceFingerprints.getMessageRepresentation(messageIds[index]);
+    }
+
+    public int getMessageId(final int index) {
+        return messageIds[index];
+    }
+
+    /**
+     * @param index the index of a message
+     * @return the index of the reply for a call, the index of the call for a reply or {@link TraceDigest#NO_PARTNER}
+     */
+    public int getPartner(final int index) {
+        return partners[index];
+    }
+
+    public OperationSymbol getSendingOperation(final int index) {
+        return SymbolTable.getOperation(sendingOperations[index]);
+    }
+
+    public OperationSymbol getReceivingOperation(final int index) {
+        return SymbolTable.getOperation(receivingOperations[index]);
+    }
+
+    /**
+     * @return the id of the allocation component of the sending execution in the {@link SymbolTable}
+     */
+    public int getSendingAllocation(final int index) {
+        return sendingAllocations[index];
+    }
+
+    /**
+     * @return the id of the allocation component of the receiving execution in the {@link SymbolTable}
+     */
+    public int getReceivingAllocation(final int index) {
+        return receivingAllocations[index];
+    }
+
+    /**
+     * @return the identifier of the assembly component of the sending execution
+     */
+    public String getSenderComponent(final int index) {
+        return SymbolTable.getAssemblyIdentifier(SymbolTable.getAssemblyOf(sendingAllocations[index]));
+    }
+
+    /**
+     * @return the identifier of the assembly component of the receiving execution
+     */
+    public String getReceiverComponent(final int index) {
+        return SymbolTable.getAssemblyIdentifier(SymbolTable.getAssemblyOf(receivingAllocations[index]));
+    }
+
+    /**
+     * @param index the index of a call
+     * @return the time in nanos (Tout - Tin) of the execution that is called
+     */
+    public long getTotalTime(final int index) {
+        return executionTimes.getTotalTime(index);
+    }
+
+    /**
+     * @param index the index of a call
+     * @return the time in nanos the called execution was working itself and not waiting for the executions it called
+     */
+    public long getNetTime(final int index) {
+        return executionTimes.getNetTime(index);
+    }
+
+    /**
+     * The "'Entry'" execution is the sender of the first message, it has no execution of its own in the trace.
+     * @return the time of the trace that is not covered by the first call
+     */
+    public long getEntryNetTime() {
+        return (endTimestamp - startTimestamp) - executionTimes.getTotalTime(0);
+    }
+}
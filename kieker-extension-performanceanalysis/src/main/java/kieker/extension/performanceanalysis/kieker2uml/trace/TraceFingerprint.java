@@ -0,0 +1,81 @@
+package kieker.extension.performanceanalysis.kieker2uml.trace;
+
+import java.util.Optional;
+
+/**
+ * <p>
+ * A 128-bit fingerprint that identifies the sequence of messages of a {@link kieker.model.system.model.MessageTrace}.
+ * Two traces with the same sequence of messages (see
+ * {@link kieker.extension.performanceanalysis.kieker2uml.uml.Kieker2UmlUtil#getMessageRepresentation}) share the same
+ * fingerprint, independent of trace id, timestamps or execution times.
+ * </p>
+ * <p>
+ * The fingerprint is persisted in the model by its string form {@code fp128:<32 hex digits>}.
+ * Fingerprints are created by {@link TraceFingerprints}.
+ * </p>
+ */
+public final class TraceFingerprint {
+
+    public static final String PREFIX = "fp128:";
+    private static final int HEX_LENGTH = 32;
+
+    private final long high;
+    private final long low;
+
+    TraceFingerprint(final long high, final long low) {
+        this.high = high;
+        this.low = low;
+    }
+
+    /**
+     * @param value the string form of a fingerprint, as created by {@link TraceFingerprint#toString()}
+     * @return the fingerprint, or empty if the value is not a fingerprint (e.g. a representation of an older model)
+     */
+    public static Optional<TraceFingerprint> parse(final String value) {
+        if (value == null || !value.startsWith(PREFIX) || value.length() != PREFIX.length() + HEX_LENGTH) {
+            return Optional.empty();
+        }
+        try {
+            final int start = PREFIX.length();
+            final long high = Long.parseUnsignedLong(value.substring(start, start + 16), 16);
+            final long low = Long.parseUnsignedLong(value.substring(start + 16), 16);
+            return Optional.of(new TraceFingerprint(high, low));
+        } catch (NumberFormatException e) {
+            return Optional.empty();
+        }
+    }
+
+    public static boolean isFingerprint(final String value) {
+        return parse(value).isPresent();
+    }
+
+    public long getHigh() {
+        return high;
+    }
+
+    public long getLow() {
+        return low;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof TraceFingerprint)) {
+            return false;
+        }
+        final TraceFingerprint that = (TraceFingerprint) o;
+        return high == that.high && low == that.low;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(high) * 31 + Long.hashCode(low);
+    }
+
+    @Override
+    public String toString() {
+        return PREFIX + String.format("%016x%016x", high, low);
+    }
+}
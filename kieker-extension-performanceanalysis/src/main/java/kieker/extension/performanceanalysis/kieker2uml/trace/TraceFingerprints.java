@@ -0,0 +1,184 @@
+package kieker.extension.performanceanalysis.kieker2uml.trace;
+
+import kieker.extension.performanceanalysis.kieker2uml.uml.Kieker2UmlUtil;
+import kieker.model.system.model.AbstractMessage;
+import kieker.model.system.model.MessageTrace;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * <p>
+ * Creates the {@link TraceFingerprint}s of traces.
+ * </p>
+ * <p>
+ * Each distinct message representation is interned once and receives a dense int id together with a stable 128-bit
+ * hash of its representation. The fingerprint of a trace is a 128-bit rolling hash over the hashes of its messages.
+ * The hashes do not depend on the interned ids, therefore a fingerprint persisted in a model is recognized again in
+ * a later run.
+ * </p>
+ * <p>
+ * A fingerprint only depends on the sequence, no fingerprint is remembered. Collisions are resolved where the sequences
+ * meet: traces are grouped by their {@link MessageSequence}, which compares the message ids, and an interaction of the
+ * model is only used for a sequence with the same messages. Otherwise the sequence is looked up again with the next salt,
+ * see {@link MessageSequence#getFingerprint(int)}.
+ * </p>
+ * <p>
+ * The interned messages are used by concurrent workers. Known messages are looked up without locking,
+ * only the interning of a new message is synchronized.
+ * </p>
+ */
+public final class TraceFingerprints {
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    private static final long SEED_HIGH = 0x9e3779b97f4a7c15L;
+    private static final long SEED_LOW = 0xc2b2ae3d27d4eb4fL;
+    private static final long ROLL_HIGH = 0xff51afd7ed558ccdL;
+    private static final long ROLL_LOW = 0xc4ceb9fe1a85ec53L;
+
+    private static final Map<String, Integer> MESSAGE_IDS = new ConcurrentHashMap<>();
+    // the hashes of a message are written before its id is published in MESSAGE_IDS
+    private static volatile long[] messageHashHigh = new long[1024];
+    private static volatile long[] messageHashLow = new long[1024];
+    private static volatile String[] messageRepresentations = new String[1024];
+
+    private TraceFingerprints() {
+        // utility class
+    }
+
+    /**
+     * @param messageRepresentation the representation of a message, see {@link Kieker2UmlUtil#getMessageRepresentation(AbstractMessage)}
+     * @return the dense id of the message representation, the same representation always receives the same id.
+     */
+    public static int internMessage(final String messageRepresentation) {
+        requireNonNull(messageRepresentation, "messageRepresentation");
+        final Integer known = MESSAGE_IDS.get(messageRepresentation);
+        if (known != null) {
+            return known;
+        }
+        return internNewMessage(messageRepresentation);
+    }
+
+    private static synchronized int internNewMessage(final String messageRepresentation) {
+        final Integer known = MESSAGE_IDS.get(messageRepresentation);
+        if (known != null) {
+            return known;
+        }
+        final int id = MESSAGE_IDS.size();
+        long[] high = messageHashHigh;
+        long[] low = messageHashLow;
+        String[] representations = messageRepresentations;
+        if (id == high.length) {
+            high = Arrays.copyOf(high, id * 2);
+            low = Arrays.copyOf(low, id * 2);
+            representations = Arrays.copyOf(representations, id * 2);
+        }
+        high[id] = fnv1a(messageRepresentation);
+        low[id] = polynomial(messageRepresentation);
+        representations[id] = messageRepresentation;
+        messageHashHigh = high;
+        messageHashLow = low;
+        messageRepresentations = representations;
+        MESSAGE_IDS.put(messageRepresentation, id);
+        return id;
+    }
+
+    /**
+     * @param messageId an id returned by {@link TraceFingerprints#internMessage(String)}
+     * @return the interned message representation
+     */
+    public static String getMessageRepresentation(final int messageId) {
+        if (messageId < 0 || messageId >= MESSAGE_IDS.size()) {
+            throw new IllegalArgumentException("Unknown message id: " + messageId);
+        }
+        return messageRepresentations[messageId];
+    }
+
+    public static TraceFingerprint of(final MessageTrace messageTrace) {
+        requireNonNull(messageTrace, "messageTrace");
+        final List<AbstractMessage> messages = messageTrace.getSequenceAsVector();
+        final int[] messageIds = new int[messages.size()];
+        for (int i = 0; i < messageIds.length; i++) {
+            messageIds[i] = internMessage(Kieker2UmlUtil.getMessageRepresentation(messages.get(i)));
+        }
+        return of(messageIds);
+    }
+
+    /**
+     * @param messageRepresentations the representations of the messages in order, e.g. read from an existing model.
+     * @return the fingerprint of the sequence
+     */
+    public static TraceFingerprint ofRepresentations(final List<String> messageRepresentations) {
+        requireNonNull(messageRepresentations, "messageRepresentations");
+        final int[] messageIds = new int[messageRepresentations.size()];
+        for (int i = 0; i < messageIds.length; i++) {
+            messageIds[i] = internMessage(messageRepresentations.get(i));
+        }
+        return of(messageIds);
+    }
+
+    /**
+     * @param messageIds the interned message ids in the order of the trace, see {@link TraceFingerprints#internMessage(String)}
+     * @return the fingerprint of the sequence
+     */
+    public static TraceFingerprint of(final int[] messageIds) {
+        return of(messageIds, 0);
+    }
+
+    /**
+     * @param messageIds the interned message ids in the order of the trace, see {@link TraceFingerprints#internMessage(String)}
+     * @param salt       0 for the fingerprint of the sequence, a greater salt for the alternatives if the fingerprint collides
+     * @return the fingerprint of the sequence with the salt
+     */
+    public static TraceFingerprint of(final int[] messageIds, final int salt) {
+        requireNonNull(messageIds, "messageIds");
+        if (salt < 0) {
+            throw new IllegalArgumentException("The salt cannot be negative. Value: " + salt);
+        }
+        return hash(messageIds, salt);
+    }
+
+    private static TraceFingerprint hash(final int[] messageIds, final int salt) {
+        final long[] hashHigh = messageHashHigh;
+        final long[] hashLow = messageHashLow;
+        long high = SEED_HIGH ^ salt;
+        long low = SEED_LOW ^ ((long) salt << 32);
+        for (final int id : messageIds) {
+            high = high * ROLL_HIGH + hashHigh[id];
+            low = Long.rotateLeft(low * ROLL_LOW + hashLow[id], 31);
+        }
+        return new TraceFingerprint(mix(high ^ messageIds.length), mix(low + messageIds.length));
+    }
+
+    private static long fnv1a(final String value) {
+        long hash = FNV_OFFSET;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= FNV_PRIME;
+        }
+        return mix(hash);
+    }
+
+    private static long polynomial(final String value) {
+        long hash = SEED_LOW;
+        for (int i = 0; i < value.length(); i++) {
+            hash = (hash + value.charAt(i)) * ROLL_HIGH;
+        }
+        return mix(hash ^ value.length());
+    }
+
+    /** Finalizer of MurmurHash3, spreads the bits of the value. */
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= ROLL_HIGH;
+        value ^= value >>> 33;
+        value *= ROLL_LOW;
+        value ^= value >>> 33;
+        return value;
+    }
+}
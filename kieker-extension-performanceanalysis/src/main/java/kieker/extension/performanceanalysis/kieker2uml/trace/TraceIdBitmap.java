@@ -0,0 +1,281 @@
+package kieker.extension.performanceanalysis.kieker2uml.trace;
+
+import kieker.extension.performanceanalysis.kieker2uml.statistics.VarLongs;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.LongConsumer;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * <p>
+ * Exact {@link TraceIdSet} as compressed bitmap (similar to a roaring bitmap).
+ * The trace ids are split into the upper 48 bits, the key of a container, and the lower 16 bits, the value in the container.
+ * A container holds its values as sorted array while it has at most {@value TraceIdBitmap#ARRAY_LIMIT} values,
+ * afterwards as bitmap of 8 KiB. Dense ranges of ids, as the consecutive trace ids of Kieker, take about one bit per id.
+ * </p>
+ * <p>
+ * When encoded, each container is written in the smallest of three forms: the differences of the sorted values,
+ * the runs of consecutive values or the plain bitmap. A range of consecutive ids is therefore persisted in a few bytes.
+ * </p>
+ */
+final class TraceIdBitmap implements TraceIdSet {
+
+    static final String ENCODING_PREFIX = "rb1:";
+    private static final int ARRAY_LIMIT = 4096;
+    private static final int BITMAP_WORDS = 1024;
+    private static final int TYPE_ARRAY = 0;
+    private static final int TYPE_RUNS = 1;
+    private static final int TYPE_BITMAP = 2;
+
+    private final TreeMap<Long, Container> containers = new TreeMap<>();
+    private long size = 0;
+
+    @Override
+    public boolean add(final long traceId) {
+        if (containers.computeIfAbsent(traceId >> 16, k -> new Container()).add((char) traceId)) {
+            size++;
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public boolean contains(final long traceId) {
+        final Container container = containers.get(traceId >> 16);
+        return container != null && container.contains((char) traceId);
+    }
+
+    @Override
+    public long size() {
+        return size;
+    }
+
+    @Override
+    public boolean isExact() {
+        return true;
+    }
+
+    /**
+     * @param action called with each trace id in ascending order
+     */
+    void forEach(final LongConsumer action) {
+        requireNonNull(action, "action");
+        for (final Map.Entry<Long, Container> entry : containers.entrySet()) {
+            final long high = entry.getKey() << 16;
+            for (final int value : entry.getValue().toArray()) {
+                action.accept(high | value);
+            }
+        }
+    }
+
+    /**
+     * @return the set as Base64 string with the prefix "rb1:"
+     */
+    @Override
+    public String encode() {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(16 + containers.size() * 8);
+        VarLongs.write(out, containers.size());
+        long previousKey = 0;
+        boolean first = true;
+        for (final Map.Entry<Long, Container> entry : containers.entrySet()) {
+            final long key = entry.getKey();
+            VarLongs.write(out, first ? VarLongs.zigZag(key) : key - previousKey);
+            first = false;
+            previousKey = key;
+            entry.getValue().encode(out);
+        }
+        return ENCODING_PREFIX + Base64.getEncoder().withoutPadding().encodeToString(out.toByteArray());
+    }
+
+    static TraceIdBitmap decode(final String encoded) {
+        requireNonNull(encoded, "encoded");
+        if (!encoded.startsWith(ENCODING_PREFIX)) {
+            throw new IllegalArgumentException("Not a TraceIdBitmap: " + encoded);
+        }
+        try {
+            final ByteBuffer in = ByteBuffer.wrap(Base64.getDecoder().decode(encoded.substring(ENCODING_PREFIX.length())));
+            final TraceIdBitmap bitmap = new TraceIdBitmap();
+            final long count = VarLongs.read(in);
+            long key = 0;
+            for (long i = 0; i < count; i++) {
+                key = i == 0 ? VarLongs.unZigZag(VarLongs.read(in)) : key + VarLongs.read(in);
+                final Container container = Container.decode(in);
+                bitmap.containers.put(key, container);
+                bitmap.size += container.cardinality;
+            }
+            if (in.hasRemaining()) {
+                throw new IllegalArgumentException("Unexpected bytes at the end");
+            }
+            return bitmap;
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("The TraceIdBitmap cannot be decoded: " + encoded, e);
+        }
+    }
+
+    /**
+     * The lower 16 bits of the trace ids with the same upper 48 bits.
+     */
+    private static final class Container {
+        /** sorted values while bits is null */
+        private char[] values = new char[4];
+        private long[] bits;
+        private int cardinality = 0;
+
+        boolean add(final char value) {
+            if (bits != null) {
+                final long mask = 1L << value;
+                if ((bits[value >>> 6] & mask) != 0) {
+                    return false;
+                }
+                bits[value >>> 6] |= mask;
+                cardinality++;
+                return true;
+            }
+            int position = Arrays.binarySearch(values, 0, cardinality, value);
+            if (position >= 0) {
+                return false;
+            }
+            if (cardinality == ARRAY_LIMIT) {
+                toBitmap();
+                return add(value);
+            }
+            position = -position - 1;
+            if (cardinality == values.length) {
+                values = Arrays.copyOf(values, Math.min(values.length * 2, ARRAY_LIMIT));
+            }
+            System.arraycopy(values, position, values, position + 1, cardinality - position);
+            values[position] = value;
+            cardinality++;
+            return true;
+        }
+
+        boolean contains(final char value) {
+            if (bits != null) {
+                return (bits[value >>> 6] & (1L << value)) != 0;
+            }
+            return Arrays.binarySearch(values, 0, cardinality, value) >= 0;
+        }
+
+        private void toBitmap() {
+            bits = new long[BITMAP_WORDS];
+            for (int i = 0; i < cardinality; i++) {
+                bits[values[i] >>> 6] |= 1L << values[i];
+            }
+            values = null;
+        }
+
+        /** @return the values in ascending order */
+        private int[] toArray() {
+            final int[] sorted = new int[cardinality];
+            if (bits == null) {
+                for (int i = 0; i < cardinality; i++) {
+                    sorted[i] = values[i];
+                }
+                return sorted;
+            }
+            int i = 0;
+            for (int word = 0; word < BITMAP_WORDS; word++) {
+                long remaining = bits[word];
+                while (remaining != 0) {
+                    sorted[i++] = word * 64 + Long.numberOfTrailingZeros(remaining);
+                    remaining &= remaining - 1;
+                }
+            }
+            return sorted;
+        }
+
+        void encode(final ByteArrayOutputStream out) {
+            final int[] sorted = toArray();
+            // the runs of consecutive values as pairs of first and last value
+            final int[] runs = new int[2 * sorted.length];
+            int runCount = 0;
+            int arraySize = VarLongs.size(sorted.length);
+            for (int i = 0; i < sorted.length; i++) {
+                arraySize += VarLongs.size(i == 0 ? sorted[i] : sorted[i] - sorted[i - 1] - 1);
+                if (i == 0 || sorted[i] != sorted[i - 1] + 1) {
+                    runs[2 * runCount++] = sorted[i];
+                }
+                runs[2 * runCount - 1] = sorted[i];
+            }
+            int runsSize = VarLongs.size(runCount);
+            for (int run = 0; run < runCount; run++) {
+                runsSize += VarLongs.size(run == 0 ? runs[0] : runs[2 * run] - runs[2 * run - 1] - 1) + VarLongs.size(runs[2 * run + 1] - runs[2 * run]);
+            }
+            final int bitmapSize = BITMAP_WORDS * Long.BYTES;
+
+            if (runsSize <= arraySize && runsSize <= bitmapSize) {
+                out.write(TYPE_RUNS);
+                VarLongs.write(out, runCount);
+                for (int run = 0; run < runCount; run++) {
+                    VarLongs.write(out, run == 0 ? runs[0] : runs[2 * run] - runs[2 * run - 1] - 1);
+                    VarLongs.write(out, runs[2 * run + 1] - runs[2 * run]);
+                }
+            } else if (arraySize <= bitmapSize) {
+                out.write(TYPE_ARRAY);
+                VarLongs.write(out, sorted.length);
+                for (int i = 0; i < sorted.length; i++) {
+                    VarLongs.write(out, i == 0 ? sorted[i] : sorted[i] - sorted[i - 1] - 1);
+                }
+            } else {
+                out.write(TYPE_BITMAP);
+                final long[] words = new long[BITMAP_WORDS];
+                for (final int value : sorted) {
+                    words[value >>> 6] |= 1L << value;
+                }
+                final ByteBuffer buffer = ByteBuffer.allocate(bitmapSize);
+                buffer.asLongBuffer().put(words);
+                out.write(buffer.array(), 0, bitmapSize);
+            }
+        }
+
+        static Container decode(final ByteBuffer in) {
+            final Container container = new Container();
+            final int type = in.get();
+            if (type == TYPE_RUNS) {
+                final long runs = VarLongs.read(in);
+                long previousEnd = -1;
+                for (long run = 0; run < runs; run++) {
+                    final long start = previousEnd + 1 + VarLongs.read(in);
+                    final long end = start + VarLongs.read(in);
+                    checkValue(end);
+                    for (long value = start; value <= end; value++) {
+                        container.add((char) value);
+                    }
+                    previousEnd = end;
+                }
+            } else if (type == TYPE_ARRAY) {
+                final long count = VarLongs.read(in);
+                long previous = -1;
+                for (long i = 0; i < count; i++) {
+                    previous = previous + 1 + VarLongs.read(in);
+                    checkValue(previous);
+                    container.add((char) previous);
+                }
+            } else if (type == TYPE_BITMAP) {
+                container.bits = new long[BITMAP_WORDS];
+                container.values = null;
+                in.asLongBuffer().get(container.bits);
+                in.position(in.position() + BITMAP_WORDS * Long.BYTES);
+                for (final long word : container.bits) {
+                    container.cardinality += Long.bitCount(word);
+                }
+            } else {
+                throw new IllegalArgumentException("Unknown container type: " + type);
+            }
+            return container;
+        }
+
+        private static void checkValue(final long value) {
+            if (value > Character.MAX_VALUE) {
+                throw new IllegalArgumentException("Value out of range: " + value);
+            }
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package kieker.extension.performanceanalysis.kieker2uml.trace;
+
+import kieker.extension.performanceanalysis.kieker2uml.statistics.VarLongs;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * <p>
+ * Approximate {@link TraceIdSet} as scalable Bloom filter. A trace id that was added is always contained,
+ * a trace id that was not added is reported as contained with at most the configured false positive probability.
+ * </p>
+ * <p>
+ * The number of trace ids does not have to be known in advance: when a filter is full, a filter with twice the
+ * capacity and half the false positive probability is appended. The first filter has half the configured probability,
+ * therefore the false positive probability of all filters together stays below the configured one.
+ * </p>
+ */
+final class TraceIdBloomFilter implements TraceIdSet {
+
+    static final String ENCODING_PREFIX = "bf1:";
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final double LN2 = Math.log(2);
+
+    private final double falsePositiveProbability;
+    private final List<Filter> filters = new ArrayList<>();
+    private long size = 0;
+
+    TraceIdBloomFilter(final double falsePositiveProbability) {
+        if (!(falsePositiveProbability > 0 && falsePositiveProbability < 1)) {
+            throw new IllegalArgumentException("The false positive probability must be between 0 and 1. Value: " + falsePositiveProbability);
+        }
+        this.falsePositiveProbability = falsePositiveProbability;
+    }
+
+    @Override
+    public boolean add(final long traceId) {
+        if (contains(traceId)) {
+            return false;
+        }
+        Filter current = filters.isEmpty() ? null : filters.get(filters.size() - 1);
+        if (current == null || current.count >= current.capacity) {
+            final int level = filters.size();
+            current = new Filter((long) INITIAL_CAPACITY << Math.min(level, 32), falsePositiveProbability / 2 / (1L << Math.min(level, 62)));
+            filters.add(current);
+        }
+        current.add(traceId);
+        size++;
+        return true;
+    }
+
+    @Override
+    public boolean contains(final long traceId) {
+        for (final Filter filter : filters) {
+            if (filter.contains(traceId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public long size() {
+        return size;
+    }
+
+    @Override
+    public boolean isExact() {
+        return false;
+    }
+
+    /**
+     * @return the set as Base64 string with the prefix "bf1:"
+     */
+    @Override
+    public String encode() {
+        final int words = filters.stream().mapToInt(f -> f.bits.length).sum();
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(32 + words * Long.BYTES);
+        VarLongs.writeDouble(out, falsePositiveProbability);
+        VarLongs.write(out, size);
+        VarLongs.write(out, filters.size());
+        for (final Filter filter : filters) {
+            VarLongs.write(out, filter.capacity);
+            VarLongs.write(out, filter.count);
+            VarLongs.write(out, filter.hashes);
+            VarLongs.write(out, filter.bits.length);
+            final ByteBuffer buffer = ByteBuffer.allocate(filter.bits.length * Long.BYTES);
+            buffer.asLongBuffer().put(filter.bits);
+            out.write(buffer.array(), 0, buffer.capacity());
+        }
+        return ENCODING_PREFIX + Base64.getEncoder().withoutPadding().encodeToString(out.toByteArray());
+    }
+
+    static TraceIdBloomFilter decode(final String encoded) {
+        requireNonNull(encoded, "encoded");
+        if (!encoded.startsWith(ENCODING_PREFIX)) {
+            throw new IllegalArgumentException("Not a TraceIdBloomFilter: " + encoded);
+        }
+        try {
+            final ByteBuffer in = ByteBuffer.wrap(Base64.getDecoder().decode(encoded.substring(ENCODING_PREFIX.length())));
+            final TraceIdBloomFilter bloomFilter = new TraceIdBloomFilter(in.getDouble());
+            bloomFilter.size = VarLongs.read(in);
+            final long count = VarLongs.read(in);
+            for (long i = 0; i < count; i++) {
+                final long capacity = VarLongs.read(in);
+                final long filterCount = VarLongs.read(in);
+                final int hashes = (int) VarLongs.read(in);
+                final long[] bits = new long[(int) VarLongs.read(in)];
+                in.asLongBuffer().get(bits);
+                in.position(in.position() + bits.length * Long.BYTES);
+                bloomFilter.filters.add(new Filter(capacity, filterCount, hashes, bits));
+            }
+            if (in.hasRemaining()) {
+                throw new IllegalArgumentException("Unexpected bytes at the end");
+            }
+            return bloomFilter;
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("The TraceIdBloomFilter cannot be decoded: " + encoded, e);
+        }
+    }
+
+    /**
+     * A Bloom filter of fixed size, the positions are derived from two hashes of the trace id (double hashing).
+     */
+    private static final class Filter {
+        private final long capacity;
+        private final int hashes;
+        private final long[] bits;
+        private long count;
+
+        Filter(final long capacity, final double falsePositiveProbability) {
+            this(capacity, 0,
+                    Math.max(1, (int) Math.round(-Math.log(falsePositiveProbability) / LN2)),
+                    new long[(int) Math.max(1, Math.min(Integer.MAX_VALUE - 8,
+                            (long) Math.ceil(-capacity * Math.log(falsePositiveProbability) / (LN2 * LN2) / Long.SIZE)))]);
+        }
+
+        Filter(final long capacity, final long count, final int hashes, final long[] bits) {
+            if (capacity < 1 || count < 0 || hashes < 1 || bits.length == 0) {
+                throw new IllegalArgumentException("Invalid filter: capacity " + capacity + ", count " + count + ", hashes " + hashes);
+            }
+            this.capacity = capacity;
+            this.count = count;
+            this.hashes = hashes;
+            this.bits = bits;
+        }
+
+        void add(final long traceId) {
+            final long bitCount = (long) bits.length * Long.SIZE;
+            final long hash1 = mix(traceId);
+            final long hash2 = mix(hash1) | 1;
+            for (int i = 0; i < hashes; i++) {
+                final long bit = Math.floorMod(hash1 + i * hash2, bitCount);
+                bits[(int) (bit >>> 6)] |= 1L << bit;
+            }
+            count++;
+        }
+
+        boolean contains(final long traceId) {
+            final long bitCount = (long) bits.length * Long.SIZE;
+            final long hash1 = mix(traceId);
+            final long hash2 = mix(hash1) | 1;
+            for (int i = 0; i < hashes; i++) {
+                final long bit = Math.floorMod(hash1 + i * hash2, bitCount);
+                if ((bits[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /** finalizer of SplitMix64, spreads consecutive trace ids over all bits */
+        private static long mix(long value) {
+            value = (value ^ (value >>> 30)) * 0xbf58476d1ce4e5b9L;
+            value = (value ^ (value >>> 27)) * 0x94d049bb133111ebL;
+            return value ^ (value >>> 31);
+        }
+    }
+}
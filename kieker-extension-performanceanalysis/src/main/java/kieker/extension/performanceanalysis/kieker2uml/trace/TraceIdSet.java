@@ -0,0 +1,74 @@
+package kieker.extension.performanceanalysis.kieker2uml.trace;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * <p>
+ * Set of the ids of the traces that were added to an element of the model, e.g. to an interaction.
+ * It is persisted as a single compact string, see {@link TraceIdSet#encode()}.
+ * </p>
+ * <ul>
+ *     <li>{@link TraceIdSet#exact()} - a compressed bitmap, duplicates are detected exactly</li>
+ *     <li>{@link TraceIdSet#approximate(double)} - a Bloom filter, a new trace id is reported as contained with the given probability</li>
+ * </ul>
+ */
+public interface TraceIdSet {
+
+    /**
+     * @param traceId the id of a trace
+     * @return true if the id was not contained before
+     */
+    boolean add(long traceId);
+
+    /**
+     * @param traceId the id of a trace
+     * @return true if the id was added before, for an approximate set also in case of a false positive.
+     */
+    boolean contains(long traceId);
+
+    /**
+     * @return the number of added trace ids, for an approximate set the false positives are not counted.
+     */
+    long size();
+
+    /**
+     * @return true if {@link TraceIdSet#contains(long)} has no false positives
+     */
+    boolean isExact();
+
+    /**
+     * @return the set as Base64 string with a prefix that identifies the type, see {@link TraceIdSet#decode(String)}
+     */
+    String encode();
+
+    /**
+     * @return an empty set that detects duplicates exactly
+     */
+    static TraceIdSet exact() {
+        return new TraceIdBitmap();
+    }
+
+    /**
+     * @param falsePositiveProbability the probability that a trace id that was not added is reported as contained
+     * @return an empty set whose memory does not depend on the distribution of the trace ids
+     */
+    static TraceIdSet approximate(final double falsePositiveProbability) {
+        return new TraceIdBloomFilter(falsePositiveProbability);
+    }
+
+    /**
+     * @param encoded a set encoded by {@link TraceIdSet#encode()}
+     * @return the decoded set
+     * @throws IllegalArgumentException if the string is not an encoded set
+     */
+    static TraceIdSet decode(final String encoded) {
+        requireNonNull(encoded, "encoded");
+        if (encoded.startsWith(TraceIdBitmap.ENCODING_PREFIX)) {
+            return TraceIdBitmap.decode(encoded);
+        }
+        if (encoded.startsWith(TraceIdBloomFilter.ENCODING_PREFIX)) {
+            return TraceIdBloomFilter.decode(encoded);
+        }
+        throw new IllegalArgumentException("Not a TraceIdSet: " + encoded);
+    }
+}
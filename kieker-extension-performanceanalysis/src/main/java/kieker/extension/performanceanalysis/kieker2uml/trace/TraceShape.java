@@ -0,0 +1,169 @@
+package kieker.extension.performanceanalysis.kieker2uml.trace;
+
+import kieker.extension.performanceanalysis.kieker2uml.statistics.ArrivalStatistics;
+import kieker.extension.performanceanalysis.kieker2uml.statistics.ExecTimeStatistics;
+
+import java.util.function.LongConsumer;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * <p>
+ * All traces with the same {@link MessageSequence}, aggregated in plain Java.
+ * A shape is turned into UML elements once, instead of once per trace:
+ * </p>
+ * <ul>
+ *     <li>the {@link TraceDigest} of the first trace provides the structure of the interaction</li>
+ *     <li>the net times of each call, the entry and the response times are accumulated in {@link ExecTimeStatistics}</li>
+ *     <li>the trace ids and the {@link ArrivalStatistics} (number of traces, first start and last end timestamp) provide the workload,
+ *     the ids are kept in a {@link TraceIdSet#exact()} bitmap instead of boxed longs</li>
+ * </ul>
+ */
+public final class TraceShape {
+
+    private final TraceDigest digest;
+    private final ExecTimeStatistics[] netTimes;
+    private final ExecTimeStatistics entryNetTime;
+    private final ExecTimeStatistics responseTime;
+    private final TraceIdBitmap traceIds = new TraceIdBitmap();
+    private final ArrivalStatistics arrivals;
+
+    /**
+     * Creates an empty shape for the traces with the message sequence of the digest.
+     *
+     * @param digest      the digest of a trace of the shape, it represents the structure of all traces
+     * @param sampleLimit the number of raw samples kept by the statistics, see {@link ExecTimeStatistics}
+     * @param arrivalWindow the length of the windows in which the arrivals are counted, see {@link ArrivalStatistics}
+     */
+    public TraceShape(final TraceDigest digest, final int sampleLimit, final long arrivalWindow) {
+        this.digest = requireNonNull(digest, "digest");
+        this.netTimes = new ExecTimeStatistics[digest.size()];
+        for (int i = 0; i < netTimes.length; i++) {
+            if (digest.isCall(i)) {
+                netTimes[i] = new ExecTimeStatistics(sampleLimit);
+            }
+        }
+        this.entryNetTime = new ExecTimeStatistics(sampleLimit);
+        this.responseTime = new ExecTimeStatistics(sampleLimit);
+        this.arrivals = new ArrivalStatistics(arrivalWindow);
+    }
+
+    /**
+     * @param traceDigest the digest of a trace with the same message sequence
+     * @return false if the trace id was added before, the trace is ignored in that case.
+     */
+    public boolean add(final TraceDigest traceDigest) {
+        requireNonNull(traceDigest, "traceDigest");
+        checkMessageSequence(traceDigest.getMessageSequence());
+        if (!traceIds.add(traceDigest.getTraceId())) {
+            return false;
+        }
+        for (int i = 0; i < netTimes.length; i++) {
+            if (netTimes[i] != null) {
+                netTimes[i].add(traceDigest.getNetTime(i));
+            }
+        }
+        final long entryTime = traceDigest.getEntryNetTime();
+        entryNetTime.add(entryTime == 0 ? 1 : entryTime); // the 'Entry' lifeline requires some time
+        responseTime.add(traceDigest.getEndTimestamp() - traceDigest.getStartTimestamp());
+        arrivals.add(traceDigest.getStartTimestamp(), traceDigest.getEndTimestamp());
+        return true;
+    }
+
+    /**
+     * Adds the traces of the other shape to this one, e.g. the partial aggregation of another worker.
+     *
+     * @param other a shape with the same message sequence and different traces, it is not changed.
+     * @throws IllegalArgumentException if the message sequences differ or the shapes share a trace
+     */
+    public void merge(final TraceShape other) {
+        requireNonNull(other, "other");
+        checkMessageSequence(other.getMessageSequence());
+        other.traceIds.forEach(traceId -> {
+            if (traceIds.contains(traceId)) {
+                throw new IllegalArgumentException("The trace " + traceId + " is part of both shapes, they cannot be merged.");
+            }
+        });
+        other.traceIds.forEach(traceIds::add);
+        for (int i = 0; i < netTimes.length; i++) {
+            if (netTimes[i] != null) {
+                netTimes[i].merge(other.netTimes[i]);
+            }
+        }
+        entryNetTime.merge(other.entryNetTime);
+        responseTime.merge(other.responseTime);
+        arrivals.merge(other.arrivals);
+    }
+
+    private void checkMessageSequence(final MessageSequence messageSequence) {
+        if (!digest.getMessageSequence().equals(messageSequence)) {
+            throw new IllegalArgumentException("The message sequence " + messageSequence + " does not belong to the shape " + digest.getMessageSequence());
+        }
+    }
+
+    public MessageSequence getMessageSequence() {
+        return digest.getMessageSequence();
+    }
+
+    public TraceFingerprint getFingerprint() {
+        return digest.getFingerprint();
+    }
+
+    /**
+     * @return the digest of the first trace, it represents the structure of all traces of the shape
+     */
+    public TraceDigest getDigest() {
+        return digest;
+    }
+
+    public long getTraceCount() {
+        return traceIds.size();
+    }
+
+    /**
+     * @param action called with the id of each trace of the shape in ascending order
+     */
+    public void forEachTraceId(final LongConsumer action) {
+        traceIds.forEach(action);
+    }
+
+    public long getFirstStartTimestamp() {
+        return arrivals.getFirstStartTimestamp();
+    }
+
+    public long getLastEndTimestamp() {
+        return arrivals.getLastEndTimestamp();
+    }
+
+    /**
+     * @return the arrivals of the traces of the shape
+     */
+    public ArrivalStatistics getArrivalStatistics() {
+        return arrivals;
+    }
+
+    /**
+     * @param index the index of a call in the digest
+     * @return the net times of the execution called by the call
+     */
+    public ExecTimeStatistics getNetTimeStatistics(final int index) {
+        if (netTimes[index] == null) {
+            throw new IllegalArgumentException("The message at index " + index + " is not a call.");
+        }
+        return netTimes[index];
+    }
+
+    /**
+     * @return the net times of the "'Entry'" execution, see {@link TraceDigest#getEntryNetTime()}
+     */
+    public ExecTimeStatistics getEntryNetTimeStatistics() {
+        return entryNetTime;
+    }
+
+    /**
+     * @return the time from the start to the end of the traces
+     */
+    public ExecTimeStatistics getResponseTimeStatistics() {
+        return responseTime;
+    }
+}
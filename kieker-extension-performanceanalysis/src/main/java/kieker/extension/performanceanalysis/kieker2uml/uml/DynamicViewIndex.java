@@ -0,0 +1,204 @@
+package kieker.extension.performanceanalysis.kieker2uml.uml;
+
+import kieker.extension.performanceanalysis.kieker2uml.trace.MessageSequence;
+import kieker.extension.performanceanalysis.kieker2uml.trace.TraceFingerprint;
+import org.eclipse.emf.common.notify.Adapter;
+import org.eclipse.emf.common.notify.impl.AdapterImpl;
+import org.eclipse.uml2.uml.Actor;
+import org.eclipse.uml2.uml.Interaction;
+import org.eclipse.uml2.uml.Package;
+import org.eclipse.uml2.uml.PackageableElement;
+import org.eclipse.uml2.uml.UMLPackage;
+import org.eclipse.uml2.uml.UseCase;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+import static java.util.Objects.requireNonNull;
+import static kieker.extension.performanceanalysis.kieker2uml.uml.UmlUseCases.KIEKER_ENTRY_NAME;
+
+/**
+ * <p>
+ * Registry of the elements of the dynamicView that are looked up for every trace:
+ * </p>
+ * <ul>
+ *     <li>use case name -> {@link UseCase}s and trace representation -> {@link UseCase}s</li>
+ *     <li>{@link UseCase} -> {@link Actor} of the use case</li>
+ *     <li>{@link UseCase} -> {@link TraceFingerprint} -> {@link Interaction}</li>
+ *     <li>{@link Interaction} -> {@link MessageSequence} the interaction was created from or whose messages it was compared with</li>
+ * </ul>
+ * <p>
+ * The registry of a dynamicView is populated from the package the first time it is used, i.e. from the loaded model.
+ * Afterwards the elements created by {@link UmlUseCases} and {@link UmlInteractions} are registered when they are created.
+ * The fingerprints of the interactions of a use case are only computed when the use case is looked up the first time.
+ * The message sequences resolve fingerprint collisions in this model, see {@link UmlInteractions#getFingerprint(UseCase, MessageSequence)},
+ * each interaction is compared with its messages at most once.
+ * A registered element that is no longer part of the package, e.g. because the model was changed otherwise,
+ * causes the registry to be populated again.
+ * </p>
+ * <p>
+ * Like the {@link PackagedElementIndex} the registry is an EMF adapter of the dynamicView, so it lives as long as the package.
+ * It does not observe the notifications, the elements it creates itself would repopulate it.
+ * </p>
+ */
+final class DynamicViewIndex extends AdapterImpl {
+
+    private final Package dynamicView;
+    private final List<UseCase> useCases = new ArrayList<>();
+    private final Map<String, List<UseCase>> useCasesByName = new HashMap<>();
+    private final Map<String, List<UseCase>> useCasesByRepresentation = new HashMap<>();
+    private final Map<UseCase, Actor> actors = new HashMap<>();
+    private final Map<UseCase, Map<TraceFingerprint, Interaction>> interactions = new HashMap<>();
+    private final Map<Interaction, MessageSequence> messageSequences = new HashMap<>();
+    private final Function<Interaction, TraceFingerprint> fingerprints;
+
+    private DynamicViewIndex(final Package dynamicView, final Function<Interaction, TraceFingerprint> fingerprints) {
+        this.dynamicView = dynamicView;
+        this.fingerprints = fingerprints;
+        populate();
+    }
+
+    /**
+     * @param dynamicView the package that contains the use cases and actors
+     * @return the registry of the package, it is created and attached on first use.
+     */
+    static synchronized DynamicViewIndex of(final Package dynamicView) {
+        requireNonNull(dynamicView, "dynamicView");
+        for (final Adapter adapter : dynamicView.eAdapters()) {
+            if (adapter instanceof DynamicViewIndex) {
+                return (DynamicViewIndex) adapter;
+            }
+        }
+        final DynamicViewIndex index = new DynamicViewIndex(dynamicView, UmlInteractions::getFingerprint);
+        dynamicView.eAdapters().add(index);
+        return index;
+    }
+
+    @Override
+    public boolean isAdapterForType(final Object type) {
+        return type == DynamicViewIndex.class;
+    }
+
+    /**
+     * @return the use cases with exactly the name, in the order of the package
+     */
+    synchronized List<UseCase> getUseCasesByName(final String name) {
+        final List<UseCase> found = useCasesByName.getOrDefault(name, List.of());
+        if (found.stream().anyMatch(uc -> isStale(uc) || !name.equals(uc.getName()))) {
+            populate();
+            return getUseCasesByName(name);
+        }
+        return Collections.unmodifiableList(found);
+    }
+
+    /**
+     * @return the use cases with the trace representation, in the order of the package
+     */
+    synchronized List<UseCase> getUseCasesByRepresentation(final String traceRepresentation) {
+        final List<UseCase> found = useCasesByRepresentation.getOrDefault(traceRepresentation, List.of());
+        if (found.stream().anyMatch(this::isStale)) {
+            populate();
+            return getUseCasesByRepresentation(traceRepresentation);
+        }
+        return Collections.unmodifiableList(found);
+    }
+
+    /**
+     * @return all use cases of the package, in the order of the package
+     */
+    synchronized List<UseCase> getUseCases() {
+        return Collections.unmodifiableList(useCases);
+    }
+
+    synchronized void addUseCase(final UseCase useCase) {
+        requireNonNull(useCase, "useCase");
+        useCases.add(useCase);
+        useCasesByName.computeIfAbsent(useCase.getName(), n -> new ArrayList<>()).add(useCase);
+        Kieker2UmlUtil.getRepresentation(useCase)
+                .ifPresent(r -> useCasesByRepresentation.computeIfAbsent(r, k -> new ArrayList<>()).add(useCase));
+    }
+
+    synchronized Optional<Actor> getActor(final UseCase useCase) {
+        final Actor actor = actors.get(useCase);
+        if (isNull(actor) || actor.eContainer() == dynamicView) {
+            return Optional.ofNullable(actor);
+        }
+        populate();
+        return Optional.ofNullable(actors.get(useCase));
+    }
+
+    synchronized void addActor(final UseCase useCase, final Actor actor) {
+        actors.putIfAbsent(requireNonNull(useCase, "useCase"), requireNonNull(actor, "actor"));
+    }
+
+    synchronized Optional<Interaction> getInteraction(final UseCase useCase, final TraceFingerprint fingerprint) {
+        final Interaction interaction = getInteractions(useCase).get(fingerprint);
+        if (isNull(interaction) || interaction.eContainer() == useCase) {
+            return Optional.ofNullable(interaction);
+        }
+        interactions.remove(useCase);
+        return Optional.ofNullable(getInteractions(useCase).get(fingerprint));
+    }
+
+    synchronized void addInteraction(final UseCase useCase, final Interaction interaction) {
+        getInteractions(useCase).putIfAbsent(fingerprints.apply(interaction), interaction);
+    }
+
+    /**
+     * @return the message sequence the interaction was created from or compared with, empty if it was not compared yet
+     */
+    synchronized Optional<MessageSequence> getMessageSequence(final Interaction interaction) {
+        return Optional.ofNullable(messageSequences.get(interaction));
+    }
+
+    synchronized void setMessageSequence(final Interaction interaction, final MessageSequence messageSequence) {
+        messageSequences.put(requireNonNull(interaction, "interaction"), requireNonNull(messageSequence, "messageSequence"));
+    }
+
+    private Map<TraceFingerprint, Interaction> getInteractions(final UseCase useCase) {
+        return interactions.computeIfAbsent(useCase, uc -> {
+            final Map<TraceFingerprint, Interaction> byFingerprint = new HashMap<>();
+            uc.getOwnedBehaviors().stream()
+                    .filter(b -> b instanceof Interaction)
+                    .map(b -> (Interaction) b)
+                    .forEach(i -> byFingerprint.putIfAbsent(fingerprints.apply(i), i));
+            return byFingerprint;
+        });
+    }
+
+    private boolean isStale(final UseCase useCase) {
+        return useCase.eContainer() != dynamicView;
+    }
+
+    private void populate() {
+        useCases.clear();
+        useCasesByName.clear();
+        useCasesByRepresentation.clear();
+        actors.clear();
+        interactions.clear();
+        messageSequences.clear();
+        final List<Actor> entryActors = new ArrayList<>();
+        for (final PackageableElement element : dynamicView.getPackagedElements()) {
+            if (element instanceof UseCase) {
+                addUseCase((UseCase) element);
+            } else if (UMLPackage.Literals.ACTOR.equals(element.eClass()) && nonNull(element.getName())
+                    && element.getName().startsWith(KIEKER_ENTRY_NAME + "-")) {
+                entryActors.add((Actor) element);
+            }
+        }
+        // the actor of a use case is the first one with the name of the use case that is associated with it
+        for (final Actor actor : entryActors) {
+            final String useCaseName = actor.getName().substring(KIEKER_ENTRY_NAME.length() + 1);
+            useCasesByName.getOrDefault(useCaseName, List.of()).stream()
+                    .filter(uc -> Kieker2UmlUtil.isAssociateWith(actor, uc))
+                    .forEach(uc -> actors.putIfAbsent(uc, actor));
+        }
+    }
+}
@@ -1,6 +1,10 @@
 package kieker.extension.performanceanalysis.kieker2uml.uml;
 
-import kieker.model.system.model.MessageTrace;
+import kieker.extension.performanceanalysis.kieker2uml.trace.TraceDigest;
+import kieker.extension.performanceanalysis.kieker2uml.trace.MessageSequence;
+import kieker.extension.performanceanalysis.kieker2uml.trace.TraceFingerprint;
+import kieker.extension.performanceanalysis.kieker2uml.trace.TraceFingerprints;
+import kieker.extension.performanceanalysis.kieker2uml.trace.TraceShape;
 import org.eclipse.uml2.uml.Interaction;
 import org.eclipse.uml2.uml.Model;
 import org.eclipse.uml2.uml.Node;
@@ -11,7 +15,7 @@ import org.slf4j.LoggerFactory;
 import java.nio.file.Paths;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.function.LongPredicate;
 
 import static kieker.extension.performanceanalysis.kieker2uml.uml.UmlInteractions.addLifelines;
 
@@ -22,33 +26,45 @@ import static kieker.extension.performanceanalysis.kieker2uml.uml.UmlInteraction
  * </p>
  * <ul>
  *     <li>
- *         {@link Kieker2UmlModel#addStaticAndDeploymentPackage(Model, MessageTrace)} - This method creates all elements for the
+ *         {@link Kieker2UmlModel#addStaticAndDeploymentPackage(Model, TraceDigest)} - This method creates all elements for the
  *         deployment and the component (or static) packages
  *         </li>
  *     <li>
- *         {@link Kieker2UmlModel#addBehaviourToDynamicPackage(Model, MessageTrace, String)} - his method creates the behavioural
+ *         {@link Kieker2UmlModel#addBehaviourToDynamicPackage(Model, TraceShape, String, PerformanceAccumulator)} - his method creates the behavioural
  *         package elements i.e. {@link UseCase} and {@link Interaction}s
  *     </li>
  * </ul>
+ * <p>
+ * Both methods consume the {@link TraceShape} of all traces with the same message sequence, respectively
+ * its {@link TraceDigest}. The UML elements are therefore changed once per distinct trace and not once per trace.
+ * </p>
  * <p>The MARTE parts are automatically at the end of the execution.</p>
  * <p>
- * Duplications can occur in two ways, a {@link MessageTrace} is the same as another but recorded at a different time,
- * and the exact same {@link MessageTrace} has been added before.
+ * Execution times are accumulated in the {@link PerformanceAccumulator} of the model,
+ * {@link Kieker2UmlModel#finish(Model, PerformanceAccumulator)} writes them to the model and must be called before the model is saved.
+ * </p>
+ * <p>
+ * Duplications can occur in two ways, a trace has the same messages as another but was recorded at a different time,
+ * and the exact same trace has been added before.
  *</p>
  * <br/>
  * <p>
  * <b>Recognition of representation:</b> <br />
- * In order to find out if a MessageTrace is already represented as an Interaction the MessageTrace is represented
- * as a String. The sequence of {@link kieker.model.system.model.AbstractMessage} is made to strings and added
- * together in sequence. The sequence is added as a {@link org.eclipse.emf.ecore.EAnnotation} (source=
- * {@link Kieker2UmlUtil#REPRESENTATION_ANNOTATION_NAME}) for the Interaction. When the incoming representation of
- * the {@link MessageTrace} matches the on of the {@link Interaction}, no new interaction is added.
+ * In order to find out if a trace is already represented as an Interaction its {@link MessageSequence} is represented
+ * by a {@link TraceFingerprint}. Each message is made to a string and
+ * the sequence of these strings is hashed (see {@link TraceFingerprints}). The fingerprint is added as a
+ * {@link org.eclipse.emf.ecore.EAnnotation} (source={@link Kieker2UmlUtil#REPRESENTATION_ANNOTATION_NAME}) for the
+ * Interaction. When the fingerprint of the incoming {@link TraceShape} matches the one of the {@link Interaction},
+ * no new interaction is added. If the messages of the {@link Interaction} differ nevertheless, the fingerprints collide and
+ * the shape is represented by a salted fingerprint, see {@link UmlInteractions#getFingerprint(UseCase, MessageSequence)}.
  * </p>
  * <br/>
  * <p>
- * <b>Recognition of same {@link MessageTrace}:</b><br/>
- * After the adding of each {@link MessageTrace} the traceId is added in the {@link org.eclipse.emf.ecore.EAnnotation}
- * (source={@link Kieker2UmlUtil#TRACE_IDS_SET_NAME}). If the traceId is applied twice the {@link MessageTrace} is ignored.
+ * <b>Recognition of same trace:</b><br/>
+ * After the adding of each {@link TraceShape} the ids of its traces are added in the {@link org.eclipse.emf.ecore.EAnnotation}
+ * (source={@link Kieker2UmlUtil#TRACE_IDS_SET_NAME}). If a traceId is applied twice the trace is removed from the shape beforehand.
+ * The traceIds are kept in a {@link kieker.extension.performanceanalysis.kieker2uml.trace.TraceIdSet} that is stored
+ * encoded in a single detail, see {@link Kieker2UmlUtil#getTraceIds(org.eclipse.uml2.uml.NamedElement)}.
  * </p>
  *
  */
@@ -71,42 +87,74 @@ public class Kieker2UmlModel {
      *     <li>MARTE stereotypes: GaStep, GaScenario, see class {@link MarteSupport} for details.</li>
      * </ul>
      *
-     * <p>MessageTraces are only create new Interactions if the interaction is not already represented within a use case.
-     * If a MessageTrace is already represented only the performance information of the MARTE stereotypes is updated:</p>
+     * <p>Shapes only create new Interactions if their message sequence is not already represented within a use case.
+     * If it is already represented only the performance information of the MARTE stereotypes is updated:</p>
      * <ul>
-     *     <li>GaStep execTimeEntries - a comma separated list of the net execution times</li>
-     *     <li>GaStep execTime - the mean net execution time for this method</li>
-     *     <li>open arrival rate - added for the first {@link org.eclipse.uml2.uml.Lifeline}</li>
+     *     <li>GaStep execTime - the mean net execution time for this method, written by {@link Kieker2UmlModel#finish(Model, PerformanceAccumulator)}</li>
+     *     <li>GaStep execTimeCount, execTimeVariance, execTimeMin, execTimeMax - the statistics of the net execution times</li>
+     *     <li>GaStep execTimeP50, execTimeP90, execTimeP95, execTimeP99 - the percentiles of the net execution times</li>
+     *     <li>GaScenario respT (and its statistics) - the response time of the traces, set on the {@link Interaction}</li>
+     *     <li>open arrival rate - added for the first {@link org.eclipse.uml2.uml.Lifeline}, written by {@link Kieker2UmlModel#finish(Model, PerformanceAccumulator)}</li>
      * </ul>
-     * <p>If a MessageTrace is already added to an interaction it is ignored.</p>
+     * <p>
+     * Traces that are already added to an interaction have to be removed from the shape beforehand,
+     * see {@link Kieker2UmlModel#getAppliedTraces(Model, String, MessageSequence)}.
+     * </p>
      * <p>The first Lifeline of each Interaction is connected to the Actor of the {@link UseCase}.</p>
      * @param model - The UML {@link Model} to which the behaviour is added.
-     * @param messageTrace - The Kieker {@link MessageTrace} that is processed to become an {@link Interaction}.
+     * @param shape - The {@link TraceShape} of the traces that are processed to become an {@link Interaction}.
      * @param useCaseName - The name of the {@link UseCase} to which the {@link Interaction} shall be added.
+     * @param accumulator - The {@link PerformanceAccumulator} of the model that holds the performance information until it is written.
      */
-    public static void addBehaviourToDynamicPackage(final Model model, final MessageTrace messageTrace, final String useCaseName) {
-        final String traceRepresentation = Kieker2UmlUtil.getTraceRepresentation(messageTrace);
-        final UseCase useCase = UmlUseCases.getUseCase(model, useCaseName, traceRepresentation);
+    public static void addBehaviourToDynamicPackage(final Model model, final TraceShape shape, final String useCaseName,
+                                                    final PerformanceAccumulator accumulator) {
+        final UseCase useCase = UmlUseCases.getUseCase(model, useCaseName, shape.getFingerprint().toString());
         MarteSupport.applyGaScenario(useCase);
 
-        final Optional<Interaction> interaction = UmlInteractions.getInteraction(useCase, traceRepresentation);
+        final TraceFingerprint fingerprint = UmlInteractions.getFingerprint(useCase, shape.getMessageSequence());
+        final Optional<Interaction> interaction = UmlInteractions.getInteraction(useCase, fingerprint);
         if (interaction.isEmpty()) { // create Interaction
-            LOGGER.info("Creating interaction for Trace: " + messageTrace.getTraceId());
+            LOGGER.info(String.format("Creating interaction for %s Traces, first Trace: %s", shape.getTraceCount(), shape.getDigest().getTraceId()));
 
-            final Interaction newInteraction = UmlInteractions.createInteraction(UmlInteractions.getInteractionName(useCase), messageTrace);
-            useCase.getOwnedBehaviors().add(newInteraction);
+            final Interaction newInteraction = UmlInteractions.createInteraction(UmlInteractions.getInteractionName(useCase), fingerprint);
+            UmlInteractions.addInteraction(useCase, newInteraction, shape.getMessageSequence());
 
-            addLifelines(newInteraction, messageTrace.getSequenceAsVector());
-            MarteSupport.applyPerformanceStereotypesToInteraction(newInteraction, messageTrace);
-            UmlInteractions.connectEntryLifelineToActor(useCase);
-        } else if (!Kieker2UmlUtil.isIdApplied(interaction.get(), Long.toString(messageTrace.getTraceId()))) { // update Interaction
-            LOGGER.info("Interaction was created before, performance information will now be added to Trace with id: " + messageTrace.getTraceId());
-            MarteSupport.applyPerformanceStereotypesToInteraction(interaction.get(), messageTrace);
-        } else {
-            LOGGER.info(String.format("Trace with id '%s' was applied before and is therefore skipped.", messageTrace.getTraceId()));
+            addLifelines(newInteraction, shape.getDigest());
+            MarteSupport.applyPerformanceStereotypesToInteraction(newInteraction, shape, accumulator);
+            UmlInteractions.connectEntryLifelineToActor(useCase, newInteraction);
+        } else { // update Interaction
+            LOGGER.info(String.format("Interaction was created before, performance information will now be added for %s Traces, first Trace: %s", shape.getTraceCount(), shape.getDigest().getTraceId()));
+            MarteSupport.applyPerformanceStereotypesToInteraction(interaction.get(), shape, accumulator);
         }
     }
 
+    /**
+     * Models of older versions identify their {@link Interaction}s by the full trace representation,
+     * they are migrated to the fingerprints once after the model was loaded and before it is accessed otherwise.
+     * @param model - The loaded UML {@link Model}, it is not changed if it is already up to date.
+     */
+    public static void migrate(final Model model) {
+        UmlInteractions.migrateRepresentations(model);
+    }
+
+    /**
+     * Provides the check whether a trace was already added to the {@link Interaction} of the message sequence.
+     * The model is not changed, given it was migrated by {@link Kieker2UmlModel#migrate(Model)}, and the applied trace ids
+     * are decoded into a new set. The lookup fills the registries of the model (see {@link DynamicViewIndex}),
+     * so the caller has to hold the same lock as for changes of the model.
+     * @param model - The UML {@link Model} to which the behaviour is added.
+     * @param useCaseName - The name of the {@link UseCase} to which the {@link Interaction} shall be added.
+     * @param messageSequence - The {@link MessageSequence} of the traces.
+     * @return true for the ids of the traces that are already added
+     */
+    public static LongPredicate getAppliedTraces(final Model model, final String useCaseName, final MessageSequence messageSequence) {
+        return UmlUseCases.findUseCase(model, useCaseName, messageSequence.getFingerprint().toString())
+                .flatMap(useCase -> UmlInteractions.getInteraction(useCase, UmlInteractions.getFingerprint(useCase, messageSequence)))
+                .map(Kieker2UmlUtil::getTraceIds)
+                .<LongPredicate>map(traceIds -> traceIds::contains)
+                .orElse(traceId -> false);
+    }
+
     /**
      * <p>
      *     This method adds static and dynamic view to the model this includes the following elements:
@@ -118,23 +166,33 @@ public class Kieker2UmlModel {
      *     <li>{@link org.eclipse.uml2.uml.Usage}</li>
      *     <li>{@link Node}</li>
      *     <li>{@link org.eclipse.uml2.uml.Artifact}</li>
-     *     <li>MARTE stereotypes: GaExecHost (see {@link MarteSupport#applyPerformanceStereotypesToNodes(List)})</li>
+     *     <li>MARTE stereotypes: GaExecHost (see {@link MarteSupport#applyPerformanceStereotypesToNodes(List)}), applied by
+     *     {@link Kieker2UmlModel#finish(Model, PerformanceAccumulator)}</li>
      * </ul>
-     * <p>If the id of a MessageTrace is already added it is ignored.</p>
+     * <p>If the id of a trace is already added it is ignored.</p>
      * @param model - The UML {@link Model} to which the static and deployment is added.
-     * @param trace - The Kieker {@link MessageTrace} that is processed to become the UML elements.
+     * @param digest - The {@link TraceDigest} of the trace that is processed to become the UML elements.
      */
-    public static void addStaticAndDeploymentPackage(final Model model, final MessageTrace trace) {
+    public static void addStaticAndDeploymentPackage(final Model model, final TraceDigest digest) {
         try {
-            UmlClasses.addClasses(model, trace);
+            UmlClasses.addClasses(model, digest);
         } catch (Exception e) {
             // This addition of classes is not relevant to other transformations and can be ignored if it fails.
         }
-        UmlStaticViews.addComponentsAndDeployment(model, trace);
-        final List<Node> nodeList = model.allOwnedElements().stream()
-                .filter(pe -> pe instanceof Node).map(pe -> (Node) pe)
-                .collect(Collectors.toList());
-        MarteSupport.applyPerformanceStereotypesToNodes(nodeList);
+        UmlStaticViews.addComponentsAndDeployment(model, digest);
+    }
+
+    /**
+     * Writes the performance information that was accumulated in memory to the model and applies the GaExecHost
+     * stereotype to the {@link Node}s of the deployment view.
+     * This is required once after all traces were added and before the model is saved.
+     * @param model - The UML {@link Model} to which the traces were added.
+     * @param accumulator - The {@link PerformanceAccumulator} that was used while the traces were added.
+     */
+    public static void finish(final Model model, final PerformanceAccumulator accumulator) {
+        MarteSupport.applyPerformanceStereotypesToNodes(UmlStaticViews.getNodes(model));
+        MarteSupport.writeTimeStatistics(accumulator);
+        MarteSupport.writeWorkload(accumulator);
     }
 
 }
@@ -1,8 +1,10 @@
 package kieker.extension.performanceanalysis.kieker2uml.uml;
 
+import kieker.extension.performanceanalysis.kieker2uml.trace.OperationSymbol;
+import kieker.extension.performanceanalysis.kieker2uml.trace.TraceIdSet;
 import kieker.model.system.model.AbstractMessage;
-import kieker.model.system.model.Execution;
 import kieker.model.system.model.MessageTrace;
+import kieker.model.system.model.Operation;
 import kieker.model.system.model.SynchronousCallMessage;
 import kieker.model.system.model.SynchronousReplyMessage;
 import org.eclipse.emf.common.util.EMap;
@@ -29,9 +31,11 @@ import org.eclipse.uml2.uml.resources.util.UMLResourcesUtil;
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.nio.file.Path;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
 
 import static java.util.Objects.requireNonNull;
 
@@ -47,12 +51,11 @@ public class Kieker2UmlUtil {
     public static final String REPRESENTATION_FIELD_NAME = "representation";
     public static final String REPRESENTATION_COUNT = "count";
     public static final String TRACE_IDS_SET_NAME = "AppliedIds";
+    public static final String TRACE_IDS_KEY = "traceIds";
+    private static final Pattern INSTANCE_INFORMATION = Pattern.compile("\\$[0-9]*");
 
     static org.eclipse.uml2.uml.Package getPackagedElement(final Model model, final String packageName) {
-        return (org.eclipse.uml2.uml.Package) model.getPackagedElements().stream()
-                .filter(p -> packageName.equals(p.getName()))
-                .findFirst()
-                .orElseGet(() -> model.createPackagedElement(packageName, PACKAGE_E_CLASS));
+        return (org.eclipse.uml2.uml.Package) PackagedElementIndex.of(model).getOrCreate(packageName, PACKAGE_E_CLASS);
     }
 
     static void setAnnotationDetail(final Element element, final String annotationName, final String key, final String value) {
@@ -139,14 +142,14 @@ public class Kieker2UmlUtil {
      * References are there to enable a trace back where an element originated.
      * This method sets some default values
      * @param element the uml element
-     * @param execution the kieker execution the element relates to.
+     * @param operation the operation of the kieker execution the element relates to.
      */
-    static void setReferenceAnnotations(final Element element, final Execution execution) {
-        setAnnotationDetail(element, REFERENCE_ANNOTATION_NAME, "package", execution.getOperation().getComponentType().getPackageName());
-        setAnnotationDetail(element, REFERENCE_ANNOTATION_NAME, "class", execution.getOperation().getComponentType().getTypeName());
-        setAnnotationDetail(element, REFERENCE_ANNOTATION_NAME, "fullQualifiedName", execution.getOperation().getComponentType().getFullQualifiedName());
-        setAnnotationDetail(element, REFERENCE_ANNOTATION_NAME, "fullQualifiedNameSignature", execution.getOperation().toString());
-        setAnnotationDetail(element, REFERENCE_ANNOTATION_NAME, "signature", execution.getOperation().getSignature().toString());
+    static void setReferenceAnnotations(final Element element, final OperationSymbol operation) {
+        setAnnotationDetail(element, REFERENCE_ANNOTATION_NAME, "package", operation.getPackageName());
+        setAnnotationDetail(element, REFERENCE_ANNOTATION_NAME, "class", operation.getTypeName());
+        setAnnotationDetail(element, REFERENCE_ANNOTATION_NAME, "fullQualifiedName", operation.getFullQualifiedName());
+        setAnnotationDetail(element, REFERENCE_ANNOTATION_NAME, "fullQualifiedNameSignature", operation.getFullQualifiedNameSignature());
+        setAnnotationDetail(element, REFERENCE_ANNOTATION_NAME, "signature", operation.getSignature());
     }
 
     /**
@@ -170,8 +173,14 @@ public class Kieker2UmlUtil {
                 .map(EAnnotation::getDetails);
     }
 
+    /**
+     * Removes the "$" and the number of anonymous and inner classes, e.g. "a.B$1" becomes "a.B".
+     */
     static String removeInstanceInformation(final String name) {
-        return name.replaceAll("\\$[0-9]*", "");
+        if (name.indexOf('$') < 0) {
+            return name;
+        }
+        return INSTANCE_INFORMATION.matcher(name).replaceAll("");
     }
 
 
@@ -187,27 +196,26 @@ public class Kieker2UmlUtil {
      * @param message the message to be represented as a string
      * @return the string representation of the message, independend of changing parameters
      */
-    static String getMessageRepresentation(final AbstractMessage message) {
-        final String sender = "Sender--" + getExecutionRepresentation(message.getSendingExecution());
-        final String receiver = "--Receiver--" + getExecutionRepresentation(message.getReceivingExecution())
-                + message.getReceivingExecution().getOperation().getComponentType().getFullQualifiedName()
-                + message.getReceivingExecution().getOperation().getSignature().toString();
-        return sender + receiver;
-    }
-
-    private static String getExecutionRepresentation(final Execution execution) {
-        return execution.getOperation().getComponentType().getFullQualifiedName() + execution.getOperation().getSignature().toString();
+    public static String getMessageRepresentation(final AbstractMessage message) {
+        return getMessageRepresentation(message.getSendingExecution().getOperation(), message.getReceivingExecution().getOperation());
     }
 
     /**
-     * The Trace Representation is the concatenation of the contained messages.
-     * @param messageTrace The messageTrace to be represented.
-     * @return The string representing this Trace
+     * See {@link Kieker2UmlUtil#getMessageRepresentation(AbstractMessage)}.
+     * @param sendingOperation   the operation of the sending execution
+     * @param receivingOperation the operation of the receiving execution
+     * @return the string representation of the message
      */
-    static String getTraceRepresentation(final MessageTrace messageTrace) {
-        return messageTrace.getSequenceAsVector().stream()
-                .map(Kieker2UmlUtil::getMessageRepresentation)
-                .collect(Collectors.joining());
+    public static String getMessageRepresentation(final Operation sendingOperation, final Operation receivingOperation) {
+        final String sender = "Sender--" + getOperationRepresentation(sendingOperation);
+        final String receiver = "--Receiver--" + getOperationRepresentation(receivingOperation)
+                + receivingOperation.getComponentType().getFullQualifiedName()
+                + receivingOperation.getSignature().toString();
+        return sender + receiver;
+    }
+
+    private static String getOperationRepresentation(final Operation operation) {
+        return operation.getComponentType().getFullQualifiedName() + operation.getSignature().toString();
     }
 
     static boolean isMessageEqual(AbstractMessage abstractMessage1, AbstractMessage abstractMessage2) {
@@ -216,7 +224,7 @@ public class Kieker2UmlUtil {
 
     /**
      * The equality shall determine if the same messages and the same sequence of messages are called.
-     * The equality is determined by the String-Representations of the Traces.
+     * The equality is determined by the representations of the messages, see {@link Kieker2UmlUtil#isMessageEqual(AbstractMessage, AbstractMessage)}.
      * <p>
      * Equality is *not* given by the objects the traces contain since they will be always different.
      * <p>
@@ -227,13 +235,17 @@ public class Kieker2UmlUtil {
      * @return Equality of Traces
      */
     static boolean isTraceEqual(final MessageTrace messageTrace1, final MessageTrace messageTrace2) {
-        if (messageTrace1.getSequenceAsVector().size() != messageTrace2.getSequenceAsVector().size()) {
+        final List<AbstractMessage> messages1 = messageTrace1.getSequenceAsVector();
+        final List<AbstractMessage> messages2 = messageTrace2.getSequenceAsVector();
+        if (messages1.size() != messages2.size()) {
             return false; // different lengths in message Traces cannot be equal.
         }
-
-        final String traceRep1 = getTraceRepresentation(messageTrace1);
-        final String traceRep2 = getTraceRepresentation(messageTrace2);
-        return traceRep1.equals(traceRep2); // The equality is Determined by the String representation of the Traces
+        for (int i = 0; i < messages1.size(); i++) {
+            if (!isMessageEqual(messages1.get(i), messages2.get(i))) {
+                return false;
+            }
+        }
+        return true;
     }
 
     static void setAnnotationSetEntry(final Element element, final String setName, final String entry) {
@@ -280,6 +292,60 @@ public class Kieker2UmlUtil {
                 .orElse(false);
     }
 
+    /**
+     * <p>
+     * Reads the ids of the traces applied to the element, the model is not changed.
+     * The ids are persisted as a single encoded {@link TraceIdSet} in the detail {@link Kieker2UmlUtil#TRACE_IDS_KEY}
+     * of the annotation {@link Kieker2UmlUtil#TRACE_IDS_SET_NAME}.
+     * </p>
+     * <p>
+     * Older models hold each id as key of the annotation, these ids are read into a new set that replaces them when the
+     * set is written by {@link Kieker2UmlUtil#setTraceIds(NamedElement, TraceIdSet)}.
+     * </p>
+     * @param traceIdSetFactory creates the set if the element holds no encoded set, e.g. {@link TraceIdSet#exact()}.
+     *                          The factory of the model is provided by its {@link PerformanceAccumulator}.
+     * @return the applied trace ids, an empty set created by the factory if none are applied.
+     */
+    static TraceIdSet getTraceIds(final NamedElement element, final Supplier<TraceIdSet> traceIdSetFactory) {
+        requireNonNull(element, "element");
+        requireNonNull(traceIdSetFactory, "traceIdSetFactory");
+        final EAnnotation annotation = element.getEAnnotation(TRACE_IDS_SET_NAME);
+        if (annotation == null) {
+            return traceIdSetFactory.get();
+        }
+        final String encoded = annotation.getDetails().get(TRACE_IDS_KEY);
+        final TraceIdSet traceIds;
+        try {
+            traceIds = encoded == null ? traceIdSetFactory.get() : TraceIdSet.decode(encoded);
+            annotation.getDetails().keySet().stream()
+                    .filter(key -> !TRACE_IDS_KEY.equals(key))
+                    .forEach(legacyId -> traceIds.add(Long.parseLong(legacyId)));
+        } catch (IllegalArgumentException e) { // includes NumberFormatException
+            throw new ModelNotComformantException("The " + TRACE_IDS_SET_NAME + " of the element cannot be read: " + element.getName() + ", Cause: " + e.getMessage());
+        }
+        return traceIds;
+    }
+
+    /**
+     * Reads the ids of the traces applied to the element to check them, see {@link Kieker2UmlUtil#getTraceIds(NamedElement, Supplier)}.
+     * @return the applied trace ids, an empty exact set if none are applied.
+     */
+    static TraceIdSet getTraceIds(final NamedElement element) {
+        return getTraceIds(element, TraceIdSet::exact);
+    }
+
+    /**
+     * Replaces the applied trace ids of the element by the set.
+     */
+    static void setTraceIds(final NamedElement element, final TraceIdSet traceIds) {
+        requireNonNull(element, "element");
+        requireNonNull(traceIds, "traceIds");
+        final EAnnotation annotation = Optional.ofNullable(element.getEAnnotation(TRACE_IDS_SET_NAME))
+                .orElseGet(() -> element.createEAnnotation(TRACE_IDS_SET_NAME));
+        annotation.getDetails().clear();
+        annotation.getDetails().put(TRACE_IDS_KEY, traceIds.encode());
+    }
+
     static Association createAssociation(final Type from, final Type to) {
         requireNonNull(from, "from");
         requireNonNull(to, "to");
@@ -293,6 +359,16 @@ public class Kieker2UmlUtil {
         if (first.isPresent()) {
             return first.get();
         }
+        return createNewAssociation(from, to);
+    }
+
+    /**
+     * Creates the association without looking for an existing one,
+     * e.g. because one of the types was just created. See {@link Kieker2UmlUtil#createAssociation(Type, Type)}.
+     */
+    static Association createNewAssociation(final Type from, final Type to) {
+        requireNonNull(from, "from");
+        requireNonNull(to, "to");
 
         // Some of these values are chosen at random and have no meaning besides being there.
         // The following is the parameterlist and their names:
@@ -1,13 +1,17 @@
 package kieker.extension.performanceanalysis.kieker2uml.uml;
 
-import kieker.model.system.model.AbstractMessage;
-import kieker.model.system.model.Execution;
+import kieker.extension.performanceanalysis.kieker2uml.statistics.ArrivalStatistics;
+import kieker.extension.performanceanalysis.kieker2uml.statistics.ExecTimeStatistics;
+import kieker.extension.performanceanalysis.kieker2uml.statistics.LatencySketch;
+import kieker.extension.performanceanalysis.kieker2uml.trace.TraceDigest;
+import kieker.extension.performanceanalysis.kieker2uml.trace.TraceIdSet;
+import kieker.extension.performanceanalysis.kieker2uml.trace.TraceShape;
 import kieker.model.system.model.MessageTrace;
-import kieker.model.system.model.SynchronousCallMessage;
 import org.eclipse.emf.common.util.EMap;
 import org.eclipse.uml2.uml.BehaviorExecutionSpecification;
 import org.eclipse.uml2.uml.Element;
 import org.eclipse.uml2.uml.Interaction;
+import org.eclipse.uml2.uml.InteractionFragment;
 import org.eclipse.uml2.uml.Lifeline;
 import org.eclipse.uml2.uml.NamedElement;
 import org.eclipse.uml2.uml.Node;
@@ -17,21 +21,24 @@ import org.slf4j.LoggerFactory;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
 import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
 import static java.util.Objects.requireNonNull;
-import static kieker.extension.performanceanalysis.kieker2uml.uml.Kieker2UmlUtil.addId;
 import static kieker.extension.performanceanalysis.kieker2uml.uml.Kieker2UmlUtil.getAnnotationDetail;
-import static kieker.extension.performanceanalysis.kieker2uml.uml.Kieker2UmlUtil.getIds;
-import static kieker.extension.performanceanalysis.kieker2uml.uml.Kieker2UmlUtil.getMessageRepresentation;
+import static kieker.extension.performanceanalysis.kieker2uml.uml.Kieker2UmlUtil.getTraceIds;
 import static kieker.extension.performanceanalysis.kieker2uml.uml.Kieker2UmlUtil.getRepresentation;
 import static kieker.extension.performanceanalysis.kieker2uml.uml.Kieker2UmlUtil.getRepresentationCount;
-import static kieker.extension.performanceanalysis.kieker2uml.uml.Kieker2UmlUtil.getTraceRepresentation;
 import static kieker.extension.performanceanalysis.kieker2uml.uml.Kieker2UmlUtil.setAnnotationDetail;
+import static kieker.extension.performanceanalysis.kieker2uml.uml.Kieker2UmlUtil.setTraceIds;
 import static kieker.extension.performanceanalysis.kieker2uml.uml.UmlInteractions.getBESRepresentation;
 import static kieker.extension.performanceanalysis.kieker2uml.uml.UmlUseCases.KIEKER_ENTRY_NAME;
 
@@ -41,6 +48,9 @@ import static kieker.extension.performanceanalysis.kieker2uml.uml.UmlUseCases.KI
  * The Name of the Annotation is the name of the Stereotype.
  * The details of the Annotation are the fields of the Stereotype.
  * With the method {@link MarteSupport#applyPerformanceStereotypesToInteraction} performance information are provided in bulk.
+ * The execution and response times and the arrivals are accumulated in the {@link PerformanceAccumulator} of the model,
+ * they are written with {@link MarteSupport#writeTimeStatistics(PerformanceAccumulator)} and
+ * {@link MarteSupport#writeWorkload(PerformanceAccumulator)}.
  */
 public class MarteSupport {
 
@@ -50,49 +60,155 @@ public class MarteSupport {
     public static final String GA_STEP_ANNOTATION_NAME = "GaStep";
     public static final String EXEC_TIME_ENTRIES_GA_STEP = "execTimeEntries";
     public static final String EXEC_TIME_GA_STEP = "execTime";
+    public static final String EXEC_TIME_COUNT_GA_STEP = "execTimeCount";
+    public static final String RESP_T_GA_SCENARIO = "respT";
+    public static final String LATENCY_SKETCH = "LatencySketch";
+    private static final String COUNT_SUFFIX = "Count";
+    private static final String VARIANCE_SUFFIX = "Variance";
+    private static final String MIN_SUFFIX = "Min";
+    private static final String MAX_SUFFIX = "Max";
+    private static final String ENTRIES_SUFFIX = "Entries";
     public static final String REP_GA_STEP = "rep";
     public static final String PERFORMANCE_INFORMATION = "PerformanceInformation";
+    public static final String ARRIVAL_RATES = "ArrivalRates";
+    private static final String ARRIVAL_RATE_WINDOW = "window";
+
+    private static final double[] PERCENTILES = {0.5, 0.9, 0.95, 0.99};
 
     /**
-     * By Default the rep Attribute (repetition) is set to 1
+     * Adds the execution times to the statistics of the element.
+     * The statistics are held in the accumulator and only written to the GaStep annotation by
+     * {@link MarteSupport#writeTimeStatistics(PerformanceAccumulator)}.
+     * If the element already carries a GaStep annotation, e.g. from a previous run, the statistics continue from it.
      *
-     * @param umlMessage the UML Element on which the annotations shall be applied.
-     * @param execTime   the time of execution
+     * @param element     The Element to which the GaStep shall be applied.
+     * @param execTimes   the times of execution
+     * @param accumulator the accumulator of the model of the element
      */
-    static void setGaStep(final Element umlMessage, final double execTime) {
-        final String execTimeString = Double.toString(execTime);
-        Kieker2UmlUtil.setAnnotationDetail(umlMessage, GA_STEP_ANNOTATION_NAME, EXEC_TIME_ENTRIES_GA_STEP, execTimeString);
-        Kieker2UmlUtil.setAnnotationDetail(umlMessage, GA_STEP_ANNOTATION_NAME, EXEC_TIME_GA_STEP, execTimeString);
-        Kieker2UmlUtil.setAnnotationDetail(umlMessage, GA_STEP_ANNOTATION_NAME, REP_GA_STEP, "1");
+    static void updateGaStep(final Element element, final ExecTimeStatistics execTimes, final PerformanceAccumulator accumulator) {
+        accumulator.getExecTimes().computeIfAbsent(element, e -> readTimeStatistics(e, GA_STEP_ANNOTATION_NAME, EXEC_TIME_GA_STEP,
+                        accumulator.getExecTimeSampleLimit()))
+                .merge(execTimes);
     }
 
     /**
-     * The repetition remains "1" independent of the entries.
-     * The execTime is determined by the mean value of the execTimeEntries.
+     * Adds the response times of traces to the statistics of the interaction, they are written as GaScenario respT.
      *
-     * @param element The Element to which the GaStep shall be applied.
+     * @param interaction   The Interaction that represents the traces.
+     * @param responseTimes the times from the start to the end of the traces
+     * @param accumulator   the accumulator of the model of the interaction
      */
-    static void updateGaStep(final Element element, Double execTime) {
-        final Optional<EMap<String, String>> annotationDetailsOptional = Kieker2UmlUtil.getAnnotationDetailsMap(element, GA_STEP_ANNOTATION_NAME);
-        if (annotationDetailsOptional.isEmpty()) {
-            setGaStep(element, execTime);
-            return;
-        }
-
-        final EMap<String, String> details = annotationDetailsOptional.get();
-        final String currentExecTimeEntries = details.get(EXEC_TIME_ENTRIES_GA_STEP);
-        final String execTimeString = Double.toString(execTime);
-        final String execTimesCSV = currentExecTimeEntries + "," + execTimeString;
+    static void updateResponseTime(final Interaction interaction, final ExecTimeStatistics responseTimes, final PerformanceAccumulator accumulator) {
+        accumulator.getResponseTimes().computeIfAbsent(interaction, i -> readTimeStatistics(i, GA_SCENARIO, RESP_T_GA_SCENARIO,
+                        accumulator.getExecTimeSampleLimit()))
+                .merge(responseTimes);
+    }
 
-        final String[] execTimeSplit = execTimesCSV.split(","); // the length of this is the amounts of repetitions
-        final Double sum = Arrays.stream(execTimeSplit)
-                .map(Double::parseDouble)
-                .reduce(0D, Double::sum);
+    /**
+     * <p>
+     *     Writes the statistics collected by {@link MarteSupport#updateGaStep(Element, ExecTimeStatistics, PerformanceAccumulator)} and
+     *     {@link MarteSupport#updateResponseTime(Interaction, ExecTimeStatistics, PerformanceAccumulator)} to the elements of the model.
+     *     The written statistics are released.
+     * </p>
+     * <p>For the GaStep of a BES (and analogous with the prefix respT for the GaScenario of an interaction):</p>
+     * <ul>
+     *     <li>execTime - the mean net execution time</li>
+     *     <li>rep - the repetition, always "1"</li>
+     *     <li>execTimeCount - the number of execution times</li>
+     *     <li>execTimeVariance, execTimeMin, execTimeMax - the spread of the execution times</li>
+     *     <li>execTimeP50, execTimeP90, execTimeP95, execTimeP99 - the percentiles estimated by the {@link LatencySketch}</li>
+     *     <li>execTimeEntries - a comma separated list of sampled execution times, only if a sample limit is set</li>
+     * </ul>
+     * <p>
+     *     The {@link LatencySketch} itself is encoded in the annotation {@link MarteSupport#LATENCY_SKETCH}, so the
+     *     percentiles stay correct if later runs add to the model. The percentiles are omitted if the sketch does not hold
+     *     all execution times, i.e. the element was written without a sketch and its execTimeEntries are not complete.
+     * </p>
+     *
+     * @param accumulator the accumulator of the model whose elements are written
+     */
+    public static void writeTimeStatistics(final PerformanceAccumulator accumulator) {
+        requireNonNull(accumulator, "accumulator");
+        accumulator.getExecTimes().forEach((element, statistics) -> {
+            setTimeStatistics(element, GA_STEP_ANNOTATION_NAME, EXEC_TIME_GA_STEP, statistics);
+            Kieker2UmlUtil.setAnnotationDetail(element, GA_STEP_ANNOTATION_NAME, REP_GA_STEP, "1");
+        });
+        accumulator.getExecTimes().clear();
+        accumulator.getResponseTimes().forEach((interaction, statistics) -> setTimeStatistics(interaction, GA_SCENARIO, RESP_T_GA_SCENARIO, statistics));
+        accumulator.getResponseTimes().clear();
+    }
 
-        final double execTimeMean = sum / (double) execTimeSplit.length;
+    private static void setTimeStatistics(final Element element, final String annotationName, final String name, final ExecTimeStatistics statistics) {
+        Kieker2UmlUtil.setAnnotationDetail(element, annotationName, name, Double.toString(statistics.getMean()));
+        Kieker2UmlUtil.setAnnotationDetail(element, annotationName, name + COUNT_SUFFIX, Long.toString(statistics.getCount()));
+        Kieker2UmlUtil.setAnnotationDetail(element, annotationName, name + VARIANCE_SUFFIX, Double.toString(statistics.getVariance()));
+        Kieker2UmlUtil.setAnnotationDetail(element, annotationName, name + MIN_SUFFIX, Double.toString(statistics.getMin()));
+        Kieker2UmlUtil.setAnnotationDetail(element, annotationName, name + MAX_SUFFIX, Double.toString(statistics.getMax()));
+        // the percentiles are only written if the sketch holds all times, not those of a model that was written without a sketch
+        final boolean complete = statistics.getSketch().getCount() == statistics.getCount();
+        for (final double percentile : PERCENTILES) {
+            final String key = name + "P" + Math.round(percentile * 100);
+            if (complete && statistics.getCount() > 0) {
+                Kieker2UmlUtil.setAnnotationDetail(element, annotationName, key, Double.toString(statistics.getQuantile(percentile)));
+            } else {
+                Kieker2UmlUtil.getAnnotationDetailsMap(element, annotationName).ifPresent(d -> d.removeKey(key));
+            }
+        }
+        if (statistics.getSketch().getCount() > 0) {
+            Kieker2UmlUtil.setAnnotationDetail(element, LATENCY_SKETCH, name, statistics.getSketch().encode());
+        }
+        if (statistics.getSampleLimit() > 0) {
+            final String execTimesCSV = statistics.getSamples().stream().map(d -> Double.toString(d)).collect(Collectors.joining(","));
+            Kieker2UmlUtil.setAnnotationDetail(element, annotationName, name + ENTRIES_SUFFIX, execTimesCSV);
+        } else {
+            Kieker2UmlUtil.getAnnotationDetailsMap(element, annotationName).ifPresent(d -> d.removeKey(name + ENTRIES_SUFFIX));
+        }
+    }
 
-        details.put(EXEC_TIME_ENTRIES_GA_STEP, execTimesCSV);
-        details.put(EXEC_TIME_GA_STEP, Double.toString(execTimeMean));
+    /**
+     * Reads the statistics from the annotation of the element.
+     * Models that were created before the statistics were introduced only carry the execTimeEntries,
+     * in that case the statistics are calculated once from the entries.
+     */
+    private static ExecTimeStatistics readTimeStatistics(final Element element, final String annotationName, final String name,
+                                                         final int execTimeSampleLimit) {
+        final Optional<EMap<String, String>> annotationDetailsOptional = Kieker2UmlUtil.getAnnotationDetailsMap(element, annotationName);
+        if (annotationDetailsOptional.isEmpty()) {
+            return new ExecTimeStatistics(execTimeSampleLimit);
+        }
+        final EMap<String, String> details = annotationDetailsOptional.get();
+        final List<Double> entries = Optional.ofNullable(details.get(name + ENTRIES_SUFFIX))
+                .filter(csv -> !csv.isBlank())
+                .map(csv -> Arrays.stream(csv.split(",")).map(Double::parseDouble).collect(Collectors.toList()))
+                .orElse(List.of());
+        final String count = details.get(name + COUNT_SUFFIX);
+        if (isNull(count)) {
+            final ExecTimeStatistics statistics = new ExecTimeStatistics(execTimeSampleLimit);
+            entries.forEach(statistics::add);
+            return statistics;
+        }
+        try {
+            // without a sketch it is rebuilt from the entries if they are all times, otherwise the percentiles are omitted from now on
+            final LatencySketch sketch = getAnnotationDetail(element, LATENCY_SKETCH, name)
+                    .map(LatencySketch::decode)
+                    .orElseGet(() -> {
+                        final LatencySketch rebuilt = new LatencySketch();
+                        if (entries.size() == Long.parseLong(count)) {
+                            entries.forEach(rebuilt::add);
+                        }
+                        return rebuilt;
+                    });
+            return ExecTimeStatistics.restore(execTimeSampleLimit,
+                    Long.parseLong(count),
+                    Double.parseDouble(details.get(name)),
+                    Double.parseDouble(details.get(name + VARIANCE_SUFFIX)),
+                    Double.parseDouble(details.get(name + MIN_SUFFIX)),
+                    Double.parseDouble(details.get(name + MAX_SUFFIX)),
+                    entries,
+                    sketch);
+        } catch (NullPointerException | IllegalArgumentException e) {
+            throw new ModelNotComformantException("The " + annotationName + " of the element is incomplete: " + details + ", Element: " + element + ", Cause: " + e.getMessage());
+        }
     }
 
     static void setGaWorkloadEvent(final NamedElement element, final String pattern) {
@@ -106,121 +222,108 @@ public class MarteSupport {
                 .orElseGet(() -> node.createEAnnotation(GA_EXEC_HOST));
     }
 
-    static void applyPerformanceStereotypesToInteraction(final Interaction interaction, final MessageTrace messageTrace) {
+    static void applyPerformanceStereotypesToInteraction(final Interaction interaction, final TraceShape shape, final PerformanceAccumulator accumulator) {
 
         LOGGER.debug("Starting to apply performance stereotypes to interaction");
 
         // fail fast
         requireNonNull(interaction, "interaction");
-        requireNonNull(messageTrace, "messageTrace");
-        final String traceRepresentation = getTraceRepresentation(messageTrace);
+        requireNonNull(shape, "shape");
+        requireNonNull(accumulator, "accumulator");
         final Optional<String> id = getRepresentation(interaction);
         if (id.isEmpty()) {
             throw new ModelNotComformantException("Cannot apply performance information to Interaction that does not have an id. Interaction: " + interaction.getName());
         }
-        if (!traceRepresentation.equals(id.get())) {
+        if (!UmlInteractions.represents(interaction, shape.getMessageSequence())) {
             throw new IllegalArgumentException("Interaction does not represent MessageTrace. It is not possible to apply performance information.");
         }
 
         // start working
+        final TraceIdSet traceIds = getTraceIds(interaction, accumulator.getTraceIdSetFactory());
+        shape.forEachTraceId(traceIds::add);
+        setTraceIds(interaction, traceIds);
 
-        // calculate the open workload
-        setOpenWorkloadInformation(interaction, messageTrace.getStartTimestamp(), messageTrace.getEndTimestamp());
+        // collect the open workload
+        updateWorkload(interaction, traceIds.size(), shape.getArrivalStatistics(), accumulator);
         // GaStep
-        setGaStep(interaction, messageTrace);
-
-        // finnish
-        addId(interaction, Long.toString(messageTrace.getTraceId()));
+        setGaStep(interaction, shape, accumulator);
+        // GaScenario respT of the interaction
+        updateResponseTime(interaction, shape.getResponseTimeStatistics(), accumulator);
     }
 
     /**
      * <p>
      *     This method calculates all GaStep Stereotypes for the {@link Interaction}.
-     *     This is done by iterating over all {@link AbstractMessage} in the {@link MessageTrace}.
-     *     Only {@link SynchronousCallMessage} are processed.
-     *     For the GaStep the net time is set as the execution time.
-     *     This method works together with the method {@link UmlInteractions#addLifelines(Interaction, List)}.
+     *     This is done by iterating over all messages in the {@link TraceDigest} of the {@link TraceShape}.
+     *     Only {@link kieker.model.system.model.SynchronousCallMessage} are processed.
+     *     For the GaStep the net times of all traces of the shape are added as the execution times.
+     *     This method works together with the method {@link UmlInteractions#addLifelines(Interaction, TraceDigest)}.
      * </p>
      * @param interaction - The {@link Interaction} to which the performance information shall be applied.
-     * @param messageTrace - The {@link MessageTrace} that holds the performance information.
+     * @param shape - The {@link TraceShape} that holds the performance information.
+     * @param accumulator - The {@link PerformanceAccumulator} of the model.
      */
-    private static void setGaStep(final Interaction interaction, final MessageTrace messageTrace) {
-        List<AbstractMessage> sequenceAsVector = messageTrace.getSequenceAsVector();
+    private static void setGaStep(final Interaction interaction, final TraceShape shape, final PerformanceAccumulator accumulator) {
+        final TraceDigest digest = shape.getDigest();
         // the count of 0 is the first lifeline after "'Entry'"
         // The count was introduced to have an additional separation option for Messages that have the same representation
-        for (int count = 0; count < sequenceAsVector.size(); count++) {
-            final AbstractMessage message = sequenceAsVector.get(count);
-            if (!(message instanceof SynchronousCallMessage)) {
+        for (int count = 0; count < digest.size(); count++) {
+            if (!digest.isCall(count)) {
                 continue;
             }
 
-            final String besRepresentation = getBESRepresentation(getMessageRepresentation(message));
-            final BehaviorExecutionSpecification bes = getBES(interaction, besRepresentation, count);
-            // We start at the first lifeline after "'Entry'" the net time must be calculated for the receivingExecution
+            final String besRepresentation = getBESRepresentation(digest.getMessageRepresentation(count));
+            final BehaviorExecutionSpecification bes = getBES(interaction, besRepresentation, count, accumulator);
+            // We start at the first lifeline after "'Entry'" the net time is the one of the receivingExecution
             // This happens since the first message in the vector is from "'Entry'" to the next Lifeline
-            final long execTime = getNetExecTime(messageTrace, message.getReceivingExecution());
-            updateGaStep(bes, (double) execTime);
+            updateGaStep(bes, shape.getNetTimeStatistics(count), accumulator);
         }
         // Entry Lifeline BES
-        final BehaviorExecutionSpecification entryBes = getBES(interaction, "'Entry'", -1); // this is set
-        final long otherTime = getTotalExecTime(messageTrace.getSequenceAsVector().get(0).getReceivingExecution()); // Entry-Lifeline only has one
-        final long execTime = (messageTrace.getEndTimestamp() - messageTrace.getStartTimestamp()) - otherTime;
-        updateGaStep(entryBes, (double) (execTime == 0 ? 1 : execTime));
+        final BehaviorExecutionSpecification entryBes = getBES(interaction, "'Entry'", -1, accumulator); // this is set
+        updateGaStep(entryBes, shape.getEntryNetTimeStatistics(), accumulator); // Entry-Lifeline only has one
     }
 
     /**
-     * This method calculated the net execution time.
-     *
-     * The net execution time is calculated by finding all messages that were sent from the execution,
-     * adding their total execution time and subcontracting it from the total execution time of the current execution
-     * @param messageTrace all messages
-     * @param receivingExecution the execution
-     * @return the net execution time
+     * Finds the BES by its representation and count.
+     * The lookup uses the index of {@link MarteSupport#getBESIndex(Interaction, PerformanceAccumulator)}, therefore it is
+     * independent of the number of fragments in the interaction.
      */
-    private static long getNetExecTime(final MessageTrace messageTrace, final Execution receivingExecution) {
-        final Long execTimeOtherExecutions = messageTrace.getSequenceAsVector().stream()
-                .filter(m -> m instanceof SynchronousCallMessage)
-                .filter(m -> receivingExecution.equals(m.getSendingExecution())) // this collects all messages that are send by the execution
-                .map(m -> getTotalExecTime(m.getReceivingExecution()))
-                .reduce(Long::sum)
-                .orElse(0L); // if no other executions are found this execution does not call others and the total time should be applied
-        final long totalExecTime = getTotalExecTime(receivingExecution);
-        // the execTime should be set to the time the message is actually working and not waiting for the execution of other messages
-        final long execTime = totalExecTime - execTimeOtherExecutions;
-        if (execTime < 0) {
-            throw new IllegalArgumentException("ExecTime cannot be less than zero. ExecTime value: " + execTime);
+    private static BehaviorExecutionSpecification getBES(final Interaction interaction, final String messageRepresentation, final int count,
+                                                         final PerformanceAccumulator accumulator) {
+        final BehaviorExecutionSpecification bes = getBESIndex(interaction, accumulator).get(count);
+        if (isNull(bes) || !Kieker2UmlUtil.getRepresentation(bes).map(r -> r.equals(messageRepresentation)).orElse(false)) {
+            throw new ModelNotComformantException("BES not found with representation: " + messageRepresentation);
         }
-        return execTime;
+        return bes;
     }
 
     /**
-     * Calculates the total execution time with Tout - Tin
-     * @param execution the execution
-     * @return the time in nanos it took for the execution.
+     * The BES of an {@link Interaction} are indexed by their count the first time performance information is applied
+     * to the interaction. The count is unique within an interaction, the representation is checked on lookup.
+     * An interaction does not change after {@link UmlInteractions#addLifelines(Interaction, TraceDigest)},
+     * therefore the index is kept in the accumulator as long as the model is changed.
+     * @param interaction the {@link Interaction} that holds the BES
+     * @param accumulator the accumulator of the model of the interaction
+     * @return count -> BES
      */
-    private static long getTotalExecTime(final Execution execution) {
-        // Ess - execution stack size
-        // Tin - time in nanos when the execution was entered
-        // Tout - time in nanos when the execution was left
-        return execution.getTout() - execution.getTin();
-    }
-
-
-    private static BehaviorExecutionSpecification getBES(final Interaction interaction, final String messageRepresentation, final int count) {
-        final List<BehaviorExecutionSpecification> list = interaction.getFragments().stream()
-                .filter(f -> f instanceof BehaviorExecutionSpecification)
-                .filter(f -> Kieker2UmlUtil.getRepresentation(f).map(r -> r.equals(messageRepresentation)).orElse(false))
-                .filter(f -> getRepresentationCount(f).map(c -> c == count).orElse(false))
-                .map(f -> (BehaviorExecutionSpecification) f)
-                .collect(Collectors.toList());;
-
-        if (list.isEmpty()) {
-            throw new ModelNotComformantException("BES not found with representation: " + messageRepresentation);
-        }
-        if (list.size() > 1) {
-            throw new ModelNotComformantException(String.format("To many Messages found for representation: %s\nList size: %s\nList: %s", messageRepresentation, list.size(), list));
-        }
-        return list.get(0);
+    static Map<Integer, BehaviorExecutionSpecification> getBESIndex(final Interaction interaction, final PerformanceAccumulator accumulator) {
+        return accumulator.getBESIndex().computeIfAbsent(interaction, i -> {
+            final Map<Integer, BehaviorExecutionSpecification> index = new HashMap<>();
+            for (final InteractionFragment fragment : i.getFragments()) {
+                if (!(fragment instanceof BehaviorExecutionSpecification)) {
+                    continue;
+                }
+                final Optional<Integer> count = getRepresentationCount(fragment);
+                if (count.isEmpty()) {
+                    continue;
+                }
+                final BehaviorExecutionSpecification previous = index.put(count.get(), (BehaviorExecutionSpecification) fragment);
+                if (nonNull(previous)) {
+                    throw new ModelNotComformantException(String.format("To many Messages found for count: %s\nInteraction: %s\nList: %s", count.get(), i.getName(), List.of(previous, fragment)));
+                }
+            }
+            return index;
+        });
     }
 
     public static void applyPerformanceStereotypesToNodes(final List<Node> nodeList) {
@@ -235,61 +338,120 @@ public class MarteSupport {
                 .orElseGet(() -> useCase.createEAnnotation(GA_SCENARIO));
     }
 
+    /**
+     * Adds the arrivals of traces to the workload of the interaction, it is written by {@link MarteSupport#writeWorkload(PerformanceAccumulator)}.
+     * If windows are counted and the entry lifeline already carries the {@link MarteSupport#ARRIVAL_RATES} of the same
+     * window length, e.g. from a previous run, the windows continue from it.
+     *
+     * @param interaction    the interaction that represents the traces
+     * @param numberOfTraces the number of all {@link MessageTrace}s applied to the interaction
+     * @param arrivals       the arrivals of the <b>current</b> {@link MessageTrace}s
+     * @param accumulator    the accumulator of the model of the interaction
+     * @throws ModelNotComformantException if the {@link Interaction} is not owned by a {@link UseCase}
+     */
+    static void updateWorkload(final Interaction interaction, final long numberOfTraces, final ArrivalStatistics arrivals,
+                               final PerformanceAccumulator accumulator) {
+        if (!(interaction.getOwner() instanceof UseCase)) {
+            throw new ModelNotComformantException("An Interaction must be owned by a UseCase, this requirement was not met. Interaction: " + interaction);
+        }
+        accumulator.getTraceCounts().put(interaction, numberOfTraces);
+        accumulator.getArrivals().computeIfAbsent(interaction, i -> readArrivalRates(i, arrivals.getWindow())).merge(arrivals);
+    }
+
+    private static ArrivalStatistics readArrivalRates(final Interaction interaction, final long window) {
+        final ArrivalStatistics arrivals = new ArrivalStatistics(window);
+        final Lifeline lifeline = interaction.getLifeline(KIEKER_ENTRY_NAME);
+        if (window == 0 || isNull(lifeline)) {
+            return arrivals;
+        }
+        final Optional<EMap<String, String>> details = Kieker2UmlUtil.getAnnotationDetailsMap(lifeline, ARRIVAL_RATES);
+        if (details.isEmpty()) {
+            return arrivals;
+        }
+        if (!Long.toString(window).equals(details.get().get(ARRIVAL_RATE_WINDOW))) {
+            LOGGER.warn(String.format("The %s of the Interaction %s have the window %s instead of %s, they are replaced.",
+                    ARRIVAL_RATES, interaction.getName(), details.get().get(ARRIVAL_RATE_WINDOW), window));
+            return arrivals;
+        }
+        try {
+            details.get().stream()
+                    .filter(d -> !ARRIVAL_RATE_WINDOW.equals(d.getKey()))
+                    .forEach(d -> arrivals.addWindow(Long.parseLong(d.getKey()), Math.round(Double.parseDouble(d.getValue()) * window)));
+        } catch (IllegalArgumentException e) {
+            throw new ModelNotComformantException("The " + ARRIVAL_RATES + " of the Interaction cannot be read: " + interaction.getName() + ", Cause: " + e.getMessage());
+        }
+        return arrivals;
+    }
+
     /**
      * <p>
-     *     This method calculated the open arrival rate and sets it on the lifeline as the stereotype GaWorkloadEvent.
-     *     For the arrival rate to be calculated three values are required:
+     *     Writes the workload collected by {@link MarteSupport#updateWorkload(Interaction, long, ArrivalStatistics, PerformanceAccumulator)}
+     *     once for the interactions of the model. For the arrival rate three values are required:
      * </p>
      * <ul>
-     *     <li>the earliest start time</li>
-     *     <li>the latest end time</li>
+     *     <li>the earliest start time of the use case, it is kept in the annotation PerformanceInformation</li>
+     *     <li>the latest end time of the use case, it is kept in the annotation PerformanceInformation</li>
      *     <li>the amounts of recorded MessageTraces for the {@link Interaction}</li>
      * </ul>
-     *
      * <p>
-     *     First the number of traces is received (N), the the execution time (T) is calculated by subtracting the start
-     *     time from the end time. Thereafter the open arrival rate is calculated by: N / T
+     *     The open arrival rate is the number of traces (N) divided by the time (T) between the start and the end time: N / T.
+     *     It is set as GaWorkloadEvent on the entry lifeline of every interaction of the changed use cases,
+     *     since the time of the use case applies to all of its interactions.
+     * </p>
+     * <p>
+     *     If the arrivals are counted in windows, the entry lifeline of a changed interaction additionally carries the
+     *     annotation {@link MarteSupport#ARRIVAL_RATES}: the window length and for the start of each window its arrival rate.
      * </p>
      *
-     * @param interaction                   the interaction in question
-     * @param startTimestamp                the start timestamp for the <b>current</b> {@link MessageTrace}
-     * @param endTimestamp                  the end timestamp for the <b>current</b> {@link MessageTrace}
-     * @throws ModelNotComformantException  if the {@link Interaction} is not owned by a {@link UseCase}
+     * @param accumulator the accumulator of the model whose interactions are written
      */
-    @SuppressWarnings("SimplifyOptionalCallChains")
-    private static void setOpenWorkloadInformation(final Interaction interaction, final long startTimestamp, final long endTimestamp) {
-        final Element useCase = interaction.getOwner();
-        // fail fast
-        if (isNull(useCase) || !(useCase instanceof UseCase)) {
-            throw new ModelNotComformantException("An Interaction must be owned by a UseCase, this requirement was not met. Interaction: " + interaction);
-        }
-        // work
-        // get start and end times
-        final Long startTime = getAnnotationDetail(useCase, PERFORMANCE_INFORMATION, "startTime")
-                .map(Long::parseLong)
-                .map(v -> startTimestamp < v ? startTimestamp : v)
-                .orElse(startTimestamp);
-        final Long endTime = getAnnotationDetail(useCase, PERFORMANCE_INFORMATION, "endTime")
-                .map(Long::parseLong)
-                .map(v -> endTimestamp > v ? endTimestamp : v)
-                .orElse(endTimestamp);
-
-        LOGGER.debug("start timestamp received: " + startTimestamp);
-        LOGGER.debug("end timestamp received: " + endTimestamp);
-        LOGGER.debug("start time: " + startTime);
-        LOGGER.debug("end time: " + endTime);
-
-        // write current values back
-        setAnnotationDetail(useCase, PERFORMANCE_INFORMATION, "startTime", startTime.toString());
-        setAnnotationDetail(useCase, PERFORMANCE_INFORMATION, "endTime", endTime.toString());
-
-        // calculate open arrival rate
-        final BigDecimal numberOfTraces = BigDecimal.valueOf(getIds(interaction).map(s -> s.size() + 1).orElse(1));
-        final BigDecimal executionTime = BigDecimal.valueOf(endTime - startTime);
-        final String openWorkload = numberOfTraces.divide(executionTime, 20, RoundingMode.HALF_UP).toPlainString();
+    public static void writeWorkload(final PerformanceAccumulator accumulator) {
+        requireNonNull(accumulator, "accumulator");
+        final Map<Interaction, ArrivalStatistics> arrivals = accumulator.getArrivals();
+        final Map<UseCase, List<Interaction>> changedUseCases = new LinkedHashMap<>();
+        arrivals.keySet().forEach(i -> changedUseCases.computeIfAbsent((UseCase) i.getOwner(), uc -> new ArrayList<>()).add(i));
+
+        changedUseCases.forEach((useCase, interactions) -> {
+            final long startTime = Math.min(
+                    getAnnotationDetail(useCase, PERFORMANCE_INFORMATION, "startTime").map(Long::parseLong).orElse(Long.MAX_VALUE),
+                    interactions.stream().mapToLong(i -> arrivals.get(i).getFirstStartTimestamp()).min().orElseThrow());
+            final long endTime = Math.max(
+                    getAnnotationDetail(useCase, PERFORMANCE_INFORMATION, "endTime").map(Long::parseLong).orElse(Long.MIN_VALUE),
+                    interactions.stream().mapToLong(i -> arrivals.get(i).getLastEndTimestamp()).max().orElseThrow());
+            LOGGER.debug(String.format("Use case %s start time: %s, end time: %s", useCase.getName(), startTime, endTime));
+            setAnnotationDetail(useCase, PERFORMANCE_INFORMATION, "startTime", Long.toString(startTime));
+            setAnnotationDetail(useCase, PERFORMANCE_INFORMATION, "endTime", Long.toString(endTime));
+
+            useCase.getOwnedBehaviors().stream()
+                    .filter(b -> b instanceof Interaction)
+                    .map(b -> (Interaction) b)
+                    .filter(i -> nonNull(i.getLifeline(KIEKER_ENTRY_NAME)))
+                    .forEach(i -> {
+                        final long numberOfTraces = Optional.ofNullable(accumulator.getTraceCounts().get(i)).orElseGet(() -> getTraceIds(i).size());
+                        // this follows the pattern required by the Uml2Lqn transformation
+                        setGaWorkloadEvent(i.getLifeline(KIEKER_ENTRY_NAME), "open:" + getArrivalRate(Math.max(numberOfTraces, 1), endTime - startTime));
+                    });
+            interactions.forEach(i -> setArrivalRates(i, arrivals.get(i)));
+        });
+        arrivals.clear();
+        accumulator.getTraceCounts().clear();
+    }
 
-        // set GaWorkloadEvent with open arrival rate
+    private static void setArrivalRates(final Interaction interaction, final ArrivalStatistics arrivals) {
+        if (arrivals.getWindow() == 0) {
+            return;
+        }
         final Lifeline lifeline = interaction.getLifeline(KIEKER_ENTRY_NAME);
-        MarteSupport.setGaWorkloadEvent(lifeline, "open:" + openWorkload); // this follows the pattern required by the Uml2Lqn transformation
+        Kieker2UmlUtil.getAnnotationDetailsMap(lifeline, ARRIVAL_RATES).ifPresent(EMap::clear);
+        setAnnotationDetail(lifeline, ARRIVAL_RATES, ARRIVAL_RATE_WINDOW, Long.toString(arrivals.getWindow()));
+        arrivals.getWindows().forEach((windowStart, count) ->
+                setAnnotationDetail(lifeline, ARRIVAL_RATES, Long.toString(windowStart), getArrivalRate(count, arrivals.getWindow())));
+    }
+
+    /**
+     * @return the number of traces per time unit, a duration of 0 is taken as 1 time unit
+     */
+    private static String getArrivalRate(final long numberOfTraces, final long duration) {
+        return BigDecimal.valueOf(numberOfTraces).divide(BigDecimal.valueOf(Math.max(duration, 1)), 20, RoundingMode.HALF_UP).toPlainString();
     }
 }
@@ -0,0 +1,243 @@
+package kieker.extension.performanceanalysis.kieker2uml.uml;
+
+import org.eclipse.emf.common.notify.Adapter;
+import org.eclipse.emf.common.notify.Notification;
+import org.eclipse.emf.common.notify.impl.AdapterImpl;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.uml2.uml.NamedElement;
+import org.eclipse.uml2.uml.Package;
+import org.eclipse.uml2.uml.PackageableElement;
+import org.eclipse.uml2.uml.UMLPackage;
+import org.eclipse.uml2.uml.Usage;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * <p>
+ * Index of the packaged elements of a {@link Package} by their name and type and of the {@link Usage}s by their
+ * client and supplier. The lookups are equivalent to {@link Package#getPackagedElement(String, boolean, EClass, boolean)}
+ * (case sensitive, the first matching element in the order of the package) and to scanning the usages of the package,
+ * but independent of the number of packaged elements.
+ * </p>
+ * <p>
+ * The index is an EMF adapter of the package and of its packaged elements, it is updated by the notifications of
+ * added and removed packaged elements, of renamed elements and of changed clients and suppliers of usages.
+ * Therefore the index stays consistent independent of how the package is changed.
+ * </p>
+ */
+final class PackagedElementIndex extends AdapterImpl {
+
+    private final Package owner;
+    /** EClass (the type and all super types of the elements) -> name -> first element */
+    private final Map<EClass, Map<String, PackageableElement>> elements = new HashMap<>();
+    /** (client, supplier) -> first usage */
+    private final Map<List<NamedElement>, Usage> usages = new HashMap<>();
+    private final Map<Usage, Set<List<NamedElement>>> usageKeys = new HashMap<>();
+
+    private PackagedElementIndex(final Package owner) {
+        this.owner = owner;
+    }
+
+    /**
+     * @param pkg the package to index
+     * @return the index of the package, it is created and attached on first use.
+     */
+    static PackagedElementIndex of(final Package pkg) {
+        requireNonNull(pkg, "pkg");
+        // a nested package also carries the index of its owning package, that one observes the name of the package
+        for (final Adapter adapter : pkg.eAdapters()) {
+            if (adapter instanceof PackagedElementIndex && ((PackagedElementIndex) adapter).owner == pkg) {
+                return (PackagedElementIndex) adapter;
+            }
+        }
+        final PackagedElementIndex index = new PackagedElementIndex(pkg);
+        pkg.eAdapters().add(index);
+        for (final PackageableElement element : pkg.getPackagedElements()) {
+            index.add(element);
+        }
+        return index;
+    }
+
+    /**
+     * @return the first packaged element with the name that is an instance of the EClass or null
+     */
+    PackageableElement get(final String name, final EClass eClass) {
+        return elements.getOrDefault(eClass, Map.of()).get(name);
+    }
+
+    /**
+     * Like {@link Package#getPackagedElement(String, boolean, EClass, boolean)} with createOnDemand.
+     * @return the first packaged element with the name that is an instance of the EClass, it is created if not present.
+     */
+    PackageableElement getOrCreate(final String name, final EClass eClass) {
+        final PackageableElement element = get(name, eClass);
+        if (element != null) {
+            return element;
+        }
+        return owner.createPackagedElement(name, eClass); // indexed by the notification
+    }
+
+    /**
+     * @return the first usage of the package with the client and the supplier or null
+     */
+    Usage getUsage(final NamedElement client, final NamedElement supplier) {
+        return usages.get(List.of(client, supplier));
+    }
+
+    @Override
+    public boolean isAdapterForType(final Object type) {
+        return type == PackagedElementIndex.class;
+    }
+
+    @Override
+    public void notifyChanged(final Notification notification) {
+        if (notification.isTouch()) {
+            return;
+        }
+        final Object feature = notification.getFeature();
+        final Object notifier = notification.getNotifier();
+        if (notifier == owner && feature == UMLPackage.Literals.PACKAGE__PACKAGED_ELEMENT) {
+            packagedElementsChanged(notification);
+        } else if (feature == UMLPackage.Literals.NAMED_ELEMENT__NAME && notifier != owner && notifier instanceof PackageableElement) {
+            final PackageableElement element = (PackageableElement) notifier;
+            removeName(element, notification.getOldStringValue());
+            addName(element, notification.getNewStringValue());
+        } else if ((feature == UMLPackage.Literals.DEPENDENCY__CLIENT || feature == UMLPackage.Literals.DEPENDENCY__SUPPLIER)
+                && notifier instanceof Usage) {
+            removeUsage((Usage) notifier);
+            addUsage((Usage) notifier);
+        }
+    }
+
+    private void packagedElementsChanged(final Notification notification) {
+        switch (notification.getEventType()) {
+            case Notification.ADD:
+                add((PackageableElement) notification.getNewValue());
+                break;
+            case Notification.ADD_MANY:
+                for (final Object element : (Collection<?>) notification.getNewValue()) {
+                    add((PackageableElement) element);
+                }
+                break;
+            case Notification.REMOVE:
+                remove((PackageableElement) notification.getOldValue());
+                break;
+            case Notification.REMOVE_MANY:
+                for (final Object element : (Collection<?>) notification.getOldValue()) {
+                    remove((PackageableElement) element);
+                }
+                break;
+            case Notification.SET:
+                if (notification.getOldValue() != null) {
+                    remove((PackageableElement) notification.getOldValue());
+                }
+                if (notification.getNewValue() != null) {
+                    add((PackageableElement) notification.getNewValue());
+                }
+                break;
+            case Notification.MOVE:
+                // the order decides which of the elements with the same name is the first one
+                rebuild();
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void add(final PackageableElement element) {
+        if (!element.eAdapters().contains(this)) {
+            element.eAdapters().add(this);
+        }
+        addName(element, element.getName());
+        if (element instanceof Usage) {
+            addUsage((Usage) element);
+        }
+    }
+
+    private void remove(final PackageableElement element) {
+        element.eAdapters().remove(this);
+        removeName(element, element.getName());
+        if (element instanceof Usage) {
+            removeUsage((Usage) element);
+        }
+    }
+
+    private void addName(final PackageableElement element, final String name) {
+        if (isNull(name)) {
+            return;
+        }
+        for (final EClass eClass : getTypes(element)) {
+            elements.computeIfAbsent(eClass, c -> new HashMap<>()).putIfAbsent(name, element);
+        }
+    }
+
+    private void removeName(final PackageableElement element, final String name) {
+        if (isNull(name)) {
+            return;
+        }
+        for (final EClass eClass : getTypes(element)) {
+            final Map<String, PackageableElement> byName = elements.get(eClass);
+            if (byName != null && byName.get(name) == element) {
+                // another element with the same name may become the first one
+                byName.remove(name);
+                owner.getPackagedElements().stream()
+                        .filter(pe -> pe != element && name.equals(pe.getName()) && eClass.isInstance(pe))
+                        .findFirst()
+                        .ifPresent(pe -> byName.put(name, pe));
+            }
+        }
+    }
+
+    private void addUsage(final Usage usage) {
+        final Set<List<NamedElement>> keys = new HashSet<>();
+        for (final NamedElement client : usage.getClients()) {
+            for (final NamedElement supplier : usage.getSuppliers()) {
+                final List<NamedElement> key = List.of(client, supplier);
+                keys.add(key);
+                usages.putIfAbsent(key, usage);
+            }
+        }
+        usageKeys.put(usage, keys);
+    }
+
+    private void removeUsage(final Usage usage) {
+        final Set<List<NamedElement>> keys = usageKeys.remove(usage);
+        if (keys == null) {
+            return;
+        }
+        for (final List<NamedElement> key : keys) {
+            if (usages.get(key) == usage) {
+                // another usage with the same client and supplier may become the first one
+                usages.remove(key);
+                owner.getPackagedElements().stream()
+                        .filter(pe -> pe != usage && pe instanceof Usage && usageKeys.getOrDefault(pe, Set.of()).contains(key))
+                        .findFirst()
+                        .ifPresent(pe -> usages.put(key, (Usage) pe));
+            }
+        }
+    }
+
+    private void rebuild() {
+        elements.clear();
+        usages.clear();
+        usageKeys.clear();
+        for (final PackageableElement element : owner.getPackagedElements()) {
+            add(element);
+        }
+    }
+
+    private static List<EClass> getTypes(final PackageableElement element) {
+        final List<EClass> types = new ArrayList<>(element.eClass().getEAllSuperTypes());
+        types.add(element.eClass());
+        return types;
+    }
+}
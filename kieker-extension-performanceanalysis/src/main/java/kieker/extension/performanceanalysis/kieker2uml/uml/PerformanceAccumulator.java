@@ -0,0 +1,111 @@
+package kieker.extension.performanceanalysis.kieker2uml.uml;
+
+import kieker.extension.performanceanalysis.kieker2uml.statistics.ArrivalStatistics;
+import kieker.extension.performanceanalysis.kieker2uml.statistics.ExecTimeStatistics;
+import kieker.extension.performanceanalysis.kieker2uml.trace.TraceIdSet;
+import kieker.extension.performanceanalysis.kieker2uml.trace.TraceShape;
+import org.eclipse.uml2.uml.BehaviorExecutionSpecification;
+import org.eclipse.uml2.uml.Element;
+import org.eclipse.uml2.uml.Interaction;
+import org.eclipse.uml2.uml.Model;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * <p>
+ * The performance information of one model that {@link MarteSupport} accumulates in memory while {@link TraceShape}s
+ * are added, until {@link Kieker2UmlModel#finish(Model, PerformanceAccumulator)} writes it to the model:
+ * </p>
+ * <ul>
+ *     <li>the execution times of the GaSteps and the response times of the interactions</li>
+ *     <li>the arrivals of the interactions and the number of all their traces</li>
+ *     <li>the BES of the interactions by their count, see {@link MarteSupport#getBESIndex(Interaction, PerformanceAccumulator)}</li>
+ * </ul>
+ * <p>
+ * It also carries the settings of the model: the number of raw execution times kept and how new sets of applied trace ids are kept.
+ * </p>
+ * <p>
+ * It is created by the one who changes the model, e.g. the {@link kieker.extension.performanceanalysis.kieker2uml.teetime.UmlModelFilter},
+ * and is used with that model only. The statistics are released when they are written, the BES index is kept.
+ * Like the model it is not thread safe.
+ * </p>
+ */
+public final class PerformanceAccumulator {
+
+    private final int execTimeSampleLimit;
+    private final Supplier<TraceIdSet> traceIdSetFactory;
+    private final Map<Element, ExecTimeStatistics> execTimes = new LinkedHashMap<>();
+    private final Map<Interaction, ExecTimeStatistics> responseTimes = new LinkedHashMap<>();
+    private final Map<Interaction, ArrivalStatistics> arrivals = new LinkedHashMap<>();
+    private final Map<Interaction, Long> traceCounts = new HashMap<>();
+    private final Map<Interaction, Map<Integer, BehaviorExecutionSpecification>> besIndex = new HashMap<>();
+
+    /**
+     * Keeps the applied trace ids exactly, see {@link TraceIdSet#exact()}.
+     * @param execTimeSampleLimit the number of raw execution times kept per element in the detail execTimeEntries, 0 to keep none.
+     */
+    public PerformanceAccumulator(final int execTimeSampleLimit) {
+        this(execTimeSampleLimit, TraceIdSet::exact);
+    }
+
+    /**
+     * @param execTimeSampleLimit the number of raw execution times kept per element in the detail execTimeEntries, 0 to keep none.
+     * @param traceIdSetFactory   creates the sets of the applied trace ids of the interactions that have none yet,
+     *                            e.g. {@link TraceIdSet#exact()}
+     */
+    public PerformanceAccumulator(final int execTimeSampleLimit, final Supplier<TraceIdSet> traceIdSetFactory) {
+        if (execTimeSampleLimit < 0) {
+            throw new IllegalArgumentException("The sample limit cannot be negative. Value: " + execTimeSampleLimit);
+        }
+        this.execTimeSampleLimit = execTimeSampleLimit;
+        this.traceIdSetFactory = requireNonNull(traceIdSetFactory, "traceIdSetFactory");
+    }
+
+    public int getExecTimeSampleLimit() {
+        return execTimeSampleLimit;
+    }
+
+    public Supplier<TraceIdSet> getTraceIdSetFactory() {
+        return traceIdSetFactory;
+    }
+
+    /**
+     * @return the execution times of the GaSteps that are not written yet
+     */
+    Map<Element, ExecTimeStatistics> getExecTimes() {
+        return execTimes;
+    }
+
+    /**
+     * @return the response times of the interactions that are not written yet
+     */
+    Map<Interaction, ExecTimeStatistics> getResponseTimes() {
+        return responseTimes;
+    }
+
+    /**
+     * @return the arrivals of the interactions that are not written yet
+     */
+    Map<Interaction, ArrivalStatistics> getArrivals() {
+        return arrivals;
+    }
+
+    /**
+     * @return the number of all traces applied to the interactions, including those of previous runs
+     */
+    Map<Interaction, Long> getTraceCounts() {
+        return traceCounts;
+    }
+
+    /**
+     * @return interaction -> count -> BES
+     */
+    Map<Interaction, Map<Integer, BehaviorExecutionSpecification>> getBESIndex() {
+        return besIndex;
+    }
+}
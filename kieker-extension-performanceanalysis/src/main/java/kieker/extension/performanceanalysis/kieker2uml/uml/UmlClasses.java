@@ -1,24 +1,26 @@
 package kieker.extension.performanceanalysis.kieker2uml.uml;
 
-import kieker.model.system.model.AbstractMessage;
-import kieker.model.system.model.MessageTrace;
-import kieker.model.system.model.Operation;
+import kieker.extension.performanceanalysis.kieker2uml.trace.TraceDigest;
+import kieker.extension.performanceanalysis.kieker2uml.trace.OperationSymbol;
+import org.eclipse.emf.common.notify.Adapter;
+import org.eclipse.emf.common.notify.impl.AdapterImpl;
 import org.eclipse.emf.ecore.EClass;
 import org.eclipse.uml2.uml.Class;
-import org.eclipse.uml2.uml.MessageSort;
 import org.eclipse.uml2.uml.Model;
 import org.eclipse.uml2.uml.UMLFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.Optional;
+import java.util.HashMap;
+import java.util.Map;
 
 import static java.util.Objects.requireNonNull;
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
 import static kieker.extension.performanceanalysis.kieker2uml.uml.Kieker2UmlUtil.addId;
-import static kieker.extension.performanceanalysis.kieker2uml.uml.Kieker2UmlUtil.getMessageSort;
-import static kieker.extension.performanceanalysis.kieker2uml.uml.Kieker2UmlUtil.getTraceRepresentation;
+import static kieker.extension.performanceanalysis.kieker2uml.uml.Kieker2UmlUtil.getAnnotationSet;
 import static kieker.extension.performanceanalysis.kieker2uml.uml.Kieker2UmlUtil.isIdApplied;
-import static kieker.extension.performanceanalysis.kieker2uml.uml.Kieker2UmlUtil.setAnnotationDetail;
+import static kieker.extension.performanceanalysis.kieker2uml.uml.Kieker2UmlUtil.setAnnotationSetEntry;
 import static kieker.extension.performanceanalysis.kieker2uml.uml.Kieker2UmlUtil.setReferenceAnnotations;
 
 /**
@@ -30,11 +32,13 @@ public class UmlClasses {
     private static final Logger LOGGER = LoggerFactory.getLogger(UmlClasses.class);
 
     final static private EClass CLASS_E_CLASS = UMLFactory.eINSTANCE.createClass().eClass();
-    static void addClasses(final Model model, final MessageTrace messageTrace) {
+    static final String CALLS_TO_QUALIFIED_NAMES = "CallsToQualifiedNames";
+
+    static void addClasses(final Model model, final TraceDigest digest) {
         requireNonNull(model, "model");
-        requireNonNull(messageTrace, "messageTrace");
+        requireNonNull(digest, "digest");
 
-        final String traceRepresentation = getTraceRepresentation(messageTrace);
+        final String traceRepresentation = digest.getFingerprint().toString();
         final org.eclipse.uml2.uml.Package staticView = Kieker2UmlUtil.getPackagedElement(model, "staticView-classes");
 
         if (isIdApplied(staticView, traceRepresentation)) {
@@ -42,54 +46,102 @@ public class UmlClasses {
             return;
         }
 
-        for (final AbstractMessage message : messageTrace.getSequenceAsVector()) {
+        for (int i = 0; i < digest.size(); i++) {
 
-            if (getMessageSort(message).equals(MessageSort.REPLY_LITERAL)) {
+            if (!digest.isCall(i)) {
                 // replys of messages do not need to be handled since both the receiver and the sender are added otherwise
                 // It also does not add a required operation to the sender since it is a reply to a call and not the call itself.
                 continue;
             }
-            final org.eclipse.uml2.uml.Operation sender = getOperation(message.getSendingExecution().getOperation(), staticView);
-            final org.eclipse.uml2.uml.Operation receiver = getOperation(message.getReceivingExecution().getOperation(), staticView);
+            final OperationSymbol sendingOperation = digest.getSendingOperation(i);
+            final OperationSymbol receivingOperation = digest.getReceivingOperation(i);
+            final org.eclipse.uml2.uml.Operation sender = getOperation(sendingOperation, staticView);
+            final org.eclipse.uml2.uml.Operation receiver = getOperation(receivingOperation, staticView);
 
-            setReferenceAnnotations(sender, message.getSendingExecution());
-            setReferenceAnnotations(receiver, message.getReceivingExecution());
-            addDependency(sender, message.getReceivingExecution().getOperation());
+            setReferenceAnnotations(sender, sendingOperation);
+            setReferenceAnnotations(receiver, receivingOperation);
+            addDependency(sender, receivingOperation);
 
             Kieker2UmlUtil.createAssociation(sender.getClass_(), receiver.getClass_());
         }
         addId(staticView, traceRepresentation);
     }
 
-    private static void addDependency(final org.eclipse.uml2.uml.Operation from, final Operation operation) {
-        setAnnotationDetail(from, "CallsToQualifiedNames", operation.toString(), null); // TODO: this does not jet add all dependencies but only one.
+    /**
+     * Adds the called operation to the set of callees of the operation.
+     */
+    private static void addDependency(final org.eclipse.uml2.uml.Operation from, final OperationSymbol operation) {
+        final String callee = operation.getFullQualifiedNameSignature();
+        if (getAnnotationSet(from, CALLS_TO_QUALIFIED_NAMES).map(callees -> callees.contains(callee)).orElse(false)) {
+            return;
+        }
+        setAnnotationSetEntry(from, CALLS_TO_QUALIFIED_NAMES, callee);
+    }
+
+    /**
+     * Gets the Operation with the signature of the kieker Operation from the Class with the full qualified name
+     * of the component type, without instance information. The Class and the Operation are created if not present.
+     */
+    private static org.eclipse.uml2.uml.Operation getOperation(final OperationSymbol operation, final org.eclipse.uml2.uml.Package staticView) {
+        final String className = Kieker2UmlUtil.removeInstanceInformation(operation.getFullQualifiedName());
+        final Class umlClass = (Class) PackagedElementIndex.of(staticView).getOrCreate(className, CLASS_E_CLASS);
+        final String signature = operation.getSignature();
+
+        return OperationIndex.of(umlClass).getOrCreate(signature);
     }
 
-    private static org.eclipse.uml2.uml.Operation getOperation(final Operation operation, final org.eclipse.uml2.uml.Package staticView) {
+    /**
+     * Signature -> first Operation of the Class with the signature as name.
+     * The Operations are indexed the first time the Class is used, afterwards the created Operations are added.
+     * Like the {@link DynamicViewIndex} the index is an EMF adapter of the Class, so it lives as long as the Class.
+     * It does not observe the notifications, an Operation that no longer matches causes the Class to be indexed again.
+     */
+    private static final class OperationIndex extends AdapterImpl {
 
-        // Traverse over all Classes, get the Operations and find the one with the qualified name of the kieker Operation.
-        final Optional<org.eclipse.uml2.uml.Operation> umlOperation = staticView.getPackagedElements().stream()
-                .filter(pe -> CLASS_E_CLASS.equals(pe.eClass()))
-                .map(pe -> (org.eclipse.uml2.uml.Class) pe)
-                .filter(c -> Kieker2UmlUtil.removeInstanceInformation(operation.getComponentType().getFullQualifiedName()).equals(c.getName()))
-                .flatMap(c -> c.getOperations().stream())
-                .filter(op -> operation.getSignature().toString().equals(op.getName()))
-                .findFirst();
+        private final Class umlClass;
+        private final Map<String, org.eclipse.uml2.uml.Operation> operations = new HashMap<>();
 
-        if (umlOperation.isEmpty()) {
-            final Class umlClass = createUmlClass(Kieker2UmlUtil.removeInstanceInformation(operation.getComponentType().getFullQualifiedName()), staticView);
-            return umlClass.createOwnedOperation(operation.getSignature().toString(), null, null);
+        private OperationIndex(final Class umlClass) {
+            this.umlClass = umlClass;
+            populate();
         }
 
-        return umlOperation.get();
-    }
+        static OperationIndex of(final Class umlClass) {
+            for (final Adapter adapter : umlClass.eAdapters()) {
+                if (adapter instanceof OperationIndex) {
+                    return (OperationIndex) adapter;
+                }
+            }
+            final OperationIndex index = new OperationIndex(umlClass);
+            umlClass.eAdapters().add(index);
+            return index;
+        }
 
+        @Override
+        public boolean isAdapterForType(final Object type) {
+            return type == OperationIndex.class;
+        }
 
-    private static org.eclipse.uml2.uml.Class createUmlClass(final String clazzName, final org.eclipse.uml2.uml.Package staticView) {
-        return staticView.getPackagedElements().stream()
-                .filter(pe -> clazzName.equals(pe.getName()))
-                .findFirst()
-                .map(pe -> (org.eclipse.uml2.uml.Class) pe)
-                .orElseGet(() -> (org.eclipse.uml2.uml.Class) staticView.createPackagedElement(clazzName, CLASS_E_CLASS));
+        /**
+         * @return the first Operation of the Class with the signature as name, it is created if not present.
+         */
+        org.eclipse.uml2.uml.Operation getOrCreate(final String signature) {
+            org.eclipse.uml2.uml.Operation umlOperation = operations.get(signature);
+            if (nonNull(umlOperation) && (umlOperation.getClass_() != umlClass || !signature.equals(umlOperation.getName()))) {
+                // the class was changed otherwise
+                populate();
+                umlOperation = operations.get(signature);
+            }
+            if (isNull(umlOperation)) {
+                umlOperation = umlClass.createOwnedOperation(signature, null, null);
+                operations.put(signature, umlOperation);
+            }
+            return umlOperation;
+        }
+
+        private void populate() {
+            operations.clear();
+            umlClass.getOwnedOperations().forEach(op -> operations.putIfAbsent(op.getName(), op));
+        }
     }
 }
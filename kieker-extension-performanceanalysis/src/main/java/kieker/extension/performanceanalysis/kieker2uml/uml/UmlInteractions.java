@@ -1,9 +1,11 @@
 package kieker.extension.performanceanalysis.kieker2uml.uml;
 
-import kieker.model.system.model.AbstractMessage;
-import kieker.model.system.model.AssemblyComponent;
+import kieker.extension.performanceanalysis.kieker2uml.trace.MessageSequence;
+import kieker.extension.performanceanalysis.kieker2uml.trace.OperationSymbol;
+import kieker.extension.performanceanalysis.kieker2uml.trace.TraceDigest;
+import kieker.extension.performanceanalysis.kieker2uml.trace.TraceFingerprint;
+import kieker.extension.performanceanalysis.kieker2uml.trace.TraceFingerprints;
 import kieker.model.system.model.MessageTrace;
-import kieker.model.system.model.Operation;
 import org.eclipse.emf.ecore.EClass;
 import org.eclipse.uml2.uml.Actor;
 import org.eclipse.uml2.uml.BehaviorExecutionSpecification;
@@ -21,14 +23,17 @@ import org.eclipse.uml2.uml.UseCase;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
 import static java.util.Objects.isNull;
-import static java.util.Objects.nonNull;
 import static java.util.Objects.requireNonNull;
-import static kieker.extension.performanceanalysis.kieker2uml.uml.Kieker2UmlUtil.createAssociation;
+import static kieker.extension.performanceanalysis.kieker2uml.uml.Kieker2UmlUtil.createNewAssociation;
 import static kieker.extension.performanceanalysis.kieker2uml.uml.Kieker2UmlUtil.getModel;
 import static kieker.extension.performanceanalysis.kieker2uml.uml.Kieker2UmlUtil.getRepresentation;
 import static kieker.extension.performanceanalysis.kieker2uml.uml.Kieker2UmlUtil.setReferenceAnnotation;
@@ -36,7 +41,6 @@ import static kieker.extension.performanceanalysis.kieker2uml.uml.Kieker2UmlUtil
 import static kieker.extension.performanceanalysis.kieker2uml.uml.Kieker2UmlUtil.setRepresentation;
 import static kieker.extension.performanceanalysis.kieker2uml.uml.Kieker2UmlUtil.setRepresentationCount;
 import static kieker.extension.performanceanalysis.kieker2uml.uml.UmlStaticViews.STATIC_VIEW_COMPONENTS;
-import static kieker.extension.performanceanalysis.kieker2uml.uml.UmlStaticViews.getInterfaceName;
 import static kieker.extension.performanceanalysis.kieker2uml.uml.UmlUseCases.KIEKER_ENTRY_NAME;
 import static kieker.extension.performanceanalysis.kieker2uml.uml.UmlUseCases.getActor;
 import static kieker.extension.performanceanalysis.kieker2uml.uml.UmlUseCases.getDynamicView;
@@ -55,30 +59,132 @@ class UmlInteractions {
     public static final String RECEIVE_MESSAGE_OCCURRENCE_SPECIFICATION = "ReceiveMOS-";
     public static final String SEND_MESSAGE_OCCURRENCE_SPECIFICATION = "SendMOS-";
 
-    static Interaction createInteraction(final String interactionName, final MessageTrace messageTrace) {
+    /**
+     * @param interactionName The name of the Interaction.
+     * @param fingerprint     The fingerprint of the Interaction, see {@link UmlInteractions#getFingerprint(UseCase, MessageSequence)}.
+     * @return The Interaction that is identified by the fingerprint, it is not yet added to a UseCase.
+     */
+    static Interaction createInteraction(final String interactionName, final TraceFingerprint fingerprint) {
+        requireNonNull(fingerprint, "fingerprint");
         final Interaction interaction = UMLFactory.eINSTANCE.createInteraction();
 
         interaction.setName(interactionName);
-        Kieker2UmlUtil.addId(interaction, Long.toString(messageTrace.getTraceId()));
-        setRepresentation(interaction, Kieker2UmlUtil.getTraceRepresentation(messageTrace));
+        setRepresentation(interaction, fingerprint.toString());
 
         return interaction;
     }
 
     /**
-     * @param useCase             The UseCase to which this Interaction will be added.
-     * @param traceRepresentation The traceRepresentation for the Interaction so it can be correctly identified.
-     * @return The Interaction, either an existing one or the newly created one. The Interaction will have the traceRepresentation set in the id-Annotation.
+     * @param useCase     The UseCase to which this Interaction will be added.
+     * @param fingerprint The fingerprint of the trace, the Interaction is identified by it.
+     * @return The Interaction that has the fingerprint set in the id-Annotation, if present.
      */
-    static Optional<Interaction> getInteraction(final UseCase useCase, final String traceRepresentation) {
+    static Optional<Interaction> getInteraction(final UseCase useCase, final TraceFingerprint fingerprint) {
         requireNonNull(useCase, "useCase");
-        requireNonNull(traceRepresentation, "traceRepresentation");
+        requireNonNull(fingerprint, "fingerprint");
+
+        return DynamicViewIndex.of(useCase.getNearestPackage()).getInteraction(useCase, fingerprint);
+    }
+
+    /**
+     * <p>
+     * Resolves the fingerprint that identifies the Interaction of the message sequence in the UseCase.
+     * It is the fingerprint of the sequence, unless an Interaction with other messages already has it.
+     * Then the next salted fingerprint of the sequence is tried (see {@link MessageSequence#getFingerprint(int)}),
+     * until an Interaction with the same messages or no Interaction is found.
+     * </p>
+     * <p>
+     * The result only depends on the Interactions of the UseCase, not on the order in which the traces are received.
+     * </p>
+     * @param useCase         The UseCase that holds the Interactions.
+     * @param messageSequence The messages of the traces.
+     * @return The fingerprint of the Interaction of the sequence, or the one for the Interaction that is to be created.
+     */
+    static TraceFingerprint getFingerprint(final UseCase useCase, final MessageSequence messageSequence) {
+        requireNonNull(useCase, "useCase");
+        requireNonNull(messageSequence, "messageSequence");
+
+        for (int salt = 0; ; salt++) {
+            final TraceFingerprint fingerprint = messageSequence.getFingerprint(salt);
+            final Optional<Interaction> interaction = getInteraction(useCase, fingerprint);
+            if (interaction.isEmpty() || represents(interaction.get(), messageSequence)) {
+                return fingerprint;
+            }
+            LOGGER.warn(String.format("The fingerprint %s of Interaction %s belongs to other messages, trying the next salt.",
+                    fingerprint, interaction.get().getName()));
+        }
+    }
+
+    /**
+     * The messages of an Interaction are read once, afterwards its {@link MessageSequence} is known by the {@link DynamicViewIndex}.
+     * @param interaction     The Interaction, it is part of a UseCase.
+     * @param messageSequence The messages of the traces.
+     * @return true if the Interaction consists of exactly the messages of the sequence.
+     */
+    static boolean represents(final Interaction interaction, final MessageSequence messageSequence) {
+        requireNonNull(interaction, "interaction");
+        requireNonNull(messageSequence, "messageSequence");
+
+        final DynamicViewIndex index = DynamicViewIndex.of(interaction.getNearestPackage());
+        final MessageSequence interactionSequence = index.getMessageSequence(interaction).orElseGet(() -> {
+            final MessageSequence read = MessageSequence.ofRepresentations(getMessageRepresentations(interaction));
+            index.setMessageSequence(interaction, read);
+            return read;
+        });
+        return interactionSequence.equals(messageSequence);
+    }
+
+    /**
+     * Adds the Interaction as owned behavior to the UseCase, it is found by {@link UmlInteractions#getInteraction(UseCase, TraceFingerprint)} afterwards.
+     * @param useCase         The UseCase to which the Interaction is added.
+     * @param interaction     The Interaction created by {@link UmlInteractions#createInteraction(String, TraceFingerprint)}.
+     * @param messageSequence The messages of the traces the Interaction is created for.
+     */
+    static void addInteraction(final UseCase useCase, final Interaction interaction, final MessageSequence messageSequence) {
+        requireNonNull(useCase, "useCase");
+        requireNonNull(interaction, "interaction");
+        requireNonNull(messageSequence, "messageSequence");
+        useCase.getOwnedBehaviors().add(interaction);
+        final DynamicViewIndex index = DynamicViewIndex.of(useCase.getNearestPackage());
+        index.addInteraction(useCase, interaction);
+        index.setMessageSequence(interaction, messageSequence);
+    }
 
-        return useCase.getOwnedBehaviors().stream()
-                .filter(i -> i instanceof Interaction)
-                .map(i -> (Interaction) i)
-                .filter(i -> getRepresentation(i).map(s -> s.equals(traceRepresentation)).orElse(false))
-                .findFirst();
+    /**
+     * The fingerprint of an {@link Interaction} is read from its representation. Models of older versions hold the full
+     * trace representation instead, their fingerprint is computed from the representations of the
+     * {@link org.eclipse.uml2.uml.Message}s. The Interaction is not changed, see {@link UmlInteractions#migrateRepresentations(Model)}.
+     * @param interaction the {@link Interaction}
+     * @return the fingerprint of the interaction
+     */
+    static TraceFingerprint getFingerprint(final Interaction interaction) {
+        return getRepresentation(interaction).flatMap(TraceFingerprint::parse)
+                .orElseGet(() -> TraceFingerprints.ofRepresentations(getMessageRepresentations(interaction)));
+    }
+
+    /**
+     * Replaces the full trace representations of the Interactions of models of older versions by their fingerprints,
+     * see {@link UmlInteractions#getFingerprint(Interaction)}. A model without dynamicView is not changed.
+     * @param model the loaded {@link Model}
+     */
+    static void migrateRepresentations(final Model model) {
+        UmlUseCases.findDynamicView(model)
+                .ifPresent(dynamicView -> dynamicView.getPackagedElements().stream()
+                        .filter(e -> e instanceof UseCase)
+                        .flatMap(uc -> ((UseCase) uc).getOwnedBehaviors().stream())
+                        .filter(b -> b instanceof Interaction)
+                        .map(b -> (Interaction) b)
+                        .filter(i -> getRepresentation(i).flatMap(TraceFingerprint::parse).isEmpty())
+                        .forEach(i -> {
+                            LOGGER.debug("Updating representation of Interaction to fingerprint: " + i.getName());
+                            setRepresentation(i, getFingerprint(i).toString());
+                        }));
+    }
+
+    private static List<String> getMessageRepresentations(final Interaction interaction) {
+        return interaction.getMessages().stream()
+                .map(m -> getRepresentation(m).orElseThrow(() -> new ModelNotComformantException("Message without representation in Interaction: " + interaction.getName())))
+                .collect(Collectors.toList());
     }
 
     /**
@@ -102,33 +208,49 @@ class UmlInteractions {
      *     <li>{@link org.eclipse.uml2.uml.MessageOccurrenceSpecification} - This is required by UML2 and connects the Message with the lifeline</li>
      *     <li>{@link org.eclipse.uml2.uml.BehaviorExecutionSpecification} - This is required by UML2 and represents when an object of the application is active</li>
      * </ul>
+     * <p>
+     *     The lifelines and the open BES of each lifeline are tracked while the messages are added,
+     *     therefore the interaction is built in time linear to the number of messages.
+     * </p>
      * @param interaction Representing the whole interaction all other Types are enclosed by this Type.
-     * @param messages    The Kieker Messages of the {@link MessageTrace}
+     * @param digest      The {@link TraceDigest} of the {@link MessageTrace}
      */
-    static void addLifelines(final Interaction interaction, final List<AbstractMessage> messages) {
+    static void addLifelines(final Interaction interaction, final TraceDigest digest) {
         requireNonNull(getModel(interaction));
         final Package staticView = Kieker2UmlUtil.getPackagedElement(getModel(interaction), STATIC_VIEW_COMPONENTS);
+        final Map<String, Lifeline> lifelines = new HashMap<>();
+        final Map<Lifeline, Deque<BehaviorExecutionSpecification>> openBES = new HashMap<>();
+        final Lifeline entryLifeline = getLifeline(interaction, lifelines, digest.getSenderComponent(0));
+        MessageOccurrenceSpecification firstEntryMos = null;
+        MessageOccurrenceSpecification lastEntryMos = null;
         // assumption: the messages are ordered
-        int count = 0; // The count was introduced to have an additional separation option for Messages that have the same representation
-        for (final AbstractMessage message : messages) {
-            final AssemblyComponent senderComponent = message.getSendingExecution().getAllocationComponent().getAssemblyComponent();
-            final AssemblyComponent receiverComponent = message.getReceivingExecution().getAllocationComponent().getAssemblyComponent();
+        // The count (index of the message) was introduced to have an additional separation option for Messages that have the same representation
+        for (int count = 0; count < digest.size(); count++) {
+            final String senderComponent = digest.getSenderComponent(count);
+            final String receiverComponent = digest.getReceiverComponent(count);
 
-            final org.eclipse.uml2.uml.Lifeline senderLifeline = getLifeline(interaction, senderComponent);
-            final org.eclipse.uml2.uml.Lifeline receiverLifeline = getLifeline(interaction, receiverComponent);
+            final org.eclipse.uml2.uml.Lifeline senderLifeline = getLifeline(interaction, lifelines, senderComponent);
+            final org.eclipse.uml2.uml.Lifeline receiverLifeline = getLifeline(interaction, lifelines, receiverComponent);
 
             // note that every lifeline will be a receiver at one point
             setRepresents(receiverLifeline, staticView, receiverComponent);
-            setReferenceAnnotations(receiverLifeline, message.getReceivingExecution());
-
-            final String messageRepresentation = Kieker2UmlUtil.getMessageRepresentation(message);
-            createMessage(interaction, message, senderLifeline, receiverLifeline, messageRepresentation, count);
-            count++;
+            setReferenceAnnotations(receiverLifeline, digest.getReceivingOperation(count));
+
+            final org.eclipse.uml2.uml.Message umlMessage = createMessage(interaction, digest, count, senderLifeline, receiverLifeline, openBES);
+
+            // the MOS of the entry lifeline in the order they cover it
+            if (senderLifeline == entryLifeline) {
+                firstEntryMos = isNull(firstEntryMos) ? (MessageOccurrenceSpecification) umlMessage.getSendEvent() : firstEntryMos;
+                lastEntryMos = (MessageOccurrenceSpecification) umlMessage.getSendEvent();
+            }
+            if (receiverLifeline == entryLifeline) {
+                lastEntryMos = (MessageOccurrenceSpecification) umlMessage.getReceiveEvent();
+            }
         }
-        setBehaviourSpecificationForFirstLifeline(messages.get(0), interaction, count - 1);
+        setBehaviourSpecificationForFirstLifeline(digest, interaction, entryLifeline, requireNonNull(firstEntryMos), lastEntryMos, digest.size() - 1);
     }
 
-    private static BehaviorExecutionSpecification getBES(final Interaction interaction, final Operation message) {
+    private static BehaviorExecutionSpecification getBES(final Interaction interaction, final OperationSymbol message) {
         return (BehaviorExecutionSpecification) interaction.createFragment(getBesName(message), BEHAVIOUR_EXECUTION_E_CLASS);
     }
 
@@ -138,10 +260,10 @@ class UmlInteractions {
      *
      * @param lifeline          - The {@link Lifeline} that represents the Component
      * @param staticView        - The Package that contains the {@link Component}s
-     * @param assemblyComponent - The object that is mapped to the {@link Component}
-     *                          (see {@link UmlStaticViews#getComponent(Package, AssemblyComponent)}).
+     * @param assemblyComponent - The identifier of the assembly component that is mapped to the {@link Component}
+     *                          (see {@link UmlStaticViews#getComponent(Package, String)}).
      */
-    private static void setRepresents(final Lifeline lifeline, final Package staticView, final AssemblyComponent assemblyComponent) {
+    private static void setRepresents(final Lifeline lifeline, final Package staticView, final String assemblyComponent) {
         final boolean isNotRepresented = isNull(lifeline.getRepresents());
         // fail fast
         if (!isNotRepresented) { // is not null therefore return
@@ -161,42 +283,41 @@ class UmlInteractions {
      * @param senderComponent - The identifier of the component is used as Name of the {@link Lifeline}
      * @return {@link Lifeline}
      */
-    private static Lifeline getLifeline(final Interaction interaction, final AssemblyComponent senderComponent) {
+    private static Lifeline getLifeline(final Interaction interaction, final Map<String, Lifeline> lifelines, final String senderComponent) {
         // getLifeline(name, ignoreCase, createOnDemand) <-- naming of the parameters
-        return interaction.getLifeline(senderComponent.getIdentifier(), false, true);
+        return lifelines.computeIfAbsent(senderComponent, name -> interaction.getLifeline(name, false, true));
     }
 
-    private static void setBehaviourSpecificationForFirstLifeline(final AbstractMessage firstMessage, final Interaction interaction, final int finalCount) {
-        final String messageId = Kieker2UmlUtil.getMessageRepresentation(firstMessage);
-        final String lifelineName = firstMessage.getSendingExecution().getAllocationComponent().getAssemblyComponent().getIdentifier();
-        final Lifeline lifeline = requireNonNull(interaction.getLifeline(lifelineName));
-
-        // get all MOS
-        final List<MessageOccurrenceSpecification> mosList = lifeline.getCoveredBys().stream()
-                .filter(c -> c instanceof MessageOccurrenceSpecification)
-                .map(c -> (MessageOccurrenceSpecification) c)
-                .collect(Collectors.toList());
-
-        // This assumes that the MOS are in order, which they should be if executed correctly
-        final MessageOccurrenceSpecification startMos = mosList.get(0);
-        final MessageOccurrenceSpecification finishMos = mosList.get(mosList.size() - 1);
+    /**
+     * The BES of the entry lifeline spans the whole trace, from the first to the last MOS on the entry lifeline.
+     * It is created after all messages, as it encloses the BES of the other lifelines.
+     *
+     * @param startMos  - the first MOS that covers the entry lifeline
+     * @param finishMos - the last MOS that covers the entry lifeline
+     */
+    private static void setBehaviourSpecificationForFirstLifeline(final TraceDigest digest,
+                                                                  final Interaction interaction,
+                                                                  final Lifeline lifeline,
+                                                                  final MessageOccurrenceSpecification startMos,
+                                                                  final MessageOccurrenceSpecification finishMos,
+                                                                  final int finalCount) {
+        final String messageId = digest.getMessageRepresentation(0);
 
         // open BES
-        final BehaviorExecutionSpecification startBes = startBehaviourSpecification(interaction, lifeline, startMos, firstMessage.getSendingExecution().getOperation());
+        final BehaviorExecutionSpecification startBes = startBehaviourSpecification(interaction, lifeline, startMos, digest.getSendingOperation(0));
         setRepresentation(startBes, "'Entry'");
         setRepresentationCount(startBes, -1);
         setReferenceAnnotation(startBes, "OpenMessage", "'Entry'");
         setReferenceAnnotation(startBes, "OpenMessageCount", -1 + "");
 
         // close BES
-        final BehaviorExecutionSpecification finishBes = getCurrentOpenBES(lifeline);
-        finishBes.setFinish(finishMos);
-        setReferenceAnnotation(finishBes, "CloseMessage", messageId);
-        setReferenceAnnotation(finishBes, "CloseMessageCount", finalCount + "");
+        startBes.setFinish(finishMos);
+        setReferenceAnnotation(startBes, "CloseMessage", messageId);
+        setReferenceAnnotation(startBes, "CloseMessageCount", finalCount + "");
     }
 
-    static String getBesName(final Operation operation) {
-        return BEHAVIOUR_EXECUTION_SPECIFICATION_PREFIX + operation.toString();
+    static String getBesName(final OperationSymbol operation) {
+        return BEHAVIOUR_EXECUTION_SPECIFICATION_PREFIX + operation.getFullQualifiedNameSignature();
     }
 
     /**
@@ -226,27 +347,32 @@ class UmlInteractions {
      * </p>
      *
      * @param interaction - The {@link Interaction} in which the elements are created.
-     * @param message - The Kieker {@link AbstractMessage} from which the uml Message is created.
+     * @param digest - The {@link TraceDigest} holding the Kieker message from which the uml Message is created.
+     * @param count - The index of the message in the digest. The count was introduced to find the correct messages
+     *              when adding the performance information
+     *              in {@link MarteSupport#applyPerformanceStereotypesToInteraction(Interaction, TraceShape, PerformanceAccumulator)}
      * @param senderLifeline - The {@link Lifeline} from which the Message originates
      * @param receiverLifeline - The {@link Lifeline} that is the destination of the Message
-     * @param messageRepresentation - The string representation of the Message.
-     * @param count - A count was introduced to find the correct messages when adding the performance information
-     *              in {@link MarteSupport#applyPerformanceStereotypesToInteraction(Interaction, MessageTrace)}
+     * @param openBES - The stack of the open BES of each Lifeline, the last opened BES is on top.
+     * @return the created Message
      */
-    private static void createMessage(final Interaction interaction,
-                                      final AbstractMessage message,
-                                      final Lifeline senderLifeline,
-                                      final Lifeline receiverLifeline,
-                                      final String messageRepresentation,
-                                      final int count) {
+    private static org.eclipse.uml2.uml.Message createMessage(final Interaction interaction,
+                                                              final TraceDigest digest,
+                                                              final int count,
+                                                              final Lifeline senderLifeline,
+                                                              final Lifeline receiverLifeline,
+                                                              final Map<Lifeline, Deque<BehaviorExecutionSpecification>> openBES) {
         requireNonNull(interaction, "interaction");
-        requireNonNull(message, "message");
+        requireNonNull(digest, "digest");
         requireNonNull(senderLifeline, "senderLifeline");
         requireNonNull(receiverLifeline, "receiverLifeline");
 
-        final String messageLabel = getInterfaceName(message.getReceivingExecution().getOperation());
+        final OperationSymbol sendingOperation = digest.getSendingOperation(count);
+        final OperationSymbol receivingOperation = digest.getReceivingOperation(count);
+        final String messageRepresentation = digest.getMessageRepresentation(count);
+        final String messageLabel = receivingOperation.getInterfaceName();
         final org.eclipse.uml2.uml.Message umlMessage = interaction.createMessage(messageLabel);
-        final MessageSort messageSort = Kieker2UmlUtil.getMessageSort(message);
+        final MessageSort messageSort = digest.isCall(count) ? MessageSort.SYNCH_CALL_LITERAL : MessageSort.REPLY_LITERAL;
         umlMessage.setMessageSort(messageSort);
 
         final MessageOccurrenceSpecification mosSend = createMessageOccurrence(interaction, umlMessage, senderLifeline, messageLabel + "SendEvent");
@@ -257,13 +383,14 @@ class UmlInteractions {
 
         final BehaviorExecutionSpecification bes;
         if (messageSort.equals(MessageSort.SYNCH_CALL_LITERAL)) {
-            bes = startBehaviourSpecification(interaction, receiverLifeline, mosReceive, message.getReceivingExecution().getOperation());
+            bes = startBehaviourSpecification(interaction, receiverLifeline, mosReceive, receivingOperation);
             setRepresentation(bes, getBESRepresentation(messageRepresentation));
             setRepresentationCount(bes, count);
             setReferenceAnnotation(bes, "OpenMessage", messageRepresentation);
             setReferenceAnnotation(bes, "OpenMessageCount", count + "");
+            openBES.computeIfAbsent(receiverLifeline, l -> new ArrayDeque<>()).push(bes);
         } else if (messageSort.equals(MessageSort.REPLY_LITERAL)) {
-            bes = getCurrentOpenBES(senderLifeline);
+            bes = getCurrentOpenBES(openBES, senderLifeline);
             bes.setFinish(mosSend); // the current mos will now the next BES
 
             setReferenceAnnotation(bes, "CloseMessage", messageRepresentation);
@@ -273,46 +400,43 @@ class UmlInteractions {
         // uml message
         setRepresentation(umlMessage, messageRepresentation);
         setRepresentationCount(umlMessage, count);
-        setReferenceAnnotations(umlMessage, message.getReceivingExecution());
+        setReferenceAnnotations(umlMessage, receivingOperation);
         // message occurrence send
         setRepresentation(mosSend, getSendMOSRepresentation(messageRepresentation));
         setRepresentationCount(mosSend, count);
-        setReferenceAnnotations(mosSend, message.getSendingExecution());
+        setReferenceAnnotations(mosSend, sendingOperation);
         // message occurrence receive
         setRepresentation(mosReceive, getReceiveMOSRepresentation(messageRepresentation));
         setRepresentationCount(mosReceive, count);
-        setReferenceAnnotations(mosReceive, message.getReceivingExecution());
+        setReferenceAnnotations(mosReceive, receivingOperation);
+        return umlMessage;
     }
 
     /**
-     * Gets the current open BES for the Lifeline.
-     * This method assumes that all BES are in order.
-     * All BES of the lifeline are collected that not jet have an end set.
-     * The last BES in the list is the curren open BES,
+     * Gets and closes the current open BES for the Lifeline.
+     * The top of the stack of the Lifeline is the current open BES,
      * as it is the last that has been created on the Lifeline and
      * represents the most current execution of the Lifeline.
+     * @param openBES - The stack of the open BES of each Lifeline
      * @param senderLifeline - {@link Lifeline}
-     * @return the most current open BES
+     * @return the most current open BES, it is removed from the stack.
      * @throws RuntimeException - In case no open BES was found.
      */
-    private static BehaviorExecutionSpecification getCurrentOpenBES(final Lifeline senderLifeline) {
-        final List<BehaviorExecutionSpecification> list = senderLifeline.getCoveredBys().stream()
-                .filter(cb -> cb instanceof BehaviorExecutionSpecification)
-                .map(cb -> (BehaviorExecutionSpecification) cb)
-                .filter(bes -> isNull(bes.getFinish()))
-                .collect(Collectors.toList());
-        if (list.isEmpty()) {
+    private static BehaviorExecutionSpecification getCurrentOpenBES(final Map<Lifeline, Deque<BehaviorExecutionSpecification>> openBES,
+                                                                    final Lifeline senderLifeline) {
+        final Deque<BehaviorExecutionSpecification> stack = openBES.get(senderLifeline);
+        if (isNull(stack) || stack.isEmpty()) {
             throw new RuntimeException("There is no open BehaviorExecutionSpecification. At least one was expected.");
         }
         // get last opened BehaviorExecutionSpecification on lifeline.
         // this is possible since a single kieker-trace is sequential.
-        return list.get(list.size() - 1);
+        return stack.pop();
     }
 
     private static BehaviorExecutionSpecification startBehaviourSpecification(final Interaction interaction,
                                                                               final Lifeline umlLifeline,
                                                                               final MessageOccurrenceSpecification messageOccurrenceReceive,
-                                                                              final Operation operation) {
+                                                                              final OperationSymbol operation) {
         final BehaviorExecutionSpecification behaviour = getBES(interaction, operation);
         behaviour.getCovereds().add(umlLifeline);
 
@@ -328,19 +452,22 @@ class UmlInteractions {
         return fragment;
     }
 
-    static void connectEntryLifelineToActor(final UseCase useCase) {
-        final Model model = getModel(useCase);
-        final org.eclipse.uml2.uml.Package dynamicView = getDynamicView(model);
-        final Actor actor = getActor(dynamicView, useCase);
-
-        useCase.getOwnedBehaviors().stream()
-                .filter(b -> b instanceof Interaction)
-                .map(b -> (Interaction) b)
-                .filter(i -> nonNull(i.getLifeline(KIEKER_ENTRY_NAME)))
-                .forEach(i -> {
-                    final Lifeline lifeline = i.getLifeline(KIEKER_ENTRY_NAME);
-                    lifeline.setRepresents(createAssociation(actor, i).getMemberEnd(actor.getName(), null));
-                });
+    /**
+     * Connects the entry Lifeline of the new Interaction to the Actor of the UseCase.
+     * The Interaction was just created, therefore it has no association with the Actor yet
+     * and the associations of the Actor are not searched. The Interactions that were connected before are not touched.
+     *
+     * @param useCase     - The UseCase that owns the Interaction, its Actor is created if not present.
+     * @param interaction - The Interaction created by {@link UmlInteractions#createInteraction(String, TraceFingerprint)}
+     */
+    static void connectEntryLifelineToActor(final UseCase useCase, final Interaction interaction) {
+        requireNonNull(interaction, "interaction");
+        final Lifeline lifeline = interaction.getLifeline(KIEKER_ENTRY_NAME);
+        if (isNull(lifeline)) {
+            return;
+        }
+        final Actor actor = getActor(getDynamicView(getModel(useCase)), useCase);
+        lifeline.setRepresents(createNewAssociation(actor, interaction).getMemberEnd(actor.getName(), null));
     }
 
     static String getBESRepresentation(final String messageId) {
@@ -1,30 +1,29 @@
 package kieker.extension.performanceanalysis.kieker2uml.uml;
 
-import kieker.model.system.model.AbstractMessage;
-import kieker.model.system.model.AllocationComponent;
-import kieker.model.system.model.AssemblyComponent;
-import kieker.model.system.model.Execution;
-import kieker.model.system.model.ExecutionContainer;
-import kieker.model.system.model.MessageTrace;
-import kieker.model.system.model.Operation;
+import kieker.extension.performanceanalysis.kieker2uml.trace.OperationSymbol;
+import kieker.extension.performanceanalysis.kieker2uml.trace.SymbolTable;
+import kieker.extension.performanceanalysis.kieker2uml.trace.TraceDigest;
 import org.eclipse.uml2.uml.Artifact;
 import org.eclipse.uml2.uml.Component;
 import org.eclipse.uml2.uml.Deployment;
 import org.eclipse.uml2.uml.Interface;
 import org.eclipse.uml2.uml.Manifestation;
-import org.eclipse.uml2.uml.MessageSort;
 import org.eclipse.uml2.uml.Model;
 import org.eclipse.uml2.uml.Node;
 import org.eclipse.uml2.uml.Package;
+import org.eclipse.uml2.uml.PackageableElement;
 import org.eclipse.uml2.uml.UMLPackage;
 import org.eclipse.uml2.uml.Usage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static java.util.Objects.isNull;
 import static java.util.Objects.nonNull;
 import static java.util.Objects.requireNonNull;
 import static kieker.extension.performanceanalysis.kieker2uml.uml.Kieker2UmlUtil.addId;
-import static kieker.extension.performanceanalysis.kieker2uml.uml.Kieker2UmlUtil.getTraceRepresentation;
 import static kieker.extension.performanceanalysis.kieker2uml.uml.Kieker2UmlUtil.isIdApplied;
 import static kieker.extension.performanceanalysis.kieker2uml.uml.Kieker2UmlUtil.setReferenceAnnotation;
 import static kieker.extension.performanceanalysis.kieker2uml.uml.Kieker2UmlUtil.setReferenceAnnotations;
@@ -52,11 +51,11 @@ public class UmlStaticViews {
     public static final String STATIC_VIEW_COMPONENTS = "staticView-components";
 
 
-    static void addComponentsAndDeployment(final Model model, final MessageTrace messageTrace) {
+    static void addComponentsAndDeployment(final Model model, final TraceDigest digest) {
         requireNonNull(model, "model");
-        requireNonNull(messageTrace, "messageTrace");
+        requireNonNull(digest, "digest");
 
-        final String traceRepresentation = getTraceRepresentation(messageTrace);
+        final String traceRepresentation = digest.getFingerprint().toString();
         final org.eclipse.uml2.uml.Package staticView = Kieker2UmlUtil.getPackagedElement(model, STATIC_VIEW_COMPONENTS);
         final org.eclipse.uml2.uml.Package deploymentView = Kieker2UmlUtil.getPackagedElement(model, DEPLOYMENT_VIEW);
 
@@ -66,30 +65,34 @@ public class UmlStaticViews {
             return;
         }
 
-        for (final AbstractMessage message : messageTrace.getSequenceAsVector()) {
+        for (int i = 0; i < digest.size(); i++) {
 
-            if (Kieker2UmlUtil.getMessageSort(message).equals(MessageSort.REPLY_LITERAL)) {
+            if (!digest.isCall(i)) {
                 continue;
             }
+            final OperationSymbol sendingOperation = digest.getSendingOperation(i);
+            final OperationSymbol receivingOperation = digest.getReceivingOperation(i);
+            final int sendingAllocation = digest.getSendingAllocation(i);
+            final int receivingAllocation = digest.getReceivingAllocation(i);
 
             // sender
             // uml elements
-            final Component senderComponent = getComponent(staticView, message.getSendingExecution().getAllocationComponent().getAssemblyComponent());
-            final Interface senderInterface = getInterface(staticView, message.getSendingExecution());
-            final Node senderNode = getNode(deploymentView, message.getSendingExecution().getAllocationComponent().getExecutionContainer());
-            final Artifact senderArtifact = getArtifact(deploymentView, message.getSendingExecution().getAllocationComponent());
-            createOperation(senderComponent, message.getSendingExecution().getOperation());
+            final Component senderComponent = getComponent(staticView, digest.getSenderComponent(i));
+            final Interface senderInterface = getInterface(staticView, sendingOperation);
+            final Node senderNode = getNode(deploymentView, SymbolTable.getContainerIdentifier(SymbolTable.getContainerOf(sendingAllocation)));
+            final Artifact senderArtifact = getArtifact(deploymentView, SymbolTable.getAllocationIdentifier(sendingAllocation));
+            createOperation(senderComponent, sendingOperation);
 
             // connection
             doConnections(senderNode, senderArtifact, senderComponent, senderInterface);
 
             // receiver
             // uml elements
-            final Component receiverComponent = getComponent(staticView, message.getReceivingExecution().getAllocationComponent().getAssemblyComponent());
-            final Interface receiverInterface = getInterface(staticView, message.getReceivingExecution());
-            final Node receiverNode = getNode(deploymentView, message.getReceivingExecution().getAllocationComponent().getExecutionContainer());
-            final Artifact receiverArtifact = getArtifact(deploymentView, message.getReceivingExecution().getAllocationComponent());
-            createOperation(receiverComponent, message.getReceivingExecution().getOperation());
+            final Component receiverComponent = getComponent(staticView, digest.getReceiverComponent(i));
+            final Interface receiverInterface = getInterface(staticView, receivingOperation);
+            final Node receiverNode = getNode(deploymentView, SymbolTable.getContainerIdentifier(SymbolTable.getContainerOf(receivingAllocation)));
+            final Artifact receiverArtifact = getArtifact(deploymentView, SymbolTable.getAllocationIdentifier(receivingAllocation));
+            createOperation(receiverComponent, receivingOperation);
 
             // connection
             doConnections(receiverNode, receiverArtifact, receiverComponent, receiverInterface);
@@ -108,53 +111,65 @@ public class UmlStaticViews {
      * Creates an operation of the component.
      * The Operation holds a reference to the BES that represent it, this is for easier lookup in the Uml2Lqn transformation
      * @param component the {@link Component} that is the owner of the {@link org.eclipse.uml2.uml.Operation}
-     * @param operation the Kieker {@link Operation} that is the provider for the {@link org.eclipse.uml2.uml.Operation}
+     * @param operation the Kieker operation that is the provider for the {@link org.eclipse.uml2.uml.Operation}
      * @return the uml {@link org.eclipse.uml2.uml.Operation} created
      */
-    private static org.eclipse.uml2.uml.Operation createOperation(final Component component, final Operation operation) {
-        final org.eclipse.uml2.uml.Operation ownedOperation = component.getOwnedOperation(getInterfaceName(operation), null, null, false, true);
+    private static org.eclipse.uml2.uml.Operation createOperation(final Component component, final OperationSymbol operation) {
+        final org.eclipse.uml2.uml.Operation ownedOperation = component.getOwnedOperation(operation.getInterfaceName(), null, null, false, true);
         final String besName = getBesName(operation);
         setReferenceAnnotation(ownedOperation, "BES", besName);
         return ownedOperation;
     }
 
-    static String getInterfaceName(final Operation operation) {
-        final String name = operation.getSignature().toString();
-        if (name.contains("<init>")) { // "<init>" is the representation of calling a constructor
-            return name.replaceAll("<init>", operation.getComponentType().getTypeName()); // create constructor with name instead of "<init>"
+    /**
+     * @param model the model, it is not changed.
+     * @return the nodes of the deployment view, empty if the model has no deployment view
+     */
+    static List<Node> getNodes(final Model model) {
+        requireNonNull(model, "model");
+        final PackageableElement deploymentView = PackagedElementIndex.of(model).get(DEPLOYMENT_VIEW, UMLPackage.Literals.PACKAGE);
+        if (isNull(deploymentView)) {
+            return List.of();
         }
-        return name;
+        return ((Package) deploymentView).getPackagedElements().stream()
+                .filter(pe -> pe instanceof Node)
+                .map(pe -> (Node) pe)
+                .collect(Collectors.toList());
     }
 
-    static Node getNode(final Package deploymentView, final ExecutionContainer nodeName) {
-        return (Node) deploymentView.getPackagedElement(nodeName.getIdentifier(), false, UMLPackage.Literals.NODE, true);
+    /**
+     * @param containerIdentifier the identifier of the Kieker {@link kieker.model.system.model.ExecutionContainer}
+     */
+    static Node getNode(final Package deploymentView, final String containerIdentifier) {
+        return (Node) PackagedElementIndex.of(deploymentView).getOrCreate(containerIdentifier, UMLPackage.Literals.NODE);
     }
 
-    static Artifact getArtifact(final Package deploymentView, final AllocationComponent allocationComponent) {
-        return (Artifact) deploymentView.getPackagedElement(allocationComponent.getIdentifier(), false, UMLPackage.Literals.ARTIFACT, true);
+    /**
+     * @param allocationIdentifier the identifier of the Kieker {@link kieker.model.system.model.AllocationComponent}
+     */
+    static Artifact getArtifact(final Package deploymentView, final String allocationIdentifier) {
+        return (Artifact) PackagedElementIndex.of(deploymentView).getOrCreate(allocationIdentifier, UMLPackage.Literals.ARTIFACT);
     }
 
-    static Component getComponent(final Package staticView, final AssemblyComponent component) {
-        // getPackagedElement(String name, boolean ignoreCase, EClass eClass, boolean createOnDemand) <-- names of the parameters
-        return (Component) staticView.getPackagedElement(component.getIdentifier(), false, UMLPackage.Literals.COMPONENT, true);
+    /**
+     * @param componentIdentifier the identifier of the Kieker {@link kieker.model.system.model.AssemblyComponent}
+     */
+    static Component getComponent(final Package staticView, final String componentIdentifier) {
+        return (Component) PackagedElementIndex.of(staticView).getOrCreate(componentIdentifier, UMLPackage.Literals.COMPONENT);
     }
 
     /**
      * A Usage defines if one interface uses another.
+     * The interfaces are unique by name in the staticView, therefore the usage is looked up by the interfaces themselves.
      * @return The Usage
      */
     private static Usage getUsage(final org.eclipse.uml2.uml.Package staticView, final Interface sender, final Interface receiver) {
-        return staticView.getPackagedElements().stream()
-                .filter(pe -> pe instanceof Usage)
-                .map(pe -> (Usage) pe)
-                .filter(u -> nonNull(u.getClient(sender.getName())))
-                .filter(u -> nonNull(u.getSupplier(receiver.getName())))
-                .findFirst()
-                .orElseGet(() -> sender.createUsage(receiver));
+        final Usage usage = PackagedElementIndex.of(staticView).getUsage(sender, receiver);
+        return nonNull(usage) ? usage : sender.createUsage(receiver);
     }
 
-    private static Interface getInterface(final Package staticView, final Execution execution) {
-        return (Interface) staticView.getPackagedElement(getInterfaceName(execution.getOperation()), false, UMLPackage.Literals.INTERFACE, true);
+    private static Interface getInterface(final Package staticView, final OperationSymbol operation) {
+        return (Interface) PackagedElementIndex.of(staticView).getOrCreate(operation.getInterfaceName(), UMLPackage.Literals.INTERFACE);
     }
 
     /**
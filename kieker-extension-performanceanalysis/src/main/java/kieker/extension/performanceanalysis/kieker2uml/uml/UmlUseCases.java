@@ -11,6 +11,7 @@ import org.eclipse.uml2.uml.UseCase;
 
 import java.awt.datatransfer.StringSelection;
 import java.util.List;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 import static java.util.Objects.requireNonNull;
@@ -23,6 +24,7 @@ public class UmlUseCases {
 
     public static final EClass USE_CASE_E_CLASS = UMLFactory.eINSTANCE.createUseCase().eClass();
     public static final String KIEKER_ENTRY_NAME = "'Entry'";
+    private static final String DYNAMIC_VIEW = "dynamicView";
 
 
     /**
@@ -34,66 +36,86 @@ public class UmlUseCases {
     static UseCase getUseCase(final Model model, final String useCaseName, final String traceRepresentation) {
         final org.eclipse.uml2.uml.Package dynamicView = getDynamicView(model);
         final UseCase useCase = getUseCase(useCaseName, dynamicView, traceRepresentation);
-        final Actor actor = getActor(dynamicView, useCase);
-        Kieker2UmlUtil.createAssociation(useCase, actor);
+        getActor(dynamicView, useCase);
         return useCase;
     }
 
     private static UseCase getUseCase(final String useCaseName, final org.eclipse.uml2.uml.Package dynamicView, final String traceRepresentation) {
+        return findUseCase(useCaseName, dynamicView, traceRepresentation).orElseGet(() -> {
+            final String name = UC_MODE.equals("single-interaction") ? useCaseName + "-" + getUseCases(dynamicView, useCaseName).size() : useCaseName;
+            final UseCase useCase = (UseCase) dynamicView.createPackagedElement(name, USE_CASE_E_CLASS);
+            Kieker2UmlUtil.setRepresentation(useCase, traceRepresentation);
+            DynamicViewIndex.of(dynamicView).addUseCase(useCase);
+            return useCase;
+        });
+    }
+
+    /**
+     * Finds the use case without changing the model.
+     * @return the use case or empty if it would be created by {@link UmlUseCases#getUseCase(Model, String, String)}
+     */
+    static Optional<UseCase> findUseCase(final Model model, final String useCaseName, final String traceRepresentation) {
+        requireNonNull(model, "model");
+        return findDynamicView(model).flatMap(dynamicView -> findUseCase(useCaseName, dynamicView, traceRepresentation));
+    }
+
+    private static Optional<UseCase> findUseCase(final String useCaseName, final org.eclipse.uml2.uml.Package dynamicView, final String traceRepresentation) {
 
         if (UC_MODE.equals("single-interaction")) { // each interaction has their own use-case
-            final List<UseCase> ucList = dynamicView.getPackagedElements().stream()
-                    .filter(pe -> pe instanceof UseCase)
-                    .map(uc -> (UseCase) uc)
+            return DynamicViewIndex.of(dynamicView).getUseCasesByRepresentation(traceRepresentation).stream()
                     .filter(uc -> uc.getName().contains(useCaseName))
-                    .collect(Collectors.toList());
-            return ucList.stream()
-                    .filter(uc -> Kieker2UmlUtil.getRepresentation(uc).map(r -> r.equals(traceRepresentation)).orElse(false))
-                    .findFirst()
-                    .orElseGet(() -> {
-                        final UseCase useCase = (UseCase) dynamicView.createPackagedElement(useCaseName + "-" + ucList.size(), USE_CASE_E_CLASS);
-                        Kieker2UmlUtil.setRepresentation(useCase, traceRepresentation);
-                        return useCase;
-                    });
+                    .findFirst();
         }
         if (UC_MODE.equals("multi-interaction")) {
-            final List<UseCase> ucList = dynamicView.getPackagedElements().stream()
-                    .filter(pe -> pe instanceof UseCase)
-                    .map(uc -> (UseCase) uc)
-                    .filter(uc -> uc.getName().equals(useCaseName))
-                    .collect(Collectors.toList());
-            if (ucList.isEmpty()) {
-                final UseCase useCase = (UseCase) dynamicView.createPackagedElement(useCaseName , USE_CASE_E_CLASS);
-                Kieker2UmlUtil.setRepresentation(useCase, traceRepresentation);
-                return useCase;
-            }
+            final List<UseCase> ucList = getUseCases(dynamicView, useCaseName);
             if (ucList.size() > 1) {
                 final String collect = ucList.stream().map(Object::toString).collect(Collectors.joining(", "));
                 throw new RuntimeException("To many use cases. Expected was exactly one. List: " + collect);
             }
-            return ucList.get(0);
+            return ucList.stream().findFirst();
         }
         throw new RuntimeException("Unable to find appropriate UseCase Mode, please contact the developers.");
     }
 
+    /**
+     * @return in the mode "single-interaction" all use cases whose name contains the name, otherwise the use cases with the name.
+     */
+    private static List<UseCase> getUseCases(final org.eclipse.uml2.uml.Package dynamicView, final String useCaseName) {
+        final DynamicViewIndex index = DynamicViewIndex.of(dynamicView);
+        if (UC_MODE.equals("single-interaction")) {
+            return index.getUseCases().stream()
+                    .filter(uc -> uc.getName().contains(useCaseName))
+                    .collect(Collectors.toList());
+        }
+        return index.getUseCasesByName(useCaseName);
+    }
+
+    /**
+     * The actor of the use case, it is created and associated with the use case if not present.
+     */
     static Actor getActor(final org.eclipse.uml2.uml.Package dynamicView, final UseCase useCase) {
         requireNonNull(dynamicView, "dynamicView");
-        final String actorName = KIEKER_ENTRY_NAME + "-" + useCase.getName();
-        return dynamicView.getPackagedElements().stream()
-                .filter(e -> UMLPackage.Literals.ACTOR.equals(e.eClass()))
-                .filter(e -> actorName.equals(e.getName()))
-                .filter(a -> Kieker2UmlUtil.isAssociateWith(a, useCase))
-                .map(e -> (Actor) e)
-                .findFirst()
-                .orElseGet(() -> (Actor) dynamicView.createPackagedElement(actorName, UMLPackage.Literals.ACTOR));
+        final DynamicViewIndex index = DynamicViewIndex.of(dynamicView);
+        return index.getActor(useCase).orElseGet(() -> {
+            final Actor actor = (Actor) dynamicView.createPackagedElement(KIEKER_ENTRY_NAME + "-" + useCase.getName(), UMLPackage.Literals.ACTOR);
+            Kieker2UmlUtil.createAssociation(useCase, actor);
+            index.addActor(useCase, actor);
+            return actor;
+        });
     }
 
     static org.eclipse.uml2.uml.Package getDynamicView(final Model model) {
         requireNonNull(model, "model");
-        return model.getPackagedElements().stream()
-                .filter(pe -> pe.getName().equals("dynamicView"))
-                .findFirst().map(pe -> (org.eclipse.uml2.uml.Package) pe)
-                .orElseGet(() -> (org.eclipse.uml2.uml.Package) model.createPackagedElement("dynamicView", UMLPackage.Literals.PACKAGE));
+        return (org.eclipse.uml2.uml.Package) PackagedElementIndex.of(model).getOrCreate(DYNAMIC_VIEW, UMLPackage.Literals.PACKAGE);
+    }
+
+    /**
+     * Finds the dynamicView without changing the model.
+     * @return the dynamicView or empty if it would be created by {@link UmlUseCases#getDynamicView(Model)}
+     */
+    static Optional<org.eclipse.uml2.uml.Package> findDynamicView(final Model model) {
+        requireNonNull(model, "model");
+        return Optional.ofNullable((org.eclipse.uml2.uml.Package) PackagedElementIndex.of(model).get(DYNAMIC_VIEW, UMLPackage.Literals.PACKAGE));
     }
 
 }
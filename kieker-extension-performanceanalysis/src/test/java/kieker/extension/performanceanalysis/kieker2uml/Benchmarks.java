@@ -0,0 +1,48 @@
+package kieker.extension.performanceanalysis.kieker2uml;
+
+/**
+ * <p>
+ * Measures the benchmarks of the test source set. They are tagged with {@link #TAG} and only run by the Gradle task
+ * {@code benchmark}, not by {@code test}.
+ * </p>
+ * <p>
+ * Each measurement is preceded by the same number of warm up runs, the median of the measured runs is reported.
+ * The benchmarks only assert bounds that hold on a busy machine, e.g. that a cost does not grow with the input,
+ * the printed times are the result.
+ * </p>
+ */
+public final class Benchmarks {
+
+    public static final String TAG = "benchmark";
+
+    private Benchmarks() {
+    }
+
+    /**
+     * @param runs the number of warm up runs and of measured runs
+     * @param run  the code that is measured
+     * @return the median time of a measured run in nanos
+     */
+    public static long medianNanos(final int runs, final Runnable run) {
+        for (int i = 0; i < runs; i++) {
+            run.run();
+        }
+        final long[] times = new long[runs];
+        for (int i = 0; i < runs; i++) {
+            final long start = System.nanoTime();
+            run.run();
+            times[i] = System.nanoTime() - start;
+        }
+        java.util.Arrays.sort(times);
+        return times[runs / 2];
+    }
+
+    /**
+     * Prints a line of the results.
+     * @param format the format of the line, see {@link String#format(String, Object...)}
+     * @param args   the values of the line
+     */
+    public static void report(final String format, final Object... args) {
+        System.out.println(String.format(format, args));
+    }
+}
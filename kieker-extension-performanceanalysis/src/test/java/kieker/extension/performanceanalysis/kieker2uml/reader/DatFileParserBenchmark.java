@@ -0,0 +1,82 @@
+package kieker.extension.performanceanalysis.kieker2uml.reader;
+
+import kieker.extension.performanceanalysis.kieker2uml.Benchmarks;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * The {@link DatFileParser} compared with the generic Kieker reader ({@link kieker.tools.source.LogsReaderCompositeStage})
+ * on the sample logs of the repository and on a log of one million records repeated from a sample log.
+ */
+@Tag(Benchmarks.TAG)
+class DatFileParserBenchmark {
+
+    private static final int LARGE_LOG_RECORDS = 1_000_000;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void readsTheSameRecordsAsTheKiekerReader() throws IOException {
+        final List<KiekerLogDirectory> samples = KiekerLogDirectory.find(List.of(KiekerReader.SAMPLE_INPUT));
+        Benchmarks.report("%-12s %10s %18s %18s", "logs", "records", "parser ms", "Kieker reader ms");
+        compare("sample", samples, 20);
+        compare("large", List.of(createLargeLog(samples.get(0))), 3);
+    }
+
+    private static void compare(final String name, final List<KiekerLogDirectory> directories, final int runs) {
+        final List<Path> paths = directories.stream()
+                .map(directory -> directory.getDatFiles().get(0).getPath().getParent())
+                .collect(Collectors.toList());
+        final AtomicLong parsed = new AtomicLong();
+        final long parserNanos = Benchmarks.medianNanos(runs, () -> {
+            parsed.set(0);
+            for (final KiekerLogDirectory directory : directories) {
+                final DatFileParser parser = new DatFileParser(directory);
+                directory.getDatFiles().forEach(datFile -> parser.parse(datFile, 0, record -> parsed.incrementAndGet()));
+            }
+        });
+        final AtomicLong read = new AtomicLong();
+        final long readerNanos = Benchmarks.medianNanos(runs, () -> read.set(KiekerReader.read(paths).size()));
+
+        Benchmarks.report("%-12s %10d %18.1f %18.1f", name, parsed.get(), parserNanos / 1e6, readerNanos / 1e6);
+        assertEquals(read.get(), parsed.get());
+    }
+
+    /**
+     * @return a log directory with the records of the sample repeated
+     */
+    private KiekerLogDirectory createLargeLog(final KiekerLogDirectory sample) throws IOException {
+        final Path sampleDirectory = sample.getDatFiles().get(0).getPath().getParent();
+        Files.copy(sampleDirectory.resolve(KiekerLogDirectory.MAP_FILE), directory.resolve(KiekerLogDirectory.MAP_FILE));
+        final List<String> lines = sample.getDatFiles().stream()
+                .flatMap(datFile -> {
+                    try {
+                        return Files.readAllLines(datFile.getPath(), StandardCharsets.UTF_8).stream();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                })
+                .collect(Collectors.toList());
+        try (Writer writer = Files.newBufferedWriter(directory.resolve("kieker-large-001.dat"), StandardCharsets.UTF_8)) {
+            for (int written = 0; written < LARGE_LOG_RECORDS; written++) {
+                writer.write(lines.get(written % lines.size()));
+                writer.write('\n');
+            }
+        }
+        return KiekerLogDirectory.of(directory);
+    }
+}
@@ -0,0 +1,149 @@
+package kieker.extension.performanceanalysis.kieker2uml.reader;
+
+import kieker.common.record.controlflow.OperationExecutionRecord;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class DatFileParserTest {
+
+    private static final String MAP = "$0=kieker.common.record.misc.KiekerMetadataRecord\n"
+            + "$1=kieker.common.record.controlflow.OperationExecutionRecord\n";
+    private static final String METADATA = "$0;1704587733148360900;1.15.2;KIEKER;host;1;false;0;NANOSECONDS;0\n";
+    private static final String RECORD = "$1;1704587733169091900;public shop.Catalog.<init>();<no-session-id>;7110480124176236545;"
+            + "1704587733168937700;1704587733168947800;host;2;2\n";
+    private static final String NEXT_RECORD = "$1;1704587733173485600;public shop.CRM.find(shop.Catalog);<no-session-id>;7110480124176236545;"
+            + "1704587733173473000;1704587733173481600;host;3;2\n";
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void parsesTheSampleLogsLikeTheKiekerReader() {
+        final List<KiekerLogDirectory> directories = KiekerLogDirectory.find(List.of(KiekerReader.SAMPLE_INPUT));
+        assertFalse(directories.isEmpty());
+        for (final KiekerLogDirectory logDirectory : directories) {
+            final List<List<Object>> parsed = new ArrayList<>();
+            final DatFileParser parser = new DatFileParser(logDirectory);
+            for (final DatFile datFile : logDirectory.getDatFiles()) {
+                parser.parse(datFile, 0, record -> parsed.add(KiekerReader.fields(record)));
+            }
+            final Path path = logDirectory.getDatFiles().get(0).getPath().getParent();
+            final List<List<Object>> read = KiekerReader.read(List.of(path)).stream()
+                    .map(KiekerReader::fields)
+                    .collect(Collectors.toList());
+
+            assertEquals(read, parsed, logDirectory.toString());
+        }
+    }
+
+    @Test
+    void skipsOtherRecordTypes() throws IOException {
+        final DatFileParser parser = parser();
+        final List<OperationExecutionRecord> records = parse(parser, write("a.dat", METADATA + RECORD + NEXT_RECORD), 0);
+
+        assertEquals(2, records.size());
+        assertEquals(1, parser.getSkippedRecords());
+        final OperationExecutionRecord record = records.get(0);
+        assertEquals("public shop.Catalog.<init>()", record.getOperationSignature());
+        assertEquals("<no-session-id>", record.getSessionId());
+        assertEquals(7110480124176236545L, record.getTraceId());
+        assertEquals(1704587733168937700L, record.getTin());
+        assertEquals(1704587733168947800L, record.getTout());
+        assertEquals("host", record.getHostname());
+        assertEquals(2, record.getEoi());
+        assertEquals(2, record.getEss());
+        assertEquals(1704587733169091900L, record.getLoggingTimestamp());
+    }
+
+    @Test
+    void unescapesFields() throws IOException {
+        final String escaped = "$1;1;public shop.A.b(java.lang.String\\;int\\\\x);session\\;1;1;2;3;host;0;0\n";
+        final List<OperationExecutionRecord> records = parse(parser(), write("a.dat", escaped), 0);
+
+        assertEquals("public shop.A.b(java.lang.String;int\\x)", records.get(0).getOperationSignature());
+        assertEquals("session;1", records.get(0).getSessionId());
+    }
+
+    @Test
+    void parsesWindowsLineBreaks() throws IOException {
+        final List<OperationExecutionRecord> records = parse(parser(), write("a.dat", RECORD.replace("\n", "\r\n") + "\r\n"), 0);
+
+        assertEquals(1, records.size());
+        assertEquals(2, records.get(0).getEss());
+    }
+
+    @Test
+    void continuesAnUnterminatedLastLineFromTheReturnedOffset() throws IOException {
+        final Path file = write("a.dat", RECORD + NEXT_RECORD.substring(0, 40));
+        final DatFileParser parser = parser();
+        final List<OperationExecutionRecord> records = new ArrayList<>();
+
+        final long offset = parser.parse(DatFile.of(file), 0, records::add);
+        assertEquals(RECORD.length(), offset);
+        assertEquals(1, records.size());
+
+        Files.writeString(file, NEXT_RECORD.substring(40), StandardOpenOption.APPEND);
+        final long end = parser.parse(DatFile.of(file), offset, records::add);
+        assertEquals(RECORD.length() + NEXT_RECORD.length(), end);
+        assertEquals(List.of(KiekerReader.fields(parse(parser(), write("b.dat", RECORD + NEXT_RECORD), 0).get(1))),
+                List.of(KiekerReader.fields(records.get(1))));
+    }
+
+    @Test
+    void parsesCompressedFilesLikePlainFiles() throws IOException {
+        final String content = METADATA + RECORD + NEXT_RECORD;
+        final Path compressed = directory.resolve("b.dat" + DatFile.GZIP_SUFFIX);
+        try (OutputStream stream = new GZIPOutputStream(Files.newOutputStream(compressed))) {
+            stream.write(content.getBytes(StandardCharsets.UTF_8));
+        }
+        final List<List<Object>> plain = parse(parser(), write("a.dat", content), 0).stream()
+                .map(KiekerReader::fields).collect(Collectors.toList());
+
+        assertEquals(plain, parse(parser(), compressed, 0).stream().map(KiekerReader::fields).collect(Collectors.toList()));
+        assertEquals(plain.subList(1, 2), parse(parser(), compressed, METADATA.length() + RECORD.length()).stream()
+                .map(KiekerReader::fields).collect(Collectors.toList()));
+    }
+
+    @Test
+    void rejectsMalformedRecords() throws IOException {
+        final DatFileParser parser = parser();
+        final Path missingField = write("a.dat", "$1;1;public shop.A.b();session;1;1;2;host;0\n");
+        final Path notANumber = write("b.dat", "$1;1;public shop.A.b();session;x;1;2;host;0;0\n");
+
+        assertThrows(IllegalArgumentException.class, () -> parse(parser, missingField, 0));
+        assertThrows(IllegalArgumentException.class, () -> parse(parser, notANumber, 0));
+    }
+
+    private DatFileParser parser() throws IOException {
+        final Path map = directory.resolve(KiekerLogDirectory.MAP_FILE);
+        if (!Files.exists(map)) {
+            Files.writeString(map, MAP);
+        }
+        return new DatFileParser(KiekerLogDirectory.of(directory));
+    }
+
+    private Path write(final String name, final String content) throws IOException {
+        return Files.writeString(directory.resolve(name), content);
+    }
+
+    private static List<OperationExecutionRecord> parse(final DatFileParser parser, final Path file, final long offset) {
+        final List<OperationExecutionRecord> records = new ArrayList<>();
+        parser.parse(DatFile.of(file), offset, records::add);
+        return records;
+    }
+}
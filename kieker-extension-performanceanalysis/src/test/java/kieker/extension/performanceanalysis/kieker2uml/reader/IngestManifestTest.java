@@ -0,0 +1,153 @@
+package kieker.extension.performanceanalysis.kieker2uml.reader;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class IngestManifestTest {
+
+    private static final String RECORDS = "$1;1;op;session;1;100;200;host;0;0\n$1;1;op;session;1;300;400;host;1;1\n";
+    private static final String APPENDED = "$1;1;op;session;2;500;600;host;0;0\n";
+
+    @TempDir
+    Path directory;
+
+    private Path write(final String name, final String content, final long lastModified) throws IOException {
+        final Path file = directory.resolve(name);
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        Files.setLastModifiedTime(file, FileTime.fromMillis(lastModified));
+        return file;
+    }
+
+    private static void append(final Path file, final String content, final long lastModified) throws IOException {
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+        Files.setLastModifiedTime(file, FileTime.fromMillis(lastModified));
+    }
+
+    private IngestManifest read(final DatFile datFile) {
+        final IngestManifest manifest = IngestManifest.load(directory.resolve("model.uml.ingest"));
+        manifest.update(datFile, datFile.getSize());
+        return manifest;
+    }
+
+    @Test
+    void unchangedFilesAreSkipped() throws IOException {
+        final DatFile datFile = DatFile.of(write("a.dat", RECORDS, 1000));
+        final IngestManifest manifest = IngestManifest.load(directory.resolve("model.uml.ingest"));
+
+        assertEquals(0, manifest.getStartOffset(datFile));
+        manifest.update(datFile, RECORDS.length());
+        assertEquals(IngestManifest.UNCHANGED, manifest.getStartOffset(datFile.refresh()));
+    }
+
+    @Test
+    void appendedFilesAreContinuedAtTheOffset() throws IOException {
+        final Path file = write("a.dat", RECORDS, 1000);
+        final IngestManifest manifest = read(DatFile.of(file));
+
+        append(file, APPENDED, 2000);
+
+        assertEquals(RECORDS.length(), manifest.getStartOffset(DatFile.of(file)));
+    }
+
+    @Test
+    void replacedFilesAreReadFromTheStart() throws IOException {
+        final Path file = write("a.dat", RECORDS, 1000);
+        final IngestManifest manifest = read(DatFile.of(file));
+
+        // the same size, other records
+        write("a.dat", RECORDS.replace("session", "sessioN"), 2000);
+        assertEquals(0, manifest.getStartOffset(DatFile.of(file)));
+
+        write("a.dat", APPENDED, 3000);
+        assertEquals(0, manifest.getStartOffset(DatFile.of(file)));
+    }
+
+    @Test
+    void stateIsTakenBeforeTheFileIsRead() throws IOException {
+        final Path file = write("a.dat", RECORDS, 1000);
+        final DatFile found = DatFile.of(file);
+        append(file, APPENDED, 2000);
+
+        // the reader refreshes the file, then the parser reads it while more records are appended
+        final DatFile datFile = found.refresh();
+        final long offset = datFile.getSize();
+        append(file, APPENDED, 3000);
+        final IngestManifest manifest = IngestManifest.load(directory.resolve("model.uml.ingest"));
+        manifest.update(datFile, offset);
+
+        assertEquals(offset, manifest.getStartOffset(DatFile.of(file)));
+        assertEquals(RECORDS.length() + APPENDED.length(), offset);
+    }
+
+    @Test
+    void filesAreRecognizedByAnotherPath() throws IOException {
+        final Path file = write("a.dat", RECORDS, 1000);
+        final IngestManifest manifest = read(DatFile.of(file));
+        Files.createDirectory(directory.resolve("other"));
+
+        assertEquals(IngestManifest.UNCHANGED, manifest.getStartOffset(DatFile.of(directory.resolve("other").resolve("..").resolve("a.dat"))));
+        assertEquals(0, manifest.getStartOffset(DatFile.of(write("b.dat", RECORDS, 1000))));
+    }
+
+    @Test
+    void entriesOfAnArchiveAreKeptApart() throws IOException {
+        final Path archive = directory.resolve("logs.zip");
+        try (ZipOutputStream zip = new ZipOutputStream(Files.newOutputStream(archive))) {
+            for (final String name : new String[]{"logs/a.dat", "logs/b.dat"}) {
+                final ZipEntry entry = new ZipEntry(name);
+                entry.setTime(1000);
+                zip.putNextEntry(entry);
+                zip.write(RECORDS.getBytes(StandardCharsets.UTF_8));
+                zip.closeEntry();
+            }
+        }
+        final DatFile a;
+        final DatFile b;
+        try (ZipFile zipFile = new ZipFile(archive.toFile())) {
+            a = DatFile.ofZipEntry(archive, zipFile.getEntry("logs/a.dat"));
+            b = DatFile.ofZipEntry(archive, zipFile.getEntry("logs/b.dat"));
+        }
+
+        final IngestManifest manifest = read(a.refresh());
+
+        assertEquals(IngestManifest.UNCHANGED, manifest.getStartOffset(a.refresh()));
+        assertEquals(0, manifest.getStartOffset(b.refresh()));
+    }
+
+    @Test
+    void savedManifestIsLoadedUnchanged() throws IOException {
+        final Path file = write("a.dat", RECORDS, 1000);
+        final Path path = IngestManifest.getManifestPath(directory.resolve("model.uml"));
+        read(DatFile.of(file)).save(path);
+
+        final IngestManifest loaded = IngestManifest.load(path);
+
+        assertEquals(directory.resolve("model.uml.ingest"), path);
+        assertEquals(IngestManifest.UNCHANGED, loaded.getStartOffset(DatFile.of(file)));
+        append(file, APPENDED, 2000);
+        assertEquals(RECORDS.length(), loaded.getStartOffset(DatFile.of(file)));
+    }
+
+    @Test
+    void malformedManifestsAreRejected() throws IOException {
+        final Path path = directory.resolve("model.uml.ingest");
+        Files.write(path, "a.dat=1;2;3\n".getBytes(StandardCharsets.UTF_8));
+        assertThrows(IllegalArgumentException.class, () -> IngestManifest.load(path));
+
+        Files.write(path, "a.dat=1;2;x;hash\n".getBytes(StandardCharsets.UTF_8));
+        assertThrows(IllegalArgumentException.class, () -> IngestManifest.load(path));
+    }
+}
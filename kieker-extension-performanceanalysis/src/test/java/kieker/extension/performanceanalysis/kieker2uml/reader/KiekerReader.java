@@ -0,0 +1,51 @@
+package kieker.extension.performanceanalysis.kieker2uml.reader;
+
+import kieker.common.record.IMonitoringRecord;
+import kieker.common.record.controlflow.OperationExecutionRecord;
+import kieker.tools.source.LogsReaderCompositeStage;
+import teetime.framework.Configuration;
+import teetime.framework.Execution;
+import teetime.stage.CollectorSink;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Reads log directories with the generic Kieker reader, the {@link LogsReaderCompositeStage} the {@link DatFileParser}
+ * replaces, for the comparison with it.
+ */
+final class KiekerReader extends Configuration {
+
+    /** the sample logs of the repository, relative to the project directory in which the tests run */
+    static final Path SAMPLE_INPUT = Paths.get("..", "sample-input");
+
+    private KiekerReader(final List<Path> directories, final List<IMonitoringRecord> records) {
+        final LogsReaderCompositeStage reader = new LogsReaderCompositeStage(
+                directories.stream().map(Path::toFile).collect(Collectors.toList()), false, null);
+        connectPorts(reader.getOutputPort(), new CollectorSink<>(records).getInputPort());
+    }
+
+    /**
+     * @param directories log directories
+     * @return the {@link OperationExecutionRecord}s in the order the Kieker reader sends them
+     */
+    static List<OperationExecutionRecord> read(final List<Path> directories) {
+        final List<IMonitoringRecord> records = new ArrayList<>();
+        new Execution<>(new KiekerReader(directories, records)).executeBlocking();
+        return records.stream()
+                .filter(record -> record instanceof OperationExecutionRecord)
+                .map(record -> (OperationExecutionRecord) record)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * @return the fields of the record as a list, independent of the equals of the record
+     */
+    static List<Object> fields(final OperationExecutionRecord record) {
+        return List.of(record.getLoggingTimestamp(), record.getOperationSignature(), record.getSessionId(), record.getTraceId(),
+                record.getTin(), record.getTout(), record.getHostname(), record.getEoi(), record.getEss());
+    }
+}
@@ -0,0 +1,151 @@
+package kieker.extension.performanceanalysis.kieker2uml.statistics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LatencySketchTest {
+
+    private static final double[] QUANTILES = {0, 0.01, 0.25, 0.5, 0.75, 0.9, 0.99, 0.999, 1};
+
+    private static double[] logNormal(final Random random, final int count) {
+        final double[] values = new double[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = Math.exp(10 + 2 * random.nextGaussian());
+        }
+        return values;
+    }
+
+    private static LatencySketch sketch(final double... values) {
+        final LatencySketch sketch = new LatencySketch();
+        for (final double value : values) {
+            sketch.add(value);
+        }
+        return sketch;
+    }
+
+    /**
+     * The quantile of the sorted values with the rank the sketch uses.
+     */
+    private static double exactQuantile(final double[] sorted, final double quantile) {
+        return sorted[(int) Math.floor(quantile * (sorted.length - 1))];
+    }
+
+    private static void assertQuantiles(final double[] values, final LatencySketch sketch) {
+        final double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        for (final double quantile : QUANTILES) {
+            final double expected = exactQuantile(sorted, quantile);
+            final double actual = sketch.getQuantile(quantile);
+            // values below 1 are counted as zero, their error is absolute
+            final double error = expected < 1 ? 1 : LatencySketch.RELATIVE_ACCURACY * expected * (1 + 1e-9);
+            assertTrue(Math.abs(actual - expected) <= error,
+                    "quantile " + quantile + ": expected " + expected + " but was " + actual);
+        }
+    }
+
+    @Test
+    void quantilesHaveTheRelativeAccuracy() {
+        final double[] values = logNormal(new Random(42), 100_000);
+
+        final LatencySketch sketch = sketch(values);
+
+        assertEquals(values.length, sketch.getCount());
+        assertEquals(Arrays.stream(values).min().getAsDouble(), sketch.getMin(), 0);
+        assertEquals(Arrays.stream(values).max().getAsDouble(), sketch.getMax(), 0);
+        assertQuantiles(values, sketch);
+    }
+
+    @Test
+    void valuesBelowOneAreCountedAsZero() {
+        final LatencySketch sketch = sketch(0.2, 0.5, 0.9, 100, 200);
+
+        assertEquals(0.2, sketch.getQuantile(0), 0);
+        assertTrue(sketch.getQuantile(0.5) < 1);
+        assertEquals(100, sketch.getQuantile(0.75), 1);
+        assertEquals(200, sketch.getMax(), 0);
+    }
+
+    @Test
+    void mergedSketchEqualsASingleSketch() {
+        final Random random = new Random(7);
+        final double[] first = logNormal(random, 5000);
+        final double[] second = new double[3000];
+        for (int i = 0; i < second.length; i++) {
+            // a range that extends the buckets of the first sketch on both sides
+            second[i] = i % 2 == 0 ? 0.5 + random.nextDouble() : 1e9 * random.nextDouble();
+        }
+        final double[] all = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, all, first.length, second.length);
+
+        final LatencySketch merged = sketch(first);
+        merged.merge(sketch(second));
+        merged.merge(new LatencySketch());
+
+        assertEquals(sketch(all).encode(), merged.encode());
+        assertQuantiles(all, merged);
+    }
+
+    @Test
+    void mergingIntoAnEmptySketchCopiesTheOther() {
+        final LatencySketch other = sketch(3, 5, 8);
+        final LatencySketch empty = new LatencySketch();
+
+        empty.merge(other);
+
+        assertEquals(other.encode(), empty.encode());
+        assertEquals(3, empty.getMin(), 0);
+    }
+
+    @Test
+    void encodedSketchIsDecodedUnchanged() {
+        final double[] values = logNormal(new Random(1), 10_000);
+        final LatencySketch sketch = sketch(values);
+        sketch.add(0);
+        sketch.add(1e12);
+
+        final LatencySketch decoded = LatencySketch.decode(sketch.encode());
+
+        assertEquals(sketch.encode(), decoded.encode());
+        assertEquals(sketch.getCount(), decoded.getCount());
+        for (final double quantile : QUANTILES) {
+            assertEquals(sketch.getQuantile(quantile), decoded.getQuantile(quantile), 0);
+        }
+    }
+
+    @Test
+    void emptyBucketsAreEncodedAsRuns() {
+        // two values about 1e6 buckets apart
+        final LatencySketch sketch = sketch(1, 1e300);
+
+        final String encoded = sketch.encode();
+
+        assertTrue(encoded.length() < 80, encoded);
+        assertEquals(1e300, LatencySketch.decode(encoded).getQuantile(1), 1e300 * LatencySketch.RELATIVE_ACCURACY);
+    }
+
+    @Test
+    void emptySketchHasNoQuantiles() {
+        final LatencySketch decoded = LatencySketch.decode(new LatencySketch().encode());
+
+        assertEquals(0, decoded.getCount());
+        assertTrue(Double.isNaN(decoded.getQuantile(0.5)));
+        assertTrue(Double.isNaN(decoded.getMin()));
+    }
+
+    @Test
+    void invalidInputIsRejected() {
+        final LatencySketch sketch = sketch(1, 2, 3);
+
+        assertThrows(IllegalArgumentException.class, () -> sketch.add(-1));
+        assertThrows(IllegalArgumentException.class, () -> sketch.add(Double.NaN));
+        assertThrows(IllegalArgumentException.class, () -> sketch.getQuantile(1.5));
+        assertThrows(IllegalArgumentException.class, () -> LatencySketch.decode("dd1:"));
+        assertThrows(IllegalArgumentException.class, () -> LatencySketch.decode("rb1:AQ"));
+    }
+}
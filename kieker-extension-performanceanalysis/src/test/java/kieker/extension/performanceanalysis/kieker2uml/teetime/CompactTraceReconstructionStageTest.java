@@ -0,0 +1,50 @@
+package kieker.extension.performanceanalysis.kieker2uml.teetime;
+
+import kieker.model.repository.SystemModelRepository;
+import kieker.model.system.model.Execution;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CompactTraceReconstructionStageTest {
+
+    private static final long LONG_TRACE_ID = 0;
+
+    private static Execution execution(final long traceId, final int eoi, final long time) {
+        final Execution root = SystemModelRepository.ROOT_EXECUTION;
+        return new Execution(root.getOperation(), root.getAllocationComponent(), traceId, "session", eoi, eoi, time, time, false);
+    }
+
+    /**
+     * One trace stays open within the maximum trace duration while many short traces are closed for capacity.
+     * The short traces lack their first execution, they are incomplete and not sent.
+     */
+    @Test
+    void closedTracesAreNotRetainedBehindAnOpenTrace() throws Exception {
+        final int maxOpenTraces = 4;
+        final CompactTraceReconstructionStage stage = new CompactTraceReconstructionStage(Long.MAX_VALUE, 0, maxOpenTraces);
+
+        for (int i = 0; i < 10_000; i++) {
+            stage.execute(execution(LONG_TRACE_ID, i, i));
+            stage.execute(execution(i + 1, 1, i));
+
+            assertTrue(stage.getOpenTraceCount() <= maxOpenTraces, "open traces: " + stage.getOpenTraceCount());
+            assertTrue(stage.getTracesByAgeCount() <= maxOpenTraces, "traces by age: " + stage.getTracesByAgeCount());
+        }
+        assertEquals(stage.getOpenTraceCount(), stage.getTracesByAgeCount());
+    }
+
+    @Test
+    void idleTracesAreRemovedFromTheAgeOrder() throws Exception {
+        final CompactTraceReconstructionStage stage = new CompactTraceReconstructionStage(Long.MAX_VALUE, 10, 0);
+
+        for (int i = 0; i < 1_000; i++) {
+            stage.execute(execution(LONG_TRACE_ID, i, i * 5L));
+            stage.execute(execution(i + 1, 1, i * 5L));
+        }
+        // the long trace and the short traces of the last 10 time units
+        assertTrue(stage.getOpenTraceCount() <= 4, "open traces: " + stage.getOpenTraceCount());
+        assertEquals(stage.getOpenTraceCount(), stage.getTracesByAgeCount());
+    }
+}
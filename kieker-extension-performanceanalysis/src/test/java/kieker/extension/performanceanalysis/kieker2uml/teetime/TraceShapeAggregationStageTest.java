@@ -0,0 +1,64 @@
+package kieker.extension.performanceanalysis.kieker2uml.teetime;
+
+import kieker.extension.performanceanalysis.kieker2uml.trace.TestTraces;
+import kieker.extension.performanceanalysis.kieker2uml.trace.TraceDigest;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TraceShapeAggregationStageTest {
+
+    private static TraceShapeAggregationStage stage(final int worker, final AtomicInteger checks) {
+        return new TraceShapeAggregationStage(fingerprint -> {
+            checks.incrementAndGet();
+            return traceId -> false;
+        }, 0, 0, worker);
+    }
+
+    @Test
+    void shapesAreTakenWhenTheSnapshotIsRequested() throws Exception {
+        final AtomicInteger checks = new AtomicInteger();
+        final TraceShapeAggregationStage busy = stage(0, checks);
+        final TraceShapeAggregationStage idle = stage(1, checks);
+        final List<List<TraceShapeBatch>> snapshots = new ArrayList<>();
+        final SnapshotTrigger trigger = new SnapshotTrigger(0, 2);
+        trigger.onRequest(epoch -> snapshots.add(List.of(busy.takeShapes(), idle.takeShapes())));
+
+        busy.execute(TraceDigest.of(TestTraces.chain(1, 0, "shop.Catalog.find", "shop.Stock.count")));
+        busy.execute(TraceDigest.of(TestTraces.chain(2, 10, "shop.Catalog.find", "shop.Stock.count")));
+        trigger.recordsRead(1);
+        assertTrue(snapshots.isEmpty());
+
+        // the request is due without a further trace, the shapes of both stages are taken nevertheless
+        trigger.recordsRead(1);
+
+        assertEquals(1, snapshots.size());
+        final List<Long> traceCounts = snapshots.get(0).stream()
+                .map(batch -> batch.getShapes().stream().mapToLong(shape -> shape.getTraceCount()).sum())
+                .collect(Collectors.toList());
+        assertEquals(List.of(2L, 0L), traceCounts);
+        assertEquals(1, snapshots.get(0).get(1).getWorker());
+        assertTrue(busy.takeShapes().getShapes().isEmpty());
+    }
+
+    @Test
+    void appliedTracesAreCheckedAgainAfterTheShapesWereTaken() throws Exception {
+        final AtomicInteger checks = new AtomicInteger();
+        final TraceShapeAggregationStage stage = stage(0, checks);
+
+        stage.execute(TraceDigest.of(TestTraces.chain(1, 0, "shop.Catalog.find", "shop.Stock.count")));
+        stage.execute(TraceDigest.of(TestTraces.chain(2, 10, "shop.Catalog.find", "shop.Stock.count")));
+        assertEquals(1, checks.get());
+
+        stage.takeShapes();
+        stage.execute(TraceDigest.of(TestTraces.chain(3, 20, "shop.Catalog.find", "shop.Stock.count")));
+
+        assertEquals(2, checks.get());
+    }
+}
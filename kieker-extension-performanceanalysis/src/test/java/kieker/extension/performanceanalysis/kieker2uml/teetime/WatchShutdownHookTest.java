@@ -0,0 +1,57 @@
+package kieker.extension.performanceanalysis.kieker2uml.teetime;
+
+import kieker.extension.performanceanalysis.kieker2uml.reader.IngestManifest;
+import kieker.extension.performanceanalysis.kieker2uml.reader.LogDirectoryWatcher;
+import kieker.extension.performanceanalysis.kieker2uml.trace.TraceIdSet;
+import kieker.extension.performanceanalysis.kieker2uml.uml.Kieker2UmlUtil;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WatchShutdownHookTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void stoppingTheProcessSavesTheModelAndTheManifest() throws IOException, InterruptedException {
+        final Path logs = Files.createDirectory(directory.resolve("logs"));
+        final Path modelPath = Kieker2UmlUtil.saveModel(Kieker2UmlUtil.createModel("watched"), directory.resolve("model.uml"));
+        final Path manifestPath = IngestManifest.getManifestPath(modelPath);
+        final IngestManifest manifest = IngestManifest.load(manifestPath);
+        final ParallelLogsReaderStage reader = new ParallelLogsReaderStage(List.of(logs), 256, manifest,
+                new LogDirectoryWatcher(List.of(logs)), new SnapshotTrigger(0, 0));
+        final UmlModelFilter filter = new UmlModelFilter(modelPath, "watched", 0, TraceIdSet::exact, manifest);
+        final WatchShutdownHook hook = new WatchShutdownHook(reader::stopWatching);
+
+        // the analysis as run by TeeTime: the reader watches until it is stopped, then the filter terminates
+        final Thread analysis = new Thread(() -> {
+            try {
+                reader.execute();
+                filter.onTerminating();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            } finally {
+                hook.finished();
+            }
+        });
+        analysis.start();
+        assertFalse(Files.exists(manifestPath));
+
+        // the JVM starts the hook on Ctrl+C or SIGTERM
+        hook.start();
+        hook.join(10_000);
+        analysis.join(10_000);
+
+        assertFalse(hook.isAlive());
+        assertFalse(analysis.isAlive());
+        assertTrue(Files.exists(manifestPath));
+    }
+}
@@ -0,0 +1,143 @@
+package kieker.extension.performanceanalysis.kieker2uml.trace;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Random;
+
+/**
+ * Generates the messages of traces as {@link ExecutionTimes} receives them: each call is followed by its callees,
+ * then by its reply. The tree, the Tin and Tout of each call and its net time are known, so the results can be checked.
+ */
+final class CallTrees {
+
+    /** true for each call message, false for each reply message */
+    final boolean[] calls;
+    final long[] tins;
+    final long[] touts;
+    /** the index of the call message of the caller of each call message, -1 for the first call and for replies */
+    final int[] callers;
+    /** the expected net time of each call message, 0 for replies */
+    final long[] netTimes;
+
+    private CallTrees(final int messages) {
+        this.calls = new boolean[messages];
+        this.tins = new long[messages];
+        this.touts = new long[messages];
+        this.callers = new int[messages];
+        this.netTimes = new long[messages];
+        Arrays.fill(callers, -1);
+    }
+
+    /**
+     * @param parents the caller of each call, parents[0] is -1 and each other call is called by a call before it
+     *                that is still open, i.e. the calls are numbered in the order of a depth first traversal
+     * @param nets    the net time of each call
+     */
+    static CallTrees of(final int[] parents, final long[] nets) {
+        final int size = parents.length;
+        final long[] totals = nets.clone();
+        for (int call = size - 1; call > 0; call--) {
+            totals[parents[call]] += totals[call];
+        }
+        // the callees run one after the other from the start of their caller, the net time of the caller is at its end
+        final long[] starts = new long[size];
+        final long[] cursors = new long[size];
+        starts[0] = 1_000;
+        cursors[0] = starts[0];
+        for (int call = 1; call < size; call++) {
+            starts[call] = cursors[parents[call]];
+            cursors[parents[call]] += totals[call];
+            cursors[call] = starts[call];
+        }
+
+        final CallTrees trees = new CallTrees(2 * size);
+        final int[] messageOfCall = new int[size];
+        final Deque<Integer> open = new ArrayDeque<>();
+        int message = 0;
+        for (int call = 0; call < size; call++) {
+            while (!open.isEmpty() && open.peek() != parents[call]) {
+                open.pop();
+                message++;
+            }
+            messageOfCall[call] = message;
+            trees.calls[message] = true;
+            trees.tins[message] = starts[call];
+            trees.touts[message] = starts[call] + totals[call];
+            trees.callers[message] = call == 0 ? -1 : messageOfCall[parents[call]];
+            trees.netTimes[message] = nets[call];
+            open.push(call);
+            message++;
+        }
+        return trees;
+    }
+
+    /**
+     * @param random the source of the shape and the times
+     * @param size   the number of calls
+     * @return a trace in which each call returns after a random number of its callers
+     */
+    static CallTrees random(final Random random, final int size) {
+        final int[] parents = new int[size];
+        final long[] nets = new long[size];
+        final int[] path = new int[size];
+        int depth = 0;
+        parents[0] = -1;
+        path[depth++] = 0;
+        nets[0] = random.nextInt(1_000);
+        for (int call = 1; call < size; call++) {
+            depth -= random.nextInt(Math.min(depth, 3));
+            parents[call] = path[depth - 1];
+            path[depth++] = call;
+            nets[call] = random.nextInt(1_000);
+        }
+        return of(parents, nets);
+    }
+
+    /**
+     * @return a trace in which each call is called by the call before, e.g. a recursion
+     */
+    static CallTrees deep(final int size) {
+        final int[] parents = new int[size];
+        final long[] nets = new long[size];
+        for (int call = 0; call < size; call++) {
+            parents[call] = call - 1;
+            nets[call] = call % 7;
+        }
+        return of(parents, nets);
+    }
+
+    /**
+     * @return a trace in which the first call calls all others, e.g. a loop
+     */
+    static CallTrees wide(final int size) {
+        final int[] parents = new int[size];
+        final long[] nets = new long[size];
+        parents[0] = -1;
+        for (int call = 1; call < size; call++) {
+            nets[call] = call % 7;
+        }
+        return of(parents, nets);
+    }
+
+    /**
+     * The computation {@link ExecutionTimes} replaced: the callees of each call are found by scanning all messages.
+     * @return the net time of each call message
+     */
+    long[] quadraticNetTimes() {
+        final long[] result = new long[calls.length];
+        for (int i = 0; i < calls.length; i++) {
+            if (!calls[i]) {
+                continue;
+            }
+            long execTimeOtherExecutions = 0;
+            for (int j = 0; j < calls.length; j++) {
+                if (calls[j] && callers[j] == i) {
+                    execTimeOtherExecutions += touts[j] - tins[j];
+                }
+            }
+            result[i] = touts[i] - tins[i] - execTimeOtherExecutions;
+        }
+        return result;
+    }
+}
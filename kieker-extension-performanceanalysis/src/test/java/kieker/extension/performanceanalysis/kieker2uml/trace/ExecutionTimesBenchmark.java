@@ -0,0 +1,51 @@
+package kieker.extension.performanceanalysis.kieker2uml.trace;
+
+import kieker.extension.performanceanalysis.kieker2uml.Benchmarks;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The time per message of {@link ExecutionTimes} for traces from 10 to 100k messages, compared with the quadratic
+ * computation it replaced up to 10k messages.
+ */
+@Tag(Benchmarks.TAG)
+class ExecutionTimesBenchmark {
+
+    private static final int[] MESSAGES = {10, 100, 1_000, 10_000, 100_000};
+    private static final int QUADRATIC_MAX_MESSAGES = 10_000;
+
+    @Test
+    void scalesLinearlyWithTheMessagesOfATrace() {
+        final Random random = new Random(1);
+        measure("random", calls -> CallTrees.random(random, calls));
+        measure("deep", CallTrees::deep);
+        measure("wide", CallTrees::wide);
+    }
+
+    private static void measure(final String shape, final IntFunction<CallTrees> traces) {
+        Benchmarks.report("%-7s %10s %12s %22s", "shape", "messages", "ns/message", "quadratic ns/message");
+        double nanosPerMessageAt1000 = 0;
+        for (final int messages : MESSAGES) {
+            final CallTrees trace = traces.apply(messages / 2);
+            final int runs = Math.max(5, 200_000 / messages);
+            final double nanosPerMessage = (double) Benchmarks.medianNanos(runs,
+                    () -> ExecutionTimes.compute(trace.calls, trace.tins, trace.touts)) / messages;
+            final String quadratic = messages > QUADRATIC_MAX_MESSAGES ? "-" : String.format("%.1f",
+                    (double) Benchmarks.medianNanos(Math.max(3, runs / 100), trace::quadraticNetTimes) / messages);
+            Benchmarks.report("%-7s %10d %12.1f %22s", shape, messages, nanosPerMessage, quadratic);
+
+            if (messages == 1_000) {
+                nanosPerMessageAt1000 = nanosPerMessage;
+            } else if (messages > 1_000) {
+                // linear: the time per message stays about the same, the quadratic computation grows by 10 per step
+                final double bound = 10 * nanosPerMessageAt1000;
+                assertTrue(nanosPerMessage < bound, () -> String.format("%s ns/message at %s messages, bound %s", nanosPerMessage, messages, bound));
+            }
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package kieker.extension.performanceanalysis.kieker2uml.trace;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ExecutionTimesTest {
+
+    private static long[] netTimes(final CallTrees trace, final ExecutionTimes times) {
+        final long[] result = new long[trace.calls.length];
+        for (int i = 0; i < result.length; i++) {
+            if (trace.calls[i]) {
+                result[i] = times.getNetTime(i);
+            }
+        }
+        return result;
+    }
+
+    @Test
+    void netTimesEqualTheQuadraticComputation() {
+        final Random random = new Random(42);
+        for (int run = 0; run < 200; run++) {
+            final CallTrees trace = CallTrees.random(random, 1 + random.nextInt(300));
+            final ExecutionTimes times = ExecutionTimes.compute(trace.calls, trace.tins, trace.touts);
+
+            assertArrayEquals(trace.quadraticNetTimes(), netTimes(trace, times));
+            assertArrayEquals(trace.netTimes, netTimes(trace, times));
+        }
+    }
+
+    @Test
+    void recursionAndLoopsEqualTheQuadraticComputation() {
+        for (final CallTrees trace : new CallTrees[]{CallTrees.deep(500), CallTrees.wide(500)}) {
+            final ExecutionTimes times = ExecutionTimes.compute(trace.calls, trace.tins, trace.touts);
+
+            assertArrayEquals(trace.quadraticNetTimes(), netTimes(trace, times));
+        }
+    }
+
+    @Test
+    void totalTimesAreToutMinusTin() {
+        final CallTrees trace = CallTrees.random(new Random(7), 100);
+        final ExecutionTimes times = ExecutionTimes.compute(trace.calls, trace.tins, trace.touts);
+
+        for (int i = 0; i < trace.calls.length; i++) {
+            assertEquals(trace.calls[i] ? trace.touts[i] - trace.tins[i] : 0, times.getTotalTime(i));
+        }
+    }
+
+    @Test
+    void calleesLongerThanTheCallerAreRejected() {
+        // a calls b, b takes 10 while a takes 5
+        final boolean[] calls = {true, true, false, false};
+        final long[] tins = {0, 0, 0, 0};
+        final long[] touts = {5, 10, 0, 0};
+
+        assertThrows(IllegalArgumentException.class, () -> ExecutionTimes.compute(calls, tins, touts));
+    }
+
+    @Test
+    void arraysOfDifferentLengthsAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> ExecutionTimes.compute(new boolean[2], new long[2], new long[1]));
+    }
+}
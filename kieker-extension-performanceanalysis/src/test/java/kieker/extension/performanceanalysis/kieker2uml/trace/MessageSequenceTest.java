@@ -0,0 +1,51 @@
+package kieker.extension.performanceanalysis.kieker2uml.trace;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MessageSequenceTest {
+
+    private static MessageSequence sequence(final long traceId, final String... operations) {
+        return TraceDigest.of(TestTraces.chain(traceId, 100 * traceId, operations)).getMessageSequence();
+    }
+
+    private static List<String> representations(final MessageSequence sequence) {
+        final List<String> representations = new ArrayList<>();
+        for (int i = 0; i < sequence.size(); i++) {
+            representations.add(TraceFingerprints.getMessageRepresentation(sequence.getMessageId(i)));
+        }
+        return representations;
+    }
+
+    @Test
+    void sequencesAreEqualByTheirMessages() {
+        final MessageSequence find = sequence(1, "shop.Catalog.find", "shop.Stock.count");
+
+        assertEquals(find, sequence(2, "shop.Catalog.find", "shop.Stock.count"));
+        assertEquals(find.hashCode(), sequence(2, "shop.Catalog.find", "shop.Stock.count").hashCode());
+        assertNotEquals(find, sequence(3, "shop.Catalog.find", "shop.Stock.reserve"));
+        assertTrue(find.hasMessages(representations(find)));
+        assertFalse(find.hasMessages(representations(find).subList(1, find.size())));
+    }
+
+    @Test
+    void saltedFingerprintsOnlyDependOnTheMessages() {
+        final MessageSequence find = sequence(1, "shop.Catalog.find", "shop.Stock.count");
+        final MessageSequence read = MessageSequence.ofRepresentations(representations(find));
+
+        assertEquals(find.getFingerprint(), find.getFingerprint(0));
+        assertNotEquals(find.getFingerprint(), find.getFingerprint(1));
+        assertEquals(find.getFingerprint(1), read.getFingerprint(1));
+        assertEquals(find.getFingerprint(2), TraceFingerprints.of(new int[]{find.getMessageId(0), find.getMessageId(1),
+                find.getMessageId(2), find.getMessageId(3)}, 2));
+        assertThrows(IllegalArgumentException.class, () -> find.getFingerprint(-1));
+    }
+}
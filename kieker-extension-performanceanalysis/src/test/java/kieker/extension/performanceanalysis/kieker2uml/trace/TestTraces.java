@@ -0,0 +1,83 @@
+package kieker.extension.performanceanalysis.kieker2uml.trace;
+
+import kieker.model.repository.SystemModelRepository;
+import kieker.model.system.model.AllocationComponent;
+import kieker.model.system.model.AssemblyComponent;
+import kieker.model.system.model.ComponentType;
+import kieker.model.system.model.Execution;
+import kieker.model.system.model.ExecutionContainer;
+import kieker.model.system.model.Operation;
+import kieker.model.system.model.Signature;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Creates traces of Kieker {@link Execution}s for the tests. Like Kieker, one object is created per operation and
+ * per allocation, all components are deployed on the container "host".
+ */
+public final class TestTraces {
+
+    private static final Map<String, Operation> OPERATIONS = new HashMap<>();
+    private static final Map<String, AllocationComponent> ALLOCATIONS = new HashMap<>();
+    private static final ExecutionContainer HOST = new ExecutionContainer(1, null, "host");
+
+    private TestTraces() {
+    }
+
+    /**
+     * @param operation the component type and the operation, e.g. "shop.Catalog.find"
+     */
+    public static synchronized Execution execution(final String operation, final long traceId, final int eoi, final int ess,
+                                                   final long tin, final long tout) {
+        final int separator = operation.lastIndexOf('.');
+        final String type = operation.substring(0, separator);
+        final int packageSeparator = type.lastIndexOf('.');
+        final ComponentType componentType = new ComponentType(0, packageSeparator < 0 ? "" : type.substring(0, packageSeparator),
+                type.substring(packageSeparator + 1));
+        final Operation kiekerOperation = OPERATIONS.computeIfAbsent(operation, name -> new Operation(OPERATIONS.size() + 1,
+                componentType, new Signature(operation.substring(separator + 1), new String[]{"public"}, "void", new String[0])));
+        final AllocationComponent allocation = ALLOCATIONS.computeIfAbsent(type, name -> new AllocationComponent(ALLOCATIONS.size() + 1,
+                new AssemblyComponent(ALLOCATIONS.size() + 1, "$" + name, componentType), HOST));
+        return new Execution(kiekerOperation, allocation, traceId, "session", eoi, ess, tin, tout, false);
+    }
+
+    /**
+     * @param traceId    the id of the trace
+     * @param start      the Tin of the first call
+     * @param operations the operations, each calls the next one, each takes 10 nanos itself
+     * @return the trace of the nested calls
+     */
+    public static CompactTrace chain(final long traceId, final long start, final String... operations) {
+        final CompactTrace.Builder builder = CompactTrace.builder(traceId, SystemModelRepository.ROOT_EXECUTION);
+        final long duration = 10L * operations.length;
+        for (int i = 0; i < operations.length; i++) {
+            builder.add(execution(operations[i], traceId, i, i, start + 10L * i, start + duration));
+        }
+        return builder.build();
+    }
+
+    /**
+     * @param trace the trace
+     * @return the shape of only this trace, without execution time samples and arrival rate windows
+     */
+    public static TraceShape shape(final CompactTrace trace) {
+        final TraceShape shape = new TraceShape(TraceDigest.of(trace), 0, 0);
+        shape.add(shape.getDigest());
+        return shape;
+    }
+
+    /**
+     * @param index   selects the operations, traces with different indexes below 10648 call different operations
+     * @param traceId the id of the trace
+     * @param start   the Tin of the first call
+     * @return a chain of three calls on up to 22 operations of 4 components
+     */
+    public static CompactTrace distinctChain(final int index, final long traceId, final long start) {
+        return chain(traceId, start, operation(index % 22), operation(index / 22 % 22), operation(index / 484 % 22));
+    }
+
+    private static String operation(final int number) {
+        return "bench.Service" + number % 4 + ".operation" + number;
+    }
+}
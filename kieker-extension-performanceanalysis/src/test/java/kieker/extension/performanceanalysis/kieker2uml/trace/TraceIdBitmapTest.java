@@ -0,0 +1,150 @@
+package kieker.extension.performanceanalysis.kieker2uml.trace;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TraceIdBitmapTest {
+
+    private static final int TYPE_ARRAY = 0;
+    private static final int TYPE_RUNS = 1;
+    private static final int TYPE_BITMAP = 2;
+
+    private static TraceIdBitmap bitmap(final Iterable<Long> ids) {
+        final TraceIdBitmap bitmap = new TraceIdBitmap();
+        ids.forEach(bitmap::add);
+        return bitmap;
+    }
+
+    /**
+     * @return the type of the only container, the key 0 is written as count 1 and zig-zag key 0
+     */
+    private static int containerType(final String encoded) {
+        final byte[] bytes = Base64.getDecoder().decode(encoded.substring(TraceIdBitmap.ENCODING_PREFIX.length()));
+        assertEquals(1, bytes[0]);
+        assertEquals(0, bytes[1]);
+        return bytes[2];
+    }
+
+    private static void assertRoundTrip(final TreeSet<Long> ids) {
+        final TraceIdBitmap bitmap = bitmap(ids);
+        final TraceIdSet decoded = TraceIdSet.decode(bitmap.encode());
+
+        assertTrue(decoded.isExact());
+        assertEquals(ids.size(), decoded.size());
+        for (final long id : ids) {
+            assertTrue(decoded.contains(id), "missing " + id);
+            assertEquals(ids.contains(id - 1), decoded.contains(id - 1), "neighbour " + (id - 1));
+            assertEquals(ids.contains(id + 1), decoded.contains(id + 1), "neighbour " + (id + 1));
+        }
+        assertEquals(bitmap.encode(), decoded.encode());
+    }
+
+    @Test
+    void sparseIdsAreEncodedAsArray() {
+        final TreeSet<Long> ids = new TreeSet<>();
+        for (long id = 3; id < 65536; id += 97) {
+            ids.add(id);
+        }
+
+        assertRoundTrip(ids);
+        assertEquals(TYPE_ARRAY, containerType(bitmap(ids).encode()));
+    }
+
+    @Test
+    void consecutiveIdsAreEncodedAsRuns() {
+        final TreeSet<Long> ids = new TreeSet<>();
+        for (long id = 0; id < 65536; id++) {
+            if (id % 10000 != 0) {
+                ids.add(id);
+            }
+        }
+
+        assertRoundTrip(ids);
+        final String encoded = bitmap(ids).encode();
+        assertEquals(TYPE_RUNS, containerType(encoded));
+        assertTrue(encoded.length() < 100, encoded);
+    }
+
+    @Test
+    void denseRandomIdsAreEncodedAsBitmap() {
+        final Random random = new Random(42);
+        final TreeSet<Long> ids = new TreeSet<>();
+        while (ids.size() < 20000) {
+            ids.add((long) random.nextInt(65536));
+        }
+
+        assertRoundTrip(ids);
+        assertEquals(TYPE_BITMAP, containerType(bitmap(ids).encode()));
+    }
+
+    @Test
+    void containerAtTheArrayLimitIsConvertedToBitmap() {
+        // every second value, 4096 values fit into the array, the next one converts the container
+        for (final int count : new int[]{4095, 4096, 4097, 4098}) {
+            final TreeSet<Long> ids = new TreeSet<>();
+            for (long i = 0; i < count; i++) {
+                ids.add(2 * i);
+            }
+            final TraceIdBitmap bitmap = bitmap(ids);
+
+            assertEquals(count, bitmap.size());
+            assertFalse(bitmap.add(2 * (count - 1)));
+            assertFalse(bitmap.add(0));
+            assertFalse(bitmap.contains(1));
+            assertRoundTrip(ids);
+        }
+    }
+
+    @Test
+    void negativeAndExtremeIdsAreKept() {
+        final TreeSet<Long> ids = new TreeSet<>();
+        for (final long id : new long[]{Long.MIN_VALUE, Long.MIN_VALUE + 1, -65537, -65536, -65535, -2, -1, 0, 1,
+                65535, 65536, Long.MAX_VALUE - 1, Long.MAX_VALUE}) {
+            ids.add(id);
+        }
+
+        assertRoundTrip(ids);
+    }
+
+    @Test
+    void idsAreVisitedInAscendingOrder() {
+        final Random random = new Random(3);
+        final TreeSet<Long> ids = new TreeSet<>(List.of(Long.MIN_VALUE, -1L, 0L, Long.MAX_VALUE));
+        while (ids.size() < 50_000) {
+            ids.add(random.nextInt(200_000) - 100_000L);
+        }
+        final List<Long> visited = new ArrayList<>();
+
+        bitmap(ids).forEach(visited::add);
+
+        assertEquals(new ArrayList<>(ids), visited);
+    }
+
+    @Test
+    void emptySetIsKept() {
+        final TraceIdSet decoded = TraceIdSet.decode(new TraceIdBitmap().encode());
+
+        assertEquals(0, decoded.size());
+        assertFalse(decoded.contains(0));
+    }
+
+    @Test
+    void malformedEncodingsAreRejected() {
+        final String encoded = bitmap(new TreeSet<>(List.of(1L, 2L, 3L))).encode();
+
+        assertThrows(IllegalArgumentException.class, () -> TraceIdSet.decode("rb1:"));
+        assertThrows(IllegalArgumentException.class, () -> TraceIdSet.decode(encoded.substring(0, encoded.length() - 2)));
+        assertThrows(IllegalArgumentException.class, () -> TraceIdSet.decode(encoded + "AA"));
+        assertThrows(IllegalArgumentException.class, () -> TraceIdSet.decode("xx1:AQ"));
+    }
+}
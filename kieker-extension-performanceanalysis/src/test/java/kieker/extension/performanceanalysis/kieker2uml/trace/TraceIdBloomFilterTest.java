@@ -0,0 +1,77 @@
+package kieker.extension.performanceanalysis.kieker2uml.trace;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TraceIdBloomFilterTest {
+
+    @Test
+    void addedIdsAreContainedAfterDecoding() {
+        // more ids than the first filter holds, the decoded set has the appended filters as well
+        final TraceIdBloomFilter bloomFilter = new TraceIdBloomFilter(0.01);
+        for (long id = -5000; id < 5000; id++) {
+            bloomFilter.add(id * 7919);
+        }
+        bloomFilter.add(Long.MIN_VALUE);
+        bloomFilter.add(Long.MAX_VALUE);
+
+        final TraceIdSet decoded = TraceIdSet.decode(bloomFilter.encode());
+
+        assertFalse(decoded.isExact());
+        assertEquals(bloomFilter.size(), decoded.size());
+        for (long id = -5000; id < 5000; id++) {
+            assertTrue(decoded.contains(id * 7919), "missing " + id * 7919);
+        }
+        assertTrue(decoded.contains(Long.MIN_VALUE));
+        assertTrue(decoded.contains(Long.MAX_VALUE));
+        assertEquals(bloomFilter.encode(), decoded.encode());
+    }
+
+    @Test
+    void falsePositivesStayBelowTheProbability() {
+        final TraceIdSet traceIds = TraceIdSet.decode(filled(100_000).encode());
+
+        int falsePositives = 0;
+        for (long id = 1_000_000; id < 1_100_000; id++) {
+            if (traceIds.contains(id)) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 1000, "false positives: " + falsePositives);
+    }
+
+    @Test
+    void decodedSetContinuesTheLastFilter() {
+        final TraceIdSet decoded = TraceIdSet.decode(filled(1500).encode());
+        final TraceIdSet added = filled(3000);
+        for (long id = 1500; id < 3000; id++) {
+            decoded.add(id);
+        }
+
+        assertEquals(added.size(), decoded.size());
+        assertEquals(added.encode(), decoded.encode());
+    }
+
+    @Test
+    void malformedEncodingsAreRejected() {
+        final String encoded = filled(10).encode();
+
+        assertThrows(IllegalArgumentException.class, () -> TraceIdSet.decode("bf1:"));
+        assertThrows(IllegalArgumentException.class, () -> TraceIdSet.decode(encoded.substring(0, encoded.length() - 4)));
+        assertThrows(IllegalArgumentException.class, () -> TraceIdSet.decode(encoded + "AA"));
+        assertThrows(IllegalArgumentException.class, () -> new TraceIdBloomFilter(0));
+        assertThrows(IllegalArgumentException.class, () -> new TraceIdBloomFilter(1));
+    }
+
+    private static TraceIdBloomFilter filled(final long count) {
+        final TraceIdBloomFilter bloomFilter = new TraceIdBloomFilter(0.01);
+        for (long id = 0; id < count; id++) {
+            bloomFilter.add(id);
+        }
+        return bloomFilter;
+    }
+}
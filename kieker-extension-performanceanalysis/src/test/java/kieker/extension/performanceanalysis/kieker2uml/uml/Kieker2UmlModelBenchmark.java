@@ -0,0 +1,77 @@
+package kieker.extension.performanceanalysis.kieker2uml.uml;
+
+import kieker.extension.performanceanalysis.kieker2uml.Benchmarks;
+import kieker.extension.performanceanalysis.kieker2uml.trace.TestTraces;
+import kieker.extension.performanceanalysis.kieker2uml.trace.TraceDigest;
+import kieker.extension.performanceanalysis.kieker2uml.trace.TraceShape;
+import org.eclipse.uml2.uml.Model;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The time to add a trace to the static and deployment views of models of a growing size. The nodes are stereotyped
+ * once by {@link Kieker2UmlModel#finish(Model, PerformanceAccumulator)}, so the time per trace does not grow with the interactions of the model.
+ */
+@Tag(Benchmarks.TAG)
+class Kieker2UmlModelBenchmark {
+
+    private static final String USE_CASE = "benchmark";
+    private static final int[] INTERACTIONS = {500, 2_000, 8_000};
+    private static final int MEASURED_TRACES = 500;
+    private static final int WARM_UP_TRACES = 2_000;
+
+    private final PerformanceAccumulator performance = new PerformanceAccumulator(0);
+    private int traces = 0;
+
+    @Test
+    void addingATraceDoesNotDependOnTheModelSize() {
+        final Model warmUp = Kieker2UmlUtil.createModel("warm up");
+        while (traces < WARM_UP_TRACES) {
+            addTrace(warmUp);
+        }
+        Kieker2UmlModel.finish(warmUp, performance);
+        traces = 0;
+
+        final Model model = Kieker2UmlUtil.createModel("benchmark");
+        Benchmarks.report("%12s %16s", "interactions", "us/trace");
+        double microsAtFirstSize = 0;
+        for (final int interactions : INTERACTIONS) {
+            while (traces < interactions) {
+                addTrace(model);
+            }
+            final TraceDigest[] digests = new TraceDigest[MEASURED_TRACES];
+            for (int i = 0; i < digests.length; i++) {
+                digests[i] = nextShape().getDigest();
+            }
+            final long start = System.nanoTime();
+            for (final TraceDigest digest : digests) {
+                Kieker2UmlModel.addStaticAndDeploymentPackage(model, digest);
+            }
+            final double microsPerTrace = (System.nanoTime() - start) / 1_000.0 / MEASURED_TRACES;
+            Kieker2UmlModel.finish(model, performance);
+            Benchmarks.report("%12d %16.1f", interactions, microsPerTrace);
+
+            if (interactions == INTERACTIONS[0]) {
+                microsAtFirstSize = microsPerTrace;
+            } else {
+                // a scan of the model would grow by the factor of the interactions, 16 at the last size
+                final double bound = 4 * microsAtFirstSize;
+                assertTrue(microsPerTrace < bound, () -> String.format("%s us/trace at %s interactions, bound %s", microsPerTrace, interactions, bound));
+            }
+        }
+    }
+
+    private void addTrace(final Model model) {
+        final TraceShape shape = nextShape();
+        Kieker2UmlModel.addStaticAndDeploymentPackage(model, shape.getDigest());
+        Kieker2UmlModel.addBehaviourToDynamicPackage(model, shape, USE_CASE, performance);
+    }
+
+    private TraceShape nextShape() {
+        final TraceShape shape = TestTraces.shape(TestTraces.distinctChain(traces, traces, 1_000L * traces));
+        traces++;
+        return shape;
+    }
+}
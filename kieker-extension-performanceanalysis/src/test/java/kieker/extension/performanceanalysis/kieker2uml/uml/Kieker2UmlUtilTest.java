@@ -0,0 +1,95 @@
+package kieker.extension.performanceanalysis.kieker2uml.uml;
+
+import kieker.extension.performanceanalysis.kieker2uml.trace.TraceIdSet;
+import org.eclipse.emf.ecore.EAnnotation;
+import org.eclipse.uml2.uml.Model;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class Kieker2UmlUtilTest {
+
+    /**
+     * @return a model whose trace ids are persisted as in older models, each id as key of the annotation
+     */
+    private static Model modelWithLegacyIds(final String... ids) {
+        final Model model = Kieker2UmlUtil.createModel("legacy");
+        final EAnnotation annotation = model.createEAnnotation(Kieker2UmlUtil.TRACE_IDS_SET_NAME);
+        for (final String id : ids) {
+            annotation.getDetails().put(id, null);
+        }
+        return model;
+    }
+
+    @Test
+    void legacyIdsAreReadIntoTheSet() {
+        final Model model = modelWithLegacyIds("1", "2", "-3", String.valueOf(Long.MAX_VALUE));
+
+        final TraceIdSet traceIds = Kieker2UmlUtil.getTraceIds(model);
+
+        assertEquals(4, traceIds.size());
+        assertTrue(traceIds.contains(1));
+        assertTrue(traceIds.contains(-3));
+        assertTrue(traceIds.contains(Long.MAX_VALUE));
+        assertFalse(traceIds.contains(3));
+        // reading does not change the model
+        assertEquals(4, model.getEAnnotation(Kieker2UmlUtil.TRACE_IDS_SET_NAME).getDetails().size());
+    }
+
+    @Test
+    void writingTheSetReplacesTheLegacyIds() {
+        final Model model = modelWithLegacyIds("1", "2");
+        final TraceIdSet traceIds = Kieker2UmlUtil.getTraceIds(model);
+        traceIds.add(5);
+
+        Kieker2UmlUtil.setTraceIds(model, traceIds);
+
+        final EAnnotation annotation = model.getEAnnotation(Kieker2UmlUtil.TRACE_IDS_SET_NAME);
+        assertEquals(Set.of(Kieker2UmlUtil.TRACE_IDS_KEY), annotation.getDetails().keySet());
+        final TraceIdSet read = Kieker2UmlUtil.getTraceIds(model);
+        assertEquals(3, read.size());
+        assertTrue(read.contains(1) && read.contains(2) && read.contains(5));
+    }
+
+    @Test
+    void legacyIdsNextToAnEncodedSetAreAdded() {
+        final Model model = Kieker2UmlUtil.createModel("mixed");
+        final TraceIdSet encoded = TraceIdSet.exact();
+        encoded.add(10);
+        Kieker2UmlUtil.setTraceIds(model, encoded);
+        model.getEAnnotation(Kieker2UmlUtil.TRACE_IDS_SET_NAME).getDetails().put("11", null);
+
+        final TraceIdSet traceIds = Kieker2UmlUtil.getTraceIds(model);
+
+        assertEquals(2, traceIds.size());
+        assertTrue(traceIds.contains(10) && traceIds.contains(11));
+    }
+
+    @Test
+    void newSetsAreCreatedByTheFactory() {
+        final Model model = modelWithLegacyIds("7");
+        final Supplier<TraceIdSet> approximate = () -> TraceIdSet.approximate(0.01);
+
+        assertFalse(Kieker2UmlUtil.getTraceIds(model, approximate).isExact());
+        assertFalse(Kieker2UmlUtil.getTraceIds(Kieker2UmlUtil.createModel("empty"), approximate).isExact());
+        // the factory of one model does not change how the sets of another one are created
+        assertTrue(Kieker2UmlUtil.getTraceIds(modelWithLegacyIds("7")).isExact());
+        assertNull(Kieker2UmlUtil.createModel("empty").getEAnnotation(Kieker2UmlUtil.TRACE_IDS_SET_NAME));
+    }
+
+    @Test
+    void unreadableIdsAreRejected() {
+        assertThrows(ModelNotComformantException.class, () -> Kieker2UmlUtil.getTraceIds(modelWithLegacyIds("1", "trace")));
+
+        final Model model = Kieker2UmlUtil.createModel("broken");
+        model.createEAnnotation(Kieker2UmlUtil.TRACE_IDS_SET_NAME).getDetails().put(Kieker2UmlUtil.TRACE_IDS_KEY, "rb1:!");
+        assertThrows(ModelNotComformantException.class, () -> Kieker2UmlUtil.getTraceIds(model));
+    }
+}
@@ -0,0 +1,97 @@
+package kieker.extension.performanceanalysis.kieker2uml.uml;
+
+import kieker.extension.performanceanalysis.kieker2uml.statistics.ExecTimeStatistics;
+import kieker.extension.performanceanalysis.kieker2uml.trace.TestTraces;
+import kieker.extension.performanceanalysis.kieker2uml.trace.TraceIdSet;
+import kieker.extension.performanceanalysis.kieker2uml.trace.TraceShape;
+import org.eclipse.uml2.uml.Interaction;
+import org.eclipse.uml2.uml.Model;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+
+import static kieker.extension.performanceanalysis.kieker2uml.uml.MarteSupport.EXEC_TIME_GA_STEP;
+import static kieker.extension.performanceanalysis.kieker2uml.uml.MarteSupport.GA_STEP_ANNOTATION_NAME;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MarteSupportTest {
+
+    /**
+     * @return a model with the GaStep of a model that was written before the latency sketch was introduced
+     */
+    private static Model modelWithoutSketch(final String entries) {
+        final Model model = Kieker2UmlUtil.createModel("without sketch");
+        Kieker2UmlUtil.setAnnotationDetail(model, GA_STEP_ANNOTATION_NAME, EXEC_TIME_GA_STEP, "20.0");
+        Kieker2UmlUtil.setAnnotationDetail(model, GA_STEP_ANNOTATION_NAME, EXEC_TIME_GA_STEP + "Count", "3");
+        Kieker2UmlUtil.setAnnotationDetail(model, GA_STEP_ANNOTATION_NAME, EXEC_TIME_GA_STEP + "Variance", "100.0");
+        Kieker2UmlUtil.setAnnotationDetail(model, GA_STEP_ANNOTATION_NAME, EXEC_TIME_GA_STEP + "Min", "10.0");
+        Kieker2UmlUtil.setAnnotationDetail(model, GA_STEP_ANNOTATION_NAME, EXEC_TIME_GA_STEP + "Max", "30.0");
+        Kieker2UmlUtil.setAnnotationDetail(model, GA_STEP_ANNOTATION_NAME, EXEC_TIME_GA_STEP + "P50", "20.0");
+        Kieker2UmlUtil.setAnnotationDetail(model, GA_STEP_ANNOTATION_NAME, EXEC_TIME_GA_STEP + "Entries", entries);
+        return model;
+    }
+
+    private static void addExecTimes(final Model model, final int sampleLimit, final double... execTimes) {
+        final PerformanceAccumulator accumulator = new PerformanceAccumulator(sampleLimit);
+        final ExecTimeStatistics statistics = new ExecTimeStatistics(0);
+        for (final double execTime : execTimes) {
+            statistics.add(execTime);
+        }
+        MarteSupport.updateGaStep(model, statistics, accumulator);
+        MarteSupport.writeTimeStatistics(accumulator);
+    }
+
+    private static Optional<String> getDetail(final Model model, final String key) {
+        return Kieker2UmlUtil.getAnnotationDetail(model, GA_STEP_ANNOTATION_NAME, key);
+    }
+
+    @Test
+    void percentilesAreOmittedWithoutAllTimes() {
+        final Model model = modelWithoutSketch("10.0");
+
+        addExecTimes(model, 1, 40);
+
+        assertEquals("4", getDetail(model, EXEC_TIME_GA_STEP + "Count").orElseThrow());
+        assertEquals(25.0, Double.parseDouble(getDetail(model, EXEC_TIME_GA_STEP).orElseThrow()), 1e-9);
+        assertTrue(getDetail(model, EXEC_TIME_GA_STEP + "P50").isEmpty());
+        assertTrue(getDetail(model, EXEC_TIME_GA_STEP + "P99").isEmpty());
+
+        // the sketch of the later times does not make the percentiles complete
+        addExecTimes(model, 1, 50);
+
+        assertEquals("5", getDetail(model, EXEC_TIME_GA_STEP + "Count").orElseThrow());
+        assertTrue(getDetail(model, EXEC_TIME_GA_STEP + "P50").isEmpty());
+    }
+
+    @Test
+    void sketchIsRebuiltFromAllTimes() {
+        final Model model = modelWithoutSketch("10.0,20.0,30.0");
+
+        addExecTimes(model, 10, 40, 50);
+
+        assertEquals("5", getDetail(model, EXEC_TIME_GA_STEP + "Count").orElseThrow());
+        assertEquals(30.0, Double.parseDouble(getDetail(model, EXEC_TIME_GA_STEP + "P50").orElseThrow()), 30.0 * 0.01);
+        // the rank of the 99th percentile of five times is the fourth time
+        assertEquals(40.0, Double.parseDouble(getDetail(model, EXEC_TIME_GA_STEP + "P99").orElseThrow()), 40.0 * 0.01);
+        assertTrue(Kieker2UmlUtil.getAnnotationDetail(model, MarteSupport.LATENCY_SKETCH, EXEC_TIME_GA_STEP).isPresent());
+    }
+
+    private static Interaction addShape(final Model model, final PerformanceAccumulator accumulator) {
+        final TraceShape shape = TestTraces.shape(TestTraces.chain(1, 0, "shop.Catalog.find", "shop.Stock.count"));
+        Kieker2UmlModel.addStaticAndDeploymentPackage(model, shape.getDigest());
+        Kieker2UmlModel.addBehaviourToDynamicPackage(model, shape, "shop", accumulator);
+        return (Interaction) UmlUseCases.findUseCase(model, "shop", "").orElseThrow().getOwnedBehaviors().get(0);
+    }
+
+    @Test
+    void traceIdsAreKeptAsConfiguredForTheModel() {
+        final Interaction approximate = addShape(Kieker2UmlUtil.createModel("approximate"),
+                new PerformanceAccumulator(0, () -> TraceIdSet.approximate(0.01)));
+        final Interaction exact = addShape(Kieker2UmlUtil.createModel("exact"), new PerformanceAccumulator(0));
+
+        assertFalse(Kieker2UmlUtil.getTraceIds(approximate).isExact());
+        assertTrue(Kieker2UmlUtil.getTraceIds(exact).isExact());
+    }
+}
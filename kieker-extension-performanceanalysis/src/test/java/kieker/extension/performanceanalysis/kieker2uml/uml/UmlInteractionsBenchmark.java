@@ -0,0 +1,58 @@
+package kieker.extension.performanceanalysis.kieker2uml.uml;
+
+import kieker.extension.performanceanalysis.kieker2uml.Benchmarks;
+import kieker.extension.performanceanalysis.kieker2uml.trace.TestTraces;
+import kieker.extension.performanceanalysis.kieker2uml.trace.TraceShape;
+import org.eclipse.uml2.uml.Model;
+import org.eclipse.uml2.uml.UseCase;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The time to create each of 10k distinct interactions in a single use case, measured per block of 1000 interactions.
+ * The entry lifeline of a new interaction is connected to the actor of the use case once, so the time per interaction
+ * does not grow with the interactions the use case already has.
+ */
+@Tag(Benchmarks.TAG)
+class UmlInteractionsBenchmark {
+
+    private static final String USE_CASE = "benchmark";
+    private static final int INTERACTIONS = 10_000;
+    private static final int BLOCK = 1_000;
+
+    @Test
+    void creatingAnInteractionDoesNotDependOnTheInteractionsOfTheUseCase() {
+        final Model model = Kieker2UmlUtil.createModel("benchmark");
+        final PerformanceAccumulator performance = new PerformanceAccumulator(0);
+        Benchmarks.report("%12s %22s", "interactions", "us/interaction");
+        double microsOfSecondBlock = 0;
+        for (int block = 0; block < INTERACTIONS / BLOCK; block++) {
+            final TraceShape[] shapes = new TraceShape[BLOCK];
+            for (int i = 0; i < BLOCK; i++) {
+                final int index = block * BLOCK + i;
+                shapes[i] = TestTraces.shape(TestTraces.distinctChain(index, index, 1_000L * index));
+            }
+            final long start = System.nanoTime();
+            for (final TraceShape shape : shapes) {
+                Kieker2UmlModel.addBehaviourToDynamicPackage(model, shape, USE_CASE, performance);
+            }
+            final double microsPerInteraction = (System.nanoTime() - start) / 1_000.0 / BLOCK;
+            final int interactions = (block + 1) * BLOCK;
+            Benchmarks.report("%12d %22.1f", interactions, microsPerInteraction);
+
+            // the first block warms up
+            if (block == 1) {
+                microsOfSecondBlock = microsPerInteraction;
+            } else if (block > 1) {
+                final double bound = 3 * microsOfSecondBlock;
+                assertTrue(microsPerInteraction < bound, () -> String.format("%s us/interaction at %s interactions, bound %s",
+                        microsPerInteraction, interactions, bound));
+            }
+        }
+        final UseCase useCase = UmlUseCases.findUseCase(model, USE_CASE, "").orElseThrow();
+        assertEquals(INTERACTIONS, useCase.getOwnedBehaviors().size());
+    }
+}
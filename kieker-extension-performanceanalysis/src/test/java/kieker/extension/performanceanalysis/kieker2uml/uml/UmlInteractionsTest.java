@@ -0,0 +1,92 @@
+package kieker.extension.performanceanalysis.kieker2uml.uml;
+
+import kieker.extension.performanceanalysis.kieker2uml.trace.TestTraces;
+import kieker.extension.performanceanalysis.kieker2uml.trace.TraceShape;
+import org.eclipse.uml2.uml.Interaction;
+import org.eclipse.uml2.uml.Model;
+import org.eclipse.uml2.uml.UseCase;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.function.LongPredicate;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UmlInteractionsTest {
+
+    private static final String USE_CASE = "shop";
+
+    private static TraceShape shape(final long traceId, final String... operations) {
+        return TestTraces.shape(TestTraces.chain(traceId, 1_000L * traceId, operations));
+    }
+
+    private static void add(final Model model, final TraceShape shape) {
+        Kieker2UmlModel.addStaticAndDeploymentPackage(model, shape.getDigest());
+        Kieker2UmlModel.addBehaviourToDynamicPackage(model, shape, USE_CASE, new PerformanceAccumulator(0));
+    }
+
+    private static List<Interaction> getInteractions(final Model model) {
+        final UseCase useCase = UmlUseCases.findUseCase(model, USE_CASE, "").orElseThrow();
+        return useCase.getOwnedBehaviors().stream().map(b -> (Interaction) b).collect(Collectors.toList());
+    }
+
+    /**
+     * Continues with the model like a later run that loaded it, nothing that was registered for the model is known.
+     */
+    private static void forgetRun(final Model model) {
+        UmlUseCases.getDynamicView(model).eAdapters().removeIf(DynamicViewIndex.class::isInstance);
+    }
+
+    @Test
+    void collidingFingerprintsAreResolvedByTheMessages() {
+        final Model model = Kieker2UmlUtil.createModel("collisions");
+        final TraceShape find = shape(1, "shop.Catalog.find", "shop.Stock.count");
+        final TraceShape reserve = shape(2, "shop.Cart.order", "shop.Stock.reserve");
+        add(model, find);
+        final Interaction findInteraction = getInteractions(model).get(0);
+        // a 128-bit collision cannot be found, the interaction of 'find' claims the fingerprint of 'reserve' instead
+        Kieker2UmlUtil.setRepresentation(findInteraction, reserve.getFingerprint().toString());
+        forgetRun(model);
+
+        add(model, reserve);
+
+        final List<Interaction> interactions = getInteractions(model);
+        assertEquals(2, interactions.size());
+        final Interaction reserveInteraction = interactions.get(1);
+        assertEquals(reserve.getMessageSequence().getFingerprint(1).toString(), Kieker2UmlUtil.getRepresentation(reserveInteraction).orElseThrow());
+        assertTrue(Kieker2UmlUtil.getTraceIds(findInteraction).contains(1));
+        assertFalse(Kieker2UmlUtil.getTraceIds(findInteraction).contains(2));
+
+        // a later run resolves the same fingerprint, independent of the traces it saw before
+        forgetRun(model);
+        final LongPredicate applied = Kieker2UmlModel.getAppliedTraces(model, USE_CASE, reserve.getMessageSequence());
+        assertTrue(applied.test(2));
+        assertFalse(applied.test(1));
+
+        add(model, shape(3, "shop.Cart.order", "shop.Stock.reserve"));
+
+        assertEquals(2, getInteractions(model).size());
+        assertTrue(Kieker2UmlUtil.getTraceIds(reserveInteraction).contains(3));
+    }
+
+    @Test
+    void legacyRepresentationsAreOnlyChangedByTheMigration() {
+        final Model model = Kieker2UmlUtil.createModel("legacy");
+        final TraceShape find = shape(1, "shop.Catalog.find", "shop.Stock.count");
+        add(model, find);
+        final Interaction interaction = getInteractions(model).get(0);
+        // older versions stored the representation of the whole trace
+        Kieker2UmlUtil.setRepresentation(interaction, "shop.Catalog.find;shop.Stock.count");
+        forgetRun(model);
+
+        assertTrue(Kieker2UmlModel.getAppliedTraces(model, USE_CASE, find.getMessageSequence()).test(1));
+        assertEquals("shop.Catalog.find;shop.Stock.count", Kieker2UmlUtil.getRepresentation(interaction).orElseThrow());
+
+        Kieker2UmlModel.migrate(model);
+
+        assertEquals(find.getFingerprint().toString(), Kieker2UmlUtil.getRepresentation(interaction).orElseThrow());
+    }
+}